@@ -0,0 +1,92 @@
+package com.systemsimulator.controller;
+
+import com.systemsimulator.model.Architecture;
+import com.systemsimulator.model.Component;
+import com.systemsimulator.model.Link;
+import com.systemsimulator.utils.BinaryReader;
+import com.systemsimulator.utils.BinaryWriter;
+import com.systemsimulator.utils.TaggedEntityCodec;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads and writes architectures, components and links as {@link TaggedEntityCodec} documents
+ * when a client asks for {@link TaggedEntityCodec#MEDIA_TYPE} in {@code Accept} or sends it as
+ * {@code Content-Type}. JSON stays the default. Request bodies are read whole, up to a size limit.
+ */
+public class ArchitectureBinaryMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(TaggedEntityCodec.MEDIA_TYPE);
+
+    private final int maxBytes;
+
+    public ArchitectureBinaryMessageConverter(int maxBytes) {
+        super(MEDIA_TYPE);
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Architecture.class.isAssignableFrom(clazz) || Component.class.isAssignableFrom(clazz)
+                || Link.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        TaggedEntityCodec.Document document;
+        try {
+            document = TaggedEntityCodec.readDocument(BinaryReader.of(inputMessage.getBody(), maxBytes), id -> null);
+        } catch (IllegalArgumentException e) {
+            throw new HttpMessageNotReadableException(e.getMessage(), e, inputMessage);
+        }
+        List<?> candidates = Architecture.class.isAssignableFrom(clazz) ? document.getArchitectures()
+                : Link.class.isAssignableFrom(clazz) ? document.getLinks() : document.getComponents();
+        for (Object candidate : candidates) {
+            if (clazz.isInstance(candidate)) {
+                return candidate;
+            }
+        }
+        throw new HttpMessageNotReadableException("Document holds no " + clazz.getSimpleName(), inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object value, HttpOutputMessage outputMessage) throws IOException {
+        BinaryWriter out = new BinaryWriter(4096);
+        if (value instanceof Architecture) {
+            TaggedEntityCodec.writeArchitectures(out, List.of((Architecture) value));
+        } else if (value instanceof Link) {
+            TaggedEntityCodec.writeLinks(out, List.of((Link) value));
+        } else {
+            TaggedEntityCodec.writeDocument(out, List.of((Component) value),
+                    Collections.emptyList(), Collections.emptyList());
+        }
+        outputMessage.getBody().write(out.buffer(), 0, out.size());
+    }
+
+    /**
+     * True if an {@code Accept} header names the binary media type
+     */
+    public static boolean isAccepted(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return false;
+        }
+        try {
+            for (MediaType mediaType : MediaType.parseMediaTypes(accept)) {
+                if (MEDIA_TYPE.equalsTypeAndSubtype(mediaType) && mediaType.getQualityValue() > 0) {
+                    return true;
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            // Left to the usual negotiation
+        }
+        return false;
+    }
+}
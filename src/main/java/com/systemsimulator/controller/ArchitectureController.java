@@ -1,14 +1,42 @@
 package com.systemsimulator.controller;
 
 import com.systemsimulator.model.*;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.systemsimulator.service.ArchitectureService;
+import com.systemsimulator.service.ArchitectureTransferService;
+import com.systemsimulator.service.ArchiveService;
+import com.systemsimulator.service.BatchEvaluationService;
 import com.systemsimulator.service.RuleEngineService;
+import com.systemsimulator.service.SensitivityService;
+import com.systemsimulator.service.SimulationService;
+import com.systemsimulator.utils.AvailabilitySimulator;
+import com.systemsimulator.utils.DiscreteEventSimulator;
+import com.systemsimulator.utils.EvaluationCache;
+import com.systemsimulator.utils.NormalizedGraphWriter;
+import com.systemsimulator.utils.ParameterWeights;
+import com.systemsimulator.utils.QueueingNetworkSolver;
+import com.systemsimulator.utils.TaggedEntityCodec;
+import com.systemsimulator.utils.WeightVector;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/architecture")
@@ -21,6 +49,31 @@ public class ArchitectureController {
     @Autowired
     private RuleEngineService ruleEngineService;
 
+    @Autowired
+    private SimulationService simulationService;
+
+    @Autowired
+    private BatchEvaluationService batchEvaluationService;
+
+    @Autowired
+    private SensitivityService sensitivityService;
+
+    @Autowired
+    private ArchiveService archiveService;
+
+    @Autowired
+    private ArchitectureTransferService transferService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ParameterWeights parameterWeights;
+
+    /** Longest a streamed batch evaluation may run */
+    @Value("${simulator.batch.stream-timeout-minutes:30}")
+    private long batchStreamTimeoutMinutes = 30;
+
     /**
      * Get all architectures
      */
@@ -80,6 +133,67 @@ public class ArchitectureController {
         }
     }
 
+    /**
+     * Version history of an architecture
+     */
+    @GetMapping("/{id}/versions")
+    public ResponseEntity<?> getArchitectureVersions(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(architectureService.getHistory(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Undo the last change to an architecture
+     */
+    @PostMapping("/{id}/undo")
+    public ResponseEntity<?> undoArchitectureChange(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(architectureService.undo(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Redo the last undone change to an architecture
+     */
+    @PostMapping("/{id}/redo")
+    public ResponseEntity<?> redoArchitectureChange(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(architectureService.redo(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Fork an architecture (optionally from an earlier version) into a new one
+     */
+    @PostMapping("/{id}/fork")
+    public ResponseEntity<?> forkArchitecture(
+            @PathVariable String id,
+            @RequestBody(required = false) ForkRequest request) {
+        try {
+            Architecture fork = architectureService.forkArchitecture(id,
+                    request != null ? request.getName() : null,
+                    request != null ? request.getVersion() : null);
+            return ResponseEntity.status(HttpStatus.CREATED).body(fork);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
     /**
      * Evaluate architecture (detailed)
      */
@@ -95,6 +209,43 @@ public class ArchitectureController {
         }
     }
 
+    /**
+     * Evaluate many architectures in parallel, streaming one JSON result per line
+     * (application/x-ndjson) as each finishes. Unknown ids are reported per item. The stream
+     * may run for {@code simulator.batch.stream-timeout-minutes}; other requests keep the
+     * default async timeout.
+     */
+    @PostMapping("/evaluate/batch")
+    public ResponseEntity<?> evaluateArchitectures(@RequestBody BatchEvaluationService.BatchRequest request) {
+        WeightVector weights;
+        try {
+            weights = batchEvaluationService.resolveWeights(request);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(TimeUnit.MINUTES.toMillis(batchStreamTimeoutMinutes));
+        // A failed send (client gone, or timed out) cancels the rest of the batch
+        batchEvaluationService.evaluateBatchAsync(request, weights, result -> {
+            try {
+                byte[] json = objectMapper.writeValueAsBytes(result);
+                byte[] line = Arrays.copyOf(json, json.length + 1);
+                line[json.length] = '\n';
+                emitter.send(line, MediaType.APPLICATION_NDJSON);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).whenComplete((summary, error) -> {
+            if (error != null) {
+                emitter.completeWithError(error);
+            } else {
+                emitter.complete();
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(emitter);
+    }
+
     /**
      * Get simple score for architecture
      */
@@ -110,21 +261,102 @@ public class ArchitectureController {
     }
 
     /**
-     * Visualize architecture (get graph data)
+     * Simulate request traffic through an architecture
+     */
+    @PostMapping("/{id}/simulate")
+    public ResponseEntity<?> simulateArchitecture(
+            @PathVariable String id,
+            @RequestBody(required = false) DiscreteEventSimulator.SimulationConfig config) {
+        if (!architectureService.getArchitectureById(id).isPresent()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse("Architecture not found: " + id));
+        }
+        try {
+            return ResponseEntity.ok(simulationService.simulate(id, config));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Estimate availability under random component failures
+     */
+    @PostMapping("/{id}/availability")
+    public ResponseEntity<?> simulateAvailability(
+            @PathVariable String id,
+            @RequestBody(required = false) AvailabilitySimulator.AvailabilityConfig config) {
+        if (!architectureService.getArchitectureById(id).isPresent()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse("Architecture not found: " + id));
+        }
+        try {
+            return ResponseEntity.ok(simulationService.simulateAvailability(id, config));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Estimate per-component utilization and end-to-end latency analytically
+     */
+    @PostMapping("/{id}/queueing")
+    public ResponseEntity<?> analyzeQueueing(
+            @PathVariable String id,
+            @RequestBody(required = false) QueueingNetworkSolver.QueueingConfig config) {
+        if (!architectureService.getArchitectureById(id).isPresent()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse("Architecture not found: " + id));
+        }
+        try {
+            return ResponseEntity.ok(simulationService.analyzeQueueing(id, config));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Get evaluation cache statistics
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<EvaluationCache.CacheStats> getEvaluationCacheStats() {
+        return ResponseEntity.ok(architectureService.getEvaluationCacheStats());
+    }
+
+    /**
+     * Visualize architecture (get graph data). Normalized by default; {@code format=nested}
+     * embeds both endpoint components in every link, as before.
      */
     @GetMapping("/visualize/{id}")
-    public ResponseEntity<?> visualizeArchitecture(@PathVariable String id) {
-        return architectureService.getArchitectureById(id)
-                .map(arch -> {
-                    VisualizationData data = new VisualizationData();
-                    data.setArchitectureId(arch.getId());
-                    data.setArchitectureName(arch.getName());
-                    data.setComponents(arch.getComponents());
-                    data.setLinks(arch.getLinks());
-                    return ResponseEntity.ok((Object) data);
-                })
-                .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(new ErrorResponse("Architecture not found: " + id)));
+    public ResponseEntity<?> visualizeArchitecture(
+            @PathVariable String id,
+            @RequestParam(required = false) String format) {
+        boolean normalized;
+        try {
+            normalized = NormalizedGraphWriter.isNormalized(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+        Optional<Architecture> found = architectureService.getArchitectureById(id);
+        if (!found.isPresent()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse("Architecture not found: " + id));
+        }
+        Architecture arch = found.get().snapshot();
+        if (normalized) {
+            // Components once, links by endpoint id, streamed straight into the response
+            StreamingResponseBody body = out -> {
+                try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+                    NormalizedGraphWriter.writeArchitecture(generator, arch);
+                }
+            };
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+        }
+        VisualizationData data = new VisualizationData();
+        data.setArchitectureId(arch.getId());
+        data.setArchitectureName(arch.getName());
+        data.setComponents(arch.getComponents());
+        data.setLinks(arch.getLinks());
+        return ResponseEntity.ok(data);
     }
 
     /**
@@ -145,6 +377,224 @@ public class ArchitectureController {
         }
     }
 
+    /**
+     * Rank any number of architectures and return their Pareto frontier
+     */
+    @PostMapping("/rank")
+    public ResponseEntity<?> rankArchitectures(@RequestBody RankingRequest request) {
+        WeightVector weights;
+        try {
+            weights = parameterWeights.resolve(request.getProfile(), request.getProfileName(), request.getWeights());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+        if (request.getArchitectureIds() == null || request.getArchitectureIds().isEmpty()) {
+            return ResponseEntity.badRequest().body(new ErrorResponse("architectureIds must not be empty"));
+        }
+        try {
+            return ResponseEntity.ok(architectureService.rankArchitectures(request.getArchitectureIds(), weights));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * List registered custom weight profiles
+     */
+    @GetMapping("/weight-profiles")
+    public ResponseEntity<List<WeightVector>> getWeightProfiles() {
+        return ResponseEntity.ok(parameterWeights.getCustomProfiles());
+    }
+
+    /**
+     * Register a named custom weight profile once; later requests refer to it by profileName
+     */
+    @PostMapping("/weight-profiles")
+    public ResponseEntity<?> registerWeightProfile(@RequestBody WeightProfileRequest request) {
+        try {
+            WeightVector profile = parameterWeights.registerProfile(
+                    request.getName(), request.getBase(), request.getWeights());
+            return ResponseEntity.status(HttpStatus.CREATED).body(profile);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Weight-sensitivity sweep: how rankings change across many weight vectors
+     */
+    @PostMapping("/sensitivity")
+    public ResponseEntity<?> analyzeWeightSensitivity(@RequestBody SensitivityService.SensitivityRequest request) {
+        if (request.getArchitectureIds() != null) {
+            for (String id : request.getArchitectureIds()) {
+                if (!architectureService.getArchitectureById(id).isPresent()) {
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body(new ErrorResponse("Architecture not found: " + id));
+                }
+            }
+        }
+        try {
+            return ResponseEntity.ok(sensitivityService.analyze(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Write an architecture to the memory-mapped archive
+     */
+    @PostMapping("/{id}/archive")
+    public ResponseEntity<?> archiveArchitecture(@PathVariable String id) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(archiveService.archive(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * List archived architecture ids
+     */
+    @GetMapping("/archive")
+    public ResponseEntity<?> getArchivedArchitectures() {
+        try {
+            return ResponseEntity.ok(archiveService.listArchived());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Score an archived architecture straight from its mapped file
+     */
+    @GetMapping("/archive/{id}/score")
+    public ResponseEntity<?> evaluateArchivedArchitecture(
+            @PathVariable String id,
+            @RequestParam(required = false) ParameterWeights.WeightProfile profile,
+            @RequestParam(required = false) String profileName) {
+        WeightVector weights;
+        try {
+            weights = parameterWeights.resolve(profile, profileName, null);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+        try {
+            return ResponseEntity.ok(archiveService.evaluate(id, weights));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Load an archived architecture back into the repositories for editing
+     */
+    @PostMapping("/archive/{id}/restore")
+    public ResponseEntity<?> restoreArchivedArchitecture(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(archiveService.restore(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Import one architecture in the normalized format (nested link endpoints are accepted too),
+     * or a binary document. JSON is parsed as a stream, a binary document is read whole up to
+     * {@code simulator.transfer.max-binary-import-mb}; nothing is stored if any link is invalid.
+     */
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, TaggedEntityCodec.MEDIA_TYPE})
+    public ResponseEntity<?> importArchitecture(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) {
+        try {
+            ArchitectureTransferService.ImportResult result = isBinary(contentType)
+                    ? transferService.importBinary(body) : transferService.importArchitecture(body);
+            return ResponseEntity.status(HttpStatus.CREATED).body(result);
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Import many architectures: a JSON array, {@code {"architectures": [...]}} as exported, or
+     * a binary document
+     */
+    @PostMapping(value = "/import/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, TaggedEntityCodec.MEDIA_TYPE})
+    public ResponseEntity<?> importArchitectures(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) {
+        try {
+            ArchitectureTransferService.ImportResult result = isBinary(contentType)
+                    ? transferService.importBinary(body) : transferService.importArchitectures(body);
+            return ResponseEntity.status(HttpStatus.CREATED).body(result);
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Export one architecture in the normalized format, streamed into the response, or as a
+     * binary document when the client accepts it
+     */
+    @GetMapping("/{id}/export")
+    public ResponseEntity<?> exportArchitecture(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        Optional<Architecture> found = architectureService.getArchitectureById(id);
+        if (!found.isPresent()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse("Architecture not found: " + id));
+        }
+        Architecture arch = found.get().snapshot();
+        if (ArchitectureBinaryMessageConverter.isAccepted(accept)) {
+            StreamingResponseBody body = out -> transferService.exportBinary(List.of(arch), out);
+            return ResponseEntity.ok().contentType(ArchitectureBinaryMessageConverter.MEDIA_TYPE).body(body);
+        }
+        StreamingResponseBody body = out -> transferService.exportArchitecture(arch, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * Export the given architectures (all when no ids are given) as {@code {"architectures": [...]}},
+     * or as one binary document when the client accepts it
+     */
+    @GetMapping("/export")
+    public ResponseEntity<?> exportArchitectures(
+            @RequestParam(required = false) List<String> ids,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        List<Architecture> architectures;
+        try {
+            architectures = transferService.resolveArchitectures(ids);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse(e.getMessage()));
+        }
+        if (ArchitectureBinaryMessageConverter.isAccepted(accept)) {
+            StreamingResponseBody body = out -> transferService.exportBinary(architectures, out);
+            return ResponseEntity.ok().contentType(ArchitectureBinaryMessageConverter.MEDIA_TYPE).body(body);
+        }
+        StreamingResponseBody body = out -> transferService.exportArchitectures(architectures, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private static boolean isBinary(MediaType contentType) {
+        return ArchitectureBinaryMessageConverter.MEDIA_TYPE.equalsTypeAndSubtype(contentType);
+    }
+
     /**
      * Validate architecture
      */
@@ -197,6 +647,17 @@ public class ArchitectureController {
         public void setName(String name) { this.name = name; }
     }
 
+    public static class ForkRequest {
+        private String name;
+        private Integer version;
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+
+        public Integer getVersion() { return version; }
+        public void setVersion(Integer version) { this.version = version; }
+    }
+
     public static class EvaluationRequest {
         private String architectureId;
 
@@ -215,6 +676,41 @@ public class ArchitectureController {
         public void setArchitecture2Id(String architecture2Id) { this.architecture2Id = architecture2Id; }
     }
 
+    public static class RankingRequest {
+        private List<String> architectureIds;
+        private ParameterWeights.WeightProfile profile;
+        private String profileName;
+        private Map<Parameter, Double> weights;
+
+        public List<String> getArchitectureIds() { return architectureIds; }
+        public void setArchitectureIds(List<String> architectureIds) { this.architectureIds = architectureIds; }
+
+        public ParameterWeights.WeightProfile getProfile() { return profile; }
+        public void setProfile(ParameterWeights.WeightProfile profile) { this.profile = profile; }
+
+        public String getProfileName() { return profileName; }
+        public void setProfileName(String profileName) { this.profileName = profileName; }
+
+        public Map<Parameter, Double> getWeights() { return weights; }
+        public void setWeights(Map<Parameter, Double> weights) { this.weights = weights; }
+    }
+
+    public static class WeightProfileRequest {
+        private String name;
+        private ParameterWeights.WeightProfile base;
+        private Map<Parameter, Double> weights;
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+
+        /** Built-in profile the weights start from (BALANCED when omitted) */
+        public ParameterWeights.WeightProfile getBase() { return base; }
+        public void setBase(ParameterWeights.WeightProfile base) { this.base = base; }
+
+        public Map<Parameter, Double> getWeights() { return weights; }
+        public void setWeights(Map<Parameter, Double> weights) { this.weights = weights; }
+    }
+
     public static class ScoreResponse {
         private String architectureId;
         private double score;
@@ -0,0 +1,24 @@
+package com.systemsimulator.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Registers the binary architecture encoding after the default converters, so JSON is still
+ * chosen unless a client asks for the binary media type
+ */
+@Configuration
+public class BinaryEncodingConfig implements WebMvcConfigurer {
+
+    @Value("${simulator.transfer.max-binary-import-mb:64}")
+    private int maxBinaryImportMb;
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new ArchitectureBinaryMessageConverter(maxBinaryImportMb * 1024 * 1024));
+    }
+}
@@ -44,6 +44,19 @@ public class ComponentController {
         return ResponseEntity.ok(heuristics);
     }
 
+    /**
+     * Reload heuristics-config.json now and re-score components whose defaults changed
+     */
+    @PostMapping("/heuristics/reload")
+    public ResponseEntity<?> reloadHeuristics() {
+        try {
+            return ResponseEntity.ok(heuristicService.reloadConfiguration());
+        } catch (RuntimeException e) {
+            logger.error("Failed to reload heuristics config: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
     /**
      * Get component by ID
      */
@@ -1,15 +1,20 @@
 package com.systemsimulator.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.systemsimulator.model.*;
 import com.systemsimulator.service.LinkService;
 import com.systemsimulator.service.RuleEngineService;
 import com.systemsimulator.service.HeuristicService;
+import com.systemsimulator.utils.NormalizedGraphWriter;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import com.systemsimulator.service.ComponentService;
 
 import java.util.List;
@@ -33,12 +38,31 @@ public class LinkController {
     @Autowired
     private HeuristicService heuristicService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
-     * Get all links
+     * Get all links. Normalized by default (each endpoint component once, links by endpoint
+     * id, streamed); {@code format=nested} returns links with embedded components.
      */
     @GetMapping
-    public ResponseEntity<List<Link>> getAllLinks() {
-        return ResponseEntity.ok(linkService.getAllLinks());
+    public ResponseEntity<?> getAllLinks(@RequestParam(required = false) String format) {
+        boolean normalized;
+        try {
+            normalized = NormalizedGraphWriter.isNormalized(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+        List<Link> links = linkService.getAllLinks();
+        if (!normalized) {
+            return ResponseEntity.ok(links);
+        }
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+                NormalizedGraphWriter.writeLinks(generator, links);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     /**
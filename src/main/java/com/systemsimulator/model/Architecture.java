@@ -1,18 +1,42 @@
 package com.systemsimulator.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+/**
+ * Components and links are held in immutable {@link Version}s backed by {@link PersistentList}s.
+ * Every edit creates a new version that shares all unchanged nodes with the previous one, so
+ * readers never see a list in the middle of a mutation and need no lock, and forks, undo and
+ * redo cost O(log n) instead of a copy. Changes must come from one writer at a time; the
+ * service layer runs them on the architecture's mailbox ({@code ArchitectureMailboxes}).
+ *
+ * The history is bounded: once it holds {@link #MAX_HISTORY} versions, the oldest half is
+ * dropped and can no longer be undone or forked from. Forks and snapshots keep the history
+ * they started with.
+ */
 @Setter
 @Getter
 public class Architecture {
+    static final int MAX_HISTORY = 1000;
+
     private String id;
     private String name;
-    private List<Component> components = new ArrayList<>();
-    private List<Link> links = new ArrayList<>();
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile State state = State.EMPTY;
+
+    // Running evaluation totals for the current version, owned by the writer; kept in sync by
+    // edits, undo and redo, and rebuilt if the lists are replaced
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private IncrementalEvaluator evaluator;
 
     public Architecture() {}
 
@@ -21,12 +45,422 @@ public class Architecture {
         this.name = name;
     }
 
+    /**
+     * Components of the current version (unmodifiable)
+     */
+    public List<Component> getComponents() {
+        return state.version.components;
+    }
+
+    /**
+     * Links of the current version (unmodifiable)
+     */
+    public List<Link> getLinks() {
+        return state.version.links;
+    }
+
+    /**
+     * Replace the components; starts a new history
+     */
+    public void setComponents(List<Component> components) {
+        this.evaluator = null;
+        this.state = State.of(Version.root(PersistentList.of(components), state.version.links));
+    }
+
+    /**
+     * Replace the links; starts a new history
+     */
+    public void setLinks(List<Link> links) {
+        this.evaluator = null;
+        this.state = State.of(Version.root(state.version.components, PersistentList.of(links)));
+    }
+
     public void addComponent(Component component) {
-        this.components.add(component);
+        IncrementalEvaluator totals = evaluator();
+        Version current = state.version;
+        totals.addComponent(component);
+        commit(current.child(Edit.ADD_COMPONENT, component, state.lastNumber + 1,
+                current.components.plus(component), current.links), totals);
     }
 
     public void addLink(Link link) {
-        this.links.add(link);
+        IncrementalEvaluator totals = evaluator();
+        Version current = state.version;
+        totals.addLink(link);
+        commit(current.child(Edit.ADD_LINK, link, state.lastNumber + 1,
+                current.components, current.links.plus(link)), totals);
     }
-}
 
+    /**
+     * Remove a component (by identity) from the architecture
+     */
+    public boolean removeComponent(Component component) {
+        Version current = state.version;
+        int index = current.components.indexOfIdentical(component);
+        if (index < 0) {
+            return false;
+        }
+        IncrementalEvaluator totals = evaluator();
+        totals.removeComponent(component);
+        commit(current.child(Edit.REMOVE_COMPONENT, component, state.lastNumber + 1,
+                current.components.minus(index), current.links), totals);
+        return true;
+    }
+
+    /**
+     * Remove a link (by identity) from the architecture
+     */
+    public boolean removeLink(Link link) {
+        Version current = state.version;
+        int index = current.links.indexOfIdentical(link);
+        if (index < 0) {
+            return false;
+        }
+        IncrementalEvaluator totals = evaluator();
+        totals.removeLink(link);
+        commit(current.child(Edit.REMOVE_LINK, link, state.lastNumber + 1,
+                current.components, current.links.minus(index)), totals);
+        return true;
+    }
+
+    /**
+     * Re-read a component's heuristics after they were changed in place
+     */
+    public void refreshComponent(Component component) {
+        State current = state;
+        if (evaluator != null) {
+            if (evaluator.refreshComponent(component)) {
+                state = current.withTotals(evaluator.totals());
+            }
+        } else if (current.version.components.indexOfIdentical(component) >= 0) {
+            state = current.withTotals(null);
+        }
+    }
+
+    /**
+     * Re-read a link's heuristics after they were changed in place
+     */
+    public void refreshLink(Link link) {
+        State current = state;
+        if (evaluator != null) {
+            if (evaluator.refreshLink(link)) {
+                state = current.withTotals(evaluator.totals());
+            }
+        } else if (current.version.links.indexOfIdentical(link) >= 0) {
+            state = current.withTotals(null);
+        }
+    }
+
+    /**
+     * Step back to the previous version; false if there is none
+     */
+    public boolean undo() {
+        State current = state;
+        Version previous = current.version.parent;
+        if (previous == null) {
+            return false;
+        }
+        if (evaluator != null) {
+            current.version.revert(evaluator);
+        }
+        state = new State(previous, new Redo(current.version, current.redo), current.lastNumber,
+                Math.max(1, current.history - 1), evaluator != null ? evaluator.totals() : null);
+        return true;
+    }
+
+    /**
+     * Re-apply the most recently undone version; false if there is none
+     */
+    public boolean redo() {
+        State current = state;
+        if (current.redo == null) {
+            return false;
+        }
+        Version next = current.redo.version;
+        if (evaluator != null) {
+            next.apply(evaluator);
+        }
+        state = new State(next, current.redo.next, current.lastNumber, current.history + 1,
+                evaluator != null ? evaluator.totals() : null);
+        return true;
+    }
+
+    /**
+     * The current version
+     */
+    @JsonIgnore
+    public Version getVersion() {
+        return state.version;
+    }
+
+    /**
+     * History from the oldest kept version to the current one, followed by the versions that
+     * {@link #redo()} would re-apply, in order
+     */
+    @JsonIgnore
+    public List<Version> getVersions() {
+        return versionsOf(state);
+    }
+
+    private static List<Version> versionsOf(State current) {
+        List<Version> versions = new ArrayList<>();
+        for (Version version = current.version; version != null; version = version.parent) {
+            versions.add(version);
+        }
+        Collections.reverse(versions);
+        for (Redo redo = current.redo; redo != null; redo = redo.next) {
+            versions.add(redo.version);
+        }
+        return versions;
+    }
+
+    /**
+     * A new architecture starting from the current version, sharing its contents and history
+     * (O(1); edits to either one do not affect the other)
+     */
+    public Architecture fork(String id, String name) {
+        State current = state;
+        Architecture fork = new Architecture(id, name);
+        fork.state = new State(current.version, null, current.lastNumber, current.history, current.totals);
+        return fork;
+    }
+
+    /**
+     * A new architecture starting from the given version of this one's history
+     */
+    public Architecture fork(String id, String name, int versionNumber) {
+        State current = state;
+        for (Version version : versionsOf(current)) {
+            if (version.number == versionNumber) {
+                Architecture fork = new Architecture(id, name);
+                fork.state = new State(version, null, current.lastNumber, version.historyLength(),
+                        version == current.version ? current.totals : null);
+                return fork;
+            }
+        }
+        throw new IllegalArgumentException("Version not found: " + versionNumber);
+    }
+
+    /**
+     * A detached, read-only view of the current version: its components, links and totals
+     * always belong together, however the architecture changes afterwards
+     */
+    public Architecture snapshot() {
+        Architecture snapshot = new Architecture(id, name);
+        snapshot.state = state;
+        return snapshot;
+    }
+
+    /**
+     * Evaluation totals of the current version; safe to call from any thread
+     */
+    @JsonIgnore
+    public IncrementalEvaluator.Totals getTotals() {
+        State current = state;
+        IncrementalEvaluator.Totals totals = current.totals;
+        if (totals == null) {
+            // Lists were replaced, rescored or restored without a running evaluator: compute
+            // once for this state (a concurrent reader may do the same; both get equal totals)
+            totals = build(current.version).totals();
+            current.totals = totals;
+        }
+        return totals;
+    }
+
+    /**
+     * Incremental evaluation totals for this architecture, built on first use. Owned by the
+     * writer; readers use {@link #getTotals()}.
+     */
+    @JsonIgnore
+    public IncrementalEvaluator getEvaluator() {
+        return evaluator();
+    }
+
+    private IncrementalEvaluator evaluator() {
+        if (evaluator == null) {
+            evaluator = build(state.version);
+        }
+        return evaluator;
+    }
+
+    private void commit(Version version, IncrementalEvaluator totals) {
+        int history = state.history + 1;
+        if (history > MAX_HISTORY) {
+            // Trim half at a time, so an edit costs O(1) on average
+            version = version.trimmed(MAX_HISTORY / 2);
+            history = MAX_HISTORY / 2;
+        }
+        // A new edit discards the redo history
+        state = new State(version, null, version.number, history, totals.totals());
+    }
+
+    private static IncrementalEvaluator build(Version version) {
+        IncrementalEvaluator rebuilt = new IncrementalEvaluator();
+        for (Component component : version.components) {
+            rebuilt.addComponent(component);
+        }
+        for (Link link : version.links) {
+            rebuilt.addLink(link);
+        }
+        return rebuilt;
+    }
+
+    private enum Edit {
+        INITIAL("Initial version"),
+        ADD_COMPONENT("Added component"),
+        REMOVE_COMPONENT("Removed component"),
+        ADD_LINK("Added link"),
+        REMOVE_LINK("Removed link");
+
+        private final String description;
+
+        Edit(String description) {
+            this.description = description;
+        }
+    }
+
+    /**
+     * One immutable version of the architecture's contents, with the edit that produced it
+     * from its parent. Versions share list nodes with their parent.
+     */
+    public static final class Version {
+        private final int number;
+        private final Version parent;
+        private final Edit edit;
+        private final Object element;
+        private final PersistentList<Component> components;
+        private final PersistentList<Link> links;
+
+        private Version(int number, Version parent, Edit edit, Object element,
+                        PersistentList<Component> components, PersistentList<Link> links) {
+            this.number = number;
+            this.parent = parent;
+            this.edit = edit;
+            this.element = element;
+            this.components = components;
+            this.links = links;
+        }
+
+        static Version root(PersistentList<Component> components, PersistentList<Link> links) {
+            return new Version(0, null, Edit.INITIAL, null, components, links);
+        }
+
+        Version child(Edit edit, Object element, int number,
+                     PersistentList<Component> components, PersistentList<Link> links) {
+            return new Version(number, this, edit, element, components, links);
+        }
+
+        /**
+         * A copy of this version and at most count - 1 ancestors. Versions are shared with
+         * forks, snapshots and redo, so the chain is copied rather than cut.
+         */
+        Version trimmed(int count) {
+            Version[] kept = new Version[count];
+            int length = 0;
+            for (Version version = this; version != null && length < count; version = version.parent) {
+                kept[length++] = version;
+            }
+            Version copy = null;
+            for (int i = length - 1; i >= 0; i--) {
+                Version version = kept[i];
+                copy = new Version(version.number, copy, version.edit, version.element,
+                        version.components, version.links);
+            }
+            return copy;
+        }
+
+        int historyLength() {
+            int length = 0;
+            for (Version version = this; version != null; version = version.parent) {
+                length++;
+            }
+            return length;
+        }
+
+        public int getNumber() { return number; }
+        public Integer getParentNumber() { return parent != null ? parent.number : null; }
+        public int getComponentCount() { return components.size(); }
+        public int getLinkCount() { return links.size(); }
+
+        /**
+         * What produced this version, e.g. "Added component api (API Gateway)"
+         */
+        public String getDescription() {
+            if (element instanceof Component) {
+                Component component = (Component) element;
+                return edit.description + " " + component.getId() + " (" + component.getName() + ")";
+            }
+            if (element instanceof Link) {
+                return edit.description + " " + ((Link) element).getId();
+            }
+            return edit.description;
+        }
+
+        /**
+         * Apply this version's edit to evaluation totals of its parent
+         */
+        void apply(IncrementalEvaluator totals) {
+            switch (edit) {
+                case ADD_COMPONENT: totals.addComponent((Component) element); break;
+                case REMOVE_COMPONENT: totals.removeComponent((Component) element); break;
+                case ADD_LINK: totals.addLink((Link) element); break;
+                case REMOVE_LINK: totals.removeLink((Link) element); break;
+                default: throw new IllegalStateException("Cannot re-apply " + edit);
+            }
+        }
+
+        /**
+         * Undo this version's edit on its evaluation totals, giving its parent's
+         */
+        void revert(IncrementalEvaluator totals) {
+            switch (edit) {
+                case ADD_COMPONENT: totals.removeComponent((Component) element); break;
+                case REMOVE_COMPONENT: totals.addComponent((Component) element); break;
+                case ADD_LINK: totals.removeLink((Link) element); break;
+                case REMOVE_LINK: totals.addLink((Link) element); break;
+                default: throw new IllegalStateException("Cannot revert " + edit);
+            }
+        }
+    }
+
+    // Versions undone from the current state, most recent first
+    private static final class Redo {
+        final Version version;
+        final Redo next;
+
+        Redo(Version version, Redo next) {
+            this.version = version;
+            this.next = next;
+        }
+    }
+
+    /**
+     * Current version, redo history, highest version number handed out, number of versions in
+     * the history, and the totals of the current version (filled in lazily when published without them)
+     */
+    private static final class State {
+        static final State EMPTY = of(Version.root(PersistentList.empty(), PersistentList.empty()));
+
+        final Version version;
+        final Redo redo;
+        final int lastNumber;
+        final int history;
+        volatile IncrementalEvaluator.Totals totals;
+
+        State(Version version, Redo redo, int lastNumber, int history, IncrementalEvaluator.Totals totals) {
+            this.version = version;
+            this.redo = redo;
+            this.lastNumber = lastNumber;
+            this.history = history;
+            this.totals = totals;
+        }
+
+        static State of(Version root) {
+            return new State(root, null, 0, 1, null);
+        }
+
+        State withTotals(IncrementalEvaluator.Totals totals) {
+            return new State(version, redo, lastNumber, history, totals);
+        }
+    }
+}
@@ -4,5 +4,13 @@ public interface ConnectionRule {
     boolean isValid(Component source, Component target, LinkType linkType);
     LinkType getLinkType();
     String getDescription();
-}
 
+    /**
+     * Whether the rule looks at more than the (source type, target type, link type) triple,
+     * e.g. subtypes or properties. Such rules are evaluated per call instead of being
+     * compiled into the registry's decision table.
+     */
+    default boolean requiresPropertyInspection() {
+        return false;
+    }
+}
@@ -1,39 +1,173 @@
 package com.systemsimulator.model;
 
-import lombok.Getter;
-import lombok.Setter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.Map;
 
-@Setter
-@Getter
+/**
+ * Heuristic scores for a component or link, stored densely by {@link Parameter} ordinal.
+ * Unset parameters are held as NaN so they can be skipped during weighted scoring.
+ * A profile created with {@link #sharing(double[])} reads a shared, never-modified array and
+ * copies it on the first write, so default profiles cost no array copy per component.
+ * Serializes as {@code {"scores": {PARAM: value, ...}}}.
+ */
 public class HeuristicProfile {
-    private Map<Parameter, Double> scores = new HashMap<>();
+    private static final Parameter[] PARAMETERS = Parameter.values();
+    public static final int PARAMETER_COUNT = PARAMETERS.length;
 
-    public HeuristicProfile() {}
+    private double[] values;
+    private boolean shared;
+
+    public HeuristicProfile() {
+        values = new double[PARAMETER_COUNT];
+        Arrays.fill(values, Double.NaN);
+    }
+
+    private HeuristicProfile(double[] values, boolean shared) {
+        this.values = values;
+        this.shared = shared;
+    }
+
+    /**
+     * Profile backed by a shared score array (NaN for unset parameters) that the caller
+     * guarantees is never modified; it is copied on the first write
+     */
+    public static HeuristicProfile sharing(double[] values) {
+        if (values.length != PARAMETER_COUNT) {
+            throw new IllegalArgumentException("Expected " + PARAMETER_COUNT + " scores");
+        }
+        return new HeuristicProfile(values, true);
+    }
+
+    /**
+     * True while the profile still reads a shared array
+     */
+    @JsonIgnore
+    public boolean isShared() {
+        return shared;
+    }
 
     public HeuristicProfile(Map<Parameter, Double> scores) {
-        this.scores = scores;
+        this();
+        setScores(scores);
+    }
+
+    /**
+     * Snapshot of the set scores, keyed by parameter (used for JSON)
+     */
+    public Map<Parameter, Double> getScores() {
+        Map<Parameter, Double> scores = new EnumMap<>(Parameter.class);
+        for (int i = 0; i < PARAMETER_COUNT; i++) {
+            if (!Double.isNaN(values[i])) {
+                scores.put(PARAMETERS[i], values[i]);
+            }
+        }
+        return scores;
+    }
+
+    public void setScores(Map<Parameter, Double> scores) {
+        if (shared) {
+            values = new double[PARAMETER_COUNT];
+            shared = false;
+        }
+        Arrays.fill(values, Double.NaN);
+        if (scores == null) {
+            return;
+        }
+        for (Map.Entry<Parameter, Double> entry : scores.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                values[entry.getKey().ordinal()] = entry.getValue();
+            }
+        }
     }
 
     public void setScore(Parameter param, double value) {
-        scores.put(param, value);
+        if (shared) {
+            values = values.clone();
+            shared = false;
+        }
+        values[param.ordinal()] = value;
     }
 
-    public Double getScore(Parameter param) {
-        return scores.getOrDefault(param, 0.0);
+    /**
+     * Move the profile from one set of default scores to another: scores still equal to the old
+     * default take the new one, manually changed scores are kept. The array is replaced in one
+     * write, so concurrent readers see either the old or the new scores. Returns true if any
+     * score changed.
+     */
+    public boolean rebase(double[] oldDefaults, double[] newDefaults) {
+        if (shared && values == oldDefaults) {
+            values = newDefaults;
+            return !Arrays.equals(oldDefaults, newDefaults);
+        }
+        double[] rebased = values.clone();
+        boolean changed = false;
+        for (int i = 0; i < PARAMETER_COUNT; i++) {
+            if (Double.compare(rebased[i], oldDefaults[i]) == 0
+                    && Double.compare(rebased[i], newDefaults[i]) != 0) {
+                rebased[i] = newDefaults[i];
+                changed = true;
+            }
+        }
+        if (changed) {
+            values = rebased;
+            shared = false;
+        }
+        return changed;
+    }
+
+    public double getScore(Parameter param) {
+        double value = values[param.ordinal()];
+        return Double.isNaN(value) ? 0.0 : value;
+    }
+
+    /**
+     * Check whether a score has been set for the parameter
+     */
+    public boolean hasScore(Parameter param) {
+        return !Double.isNaN(values[param.ordinal()]);
+    }
+
+    /**
+     * Score by parameter ordinal, NaN if unset
+     */
+    public double scoreAt(int ordinal) {
+        return values[ordinal];
     }
 
     public double getWeightedScore(Map<Parameter, Double> weights) {
         double total = 0.0;
         double weightSum = 0.0;
-        for (Map.Entry<Parameter, Double> entry : scores.entrySet()) {
-            double weight = weights.getOrDefault(entry.getKey(), 1.0);
-            total += entry.getValue() * weight;
+        for (int i = 0; i < PARAMETER_COUNT; i++) {
+            double value = values[i];
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            double weight = weights.getOrDefault(PARAMETERS[i], 1.0);
+            total += value * weight;
             weightSum += weight;
         }
         return weightSum > 0 ? total / weightSum : 0.0;
     }
-}
 
+    /**
+     * Weighted score against a precomputed weight vector indexed by parameter ordinal.
+     * Does not allocate.
+     */
+    public double getWeightedScore(double[] weights) {
+        double total = 0.0;
+        double weightSum = 0.0;
+        for (int i = 0; i < PARAMETER_COUNT; i++) {
+            double value = values[i];
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            double weight = weights[i];
+            total += value * weight;
+            weightSum += weight;
+        }
+        return weightSum > 0 ? total / weightSum : 0.0;
+    }
+}
@@ -0,0 +1,267 @@
+package com.systemsimulator.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Running totals for one architecture, kept up to date as components and links are added,
+ * removed or re-scored. Holds per-parameter sums, a per-parameter multiset of scores for the
+ * minimum, the cost penalty and in/out degree per component id. Updates are O(log n);
+ * {@code HeuristicAggregator.aggregateIncremental} turns the totals into scores in O(1)
+ * (LATENCY comes from the critical path, which depends on the link structure).
+ *
+ * Each element's contribution is remembered, so removing or refreshing it subtracts exactly
+ * what was added even if its heuristics were edited in place in between.
+ */
+public class IncrementalEvaluator {
+    private static final int PARAMETER_COUNT = HeuristicProfile.PARAMETER_COUNT;
+    private static final int COST = Parameter.COST.ordinal();
+
+    private final Map<Component, ComponentEntry> componentEntries = new IdentityHashMap<>();
+    private final Map<Link, LinkEntry> linkEntries = new IdentityHashMap<>();
+
+    private final double[] sums = new double[PARAMETER_COUNT];
+    @SuppressWarnings("unchecked")
+    private final TreeMap<Double, Integer>[] scoreCounts = new TreeMap[PARAMETER_COUNT];
+    private double costPenalty;
+    private int componentCount;
+    private int linkCount;
+
+    private final Map<String, int[]> degreesById = new HashMap<>();
+
+    public IncrementalEvaluator() {
+        for (int i = 0; i < PARAMETER_COUNT; i++) {
+            scoreCounts[i] = new TreeMap<>();
+        }
+    }
+
+    public void addComponent(Component component) {
+        ComponentEntry entry = componentEntries.get(component);
+        if (entry == null) {
+            entry = new ComponentEntry(snapshot(component.getHeuristics()));
+            componentEntries.put(component, entry);
+        }
+        applyComponent(entry.scores, 1);
+        entry.count++;
+        componentCount++;
+    }
+
+    public boolean removeComponent(Component component) {
+        ComponentEntry entry = componentEntries.get(component);
+        if (entry == null) {
+            return false;
+        }
+        applyComponent(entry.scores, -1);
+        if (--entry.count == 0) {
+            componentEntries.remove(component);
+        }
+        componentCount--;
+        return true;
+    }
+
+    /**
+     * Re-read a component's heuristics after they were changed in place
+     */
+    public boolean refreshComponent(Component component) {
+        ComponentEntry entry = componentEntries.get(component);
+        if (entry == null) {
+            return false;
+        }
+        applyComponent(entry.scores, -entry.count);
+        entry.scores = snapshot(component.getHeuristics());
+        applyComponent(entry.scores, entry.count);
+        return true;
+    }
+
+    public void addLink(Link link) {
+        LinkEntry entry = linkEntries.get(link);
+        if (entry == null) {
+            entry = new LinkEntry(link);
+            linkEntries.put(link, entry);
+        }
+        applyLink(entry, 1);
+        entry.count++;
+        linkCount++;
+    }
+
+    public boolean removeLink(Link link) {
+        LinkEntry entry = linkEntries.get(link);
+        if (entry == null) {
+            return false;
+        }
+        applyLink(entry, -1);
+        if (--entry.count == 0) {
+            linkEntries.remove(link);
+        }
+        linkCount--;
+        return true;
+    }
+
+    /**
+     * Re-read a link's endpoints after they were changed in place
+     */
+    public boolean refreshLink(Link link) {
+        LinkEntry entry = linkEntries.get(link);
+        if (entry == null) {
+            return false;
+        }
+        applyLink(entry, -entry.count);
+        LinkEntry updated = new LinkEntry(link);
+        updated.count = entry.count;
+        linkEntries.put(link, updated);
+        applyLink(updated, updated.count);
+        return true;
+    }
+
+    public int getComponentCount() { return componentCount; }
+    public int getLinkCount() { return linkCount; }
+
+    /**
+     * Sum of a parameter's score over all components (unset scores count as 0.0)
+     */
+    public double getSum(int ordinal) {
+        return sums[ordinal];
+    }
+
+    /**
+     * Lowest score of a parameter across components, capped at 10.0
+     */
+    public double getMinimum(int ordinal) {
+        TreeMap<Double, Integer> counts = scoreCounts[ordinal];
+        return counts.isEmpty() ? 10.0 : Math.min(10.0, counts.firstKey());
+    }
+
+    /**
+     * Sum of (10 - cost) over components
+     */
+    public double getCostPenalty() {
+        return costPenalty;
+    }
+
+    /**
+     * Immutable copy of the current totals, safe to hand to concurrent readers
+     */
+    public Totals totals() {
+        double[] minimums = new double[PARAMETER_COUNT];
+        for (int i = 0; i < PARAMETER_COUNT; i++) {
+            minimums[i] = getMinimum(i);
+        }
+        return new Totals(componentCount, linkCount, sums.clone(), minimums, costPenalty);
+    }
+
+    /** Distinct components counted in the totals */
+    public Set<Component> getComponents() {
+        return Collections.unmodifiableSet(componentEntries.keySet());
+    }
+
+    /** Distinct links counted in the totals */
+    public Set<Link> getLinks() {
+        return Collections.unmodifiableSet(linkEntries.keySet());
+    }
+
+    public int getIncoming(String componentId) {
+        int[] degrees = degreesById.get(componentId);
+        return degrees != null ? degrees[0] : 0;
+    }
+
+    public int getOutgoing(String componentId) {
+        int[] degrees = degreesById.get(componentId);
+        return degrees != null ? degrees[1] : 0;
+    }
+
+    private void applyComponent(double[] scores, int multiplicity) {
+        for (int i = 0; i < PARAMETER_COUNT; i++) {
+            double score = scores[i];
+            sums[i] += multiplicity * score;
+            scoreCounts[i].merge(score, multiplicity, (a, b) -> a + b == 0 ? null : a + b);
+        }
+        costPenalty += multiplicity * (10.0 - scores[COST]);
+    }
+
+    private void applyLink(LinkEntry entry, int multiplicity) {
+        adjustDegree(entry.targetId, 0, multiplicity);
+        adjustDegree(entry.sourceId, 1, multiplicity);
+    }
+
+    private void adjustDegree(String componentId, int slot, int delta) {
+        if (componentId == null) {
+            return;
+        }
+        int[] degrees = degreesById.computeIfAbsent(componentId, k -> new int[2]);
+        degrees[slot] += delta;
+        if (degrees[0] == 0 && degrees[1] == 0) {
+            degreesById.remove(componentId);
+        }
+    }
+
+    private static double[] snapshot(HeuristicProfile heuristics) {
+        double[] scores = new double[PARAMETER_COUNT];
+        if (heuristics != null) {
+            for (int i = 0; i < PARAMETER_COUNT; i++) {
+                double score = heuristics.scoreAt(i);
+                scores[i] = Double.isNaN(score) ? 0.0 : score;
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Totals of one architecture version: component and link counts, per-parameter sums and
+     * minimums, and the cost penalty
+     */
+    public static final class Totals {
+        private static final AtomicLong STAMPS = new AtomicLong();
+
+        private final long stamp = STAMPS.incrementAndGet();
+        private final int componentCount;
+        private final int linkCount;
+        private final double[] sums;
+        private final double[] minimums;
+        private final double costPenalty;
+
+        private Totals(int componentCount, int linkCount, double[] sums, double[] minimums, double costPenalty) {
+            this.componentCount = componentCount;
+            this.linkCount = linkCount;
+            this.sums = sums;
+            this.minimums = minimums;
+            this.costPenalty = costPenalty;
+        }
+
+        public int getComponentCount() { return componentCount; }
+        public int getLinkCount() { return linkCount; }
+        public double getSum(int ordinal) { return sums[ordinal]; }
+        public double getMinimum(int ordinal) { return minimums[ordinal]; }
+        public double getCostPenalty() { return costPenalty; }
+
+        /**
+         * Unique per instance. Every edit, undo, redo and score refresh publishes new totals, so
+         * equal stamps mean the same version with the same scores.
+         */
+        public long getStamp() { return stamp; }
+    }
+
+    private static final class ComponentEntry {
+        private double[] scores;
+        private int count;
+
+        private ComponentEntry(double[] scores) {
+            this.scores = scores;
+        }
+    }
+
+    private static final class LinkEntry {
+        private final String sourceId;
+        private final String targetId;
+        private int count;
+
+        private LinkEntry(Link link) {
+            this.sourceId = link.getSource() != null ? link.getSource().getId() : null;
+            this.targetId = link.getTarget() != null ? link.getTarget().getId() : null;
+        }
+    }
+}
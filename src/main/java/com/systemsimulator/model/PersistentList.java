@@ -0,0 +1,254 @@
+package com.systemsimulator.model;
+
+import java.util.AbstractList;
+import java.util.Collection;
+
+/**
+ * Immutable list whose updates return a new list sharing all untouched nodes with the old one.
+ * Elements sit in leaves of up to 32; branches hold up to 32 children with cumulative sizes,
+ * so get, {@link #plus} and {@link #minus} are O(log n) with a base of 32 and each update
+ * copies only one leaf and the branches above it. Leaves emptied by removals are dropped;
+ * leaves are not merged again, which only costs some fill factor.
+ *
+ * The {@link java.util.List} mutators throw {@link UnsupportedOperationException}.
+ */
+public final class PersistentList<T> extends AbstractList<T> {
+    private static final int WIDTH = 32;
+    private static final Object[] NO_ELEMENTS = new Object[0];
+    private static final PersistentList<?> EMPTY = new PersistentList<>(NO_ELEMENTS, 0, 0);
+
+    // Object[] leaf when height is 0, otherwise a Branch
+    private final Object root;
+    private final int size;
+    private final int height;
+
+    private PersistentList(Object root, int size, int height) {
+        this.root = root;
+        this.size = size;
+        this.height = height;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> PersistentList<T> empty() {
+        return (PersistentList<T>) EMPTY;
+    }
+
+    /**
+     * List with the elements of a collection, in iteration order (O(n))
+     */
+    public static <T> PersistentList<T> of(Collection<? extends T> elements) {
+        if (elements instanceof PersistentList) {
+            @SuppressWarnings("unchecked")
+            PersistentList<T> list = (PersistentList<T>) elements;
+            return list;
+        }
+        Object[] all = elements == null ? NO_ELEMENTS : elements.toArray();
+        if (all.length == 0) {
+            return empty();
+        }
+        // Full leaves, then full branches level by level
+        Object[] level = new Object[(all.length + WIDTH - 1) / WIDTH];
+        for (int i = 0; i < level.length; i++) {
+            int from = i * WIDTH;
+            Object[] leaf = new Object[Math.min(WIDTH, all.length - from)];
+            System.arraycopy(all, from, leaf, 0, leaf.length);
+            level[i] = leaf;
+        }
+        int height = 0;
+        while (level.length > 1) {
+            Object[] parents = new Object[(level.length + WIDTH - 1) / WIDTH];
+            for (int i = 0; i < parents.length; i++) {
+                int from = i * WIDTH;
+                Object[] children = new Object[Math.min(WIDTH, level.length - from)];
+                System.arraycopy(level, from, children, 0, children.length);
+                parents[i] = new Branch(children, height);
+            }
+            level = parents;
+            height++;
+        }
+        return new PersistentList<>(level[0], all.length, height);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        Object node = root;
+        for (int h = height; h > 0; h--) {
+            Branch branch = (Branch) node;
+            int child = branch.childAt(index);
+            if (child > 0) {
+                index -= branch.ends[child - 1];
+            }
+            node = branch.children[child];
+        }
+        return (T) ((Object[]) node)[index];
+    }
+
+    /**
+     * This list with an element appended
+     */
+    public PersistentList<T> plus(T element) {
+        Object[] split = new Object[1];
+        Object updated = append(root, height, element, split);
+        if (split[0] == null) {
+            return new PersistentList<>(updated, size + 1, height);
+        }
+        return new PersistentList<>(new Branch(new Object[] {updated, split[0]}, height), size + 1, height + 1);
+    }
+
+    /**
+     * This list without the element at an index
+     */
+    public PersistentList<T> minus(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        if (size == 1) {
+            return empty();
+        }
+        Object updated = remove(root, height, index);
+        int newHeight = height;
+        // Collapse single-child roots
+        while (newHeight > 0 && ((Branch) updated).children.length == 1) {
+            updated = ((Branch) updated).children[0];
+            newHeight--;
+        }
+        return new PersistentList<>(updated, size - 1, newHeight);
+    }
+
+    /**
+     * Index of the first element identical to the given one, or -1
+     */
+    public int indexOfIdentical(Object element) {
+        int[] offset = new int[1];
+        return find(root, height, element, offset);
+    }
+
+    /**
+     * Append below a node. Returns the updated node; a node that overflowed is returned as
+     * is and its new right sibling is stored in {@code split[0]}.
+     */
+    private static Object append(Object node, int height, Object element, Object[] split) {
+        if (height == 0) {
+            Object[] leaf = (Object[]) node;
+            if (leaf.length < WIDTH) {
+                Object[] copy = new Object[leaf.length + 1];
+                System.arraycopy(leaf, 0, copy, 0, leaf.length);
+                copy[leaf.length] = element;
+                return copy;
+            }
+            split[0] = new Object[] {element};
+            return leaf;
+        }
+        Branch branch = (Branch) node;
+        int last = branch.children.length - 1;
+        Object child = append(branch.children[last], height - 1, element, split);
+        if (split[0] == null) {
+            Object[] children = branch.children.clone();
+            children[last] = child;
+            return new Branch(children, height - 1);
+        }
+        if (branch.children.length < WIDTH) {
+            Object[] children = new Object[branch.children.length + 1];
+            System.arraycopy(branch.children, 0, children, 0, branch.children.length);
+            children[children.length - 1] = split[0];
+            split[0] = null;
+            return new Branch(children, height - 1);
+        }
+        // Full: the new child starts a right sibling at this level
+        split[0] = new Branch(new Object[] {split[0]}, height - 1);
+        return branch;
+    }
+
+    /**
+     * Remove below a node; returns null if the node became empty
+     */
+    private static Object remove(Object node, int height, int index) {
+        if (height == 0) {
+            Object[] leaf = (Object[]) node;
+            if (leaf.length == 1) {
+                return null;
+            }
+            Object[] copy = new Object[leaf.length - 1];
+            System.arraycopy(leaf, 0, copy, 0, index);
+            System.arraycopy(leaf, index + 1, copy, index, leaf.length - index - 1);
+            return copy;
+        }
+        Branch branch = (Branch) node;
+        int slot = branch.childAt(index);
+        Object child = remove(branch.children[slot], height - 1,
+                slot > 0 ? index - branch.ends[slot - 1] : index);
+        if (child != null) {
+            Object[] children = branch.children.clone();
+            children[slot] = child;
+            return new Branch(children, height - 1);
+        }
+        if (branch.children.length == 1) {
+            return null;
+        }
+        Object[] children = new Object[branch.children.length - 1];
+        System.arraycopy(branch.children, 0, children, 0, slot);
+        System.arraycopy(branch.children, slot + 1, children, slot, children.length - slot);
+        return new Branch(children, height - 1);
+    }
+
+    private static int find(Object node, int height, Object element, int[] offset) {
+        if (height == 0) {
+            Object[] leaf = (Object[]) node;
+            for (int i = 0; i < leaf.length; i++) {
+                if (leaf[i] == element) {
+                    return offset[0] + i;
+                }
+            }
+            offset[0] += leaf.length;
+            return -1;
+        }
+        for (Object child : ((Branch) node).children) {
+            int found = find(child, height - 1, element, offset);
+            if (found >= 0) {
+                return found;
+            }
+        }
+        return -1;
+    }
+
+    private static int sizeOf(Object node, int height) {
+        return height == 0 ? ((Object[]) node).length : ((Branch) node).size();
+    }
+
+    private static final class Branch {
+        final Object[] children;
+        // ends[i] = number of elements in children 0..i
+        final int[] ends;
+
+        Branch(Object[] children, int childHeight) {
+            this.children = children;
+            this.ends = new int[children.length];
+            int total = 0;
+            for (int i = 0; i < children.length; i++) {
+                total += sizeOf(children[i], childHeight);
+                ends[i] = total;
+            }
+        }
+
+        int size() {
+            return ends[ends.length - 1];
+        }
+
+        int childAt(int index) {
+            int child = 0;
+            while (ends[child] <= index) {
+                child++;
+            }
+            return child;
+        }
+    }
+}
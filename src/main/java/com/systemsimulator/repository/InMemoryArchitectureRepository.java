@@ -10,11 +10,50 @@ import java.util.concurrent.ConcurrentHashMap;
 public class InMemoryArchitectureRepository {
     private final Map<String, Architecture> architectures = new ConcurrentHashMap<>();
 
+    // Set while the repository is persisted; changes are then logged as they are applied
+    private volatile RepositoryJournal journal;
+
     public Architecture save(Architecture architecture) {
-        architectures.put(architecture.getId(), architecture);
+        RepositoryJournal journal = this.journal;
+        if (journal == null) {
+            architectures.put(architecture.getId(), architecture);
+            return architecture;
+        }
+        byte[] record = journal.architectureSaved(architecture);
+        journal.mutate(() -> architectures.compute(architecture.getId(), (id, previous) -> {
+            journal.append(record);
+            return architecture;
+        }));
         return architecture;
     }
 
+    /**
+     * Save many architectures with one journal mutation instead of one per architecture
+     */
+    public void saveAll(Collection<Architecture> batch) {
+        RepositoryJournal journal = this.journal;
+        if (journal == null) {
+            for (Architecture architecture : batch) {
+                architectures.put(architecture.getId(), architecture);
+            }
+            return;
+        }
+        List<byte[]> records = new ArrayList<>(batch.size());
+        for (Architecture architecture : batch) {
+            records.add(journal.architectureSaved(architecture));
+        }
+        journal.mutate(() -> {
+            int i = 0;
+            for (Architecture architecture : batch) {
+                byte[] record = records.get(i++);
+                architectures.compute(architecture.getId(), (id, previous) -> {
+                    journal.append(record);
+                    return architecture;
+                });
+            }
+        });
+    }
+
     public Optional<Architecture> findById(String id) {
         return Optional.ofNullable(architectures.get(id));
     }
@@ -24,7 +63,16 @@ public class InMemoryArchitectureRepository {
     }
 
     public void deleteById(String id) {
-        architectures.remove(id);
+        RepositoryJournal journal = this.journal;
+        if (journal == null) {
+            architectures.remove(id);
+            return;
+        }
+        byte[] record = journal.architectureDeleted(id);
+        journal.mutate(() -> architectures.computeIfPresent(id, (key, previous) -> {
+            journal.append(record);
+            return null;
+        }));
     }
 
     public boolean existsById(String id) {
@@ -32,7 +80,30 @@ public class InMemoryArchitectureRepository {
     }
 
     public void deleteAll() {
-        architectures.clear();
+        RepositoryJournal journal = this.journal;
+        if (journal == null) {
+            architectures.clear();
+            return;
+        }
+        journal.mutate(() -> {
+            journal.append(journal.architecturesCleared());
+            architectures.clear();
+        });
+    }
+
+    public int count() {
+        return architectures.size();
+    }
+
+    /**
+     * Stored instance by id, or null
+     */
+    Architecture get(String id) {
+        return architectures.get(id);
+    }
+
+    void attach(RepositoryJournal journal) {
+        this.journal = journal;
     }
 }
 
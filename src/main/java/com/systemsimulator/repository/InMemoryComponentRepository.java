@@ -10,11 +10,50 @@ import java.util.concurrent.ConcurrentHashMap;
 public class InMemoryComponentRepository {
     private final Map<String, Component> components = new ConcurrentHashMap<>();
 
+    // Set while the repository is persisted; changes are then logged as they are applied
+    private volatile RepositoryJournal journal;
+
     public Component save(Component component) {
-        components.put(component.getId(), component);
+        RepositoryJournal journal = this.journal;
+        if (journal == null) {
+            components.put(component.getId(), component);
+            return component;
+        }
+        byte[] record = journal.componentSaved(component);
+        journal.mutate(() -> components.compute(component.getId(), (id, previous) -> {
+            journal.append(record);
+            return component;
+        }));
         return component;
     }
 
+    /**
+     * Save many components with one journal mutation instead of one per component
+     */
+    public void saveAll(Collection<Component> batch) {
+        RepositoryJournal journal = this.journal;
+        if (journal == null) {
+            for (Component component : batch) {
+                components.put(component.getId(), component);
+            }
+            return;
+        }
+        List<byte[]> records = new ArrayList<>(batch.size());
+        for (Component component : batch) {
+            records.add(journal.componentSaved(component));
+        }
+        journal.mutate(() -> {
+            int i = 0;
+            for (Component component : batch) {
+                byte[] record = records.get(i++);
+                components.compute(component.getId(), (id, previous) -> {
+                    journal.append(record);
+                    return component;
+                });
+            }
+        });
+    }
+
     public Optional<Component> findById(String id) {
         return Optional.ofNullable(components.get(id));
     }
@@ -24,7 +63,16 @@ public class InMemoryComponentRepository {
     }
 
     public void deleteById(String id) {
-        components.remove(id);
+        RepositoryJournal journal = this.journal;
+        if (journal == null) {
+            components.remove(id);
+            return;
+        }
+        byte[] record = journal.componentDeleted(id);
+        journal.mutate(() -> components.computeIfPresent(id, (key, previous) -> {
+            journal.append(record);
+            return null;
+        }));
     }
 
     public boolean existsById(String id) {
@@ -32,7 +80,30 @@ public class InMemoryComponentRepository {
     }
 
     public void deleteAll() {
-        components.clear();
+        RepositoryJournal journal = this.journal;
+        if (journal == null) {
+            components.clear();
+            return;
+        }
+        journal.mutate(() -> {
+            journal.append(journal.componentsCleared());
+            components.clear();
+        });
+    }
+
+    public int count() {
+        return components.size();
+    }
+
+    /**
+     * Stored instance by id, or null
+     */
+    Component get(String id) {
+        return components.get(id);
+    }
+
+    void attach(RepositoryJournal journal) {
+        this.journal = journal;
     }
 }
 
@@ -1,6 +1,7 @@
 package com.systemsimulator.repository;
 
 import com.systemsimulator.model.Link;
+import com.systemsimulator.model.LinkType;
 import org.springframework.stereotype.Repository;
 
 import java.util.*;
@@ -8,23 +9,75 @@ import java.util.concurrent.ConcurrentHashMap;
 
 @Repository
 public class InMemoryLinkRepository {
-    private final Map<String, Link> links = new ConcurrentHashMap<>();
+    private final Map<String, IndexedLink> links = new ConcurrentHashMap<>();
 
+    // Secondary indexes: key -> (link id -> link). Empty buckets are removed.
+    private final Map<String, Map<String, Link>> linksBySource = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Link>> linksByTarget = new ConcurrentHashMap<>();
+    private final Map<LinkType, Map<String, Link>> linksByType = new ConcurrentHashMap<>();
+
+    // Set while the repository is persisted; changes are then logged as they are applied
+    private volatile RepositoryJournal journal;
+
+    /**
+     * Save a link and update the indexes. Index changes for a link id happen inside the
+     * primary map's per-key compute, so concurrent saves/deletes of the same link are serialized.
+     */
     public Link save(Link link) {
-        links.put(link.getId(), link);
+        RepositoryJournal journal = this.journal;
+        if (journal == null) {
+            put(link, null, null);
+            return link;
+        }
+        byte[] record = journal.linkSaved(link);
+        journal.mutate(() -> put(link, journal, record));
         return link;
     }
 
+    /**
+     * Save many links with one journal mutation instead of one per link
+     */
+    public void saveAll(Collection<Link> batch) {
+        RepositoryJournal journal = this.journal;
+        if (journal == null) {
+            for (Link link : batch) {
+                put(link, null, null);
+            }
+            return;
+        }
+        List<byte[]> records = new ArrayList<>(batch.size());
+        for (Link link : batch) {
+            records.add(journal.linkSaved(link));
+        }
+        journal.mutate(() -> {
+            int i = 0;
+            for (Link link : batch) {
+                put(link, journal, records.get(i++));
+            }
+        });
+    }
+
     public Optional<Link> findById(String id) {
-        return Optional.ofNullable(links.get(id));
+        IndexedLink indexed = links.get(id);
+        return Optional.ofNullable(indexed != null ? indexed.link : null);
     }
 
     public List<Link> findAll() {
-        return new ArrayList<>(links.values());
+        List<Link> result = new ArrayList<>(links.size());
+        for (IndexedLink indexed : links.values()) {
+            result.add(indexed.link);
+        }
+        return result;
     }
 
     public void deleteById(String id) {
-        links.remove(id);
+        RepositoryJournal journal = this.journal;
+        if (journal == null) {
+            remove(id, null, null);
+            return;
+        }
+        byte[] record = journal.linkDeleted(id);
+        journal.mutate(() -> remove(id, journal, record));
     }
 
     public boolean existsById(String id) {
@@ -32,27 +85,152 @@ public class InMemoryLinkRepository {
     }
 
     public void deleteAll() {
-        links.clear();
+        RepositoryJournal journal = this.journal;
+        if (journal == null) {
+            clear();
+            return;
+        }
+        journal.mutate(() -> {
+            journal.append(journal.linksCleared());
+            clear();
+        });
+    }
+
+    public int count() {
+        return links.size();
     }
 
     public List<Link> findBySourceId(String sourceId) {
-        List<Link> result = new ArrayList<>();
-        for (Link link : links.values()) {
-            if (link.getSource() != null && link.getSource().getId().equals(sourceId)) {
-                result.add(link);
-            }
-        }
-        return result;
+        return bucketValues(linksBySource, sourceId);
     }
 
     public List<Link> findByTargetId(String targetId) {
-        List<Link> result = new ArrayList<>();
-        for (Link link : links.values()) {
-            if (link.getTarget() != null && link.getTarget().getId().equals(targetId)) {
-                result.add(link);
+        return bucketValues(linksByTarget, targetId);
+    }
+
+    public List<Link> findByType(LinkType type) {
+        return bucketValues(linksByType, type);
+    }
+
+    public int countBySourceId(String sourceId) {
+        return bucketSize(linksBySource, sourceId);
+    }
+
+    public int countByTargetId(String targetId) {
+        return bucketSize(linksByTarget, targetId);
+    }
+
+    /**
+     * Check whether any link starts or ends at the component
+     */
+    public boolean existsByComponentId(String componentId) {
+        return componentId != null &&
+               (linksBySource.containsKey(componentId) || linksByTarget.containsKey(componentId));
+    }
+
+    /**
+     * Stored instance by id, or null
+     */
+    Link get(String id) {
+        IndexedLink indexed = links.get(id);
+        return indexed != null ? indexed.link : null;
+    }
+
+    void attach(RepositoryJournal journal) {
+        this.journal = journal;
+    }
+
+    private void put(Link link, RepositoryJournal journal, byte[] record) {
+        links.compute(link.getId(), (id, previous) -> {
+            if (record != null) {
+                journal.append(record);
+            }
+            if (previous != null) {
+                unindex(previous);
+            }
+            IndexedLink indexed = new IndexedLink(link);
+            index(indexed);
+            return indexed;
+        });
+    }
+
+    private void remove(String id, RepositoryJournal journal, byte[] record) {
+        links.computeIfPresent(id, (key, previous) -> {
+            if (record != null) {
+                journal.append(record);
+            }
+            unindex(previous);
+            return null;
+        });
+    }
+
+    private void clear() {
+        links.clear();
+        linksBySource.clear();
+        linksByTarget.clear();
+        linksByType.clear();
+    }
+
+    private void index(IndexedLink indexed) {
+        addToBucket(linksBySource, indexed.sourceId, indexed.link);
+        addToBucket(linksByTarget, indexed.targetId, indexed.link);
+        addToBucket(linksByType, indexed.type, indexed.link);
+    }
+
+    private void unindex(IndexedLink indexed) {
+        removeFromBucket(linksBySource, indexed.sourceId, indexed.link.getId());
+        removeFromBucket(linksByTarget, indexed.targetId, indexed.link.getId());
+        removeFromBucket(linksByType, indexed.type, indexed.link.getId());
+    }
+
+    private static <K> void addToBucket(Map<K, Map<String, Link>> index, K key, Link link) {
+        if (key == null) {
+            return;
+        }
+        index.compute(key, (k, bucket) -> {
+            if (bucket == null) {
+                bucket = new ConcurrentHashMap<>();
             }
+            bucket.put(link.getId(), link);
+            return bucket;
+        });
+    }
+
+    private static <K> void removeFromBucket(Map<K, Map<String, Link>> index, K key, String linkId) {
+        if (key == null) {
+            return;
         }
-        return result;
+        index.computeIfPresent(key, (k, bucket) -> {
+            bucket.remove(linkId);
+            return bucket.isEmpty() ? null : bucket;
+        });
     }
-}
 
+    private static <K> List<Link> bucketValues(Map<K, Map<String, Link>> index, K key) {
+        Map<String, Link> bucket = key != null ? index.get(key) : null;
+        return bucket != null ? new ArrayList<>(bucket.values()) : new ArrayList<>();
+    }
+
+    private static <K> int bucketSize(Map<K, Map<String, Link>> index, K key) {
+        Map<String, Link> bucket = key != null ? index.get(key) : null;
+        return bucket != null ? bucket.size() : 0;
+    }
+
+    /**
+     * A stored link together with the index keys it was stored under, so it can be
+     * unindexed correctly even if the Link object is mutated afterwards.
+     */
+    private static final class IndexedLink {
+        private final Link link;
+        private final String sourceId;
+        private final String targetId;
+        private final LinkType type;
+
+        private IndexedLink(Link link) {
+            this.link = link;
+            this.sourceId = link.getSource() != null ? link.getSource().getId() : null;
+            this.targetId = link.getTarget() != null ? link.getTarget().getId() : null;
+            this.type = link.getType();
+        }
+    }
+}
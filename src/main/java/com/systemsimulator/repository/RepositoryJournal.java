@@ -0,0 +1,341 @@
+package com.systemsimulator.repository;
+
+import com.systemsimulator.model.*;
+import com.systemsimulator.utils.BinaryReader;
+import com.systemsimulator.utils.BinaryWriter;
+import com.systemsimulator.utils.EntityCodec;
+import com.systemsimulator.utils.TaggedEntityCodec;
+import com.systemsimulator.utils.WriteAheadLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Makes the in-memory repositories durable. Every save, delete and clear is appended to a
+ * {@link WriteAheadLog} in the directory named by {@code simulator.persistence.directory};
+ * on startup the latest snapshot and the log written after it are replayed into the
+ * repositories before they are used. Persistence is off when no directory is configured.
+ */
+@org.springframework.stereotype.Component
+public class RepositoryJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(RepositoryJournal.class);
+
+    // Record kinds
+    private static final int PUT_COMPONENT = 1;
+    private static final int DELETE_COMPONENT = 2;
+    private static final int CLEAR_COMPONENTS = 3;
+    private static final int PUT_LINK = 4;
+    private static final int DELETE_LINK = 5;
+    private static final int CLEAR_LINKS = 6;
+    private static final int PUT_ARCHITECTURE = 7;
+    private static final int DELETE_ARCHITECTURE = 8;
+    private static final int CLEAR_ARCHITECTURES = 9;
+    // Puts in the tagged encoding, written since it replaced the positional one (kinds 1, 4
+    // and 7, which are still replayed)
+    private static final int PUT_TAGGED_COMPONENT = 10;
+    private static final int PUT_TAGGED_LINK = 11;
+    private static final int PUT_TAGGED_ARCHITECTURE = 12;
+
+    @Autowired
+    private InMemoryComponentRepository componentRepository;
+
+    @Autowired
+    private InMemoryLinkRepository linkRepository;
+
+    @Autowired
+    private InMemoryArchitectureRepository architectureRepository;
+
+    /** Directory for the snapshot and log files (empty = not persisted) */
+    @Value("${simulator.persistence.directory:}")
+    private String directory;
+
+    /**
+     * Force every group commit to disk before the save returns; without it a crash can lose
+     * the last flush interval of changes
+     */
+    @Value("${simulator.persistence.fsync:false}")
+    private boolean fsync;
+
+    @Value("${simulator.persistence.flush-interval-millis:5}")
+    private long flushIntervalMillis = 5;
+
+    /** Log size after which a compacted snapshot replaces it */
+    @Value("${simulator.persistence.snapshot-threshold-mb:64}")
+    private long snapshotThresholdMb = 64;
+
+    private WriteAheadLog log;
+
+    // Last state of every component and link seen during replay, including deleted ones, so
+    // records referring to them still resolve
+    private Map<String, Component> replayedComponents;
+    private Map<String, Link> replayedLinks;
+
+    public RepositoryJournal() {}
+
+    RepositoryJournal(InMemoryComponentRepository componentRepository, InMemoryLinkRepository linkRepository,
+                      InMemoryArchitectureRepository architectureRepository, String directory,
+                      boolean fsync, long snapshotThresholdMb) {
+        this.componentRepository = componentRepository;
+        this.linkRepository = linkRepository;
+        this.architectureRepository = architectureRepository;
+        this.directory = directory;
+        this.fsync = fsync;
+        this.snapshotThresholdMb = snapshotThresholdMb;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (directory == null || directory.isBlank()) {
+            return;
+        }
+        log = new WriteAheadLog(Paths.get(directory), fsync, flushIntervalMillis, snapshotThresholdMb * 1024 * 1024);
+
+        long started = System.nanoTime();
+        replayedComponents = new HashMap<>();
+        replayedLinks = new HashMap<>();
+        long records;
+        try {
+            records = log.replay(this::apply);
+        } finally {
+            replayedComponents = null;
+            replayedLinks = null;
+        }
+        logger.info("Restored {} components, {} links and {} architectures from {} records in {} ms",
+                componentRepository.count(), linkRepository.count(), architectureRepository.count(),
+                records, (System.nanoTime() - started) / 1_000_000);
+
+        log.start(this::writeSnapshot);
+        componentRepository.attach(this);
+        linkRepository.attach(this);
+        architectureRepository.attach(this);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (log != null) {
+            componentRepository.attach(null);
+            linkRepository.attach(null);
+            architectureRepository.attach(null);
+            log.close();
+        }
+    }
+
+    /**
+     * Wait until every change made so far is on disk
+     */
+    public void sync() throws IOException, InterruptedException {
+        if (log != null) {
+            log.sync();
+        }
+    }
+
+    /**
+     * Compact the log into a snapshot now
+     */
+    public void requestSnapshot() {
+        if (log != null) {
+            log.requestSnapshot();
+        }
+    }
+
+    void mutate(Runnable mutation) {
+        log.mutate(mutation);
+    }
+
+    void append(byte[] record) {
+        log.append(record);
+    }
+
+    byte[] componentSaved(Component component) {
+        BinaryWriter out = new BinaryWriter().writeByte(PUT_TAGGED_COMPONENT);
+        TaggedEntityCodec.writeComponent(out, component);
+        return out.toByteArray();
+    }
+
+    byte[] componentDeleted(String id) {
+        return new BinaryWriter(16).writeByte(DELETE_COMPONENT).writeString(id).toByteArray();
+    }
+
+    byte[] componentsCleared() {
+        return new byte[] {CLEAR_COMPONENTS};
+    }
+
+    byte[] linkSaved(Link link) {
+        BinaryWriter out = new BinaryWriter().writeByte(PUT_TAGGED_LINK);
+        TaggedEntityCodec.writeLink(out, link, componentRepository::get);
+        return out.toByteArray();
+    }
+
+    byte[] linkDeleted(String id) {
+        return new BinaryWriter(16).writeByte(DELETE_LINK).writeString(id).toByteArray();
+    }
+
+    byte[] linksCleared() {
+        return new byte[] {CLEAR_LINKS};
+    }
+
+    byte[] architectureSaved(Architecture architecture) {
+        BinaryWriter out = new BinaryWriter().writeByte(PUT_TAGGED_ARCHITECTURE);
+        TaggedEntityCodec.writeArchitecture(out, architecture, componentRepository::get, linkRepository::get);
+        return out.toByteArray();
+    }
+
+    byte[] architectureDeleted(String id) {
+        return new BinaryWriter(16).writeByte(DELETE_ARCHITECTURE).writeString(id).toByteArray();
+    }
+
+    byte[] architecturesCleared() {
+        return new byte[] {CLEAR_ARCHITECTURES};
+    }
+
+    /**
+     * Apply one replayed record to the repositories (which are not attached yet, so nothing
+     * is logged again). A record that cannot be decoded is skipped.
+     */
+    private void apply(BinaryReader in) {
+        int kind = in.readByte();
+        try {
+            switch (kind) {
+                case PUT_COMPONENT:
+                    replayComponent(EntityCodec.readComponent(in));
+                    break;
+                case PUT_TAGGED_COMPONENT:
+                    replayComponent(TaggedEntityCodec.readComponent(in));
+                    break;
+                case DELETE_COMPONENT:
+                    componentRepository.deleteById(in.readString());
+                    break;
+                case CLEAR_COMPONENTS:
+                    componentRepository.deleteAll();
+                    break;
+                case PUT_LINK:
+                    replayLink(EntityCodec.readLink(in, this::replayedComponent));
+                    break;
+                case PUT_TAGGED_LINK:
+                    replayLink(TaggedEntityCodec.readLink(in, this::replayedComponent));
+                    break;
+                case DELETE_LINK:
+                    linkRepository.deleteById(in.readString());
+                    break;
+                case CLEAR_LINKS:
+                    linkRepository.deleteAll();
+                    break;
+                case PUT_ARCHITECTURE:
+                    architectureRepository.save(EntityCodec.readArchitecture(in, this::replayedComponent,
+                            this::replayedLink));
+                    break;
+                case PUT_TAGGED_ARCHITECTURE:
+                    architectureRepository.save(TaggedEntityCodec.readArchitecture(in, this::replayedComponent,
+                            this::replayedLink));
+                    break;
+                case DELETE_ARCHITECTURE:
+                    architectureRepository.deleteById(in.readString());
+                    break;
+                case CLEAR_ARCHITECTURES:
+                    architectureRepository.deleteAll();
+                    break;
+                default:
+                    logger.warn("Skipping unknown journal record kind {}", kind);
+            }
+        } catch (IllegalArgumentException e) {
+            logger.warn("Skipping unreadable journal record of kind {}: {}", kind, e.getMessage());
+        }
+    }
+
+    /**
+     * A put for a stored id updates the stored instance, like the in-place edit it usually
+     * records, so architectures replayed earlier keep seeing the current state
+     */
+    private void replayComponent(Component component) {
+        Component stored = componentRepository.get(component.getId());
+        if (stored != null && stored.getClass() == component.getClass()) {
+            stored.setName(component.getName());
+            stored.setHeuristics(component.getHeuristics());
+            stored.setProperties(component.getProperties());
+            copySubtype(component, stored);
+            component = stored;
+        }
+        replayedComponents.put(component.getId(), component);
+        componentRepository.save(component);
+    }
+
+    private void replayLink(Link link) {
+        Link stored = linkRepository.get(link.getId());
+        if (stored != null) {
+            stored.setSource(link.getSource());
+            stored.setTarget(link.getTarget());
+            stored.setType(link.getType());
+            stored.setHeuristics(link.getHeuristics());
+            stored.setProperties(link.getProperties());
+            link = stored;
+        }
+        replayedLinks.put(link.getId(), link);
+        linkRepository.save(link);
+    }
+
+    private static void copySubtype(Component from, Component into) {
+        if (from instanceof DatabaseComponent) {
+            ((DatabaseComponent) into).setDatabaseType(((DatabaseComponent) from).getDatabaseType());
+        } else if (from instanceof CacheComponent) {
+            ((CacheComponent) into).setCacheType(((CacheComponent) from).getCacheType());
+        } else if (from instanceof APIServiceComponent) {
+            ((APIServiceComponent) into).setApiType(((APIServiceComponent) from).getApiType());
+        } else if (from instanceof QueueComponent) {
+            ((QueueComponent) into).setQueueType(((QueueComponent) from).getQueueType());
+        } else if (from instanceof StorageComponent) {
+            ((StorageComponent) into).setStorageType(((StorageComponent) from).getStorageType());
+        } else if (from instanceof LoadBalancerComponent) {
+            ((LoadBalancerComponent) into).setLbType(((LoadBalancerComponent) from).getLbType());
+        }
+    }
+
+    private Component replayedComponent(String id) {
+        Component component = componentRepository.get(id);
+        return component != null ? component : replayedComponents.get(id);
+    }
+
+    private Link replayedLink(String id) {
+        Link link = linkRepository.get(id);
+        return link != null ? link : replayedLinks.get(id);
+    }
+
+    /**
+     * Write the repositories as put records: components, then links, then architectures.
+     * References only point at objects written earlier in the same snapshot.
+     */
+    private void writeSnapshot(Consumer<byte[]> sink) {
+        Map<String, Component> components = new HashMap<>();
+        Map<String, Link> links = new HashMap<>();
+        BinaryWriter out = new BinaryWriter(4096);
+        for (Component component : componentRepository.findAll()) {
+            out.reset();
+            out.writeByte(PUT_TAGGED_COMPONENT);
+            TaggedEntityCodec.writeComponent(out, component);
+            sink.accept(out.toByteArray());
+            components.put(component.getId(), component);
+        }
+        for (Link link : linkRepository.findAll()) {
+            out.reset();
+            out.writeByte(PUT_TAGGED_LINK);
+            TaggedEntityCodec.writeLink(out, link, components::get);
+            sink.accept(out.toByteArray());
+            links.put(link.getId(), link);
+        }
+        for (Architecture architecture : architectureRepository.findAll()) {
+            out.reset();
+            out.writeByte(PUT_TAGGED_ARCHITECTURE);
+            TaggedEntityCodec.writeArchitecture(out, architecture, components::get, links::get);
+            sink.accept(out.toByteArray());
+        }
+    }
+}
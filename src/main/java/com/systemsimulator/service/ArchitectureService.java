@@ -2,12 +2,22 @@ package com.systemsimulator.service;
 
 import com.systemsimulator.model.*;
 import com.systemsimulator.repository.InMemoryArchitectureRepository;
+import com.systemsimulator.utils.ArchitectureMailboxes;
+import com.systemsimulator.utils.CriticalPathAnalyzer;
+import com.systemsimulator.utils.EvaluationCache;
 import com.systemsimulator.utils.HeuristicAggregator;
 import com.systemsimulator.utils.ParameterWeights;
+import com.systemsimulator.utils.WeightVector;
+import com.systemsimulator.utils.ParetoFrontier;
+import com.systemsimulator.utils.ThroughputAnalyzer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 @Service
 public class ArchitectureService {
@@ -30,6 +40,20 @@ public class ArchitectureService {
     @Autowired
     private RuleEngineService ruleEngineService;
 
+    @Autowired
+    private HeuristicService heuristicService;
+
+    @Autowired
+    private EvaluationCache evaluationCache;
+
+    @Autowired
+    private ArchitectureMailboxes mailboxes;
+
+    // Structural hash per architecture version, keyed by the version's totals: each published
+    // state has its own Totals instance, so an entry is dropped when its state is collected
+    private final Map<IncrementalEvaluator.Totals, EvaluationCache.Key> structuralKeys =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
     /**
      * Create a new architecture
      */
@@ -43,7 +67,18 @@ public class ArchitectureService {
      * Save or update an architecture
      */
     public Architecture saveArchitecture(Architecture architecture) {
-        return architectureRepository.save(architecture);
+        if (architecture.getId() == null) {
+            return architectureRepository.save(architecture);
+        }
+        return mailboxes.call(architecture.getId(), () -> architectureRepository.save(architecture));
+    }
+
+    /**
+     * Save many new architectures in one batch. This bypasses the per-architecture mailboxes, so
+     * the ids must not belong to stored architectures (imports give taken ids fresh ones).
+     */
+    public void saveArchitectures(Collection<Architecture> architectures) {
+        architectureRepository.saveAll(architectures);
     }
 
     /**
@@ -64,103 +99,279 @@ public class ArchitectureService {
      * Delete architecture by ID
      */
     public void deleteArchitecture(String id) {
-        architectureRepository.deleteById(id);
+        mailboxes.run(id, () -> architectureRepository.deleteById(id));
+        mailboxes.remove(id);
     }
 
     /**
      * Add a component to an architecture
      */
     public Architecture addComponentToArchitecture(String architectureId, Component component) {
-        Architecture architecture = getArchitectureById(architectureId)
-                .orElseThrow(() -> new IllegalArgumentException("Architecture not found: " + architectureId));
-
-        architecture.addComponent(component);
-        return architectureRepository.save(architecture);
+        return mutate(architectureId, architecture -> architecture.addComponent(component));
     }
 
     /**
      * Add a link to an architecture
      */
     public Architecture addLinkToArchitecture(String architectureId, Link link) {
-        Architecture architecture = getArchitectureById(architectureId)
-                .orElseThrow(() -> new IllegalArgumentException("Architecture not found: " + architectureId));
-
-        architecture.addLink(link);
-        return architectureRepository.save(architecture);
+        return mutate(architectureId, architecture -> architecture.addLink(link));
     }
 
     /**
      * Add a component to an architecture by component ID
      */
     public Architecture addComponentToArchitectureById(String architectureId, String componentId) {
-        Architecture architecture = getArchitectureById(architectureId)
-                .orElseThrow(() -> new IllegalArgumentException("Architecture not found: " + architectureId));
-
-        Component component = componentService.getComponentById(componentId)
-                .orElseThrow(() -> new IllegalArgumentException("Component not found: " + componentId));
-
-        architecture.addComponent(component);
-        return architectureRepository.save(architecture);
+        return mutate(architectureId, architecture -> {
+            Component component = componentService.getComponentById(componentId)
+                    .orElseThrow(() -> new IllegalArgumentException("Component not found: " + componentId));
+            architecture.addComponent(component);
+        });
     }
 
     /**
      * Add a link to an architecture by link ID
      */
     public Architecture addLinkToArchitectureById(String architectureId, String linkId) {
+        return mutate(architectureId, architecture -> {
+            Link link = linkService.getLinkById(linkId)
+                    .orElseThrow(() -> new IllegalArgumentException("Link not found: " + linkId));
+            architecture.addLink(link);
+        });
+    }
+
+    /**
+     * Remove a component from an architecture by component ID, together with the links to and
+     * from it. The links go first, so no version has a link to a missing component; undoing the
+     * removal takes one step per removed element.
+     */
+    public Architecture removeComponentFromArchitecture(String architectureId, String componentId) {
+        return mutate(architectureId, architecture -> {
+            Component component = architecture.getComponents().stream()
+                    .filter(c -> componentId.equals(c.getId()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Component not in architecture: " + componentId));
+            List<Link> incident = architecture.getLinks().stream()
+                    .filter(l -> isEndpoint(l.getSource(), componentId) || isEndpoint(l.getTarget(), componentId))
+                    .toList();
+            for (Link link : incident) {
+                architecture.removeLink(link);
+            }
+            architecture.removeComponent(component);
+        });
+    }
+
+    private static boolean isEndpoint(Component endpoint, String componentId) {
+        return endpoint != null && componentId.equals(endpoint.getId());
+    }
+
+    /**
+     * Remove a link from an architecture by link ID
+     */
+    public Architecture removeLinkFromArchitecture(String architectureId, String linkId) {
+        return mutate(architectureId, architecture -> {
+            Link link = architecture.getLinks().stream()
+                    .filter(l -> linkId.equals(l.getId()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Link not in architecture: " + linkId));
+            architecture.removeLink(link);
+        });
+    }
+
+    /**
+     * Step an architecture back to its previous version
+     */
+    public Architecture undo(String architectureId) {
+        return mutate(architectureId, architecture -> {
+            if (!architecture.undo()) {
+                throw new IllegalStateException("Nothing to undo in architecture " + architectureId);
+            }
+        });
+    }
+
+    /**
+     * Re-apply the most recently undone version of an architecture
+     */
+    public Architecture redo(String architectureId) {
+        return mutate(architectureId, architecture -> {
+            if (!architecture.redo()) {
+                throw new IllegalStateException("Nothing to redo in architecture " + architectureId);
+            }
+        });
+    }
+
+    /**
+     * Version history of an architecture
+     */
+    public ArchitectureHistory getHistory(String architectureId) {
         Architecture architecture = getArchitectureById(architectureId)
+                .orElseThrow(() -> new IllegalArgumentException("Architecture not found: " + architectureId))
+                .snapshot();
+        return new ArchitectureHistory(architectureId, architecture.getVersion().getNumber(),
+                architecture.getVersions());
+    }
+
+    /**
+     * Create a new architecture from the current (or given) version of another one. The fork
+     * shares the original's components, links and history; nothing is copied.
+     */
+    public Architecture forkArchitecture(String architectureId, String name, Integer versionNumber) {
+        Architecture source = getArchitectureById(architectureId)
                 .orElseThrow(() -> new IllegalArgumentException("Architecture not found: " + architectureId));
+        String id = UUID.randomUUID().toString();
+        String forkName = name != null ? name : source.getName() + " (fork)";
+        Architecture fork = versionNumber != null
+                ? source.fork(id, forkName, versionNumber)
+                : source.fork(id, forkName);
+        return saveArchitecture(fork);
+    }
 
-        Link link = linkService.getLinkById(linkId)
-                .orElseThrow(() -> new IllegalArgumentException("Link not found: " + linkId));
+    /**
+     * Apply a change on the architecture's mailbox (its single writer) and save it. Returns a
+     * snapshot of the version the change produced.
+     */
+    private Architecture mutate(String architectureId, Consumer<Architecture> change) {
+        return mailboxes.call(architectureId, () -> {
+            Architecture architecture = getArchitectureById(architectureId)
+                    .orElseThrow(() -> new IllegalArgumentException("Architecture not found: " + architectureId));
+            change.accept(architecture);
+            return architectureRepository.save(architecture).snapshot();
+        });
+    }
 
-        architecture.addLink(link);
-        return architectureRepository.save(architecture);
+    /**
+     * Apply a change to every architecture, each on its own mailbox, and wait for all of them.
+     * Each task re-reads its architecture, skipping one deleted in the meantime. Blocks the
+     * caller, so it must not be called from a mailbox task.
+     */
+    private void mutateAll(Consumer<Architecture> change) {
+        if (mailboxes.isInTask()) {
+            throw new IllegalStateException("Cannot wait for every architecture from inside a mailbox task");
+        }
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (Architecture listed : architectureRepository.findAll()) {
+            String architectureId = listed.getId();
+            pending.add(mailboxes.submit(architectureId, () -> {
+                getArchitectureById(architectureId).ifPresent(change);
+                return null;
+            }));
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+    }
+
+    /**
+     * Re-read a component's heuristics in every architecture that contains it
+     * (call after its scores were changed in place)
+     */
+    public void refreshComponentHeuristics(Component component) {
+        mutateAll(architecture -> architecture.refreshComponent(component));
+    }
+
+    /**
+     * Re-read a link's heuristics in every architecture that contains it
+     * (call after its scores were changed in place)
+     */
+    public void refreshLinkHeuristics(Link link) {
+        mutateAll(architecture -> architecture.refreshLink(link));
+    }
+
+    /**
+     * Keep incremental totals in sync when scores are edited through HeuristicService
+     */
+    @EventListener
+    public void onHeuristicsChanged(HeuristicsChangedEvent event) {
+        if (event.getComponent() != null) {
+            refreshComponentHeuristics(event.getComponent());
+        }
+        if (event.getLink() != null) {
+            refreshLinkHeuristics(event.getLink());
+        }
+    }
+
+    /**
+     * After a heuristics config reload: refresh the re-scored components and links in every
+     * architecture, then drop all cached evaluations
+     */
+    @EventListener
+    public void onHeuristicsReloaded(HeuristicsReloadedEvent event) {
+        mutateAll(architecture -> {
+            for (Component component : event.getComponents()) {
+                architecture.refreshComponent(component);
+            }
+            for (Link link : event.getLinks()) {
+                architecture.refreshLink(link);
+            }
+        });
+        evaluationCache.invalidateAll();
     }
 
     /**
      * Evaluate architecture and return overall score
      */
     public double evaluateArchitecture(String architectureId) {
+        return evaluateArchitecture(architectureId, parameterWeights.getCurrent());
+    }
+
+    /**
+     * Evaluate architecture with the given weights (a profile or request-scoped weights)
+     */
+    public double evaluateArchitecture(String architectureId, WeightVector weights) {
         Architecture architecture = getArchitectureById(architectureId)
                 .orElseThrow(() -> new IllegalArgumentException("Architecture not found: " + architectureId));
 
-        return heuristicAggregator.aggregate(
-                architecture.getComponents(),
-                architecture.getLinks(),
-                parameterWeights
-        );
+        // Read from the running totals; only the latency critical path walks the graph
+        return heuristicAggregator.aggregateIncremental(architecture, weights).getArchitectureScore();
     }
 
     /**
      * Evaluate architecture with detailed results
      */
     public ArchitectureEvaluation evaluateArchitectureDetailed(String architectureId) {
-        Architecture architecture = getArchitectureById(architectureId)
-                .orElseThrow(() -> new IllegalArgumentException("Architecture not found: " + architectureId));
+        return evaluateArchitectureDetailed(architectureId, parameterWeights.getCurrent());
+    }
 
-        // Calculate overall score
-        double overallScore = heuristicAggregator.aggregate(
-                architecture.getComponents(),
-                architecture.getLinks(),
-                parameterWeights
-        );
+    /**
+     * Evaluate architecture with detailed results using the given weights
+     */
+    public ArchitectureEvaluation evaluateArchitectureDetailed(String architectureId, WeightVector weights) {
+        // Every part of the evaluation reads the same version, without blocking writers
+        Architecture architecture = getArchitectureById(architectureId)
+                .orElseThrow(() -> new IllegalArgumentException("Architecture not found: " + architectureId))
+                .snapshot();
+
+        // Structurally identical architectures evaluated with the same weights share a result
+        EvaluationCache.Key cacheKey = evaluationKey(architecture, weights);
+        ArchitectureEvaluation cached = evaluationCache.get(cacheKey, ArchitectureEvaluation.class);
+        if (cached != null) {
+            return cached.withArchitecture(architectureId, architecture.getName());
+        }
 
-        // Calculate parameter-specific scores
-        Map<Parameter, Double> parameterScores = heuristicAggregator.aggregateByParameter(
-                architecture.getComponents()
+        // Calculate overall and parameter-specific scores from the running totals
+        HeuristicAggregator.AggregationResult aggregation = heuristicAggregator.aggregateIncremental(
+                architecture,
+                weights
         );
+        double overallScore = aggregation.getArchitectureScore();
+        Map<Parameter, Double> parameterScores = aggregation.getAverageScoreMap();
 
-        // Identify bottlenecks
-        List<BottleneckInfo> bottlenecks = identifyBottlenecks(architecture);
+        // Identify bottlenecks: the minimum cut of the request max flow
+        ThroughputAnalyzer.ThroughputReport throughput =
+                ThroughputAnalyzer.analyze(architecture.getComponents(), architecture.getLinks());
+        List<BottleneckInfo> bottlenecks = identifyBottlenecks(architecture, throughput);
 
         // Generate insights
         List<String> insights = generateInsights(architecture, overallScore, parameterScores, bottlenecks);
+        CriticalPathAnalyzer.CriticalPath criticalPath = aggregation.getCriticalPath();
+        if (criticalPath.getHops() > 0) {
+            insights.add(String.format("⏱ Critical request path (%d hops%s): %s",
+                    criticalPath.getHops(), criticalPath.isContainsCycle() ? ", includes a cycle" : "",
+                    criticalPath));
+        }
 
         // Validate architecture
         RuleEngineService.ArchitectureValidationResult validation =
                 ruleEngineService.validateArchitecture(architecture);
 
-        return new ArchitectureEvaluation(
+        ArchitectureEvaluation evaluation = new ArchitectureEvaluation(
                 architectureId,
                 architecture.getName(),
                 overallScore,
@@ -171,35 +382,128 @@ public class ArchitectureService {
                 insights,
                 validation.isValid(),
                 validation.getViolations(),
-                validation.getWarnings()
+                validation.getWarnings(),
+                criticalPath,
+                throughput
         );
+        evaluationCache.put(cacheKey, evaluation);
+        return evaluation;
     }
 
     /**
-     * Identify bottleneck components in the architecture
+     * Cache key of an evaluation: the structural hash of the version and the weights
      */
-    private List<BottleneckInfo> identifyBottlenecks(Architecture architecture) {
-        List<BottleneckInfo> bottlenecks = new ArrayList<>();
+    private EvaluationCache.Key evaluationKey(Architecture architecture, WeightVector weights) {
+        EvaluationCache.KeyBuilder key = new EvaluationCache.KeyBuilder().add(structuralKey(architecture));
+        for (int i = 0; i < weights.size(); i++) {
+            key.add(weights.get(i));
+        }
+        return key.build();
+    }
 
+    /**
+     * Hash of everything an evaluation depends on: components (id, name, type, subtype,
+     * heuristic scores, properties) and links (id, endpoints, type, heuristic scores,
+     * properties). Computed once per version: contents only change through a new version and
+     * in-place score edits go through refreshComponent/refreshLink, both of which publish new
+     * totals.
+     */
+    private EvaluationCache.Key structuralKey(Architecture architecture) {
+        IncrementalEvaluator.Totals totals = architecture.getTotals();
+        EvaluationCache.Key cached = structuralKeys.get(totals);
+        if (cached != null) {
+            return cached;
+        }
+        EvaluationCache.KeyBuilder key = new EvaluationCache.KeyBuilder();
+
+        key.add(architecture.getComponents().size());
         for (Component component : architecture.getComponents()) {
-            double bottleneckScore = heuristicAggregator.calculateBottleneckScore(
-                    component,
-                    architecture.getLinks()
-            );
+            key.add(component.getId())
+               .add(component.getName())
+               .add(component.getType() != null ? component.getType().ordinal() : -1)
+               .add(heuristicService.detectSubtype(component));
+            addScores(key, component.getHeuristics());
+            addProperties(key, component.getProperties());
+        }
 
-            if (bottleneckScore < 0.8) {
-                LinkService.ConnectionStats stats = linkService.getConnectionStats(component.getId());
-                bottlenecks.add(new BottleneckInfo(
-                        component.getId(),
-                        component.getName(),
-                        component.getType(),
-                        bottleneckScore,
-                        stats.getIncomingLinks(),
-                        stats.getOutgoingLinks()
-                ));
-            }
+        key.add(architecture.getLinks().size());
+        for (Link link : architecture.getLinks()) {
+            key.add(link.getId()).add(link.getType() != null ? link.getType().ordinal() : -1);
+            addEndpoint(key, link.getSource());
+            addEndpoint(key, link.getTarget());
+            addScores(key, link.getHeuristics());
+            addProperties(key, link.getProperties());
+        }
+
+        EvaluationCache.Key built = key.build();
+        structuralKeys.put(totals, built);
+        return built;
+    }
+
+    private void addEndpoint(EvaluationCache.KeyBuilder key, Component endpoint) {
+        key.add(endpoint != null ? endpoint.getId() : (String) null);
+    }
+
+    private void addScores(EvaluationCache.KeyBuilder key, HeuristicProfile heuristics) {
+        if (heuristics == null) {
+            key.add(-1L);
+            return;
+        }
+        for (int i = 0; i < HeuristicProfile.PARAMETER_COUNT; i++) {
+            key.add(heuristics.scoreAt(i));
+        }
+    }
+
+    private void addProperties(EvaluationCache.KeyBuilder key, Map<String, Object> properties) {
+        if (properties == null) {
+            key.add(-1L);
+            return;
+        }
+        key.add(properties.size());
+        for (Map.Entry<String, Object> property : new TreeMap<>(properties).entrySet()) {
+            key.add(property.getKey()).add(String.valueOf(property.getValue()));
+        }
+    }
+
+    /**
+     * Hit/miss counters of the evaluation cache
+     */
+    public EvaluationCache.CacheStats getEvaluationCacheStats() {
+        return evaluationCache.getStats();
+    }
+
+    /**
+     * Identify bottleneck components: those on the minimum cut of the request max flow.
+     * The bottleneck score is the share of the maximum throughput that does not pass through
+     * the component, so the component carrying most of the limit scores lowest.
+     */
+    private List<BottleneckInfo> identifyBottlenecks(Architecture architecture,
+                                                     ThroughputAnalyzer.ThroughputReport throughput) {
+        List<BottleneckInfo> bottlenecks = new ArrayList<>();
+
+        if (architecture.getLinks().isEmpty()) {
+            return bottlenecks;
         }
 
+        // Degrees over this snapshot's links (the running evaluator belongs to the writer)
+        HeuristicAggregator.ConnectionDegrees degrees =
+                heuristicAggregator.calculateConnectionDegrees(architecture.getComponents(), architecture.getLinks());
+        double maxThroughput = throughput.getMaxThroughputPerSecond();
+
+        for (ThroughputAnalyzer.ComponentFlow flow : throughput.getMinCutComponents()) {
+            double share = maxThroughput > 0 ? flow.getFlowPerSecond() / maxThroughput : 1.0;
+            bottlenecks.add(new BottleneckInfo(
+                    flow.getComponentId(),
+                    flow.getComponentName(),
+                    flow.getComponentType(),
+                    Math.max(0.0, 1.0 - share),
+                    degrees.getIncoming(flow.getComponentId()),
+                    degrees.getOutgoing(flow.getComponentId()),
+                    flow.getCapacityPerSecond()
+            ));
+        }
+        bottlenecks.sort(Comparator.comparingDouble(BottleneckInfo::getBottleneckScore));
+
         return bottlenecks;
     }
 
@@ -288,7 +592,8 @@ public class ArchitectureService {
             insights.add("⚠ Detected " + bottlenecks.size() + " potential bottleneck(s):");
             for (BottleneckInfo bottleneck : bottlenecks) {
                 insights.add("  • " + bottleneck.getComponentName() + " (" + bottleneck.getComponentType() +
-                        ") has " + bottleneck.getTotalConnections() + " connections. Consider load balancing or caching.");
+                        String.format(") saturates at %.0f req/s. Consider more instances, load balancing or caching.",
+                                bottleneck.getCapacityPerSecond()));
             }
         }
 
@@ -333,23 +638,102 @@ public class ArchitectureService {
      */
     public ArchitectureComparison compareArchitectures(String arch1Id, String arch2Id) {
         Architecture arch1 = getArchitectureById(arch1Id)
-                .orElseThrow(() -> new IllegalArgumentException("Architecture 1 not found: " + arch1Id));
+                .orElseThrow(() -> new IllegalArgumentException("Architecture 1 not found: " + arch1Id))
+                .snapshot();
         Architecture arch2 = getArchitectureById(arch2Id)
-                .orElseThrow(() -> new IllegalArgumentException("Architecture 2 not found: " + arch2Id));
+                .orElseThrow(() -> new IllegalArgumentException("Architecture 2 not found: " + arch2Id))
+                .snapshot();
+
+        WeightVector weights = parameterWeights.getCurrent();
+        EvaluationCache.Key cacheKey = new EvaluationCache.KeyBuilder()
+                .add(2L)
+                .add(evaluationKey(arch1, weights))
+                .add(evaluationKey(arch2, weights))
+                .build();
+        ArchitectureComparison cached = evaluationCache.get(cacheKey, ArchitectureComparison.class);
+        if (cached != null) {
+            return new ArchitectureComparison(
+                    arch1.getId(), arch1.getName(), cached.getArch1Score(),
+                    arch2.getId(), arch2.getName(), cached.getArch2Score(),
+                    cached.getArch1Parameters(), cached.getArch2Parameters()
+            );
+        }
 
-        double score1 = heuristicAggregator.aggregate(arch1.getComponents(), arch1.getLinks(), parameterWeights);
-        double score2 = heuristicAggregator.aggregate(arch2.getComponents(), arch2.getLinks(), parameterWeights);
+        HeuristicAggregator.AggregationResult result1 =
+                heuristicAggregator.aggregateIncremental(arch1, weights);
+        HeuristicAggregator.AggregationResult result2 =
+                heuristicAggregator.aggregateIncremental(arch2, weights);
 
-        Map<Parameter, Double> params1 = heuristicAggregator.aggregateByParameter(arch1.getComponents(), arch1.getLinks());
-        Map<Parameter, Double> params2 = heuristicAggregator.aggregateByParameter(arch2.getComponents(), arch2.getLinks());
-        return new ArchitectureComparison(
-                arch1.getId(), arch1.getName(), score1,
-                arch2.getId(), arch2.getName(), score2,
-                params1, params2
+        ArchitectureComparison comparison = new ArchitectureComparison(
+                arch1.getId(), arch1.getName(), result1.getArchitectureScore(),
+                arch2.getId(), arch2.getName(), result2.getArchitectureScore(),
+                result1.getParameterScoreMap(), result2.getParameterScoreMap()
         );
+        evaluationCache.put(cacheKey, comparison);
+        return comparison;
+    }
+
+    /**
+     * Rank any number of architectures by weighted score and find the Pareto frontier over
+     * their parameter scores. Parameter vectors are computed in parallel.
+     */
+    public ArchitectureRanking rankArchitectures(List<String> architectureIds, WeightVector weights) {
+        if (architectureIds == null || architectureIds.isEmpty()) {
+            throw new IllegalArgumentException("architectureIds must not be empty");
+        }
+        Architecture[] architectures = new Architecture[architectureIds.size()];
+        for (int i = 0; i < architectures.length; i++) {
+            String id = architectureIds.get(i);
+            architectures[i] = getArchitectureById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Architecture not found: " + id));
+        }
+
+        HeuristicAggregator.AggregationResult[] results = new HeuristicAggregator.AggregationResult[architectures.length];
+        double[][] vectors = new double[architectures.length][];
+        IntStream.range(0, architectures.length).parallel().forEach(i -> {
+            results[i] = heuristicAggregator.aggregateIncremental(architectures[i], weights);
+            double[] vector = new double[Parameter.values().length];
+            for (Parameter param : Parameter.values()) {
+                vector[param.ordinal()] = results[i].getParameterScore(param);
+            }
+            vectors[i] = vector;
+        });
+        ParetoFrontier.Result pareto = ParetoFrontier.analyze(vectors);
+
+        List<RankedArchitecture> rankings = new ArrayList<>(architectures.length);
+        for (int i = 0; i < architectures.length; i++) {
+            rankings.add(new RankedArchitecture(architectures[i].getId(), architectures[i].getName(),
+                    results[i].getArchitectureScore(), results[i].getParameterScoreMap(),
+                    pareto.isOnFrontier(i), pareto.getDominates(i), pareto.getDominatedBy(i)));
+        }
+        rankings.sort(Comparator.comparingDouble(RankedArchitecture::getScore).reversed());
+        List<String> frontier = new ArrayList<>();
+        for (int i = 0; i < rankings.size(); i++) {
+            rankings.get(i).rank = i + 1;
+            if (rankings.get(i).isOnFrontier()) {
+                frontier.add(rankings.get(i).getArchitectureId());
+            }
+        }
+        return new ArchitectureRanking(rankings, frontier);
     }
 
     // Inner classes for responses
+    public static class ArchitectureHistory {
+        private final String architectureId;
+        private final int currentVersion;
+        private final List<Architecture.Version> versions;
+
+        public ArchitectureHistory(String architectureId, int currentVersion, List<Architecture.Version> versions) {
+            this.architectureId = architectureId;
+            this.currentVersion = currentVersion;
+            this.versions = versions;
+        }
+
+        public String getArchitectureId() { return architectureId; }
+        public int getCurrentVersion() { return currentVersion; }
+        public List<Architecture.Version> getVersions() { return versions; }
+    }
+
     public static class ArchitectureEvaluation {
         private final String architectureId;
         private final String architectureName;
@@ -362,6 +746,8 @@ public class ArchitectureService {
         private final boolean valid;
         private final List<String> violations;
         private final List<String> warnings;
+        private final CriticalPathAnalyzer.CriticalPath criticalPath;
+        private final ThroughputAnalyzer.ThroughputReport throughput;
 
         public ArchitectureEvaluation(String architectureId, String architectureName,
                                       double overallScore, int componentCount, int linkCount,
@@ -370,7 +756,9 @@ public class ArchitectureService {
                                       List<String> insights,
                                       boolean valid,
                                       List<String> violations,
-                                      List<String> warnings) {
+                                      List<String> warnings,
+                                      CriticalPathAnalyzer.CriticalPath criticalPath,
+                                      ThroughputAnalyzer.ThroughputReport throughput) {
             this.architectureId = architectureId;
             this.architectureName = architectureName;
             this.overallScore = overallScore;
@@ -382,6 +770,17 @@ public class ArchitectureService {
             this.valid = valid;
             this.violations = violations;
             this.warnings = warnings;
+            this.criticalPath = criticalPath;
+            this.throughput = throughput;
+        }
+
+        /**
+         * Same evaluation reported for another (structurally identical) architecture
+         */
+        public ArchitectureEvaluation withArchitecture(String architectureId, String architectureName) {
+            return new ArchitectureEvaluation(architectureId, architectureName, overallScore,
+                    componentCount, linkCount, parameterScores, bottlenecks, insights,
+                    valid, violations, warnings, criticalPath, throughput);
         }
 
         // Getters
@@ -396,6 +795,59 @@ public class ArchitectureService {
         public boolean isValid() { return valid; }
         public List<String> getViolations() { return violations; }
         public List<String> getWarnings() { return warnings; }
+        /** Slowest synchronous request path the LATENCY score is based on */
+        public CriticalPathAnalyzer.CriticalPath getCriticalPath() { return criticalPath; }
+        /** Request max flow and its minimum cut */
+        public ThroughputAnalyzer.ThroughputReport getThroughput() { return throughput; }
+    }
+
+    public static class ArchitectureRanking {
+        private final List<RankedArchitecture> rankings;
+        private final List<String> paretoFrontier;
+
+        public ArchitectureRanking(List<RankedArchitecture> rankings, List<String> paretoFrontier) {
+            this.rankings = rankings;
+            this.paretoFrontier = paretoFrontier;
+        }
+
+        /** All architectures, best weighted score first */
+        public List<RankedArchitecture> getRankings() { return rankings; }
+        /** Ids of the non-dominated architectures, best weighted score first */
+        public List<String> getParetoFrontier() { return paretoFrontier; }
+    }
+
+    public static class RankedArchitecture {
+        private int rank;
+        private final String architectureId;
+        private final String architectureName;
+        private final double score;
+        private final Map<Parameter, Double> parameterScores;
+        private final boolean onFrontier;
+        private final int dominates;
+        private final int dominatedBy;
+
+        public RankedArchitecture(String architectureId, String architectureName, double score,
+                                  Map<Parameter, Double> parameterScores, boolean onFrontier,
+                                  int dominates, int dominatedBy) {
+            this.architectureId = architectureId;
+            this.architectureName = architectureName;
+            this.score = score;
+            this.parameterScores = parameterScores;
+            this.onFrontier = onFrontier;
+            this.dominates = dominates;
+            this.dominatedBy = dominatedBy;
+        }
+
+        public int getRank() { return rank; }
+        public String getArchitectureId() { return architectureId; }
+        public String getArchitectureName() { return architectureName; }
+        public double getScore() { return score; }
+        public Map<Parameter, Double> getParameterScores() { return parameterScores; }
+        public boolean isOnFrontier() { return onFrontier; }
+        /** Architectures this one dominates (counted for frontier members) */
+        public int getDominates() { return dominates; }
+        /** Frontier architectures that dominate this one */
+        public int getDominatedBy() { return dominatedBy; }
     }
 
     public static class BottleneckInfo {
@@ -405,15 +857,18 @@ public class ArchitectureService {
         private final double bottleneckScore;
         private final int incomingConnections;
         private final int outgoingConnections;
+        private final double capacityPerSecond;
 
         public BottleneckInfo(String componentId, String componentName, ComponentType componentType,
-                              double bottleneckScore, int incomingConnections, int outgoingConnections) {
+                              double bottleneckScore, int incomingConnections, int outgoingConnections,
+                              double capacityPerSecond) {
             this.componentId = componentId;
             this.componentName = componentName;
             this.componentType = componentType;
             this.bottleneckScore = bottleneckScore;
             this.incomingConnections = incomingConnections;
             this.outgoingConnections = outgoingConnections;
+            this.capacityPerSecond = capacityPerSecond;
         }
 
         public String getComponentId() { return componentId; }
@@ -423,6 +878,7 @@ public class ArchitectureService {
         public int getIncomingConnections() { return incomingConnections; }
         public int getOutgoingConnections() { return outgoingConnections; }
         public int getTotalConnections() { return incomingConnections + outgoingConnections; }
+        public double getCapacityPerSecond() { return capacityPerSecond; }
     }
 
     public static class ArchitectureComparison {
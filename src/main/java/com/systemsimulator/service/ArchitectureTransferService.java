@@ -0,0 +1,204 @@
+package com.systemsimulator.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.systemsimulator.model.Architecture;
+import com.systemsimulator.model.Component;
+import com.systemsimulator.model.Link;
+import com.systemsimulator.utils.BinaryReader;
+import com.systemsimulator.utils.NormalizedGraphReader;
+import com.systemsimulator.utils.NormalizedGraphWriter;
+import com.systemsimulator.utils.TaggedEntityCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bulk import and export of architectures in the normalized JSON format or as
+ * {@link TaggedEntityCodec} documents. JSON imports are parsed token by token, while a binary
+ * import is read into memory first and limited in size. Either way an import is validated as a
+ * whole and then committed in one batch per repository (components, then links, then
+ * architectures), and an invalid import stores nothing. Exports are streamed in both formats.
+ *
+ * An import never replaces stored objects: an imported component, link or architecture whose id
+ * is already taken is given a fresh id, and the result reports the ids the architectures got.
+ */
+@Service
+public class ArchitectureTransferService {
+
+    // Violations quoted in the message of a rejected import; the rest are only counted
+    private static final int MAX_REPORTED_VIOLATIONS = 20;
+
+    @Autowired
+    private ArchitectureService architectureService;
+
+    @Autowired
+    private ComponentService componentService;
+
+    @Autowired
+    private LinkService linkService;
+
+    @Autowired
+    private HeuristicService heuristicService;
+
+    @Autowired
+    private RuleEngineService ruleEngineService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /** Largest binary document accepted by importBinary */
+    @Value("${simulator.transfer.max-binary-import-mb:64}")
+    private int maxBinaryImportMb = 64;
+
+    /**
+     * Import one architecture object
+     */
+    public ImportResult importArchitecture(InputStream in) throws IOException {
+        NormalizedGraphReader reader = newReader();
+        try (JsonParser parser = objectMapper.createParser(in)) {
+            reader.readArchitecture(parser);
+        }
+        return commit(reader);
+    }
+
+    /**
+     * Import a JSON array of architecture objects, or {@code {"architectures": [...]}}
+     */
+    public ImportResult importArchitectures(InputStream in) throws IOException {
+        NormalizedGraphReader reader = newReader();
+        try (JsonParser parser = objectMapper.createParser(in)) {
+            reader.readArchitectures(parser);
+        }
+        return commit(reader);
+    }
+
+    /**
+     * Import a binary document holding one or more architectures, of at most
+     * {@code simulator.transfer.max-binary-import-mb}
+     */
+    public ImportResult importBinary(InputStream in) throws IOException {
+        TaggedEntityCodec.Document document = TaggedEntityCodec.readDocument(
+                BinaryReader.of(in, maxBinaryImportMb * 1024 * 1024),
+                id -> componentService.getComponentById(id).orElse(null));
+        return commit(document.getComponents(), document.getLinks(), document.getArchitectures());
+    }
+
+    /**
+     * Stream architectures as one binary document
+     */
+    public void exportBinary(Collection<Architecture> architectures, OutputStream out) throws IOException {
+        TaggedEntityCodec.writeArchitectures(out, architectures);
+    }
+
+    /**
+     * Stream one architecture in the normalized format
+     */
+    public void exportArchitecture(Architecture architecture, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            NormalizedGraphWriter.writeArchitecture(generator, architecture);
+        }
+    }
+
+    /**
+     * Stream architectures as {@code {"architectures": [...]}}, readable by {@link #importArchitectures}
+     */
+    public void exportArchitectures(Collection<Architecture> architectures, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("architectures");
+            for (Architecture architecture : architectures) {
+                NormalizedGraphWriter.writeArchitecture(generator, architecture);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Architectures to export: the given ids (each must exist), or all when ids is null or empty
+     */
+    public List<Architecture> resolveArchitectures(List<String> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return architectureService.getAllArchitectures();
+        }
+        List<Architecture> architectures = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            architectures.add(architectureService.getArchitectureById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Architecture not found: " + id)));
+        }
+        return architectures;
+    }
+
+    private NormalizedGraphReader newReader() {
+        return new NormalizedGraphReader(
+                id -> componentService.getComponentById(id).orElse(null),
+                heuristicService::getHeuristicsForComponent,
+                heuristicService::getDefaultHeuristicsForLinkType);
+    }
+
+    private ImportResult commit(NormalizedGraphReader reader) {
+        return commit(reader.getComponents(), reader.getLinks(), reader.getArchitectures());
+    }
+
+    private ImportResult commit(List<Component> components, List<Link> links, List<Architecture> architectures) {
+        List<String> violations = ruleEngineService.validateLinks(links);
+        if (!violations.isEmpty()) {
+            String reported = String.join("; ", violations.subList(0, Math.min(violations.size(), MAX_REPORTED_VIOLATIONS)));
+            throw new IllegalArgumentException("Import rejected, " + violations.size() + " invalid link(s): " + reported
+                    + (violations.size() > MAX_REPORTED_VIOLATIONS ? "; ..." : ""));
+        }
+        // References between imported objects are object references, so ids can change here
+        for (Component component : components) {
+            if (componentService.getComponentById(component.getId()).isPresent()) {
+                component.setId(UUID.randomUUID().toString());
+            }
+        }
+        for (Link link : links) {
+            if (link.getId() == null || linkService.getLinkById(link.getId()).isPresent()) {
+                link.setId(UUID.randomUUID().toString());
+            }
+        }
+        for (Architecture architecture : architectures) {
+            if (architecture.getId() == null || architectureService.getArchitectureById(architecture.getId()).isPresent()) {
+                architecture.setId(UUID.randomUUID().toString());
+            }
+        }
+        // Links reference components and architectures reference both, so store them in that order
+        componentService.saveComponents(components);
+        linkService.saveLinks(links);
+        architectureService.saveArchitectures(architectures);
+
+        List<String> ids = new ArrayList<>(architectures.size());
+        for (Architecture architecture : architectures) {
+            ids.add(architecture.getId());
+        }
+        return new ImportResult(ids, components.size(), links.size());
+    }
+
+    public static class ImportResult {
+        private final List<String> architectureIds;
+        private final int componentCount;
+        private final int linkCount;
+
+        public ImportResult(List<String> architectureIds, int componentCount, int linkCount) {
+            this.architectureIds = architectureIds;
+            this.componentCount = componentCount;
+            this.linkCount = linkCount;
+        }
+
+        public List<String> getArchitectureIds() { return architectureIds; }
+        public int getArchitectureCount() { return architectureIds.size(); }
+        public int getComponentCount() { return componentCount; }
+        public int getLinkCount() { return linkCount; }
+    }
+}
@@ -0,0 +1,208 @@
+package com.systemsimulator.service;
+
+import com.systemsimulator.model.*;
+import com.systemsimulator.utils.CriticalPathAnalyzer;
+import com.systemsimulator.utils.HeuristicAggregator;
+import com.systemsimulator.utils.MappedArchitecture;
+import com.systemsimulator.utils.ParameterWeights;
+import com.systemsimulator.utils.WeightVector;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Archive of architectures in the memory-mapped {@link MappedArchitecture} format. Archived
+ * architectures are scored straight from their files; Component and Link objects are only
+ * built when an architecture is restored for editing.
+ */
+@Service
+public class ArchiveService {
+
+    private static final String EXTENSION = ".arch";
+
+    @Autowired
+    private ArchitectureService architectureService;
+
+    @Autowired
+    private ComponentService componentService;
+
+    @Autowired
+    private LinkService linkService;
+
+    @Autowired
+    private HeuristicAggregator heuristicAggregator;
+
+    @Autowired
+    private ParameterWeights parameterWeights;
+
+    /** Directory holding archived architecture files (empty = archiving disabled) */
+    @Value("${simulator.archive.directory:}")
+    private String directory;
+
+    /**
+     * Write an architecture to the archive, replacing an earlier archived version
+     */
+    public ArchiveEntry archive(String architectureId) {
+        Architecture architecture = architectureService.getArchitectureById(architectureId)
+                .orElseThrow(() -> new IllegalArgumentException("Architecture not found: " + architectureId));
+        Path file = fileFor(architectureId);
+        try {
+            Files.createDirectories(file.getParent());
+            MappedArchitecture.write(architecture, file);
+            return new ArchiveEntry(architectureId, architecture.getName(), architecture.getComponents().size(),
+                    architecture.getLinks().size(), Files.size(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to archive architecture " + architectureId, e);
+        }
+    }
+
+    /**
+     * Ids of all archived architectures
+     */
+    public List<String> listArchived() {
+        Path root = root();
+        List<String> ids = new ArrayList<>();
+        if (!Files.isDirectory(root)) {
+            return ids;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(root, "*" + EXTENSION)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    ids.add(new String(Base64.getUrlDecoder().decode(
+                            name.substring(0, name.length() - EXTENSION.length())), StandardCharsets.UTF_8));
+                } catch (IllegalArgumentException e) {
+                    // Not an archive file name
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list archive", e);
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Score an archived architecture from its mapped file, without materializing it
+     */
+    public ArchivedEvaluation evaluate(String architectureId, WeightVector weights) {
+        MappedArchitecture mapped = open(architectureId);
+        HeuristicAggregator.AggregationResult aggregation = heuristicAggregator.aggregateMapped(
+                mapped, weights != null ? weights : parameterWeights.getCurrent());
+        return new ArchivedEvaluation(architectureId, mapped.getName(), aggregation.getArchitectureScore(),
+                mapped.getComponentCount(), mapped.getLinkCount(),
+                aggregation.getAverageScoreMap(),
+                aggregation.getCriticalPath());
+    }
+
+    /**
+     * Materialize an archived architecture and store it with its components and links, replacing
+     * live objects with the same ids, so it can be edited again
+     */
+    public Architecture restore(String architectureId) {
+        Architecture architecture = open(architectureId).toArchitecture();
+        Set<Component> endpoints = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Component component : architecture.getComponents()) {
+            componentService.saveComponent(component);
+            endpoints.add(component);
+        }
+        for (Link link : architecture.getLinks()) {
+            for (Component endpoint : Arrays.asList(link.getSource(), link.getTarget())) {
+                if (endpoint != null && endpoints.add(endpoint)) {
+                    componentService.saveComponent(endpoint);
+                }
+            }
+            linkService.saveLink(link);
+        }
+        return architectureService.saveArchitecture(architecture);
+    }
+
+    private MappedArchitecture open(String architectureId) {
+        Path file = fileFor(architectureId);
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("Archived architecture not found: " + architectureId);
+        }
+        try {
+            return MappedArchitecture.open(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open archived architecture " + architectureId, e);
+        }
+    }
+
+    /**
+     * File of an architecture id; ids are base64url-encoded so any id is a safe file name
+     */
+    private Path fileFor(String architectureId) {
+        return root().resolve(Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(architectureId.getBytes(StandardCharsets.UTF_8)) + EXTENSION);
+    }
+
+    private Path root() {
+        if (directory == null || directory.isBlank()) {
+            throw new IllegalStateException("Archiving is disabled (simulator.archive.directory is not set)");
+        }
+        return Paths.get(directory);
+    }
+
+    public static class ArchiveEntry {
+        private final String architectureId;
+        private final String architectureName;
+        private final int componentCount;
+        private final int linkCount;
+        private final long sizeBytes;
+
+        public ArchiveEntry(String architectureId, String architectureName, int componentCount,
+                            int linkCount, long sizeBytes) {
+            this.architectureId = architectureId;
+            this.architectureName = architectureName;
+            this.componentCount = componentCount;
+            this.linkCount = linkCount;
+            this.sizeBytes = sizeBytes;
+        }
+
+        public String getArchitectureId() { return architectureId; }
+        public String getArchitectureName() { return architectureName; }
+        public int getComponentCount() { return componentCount; }
+        public int getLinkCount() { return linkCount; }
+        public long getSizeBytes() { return sizeBytes; }
+    }
+
+    public static class ArchivedEvaluation {
+        private final String architectureId;
+        private final String architectureName;
+        private final double overallScore;
+        private final int componentCount;
+        private final int linkCount;
+        private final Map<Parameter, Double> parameterScores;
+        private final CriticalPathAnalyzer.CriticalPath criticalPath;
+
+        public ArchivedEvaluation(String architectureId, String architectureName, double overallScore,
+                                  int componentCount, int linkCount, Map<Parameter, Double> parameterScores,
+                                  CriticalPathAnalyzer.CriticalPath criticalPath) {
+            this.architectureId = architectureId;
+            this.architectureName = architectureName;
+            this.overallScore = overallScore;
+            this.componentCount = componentCount;
+            this.linkCount = linkCount;
+            this.parameterScores = parameterScores;
+            this.criticalPath = criticalPath;
+        }
+
+        public String getArchitectureId() { return architectureId; }
+        public String getArchitectureName() { return architectureName; }
+        public double getOverallScore() { return overallScore; }
+        public int getComponentCount() { return componentCount; }
+        public int getLinkCount() { return linkCount; }
+        public Map<Parameter, Double> getParameterScores() { return parameterScores; }
+        public CriticalPathAnalyzer.CriticalPath getCriticalPath() { return criticalPath; }
+    }
+}
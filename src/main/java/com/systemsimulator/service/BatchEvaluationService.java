@@ -0,0 +1,237 @@
+package com.systemsimulator.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.systemsimulator.model.Parameter;
+import com.systemsimulator.utils.ParameterWeights;
+import com.systemsimulator.utils.WeightVector;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Evaluates many architectures per call on a bounded worker pool, handing each result to the
+ * caller as soon as it is ready. At most twice the pool size is in flight at a time, so a batch
+ * of any size holds only a bounded number of pending results.
+ */
+@Service
+public class BatchEvaluationService {
+
+    private static final int MAX_BATCH_SIZE = 100_000;
+
+    @Autowired
+    private ArchitectureService architectureService;
+
+    @Autowired
+    private ParameterWeights parameterWeights;
+
+    @Value("${simulator.batch.parallelism:0}")
+    private int parallelism;
+
+    private ExecutorService executor;
+    private int threads;
+
+    // Drives streamed batches; each one mostly waits on the worker pool and the client
+    private ExecutorService streams;
+
+    @PostConstruct
+    public void start() {
+        threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "batch-evaluation-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        streams = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @PreDestroy
+    public void stop() {
+        streams.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Check a batch request and resolve its weights once for the whole batch: the named
+     * profile (or the current shared weights) with any explicit per-parameter weights on top
+     */
+    public WeightVector resolveWeights(BatchRequest request) {
+        if (request == null || request.getArchitectureIds() == null || request.getArchitectureIds().isEmpty()) {
+            throw new IllegalArgumentException("architectureIds must not be empty");
+        }
+        if (request.getArchitectureIds().size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " architectures per batch");
+        }
+        return parameterWeights.resolve(request.getProfile(), request.getProfileName(), request.getWeights());
+    }
+
+    /**
+     * Evaluate every architecture in the request and pass each result to {@code sink} in
+     * completion order, on the calling thread. A failing item is reported as an error result;
+     * an exception thrown by the sink cancels the rest of the batch and is rethrown.
+     */
+    public BatchSummary evaluateBatch(BatchRequest request, Consumer<BatchItemResult> sink) {
+        return evaluateBatch(request, resolveWeights(request), sink);
+    }
+
+    /**
+     * Like {@link #evaluateBatch(BatchRequest, Consumer)}, for a request already checked by
+     * {@link #resolveWeights} and the weights it returned
+     */
+    public BatchSummary evaluateBatch(BatchRequest request, WeightVector weights, Consumer<BatchItemResult> sink) {
+        List<String> ids = request.getArchitectureIds();
+        boolean detailed = request.isDetailed();
+        long startNanos = System.nanoTime();
+
+        CompletionService<BatchItemResult> completion = new ExecutorCompletionService<>(executor);
+        Set<Future<BatchItemResult>> pending = new HashSet<>();
+        int window = threads * 2;
+        int submitted = 0;
+        int completed = 0;
+        int failed = 0;
+        try {
+            while (completed < ids.size()) {
+                while (submitted < ids.size() && submitted - completed < window) {
+                    int index = submitted++;
+                    pending.add(completion.submit(() -> evaluateItem(index, ids.get(index), weights, detailed)));
+                }
+                Future<BatchItemResult> done = completion.take();
+                pending.remove(done);
+                BatchItemResult result = done.get();
+                completed++;
+                if (!result.isSuccess()) {
+                    failed++;
+                }
+                sink.accept(result);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Batch evaluation interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch evaluation failed", e.getCause());
+        } finally {
+            for (Future<BatchItemResult> future : pending) {
+                future.cancel(true);
+            }
+        }
+
+        return new BatchSummary(ids.size(), completed - failed, failed,
+                (System.nanoTime() - startNanos) / 1_000_000L);
+    }
+
+    /**
+     * Run {@link #evaluateBatch(BatchRequest, WeightVector, Consumer)} on a thread of its own,
+     * so the sink can write to a client while the caller returns
+     */
+    public CompletableFuture<BatchSummary> evaluateBatchAsync(BatchRequest request, WeightVector weights,
+                                                              Consumer<BatchItemResult> sink) {
+        return CompletableFuture.supplyAsync(() -> evaluateBatch(request, weights, sink), streams);
+    }
+
+    private BatchItemResult evaluateItem(int index, String architectureId, WeightVector weights, boolean detailed) {
+        try {
+            if (detailed) {
+                ArchitectureService.ArchitectureEvaluation evaluation =
+                        architectureService.evaluateArchitectureDetailed(architectureId, weights);
+                return BatchItemResult.success(index, architectureId, evaluation.getOverallScore(), evaluation);
+            }
+            return BatchItemResult.success(index, architectureId,
+                    architectureService.evaluateArchitecture(architectureId, weights), null);
+        } catch (RuntimeException e) {
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            return BatchItemResult.error(index, architectureId, message);
+        }
+    }
+
+    // ==================== Requests and results ====================
+
+    public static class BatchRequest {
+        private List<String> architectureIds;
+        private ParameterWeights.WeightProfile profile;
+        private String profileName;
+        private Map<Parameter, Double> weights;
+        private boolean detailed = true;
+
+        public List<String> getArchitectureIds() { return architectureIds; }
+        public void setArchitectureIds(List<String> architectureIds) { this.architectureIds = architectureIds; }
+
+        /** Weight profile to score with instead of the shared weights (optional) */
+        public ParameterWeights.WeightProfile getProfile() { return profile; }
+        public void setProfile(ParameterWeights.WeightProfile profile) { this.profile = profile; }
+
+        /** Registered custom profile to score with instead of a built-in one (optional) */
+        public String getProfileName() { return profileName; }
+        public void setProfileName(String profileName) { this.profileName = profileName; }
+
+        /** Per-parameter weights applied on top of the profile (optional) */
+        public Map<Parameter, Double> getWeights() { return weights; }
+        public void setWeights(Map<Parameter, Double> weights) { this.weights = weights; }
+
+        /** Full evaluations when true, scores only when false */
+        public boolean isDetailed() { return detailed; }
+        public void setDetailed(boolean detailed) { this.detailed = detailed; }
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class BatchItemResult {
+        private final int index;
+        private final String architectureId;
+        private final boolean success;
+        private final Double score;
+        private final ArchitectureService.ArchitectureEvaluation evaluation;
+        private final String error;
+
+        public BatchItemResult(int index, String architectureId, boolean success, Double score,
+                               ArchitectureService.ArchitectureEvaluation evaluation, String error) {
+            this.index = index;
+            this.architectureId = architectureId;
+            this.success = success;
+            this.score = score;
+            this.evaluation = evaluation;
+            this.error = error;
+        }
+
+        static BatchItemResult success(int index, String architectureId, double score,
+                                       ArchitectureService.ArchitectureEvaluation evaluation) {
+            return new BatchItemResult(index, architectureId, true, score, evaluation, null);
+        }
+
+        static BatchItemResult error(int index, String architectureId, String error) {
+            return new BatchItemResult(index, architectureId, false, null, null, error);
+        }
+
+        /** Position of the architecture id in the request */
+        public int getIndex() { return index; }
+        public String getArchitectureId() { return architectureId; }
+        public boolean isSuccess() { return success; }
+        public Double getScore() { return score; }
+        public ArchitectureService.ArchitectureEvaluation getEvaluation() { return evaluation; }
+        public String getError() { return error; }
+    }
+
+    public static class BatchSummary {
+        private final int total;
+        private final int succeeded;
+        private final int failed;
+        private final long elapsedMillis;
+
+        public BatchSummary(int total, int succeeded, int failed, long elapsedMillis) {
+            this.total = total;
+            this.succeeded = succeeded;
+            this.failed = failed;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public int getTotal() { return total; }
+        public int getSucceeded() { return succeeded; }
+        public int getFailed() { return failed; }
+        public long getElapsedMillis() { return elapsedMillis; }
+    }
+}
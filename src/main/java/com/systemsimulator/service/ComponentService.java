@@ -5,6 +5,7 @@ import com.systemsimulator.repository.InMemoryComponentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -33,6 +34,13 @@ public class ComponentService {
         return componentRepository.save(component);
     }
 
+    /**
+     * Save many components in one batch
+     */
+    public void saveComponents(Collection<Component> components) {
+        componentRepository.saveAll(components);
+    }
+
     public Optional<Component> getComponentById(String id) {
         return componentRepository.findById(id);
     }
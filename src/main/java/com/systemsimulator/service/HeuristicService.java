@@ -3,124 +3,190 @@ package com.systemsimulator.service;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.systemsimulator.model.*;
+import com.systemsimulator.utils.ArchitectureMailboxes;
+import com.systemsimulator.utils.CompiledHeuristics;
+import com.systemsimulator.repository.InMemoryArchitectureRepository;
+import com.systemsimulator.repository.InMemoryComponentRepository;
+import com.systemsimulator.repository.InMemoryLinkRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class HeuristicService {
 
-    private Map<String, Map<String, Map<String, Double>>> heuristicsConfig;
+    private static final Logger logger = LoggerFactory.getLogger(HeuristicService.class);
+    private static final long WATCH_QUIET_MILLIS = 200;
+    private static final TypeReference<Map<String, Map<String, Map<String, Double>>>> CONFIG_TYPE =
+            new TypeReference<Map<String, Map<String, Map<String, Double>>>>() {};
+
+    // Replaced as a whole by a reload; lookups read whichever catalog is current
+    private final AtomicReference<CompiledHeuristics> catalog = new AtomicReference<>();
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    @Autowired(required = false)
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired(required = false)
+    private InMemoryComponentRepository componentRepository;
+
+    @Autowired(required = false)
+    private InMemoryLinkRepository linkRepository;
+
+    @Autowired(required = false)
+    private InMemoryArchitectureRepository architectureRepository;
+
+    // Not ArchitectureService, which depends on this service
+    @Autowired(required = false)
+    private ArchitectureMailboxes mailboxes;
+
+    /** External heuristics-config.json to load and watch instead of the classpath copy (optional) */
+    @Value("${simulator.heuristics.config-path:}")
+    private String configPath;
+
+    private WatchService watchService;
+    private Thread watcher;
+
     @PostConstruct
     public void init() {
-        loadHeuristicsFromJson();
+        catalog.set(loadCatalog());
+        if (configPath != null && !configPath.isBlank()) {
+            startWatcher(Paths.get(configPath).toAbsolutePath());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (watcher != null) {
+            watcher.interrupt();
+        }
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close heuristics config watcher", e);
+            }
+        }
     }
 
     /**
-     * Load heuristics configuration from JSON file
+     * Load heuristics configuration from the external file if one is configured and exists,
+     * else from the classpath, and compile it
      */
-    private void loadHeuristicsFromJson() {
+    private CompiledHeuristics loadCatalog() {
         try {
+            if (configPath != null && !configPath.isBlank() && Files.isRegularFile(Paths.get(configPath))) {
+                try (InputStream in = Files.newInputStream(Paths.get(configPath))) {
+                    return new CompiledHeuristics(objectMapper.readValue(in, CONFIG_TYPE));
+                }
+            }
             ClassPathResource resource = new ClassPathResource("heuristics-config.json");
-            // Use TypeReference for simpler type mapping
-            heuristicsConfig = objectMapper.readValue(
-                resource.getInputStream(),
-                new TypeReference<Map<String, Map<String, Map<String, Double>>>>() {}
-            );
+            try (InputStream in = resource.getInputStream()) {
+                return new CompiledHeuristics(objectMapper.readValue(in, CONFIG_TYPE));
+            }
         } catch (IOException e) {
             throw new RuntimeException("Failed to load heuristics configuration", e);
         }
     }
 
     /**
-     * Get default heuristic scores for a component type
+     * Watch the config file's directory and reload on every change to the file. Editors often
+     * write a file in several steps, so events are drained for a short quiet period first.
      */
-    public HeuristicProfile getDefaultHeuristicsForType(ComponentType type) {
-        return getHeuristicsForTypeAndSubtype(type, "default");
-    }
-
-    /**
-     * Get heuristic scores for a specific component type and subtype
-     */
-    public HeuristicProfile getHeuristicsForTypeAndSubtype(ComponentType type, String subtype) {
-        Map<Parameter, Double> scores = new HashMap<>();
-
-        String typeKey = type.name();
-        Map<String, Map<String, Double>> typeConfig = heuristicsConfig.get(typeKey);
-
-        if (typeConfig == null) {
-            // Return default neutral scores if type not found
-            for (Parameter param : Parameter.values()) {
-                scores.put(param, 5.0);
-            }
-            return new HeuristicProfile(scores);
+    private void startWatcher(Path file) {
+        Path directory = file.getParent();
+        if (directory == null || !Files.isDirectory(directory)) {
+            logger.warn("Not watching heuristics config, directory does not exist: {}", directory);
+            return;
         }
-
-        // Try to get specific subtype, fall back to "default"
-        Map<String, Double> subtypeConfig = typeConfig.get(subtype);
-        if (subtypeConfig == null) {
-            subtypeConfig = typeConfig.get("default");
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            logger.warn("Not watching heuristics config {}", file, e);
+            return;
         }
 
-        if (subtypeConfig == null) {
-            // Return neutral scores if no config found
-            for (Parameter param : Parameter.values()) {
-                scores.put(param, 5.0);
+        watcher = new Thread(() -> {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    WatchKey key = watchService.take();
+                    boolean touched = false;
+                    do {
+                        touched |= affects(key, file);
+                        key.reset();
+                        key = watchService.poll(WATCH_QUIET_MILLIS, TimeUnit.MILLISECONDS);
+                    } while (key != null);
+                    if (touched) {
+                        try {
+                            reloadConfiguration();
+                        } catch (RuntimeException e) {
+                            // Keep serving the previous catalog until the file is fixed
+                            logger.warn("Ignoring invalid heuristics config {}", file, e);
+                        }
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // Shutting down
             }
-            return new HeuristicProfile(scores);
-        }
+        }, "heuristics-config-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
 
-        // Convert string keys to Parameter enum
-        for (Map.Entry<String, Double> entry : subtypeConfig.entrySet()) {
-            try {
-                Parameter param = Parameter.valueOf(entry.getKey());
-                scores.put(param, entry.getValue());
-            } catch (IllegalArgumentException e) {
-                // Skip unknown parameters
+    private static boolean affects(WatchKey key, Path file) {
+        boolean touched = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || file.getFileName().equals(event.context())) {
+                touched = true;
             }
         }
+        return touched;
+    }
 
-        return new HeuristicProfile(scores);
+    /**
+     * Get default heuristic scores for a component type
+     */
+    public HeuristicProfile getDefaultHeuristicsForType(ComponentType type) {
+        return getHeuristicsForTypeAndSubtype(type, "default");
+    }
+
+    /**
+     * Get heuristic scores for a specific component type and subtype (falls back to "default")
+     */
+    public HeuristicProfile getHeuristicsForTypeAndSubtype(ComponentType type, String subtype) {
+        return catalog.get().profileFor(type, subtype);
     }
 
     /**
-     * Get heuristics for a component with automatic subtype detection
+     * Get heuristics for a component with automatic subtype detection: a table lookup by
+     * type and subtype ordinal sharing the compiled scores until a score is changed
      */
     public HeuristicProfile getHeuristicsForComponent(Component component) {
-        String subtype = detectSubtype(component);
-        return getHeuristicsForTypeAndSubtype(component.getType(), subtype);
+        return catalog.get().profileFor(component);
     }
 
     /**
-     * Detect the subtype of a component
+     * Detect the subtype of a component ("default" if it has none)
      */
-    private String detectSubtype(Component component) {
-        if (component instanceof DatabaseComponent) {
-            DatabaseComponent db = (DatabaseComponent) component;
-            return db.getDatabaseType() != null ? db.getDatabaseType().name() : "default";
-        } else if (component instanceof CacheComponent) {
-            CacheComponent cache = (CacheComponent) component;
-            return cache.getCacheType() != null ? cache.getCacheType().name() : "default";
-        } else if (component instanceof APIServiceComponent) {
-            APIServiceComponent api = (APIServiceComponent) component;
-            return api.getApiType() != null ? api.getApiType().name() : "default";
-        } else if (component instanceof QueueComponent) {
-            QueueComponent queue = (QueueComponent) component;
-            return queue.getQueueType() != null ? queue.getQueueType().name() : "default";
-        } else if (component instanceof StorageComponent) {
-            StorageComponent storage = (StorageComponent) component;
-            return storage.getStorageType() != null ? storage.getStorageType().name() : "default";
-        } else if (component instanceof LoadBalancerComponent) {
-            LoadBalancerComponent lb = (LoadBalancerComponent) component;
-            return lb.getLbType() != null ? lb.getLbType().name() : "default";
-        }
-        return "default";
+    public String detectSubtype(Component component) {
+        Enum<?> subtype = CompiledHeuristics.subtypeOf(component);
+        return subtype != null ? subtype.name() : "default";
     }
 
     /**
@@ -130,43 +196,18 @@ public class HeuristicService {
         return component.getHeuristics().getWeightedScore(weights);
     }
 
+    /**
+     * Calculate weighted score for a component against a precomputed weight vector
+     */
+    public double calculateComponentScore(Component component, double[] weights) {
+        return component.getHeuristics().getWeightedScore(weights);
+    }
+
     /**
      * Get default heuristic scores for a link type
      */
     public HeuristicProfile getDefaultHeuristicsForLinkType(LinkType linkType) {
-        Map<Parameter, Double> scores = new HashMap<>();
-
-        Map<String, Map<String, Double>> linksConfig = heuristicsConfig.get("LINKS");
-
-        if (linksConfig == null) {
-            // Return default neutral scores if LINKS config not found
-            for (Parameter param : Parameter.values()) {
-                scores.put(param, 5.0);
-            }
-            return new HeuristicProfile(scores);
-        }
-
-        Map<String, Double> linkTypeConfig = linksConfig.get(linkType.name());
-
-        if (linkTypeConfig == null) {
-            // Return neutral scores if link type not found
-            for (Parameter param : Parameter.values()) {
-                scores.put(param, 5.0);
-            }
-            return new HeuristicProfile(scores);
-        }
-
-        // Convert string keys to Parameter enum
-        for (Map.Entry<String, Double> entry : linkTypeConfig.entrySet()) {
-            try {
-                Parameter param = Parameter.valueOf(entry.getKey());
-                scores.put(param, entry.getValue());
-            } catch (IllegalArgumentException e) {
-                // Skip unknown parameters
-            }
-        }
-
-        return new HeuristicProfile(scores);
+        return catalog.get().profileFor(linkType);
     }
 
     /**
@@ -183,6 +224,13 @@ public class HeuristicService {
         return link.getHeuristics().getWeightedScore(weights);
     }
 
+    /**
+     * Calculate weighted score for a link against a precomputed weight vector
+     */
+    public double calculateLinkScore(Link link, double[] weights) {
+        return link.getHeuristics().getWeightedScore(weights);
+    }
+
     /**
      * Update heuristic score for a link parameter
      */
@@ -191,6 +239,7 @@ public class HeuristicService {
             throw new IllegalArgumentException("Score must be between 0.0 and 10.0");
         }
         link.getHeuristics().setScore(parameter, score);
+        publish(HeuristicsChangedEvent.forLink(link));
     }
 
     /**
@@ -201,6 +250,13 @@ public class HeuristicService {
             throw new IllegalArgumentException("Score must be between 0.0 and 10.0");
         }
         component.getHeuristics().setScore(parameter, score);
+        publish(HeuristicsChangedEvent.forComponent(component));
+    }
+
+    private void publish(Object event) {
+        if (eventPublisher != null) {
+            eventPublisher.publishEvent(event);
+        }
     }
 
     /**
@@ -274,16 +330,167 @@ public class HeuristicService {
     }
 
     /**
-     * Reload heuristics configuration from JSON (useful for runtime updates)
+     * Reload heuristics configuration from JSON (useful for runtime updates). The new catalog
+     * is compiled before it is published with one reference swap. Only components and links
+     * whose (type, subtype) defaults changed are re-scored; scores that were changed by hand
+     * keep their value. Re-scored entities are saved again, so the new scores survive a restart.
      */
-    public void reloadConfiguration() {
-        loadHeuristicsFromJson();
+    public synchronized ReloadResult reloadConfiguration() {
+        CompiledHeuristics updated = loadCatalog();
+        CompiledHeuristics previous = catalog.getAndSet(updated);
+
+        List<Component> rescoredComponents = new ArrayList<>();
+        List<Link> rescoredLinks = new ArrayList<>();
+        int changedEntries = 0;
+        boolean[][] componentChanged = new boolean[ComponentType.values().length][];
+        for (ComponentType type : ComponentType.values()) {
+            boolean[] changed = new boolean[CompiledHeuristics.subtypeSlots(type)];
+            for (int slot = 0; slot < changed.length; slot++) {
+                changed[slot] = !Arrays.equals(previous.row(type, slot), updated.row(type, slot));
+                if (changed[slot]) {
+                    changedEntries++;
+                }
+            }
+            componentChanged[type.ordinal()] = changed;
+        }
+        boolean[] linkChanged = new boolean[LinkType.values().length];
+        for (LinkType linkType : LinkType.values()) {
+            linkChanged[linkType.ordinal()] = !Arrays.equals(previous.row(linkType), updated.row(linkType));
+            if (linkChanged[linkType.ordinal()]) {
+                changedEntries++;
+            }
+        }
+
+        if (changedEntries > 0) {
+            Rescoring rescoring = new Rescoring(previous, updated, componentChanged, linkChanged);
+            // Architecture members are re-scored on their architecture's mailbox, and the
+            // architecture is saved there so the new scores reach the journal
+            if (architectureRepository != null) {
+                for (Architecture architecture : architectureRepository.findAll()) {
+                    onMailbox(architecture.getId(), () -> {
+                        boolean touched = false;
+                        for (Component component : architecture.getComponents()) {
+                            touched |= rescoring.rescore(component);
+                        }
+                        for (Link link : architecture.getLinks()) {
+                            touched |= rescoring.rescore(link);
+                        }
+                        if (touched) {
+                            architectureRepository.save(architecture);
+                        }
+                    });
+                }
+            }
+            if (componentRepository != null) {
+                for (Component component : componentRepository.findAll()) {
+                    rescoring.rescore(component);
+                }
+            }
+            if (linkRepository != null) {
+                for (Link link : linkRepository.findAll()) {
+                    rescoring.rescore(link);
+                }
+            }
+            rescoredComponents.addAll(rescoring.components);
+            rescoredLinks.addAll(rescoring.links);
+            publish(new HeuristicsReloadedEvent(rescoredComponents, rescoredLinks));
+        }
+
+        logger.info("Heuristics config reloaded: {} changed entries, {} components and {} links re-scored",
+                changedEntries, rescoredComponents.size(), rescoredLinks.size());
+        return new ReloadResult(changedEntries, rescoredComponents.size(), rescoredLinks.size());
+    }
+
+    private void onMailbox(String architectureId, Runnable task) {
+        if (mailboxes != null && architectureId != null) {
+            mailboxes.run(architectureId, task);
+        } else {
+            task.run();
+        }
+    }
+
+    /**
+     * Re-scores each component and link once per reload. Re-scored ones that are stored in
+     * their repository are saved again, so the journal records the new scores before any
+     * architecture that refers to them.
+     */
+    private final class Rescoring {
+        private final CompiledHeuristics previous;
+        private final CompiledHeuristics updated;
+        private final boolean[][] componentChanged;
+        private final boolean[] linkChanged;
+        private final Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final Set<Component> components = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final Set<Link> links = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        Rescoring(CompiledHeuristics previous, CompiledHeuristics updated,
+                  boolean[][] componentChanged, boolean[] linkChanged) {
+            this.previous = previous;
+            this.updated = updated;
+            this.componentChanged = componentChanged;
+            this.linkChanged = linkChanged;
+        }
+
+        /** True if the component's scores changed in this reload */
+        boolean rescore(Component component) {
+            if (seen.add(component)) {
+                ComponentType type = component.getType();
+                if (type == null || component.getHeuristics() == null) {
+                    return false;
+                }
+                int slot = CompiledHeuristics.subtypeSlot(type, CompiledHeuristics.subtypeOf(component));
+                if (componentChanged[type.ordinal()][slot]
+                        && component.getHeuristics().rebase(previous.row(type, slot), updated.row(type, slot))) {
+                    components.add(component);
+                    if (componentRepository != null
+                            && componentRepository.findById(component.getId()).orElse(null) == component) {
+                        componentRepository.save(component);
+                    }
+                }
+            }
+            return components.contains(component);
+        }
+
+        /** True if the link's scores changed in this reload */
+        boolean rescore(Link link) {
+            if (seen.add(link)) {
+                LinkType linkType = link.getType();
+                if (linkType == null || link.getHeuristics() == null) {
+                    return false;
+                }
+                if (linkChanged[linkType.ordinal()]
+                        && link.getHeuristics().rebase(previous.row(linkType), updated.row(linkType))) {
+                    links.add(link);
+                    if (linkRepository != null && linkRepository.findById(link.getId()).orElse(null) == link) {
+                        linkRepository.save(link);
+                    }
+                }
+            }
+            return links.contains(link);
+        }
     }
 
     /**
      * Get all available subtypes for a component type
      */
     public Map<String, Map<String, Double>> getAvailableSubtypes(ComponentType type) {
-        return heuristicsConfig.getOrDefault(type.name(), new HashMap<>());
+        return catalog.get().getConfig(type);
+    }
+
+    public static class ReloadResult {
+        private final int changedEntries;
+        private final int rescoredComponents;
+        private final int rescoredLinks;
+
+        public ReloadResult(int changedEntries, int rescoredComponents, int rescoredLinks) {
+            this.changedEntries = changedEntries;
+            this.rescoredComponents = rescoredComponents;
+            this.rescoredLinks = rescoredLinks;
+        }
+
+        /** (type, subtype) and link type entries whose default scores changed */
+        public int getChangedEntries() { return changedEntries; }
+        public int getRescoredComponents() { return rescoredComponents; }
+        public int getRescoredLinks() { return rescoredLinks; }
     }
 }
@@ -0,0 +1,28 @@
+package com.systemsimulator.service;
+
+import com.systemsimulator.model.Component;
+import com.systemsimulator.model.Link;
+
+/**
+ * Published by {@link HeuristicService} when a component's or link's scores are changed in place
+ */
+public class HeuristicsChangedEvent {
+    private final Component component;
+    private final Link link;
+
+    private HeuristicsChangedEvent(Component component, Link link) {
+        this.component = component;
+        this.link = link;
+    }
+
+    public static HeuristicsChangedEvent forComponent(Component component) {
+        return new HeuristicsChangedEvent(component, null);
+    }
+
+    public static HeuristicsChangedEvent forLink(Link link) {
+        return new HeuristicsChangedEvent(null, link);
+    }
+
+    public Component getComponent() { return component; }
+    public Link getLink() { return link; }
+}
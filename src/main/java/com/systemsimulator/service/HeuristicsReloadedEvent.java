@@ -0,0 +1,25 @@
+package com.systemsimulator.service;
+
+import com.systemsimulator.model.Component;
+import com.systemsimulator.model.Link;
+
+import java.util.List;
+
+/**
+ * Published by {@link HeuristicService} after a config reload re-scored components and links
+ */
+public class HeuristicsReloadedEvent {
+    private final List<Component> components;
+    private final List<Link> links;
+
+    public HeuristicsReloadedEvent(List<Component> components, List<Link> links) {
+        this.components = components;
+        this.links = links;
+    }
+
+    /** Components whose scores changed */
+    public List<Component> getComponents() { return components; }
+
+    /** Links whose scores changed */
+    public List<Link> getLinks() { return links; }
+}
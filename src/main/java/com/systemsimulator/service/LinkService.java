@@ -5,6 +5,7 @@ import com.systemsimulator.repository.InMemoryLinkRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -106,6 +107,13 @@ public class LinkService {
         return linkRepository.save(link);
     }
 
+    /**
+     * Save many links in one batch; endpoints must already be stored
+     */
+    public void saveLinks(Collection<Link> links) {
+        linkRepository.saveAll(links);
+    }
+
     /**
      * Get link by ID
      */
@@ -141,6 +149,13 @@ public class LinkService {
         return linkRepository.findByTargetId(targetId);
     }
 
+    /**
+     * Get all links of a given type
+     */
+    public List<Link> getLinksByType(LinkType linkType) {
+        return linkRepository.findByType(linkType);
+    }
+
     /**
      * Get all links connected to a component (incoming + outgoing)
      */
@@ -155,16 +170,15 @@ public class LinkService {
      * Check if a component has any connections
      */
     public boolean isComponentConnected(String componentId) {
-        return !getLinksBySource(componentId).isEmpty() ||
-               !getLinksByTarget(componentId).isEmpty();
+        return linkRepository.existsByComponentId(componentId);
     }
 
     /**
      * Get connection count for a component
      */
     public ConnectionStats getConnectionStats(String componentId) {
-        int incoming = getLinksByTarget(componentId).size();
-        int outgoing = getLinksBySource(componentId).size();
+        int incoming = linkRepository.countByTargetId(componentId);
+        int outgoing = linkRepository.countBySourceId(componentId);
         return new ConnectionStats(incoming, outgoing);
     }
 
@@ -1,10 +1,13 @@
 package com.systemsimulator.service;
 
 import com.systemsimulator.model.*;
+import com.systemsimulator.utils.CompiledConnectionRules;
 import com.systemsimulator.utils.ConnectionRuleRegistry;
+import com.systemsimulator.utils.EvaluationCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.ArrayList;
 
@@ -14,6 +17,9 @@ public class RuleEngineService {
     @Autowired
     private ConnectionRuleRegistry ruleRegistry;
 
+    @Autowired
+    private EvaluationCache evaluationCache;
+
     /**
      * Validate if a connection between two components is allowed
      */
@@ -22,20 +28,31 @@ public class RuleEngineService {
             return false;
         }
 
-        List<ConnectionRule> rules = ruleRegistry.getRulesForLinkType(linkType);
-
-        if (rules.isEmpty()) {
-            return false; // No rules defined for this link type means connection not allowed
-        }
+        // Type-based rules are precompiled into a lookup table; no rules for a link type
+        // means the connection is not allowed
+        return ruleRegistry.getCompiledRules().isValid(source, target, linkType);
+    }
 
-        // Check if any rule allows this connection
-        for (ConnectionRule rule : rules) {
-            if (rule.isValid(source, target, linkType)) {
-                return true;
+    /**
+     * Validate many links against one snapshot of the compiled rules; returns a message for
+     * every invalid link (empty if all are valid)
+     */
+    public List<String> validateLinks(Collection<Link> links) {
+        CompiledConnectionRules rules = ruleRegistry.getCompiledRules();
+        List<String> violations = new ArrayList<>();
+        for (Link link : links) {
+            Component source = link.getSource();
+            Component target = link.getTarget();
+            if (source == null || target == null || link.getType() == null
+                    || !rules.isValid(source, target, link.getType())) {
+                violations.add(String.format("Invalid link %s: %s (%s) -> %s (%s) via %s",
+                        link.getId(),
+                        source != null ? source.getName() : null, source != null ? source.getType() : null,
+                        target != null ? target.getName() : null, target != null ? target.getType() : null,
+                        link.getType()));
             }
         }
-
-        return false;
+        return violations;
     }
 
     /**
@@ -50,6 +67,8 @@ public class RuleEngineService {
      */
     public void registerRule(ConnectionRule rule) {
         ruleRegistry.registerRule(rule);
+        // Cached evaluations include validation results under the old rules
+        evaluationCache.invalidateAll();
     }
 
     /**
@@ -70,15 +89,10 @@ public class RuleEngineService {
      * Get all valid link types for a source-target component pair
      */
     public List<LinkType> getValidLinkTypes(Component source, Component target) {
-        List<LinkType> validTypes = new ArrayList<>();
-
-        for (LinkType linkType : LinkType.values()) {
-            if (validateConnection(source, target, linkType)) {
-                validTypes.add(linkType);
-            }
+        if (source == null || target == null) {
+            return new ArrayList<>();
         }
-
-        return validTypes;
+        return ruleRegistry.getCompiledRules().getValidLinkTypes(source, target);
     }
 
     /**
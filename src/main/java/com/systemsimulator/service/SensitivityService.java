@@ -0,0 +1,289 @@
+package com.systemsimulator.service;
+
+import com.systemsimulator.model.Architecture;
+import com.systemsimulator.model.Parameter;
+import com.systemsimulator.utils.HeuristicAggregator;
+import com.systemsimulator.utils.ParameterWeights;
+import com.systemsimulator.utils.WeightSensitivityAnalyzer;
+import com.systemsimulator.utils.WeightSensitivityAnalyzer.SensitivityReport;
+import com.systemsimulator.utils.WeightSensitivityAnalyzer.WeightSamples;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Weight-sensitivity sweeps: scores architectures under many weight vectors at once without
+ * touching the shared {@link ParameterWeights}
+ */
+@Service
+public class SensitivityService {
+
+    private static final int MAX_SAMPLES = 1_000_000;
+    private static final int MAX_ARCHITECTURES = 1_000;
+    // Architectures x weight vectors scored by one sweep
+    private static final long MAX_SCORES = 100_000_000L;
+
+    @Autowired
+    private ArchitectureService architectureService;
+
+    @Autowired
+    private HeuristicAggregator heuristicAggregator;
+
+    @Autowired
+    private ParameterWeights parameterWeights;
+
+    /**
+     * Score the architectures under every weight vector of the request (explicit vectors,
+     * grid points and random samples around the baseline) and report how stable the ranking is
+     */
+    public SensitivityResult analyze(SensitivityRequest request) {
+        if (request == null || request.getArchitectureIds() == null || request.getArchitectureIds().isEmpty()) {
+            throw new IllegalArgumentException("architectureIds must not be empty");
+        }
+        if (request.getArchitectureIds().size() > MAX_ARCHITECTURES) {
+            throw new IllegalArgumentException("At most " + MAX_ARCHITECTURES + " architectures per sweep");
+        }
+        double[] baseline = parameterWeights.resolve(
+                request.getProfile(), request.getProfileName(), request.getWeights()).toArray();
+        WeightSamples samples = buildSamples(request, baseline);
+
+        int count = request.getArchitectureIds().size();
+        if ((long) count * samples.size() > MAX_SCORES) {
+            throw new IllegalArgumentException("A sweep scores at most " + MAX_SCORES
+                    + " (architecture, weight vector) pairs; reduce the architectures or samples");
+        }
+        String[] ids = new String[count];
+        String[] names = new String[count];
+        double[][] scaled = new double[count][];
+        for (int a = 0; a < count; a++) {
+            String id = request.getArchitectureIds().get(a);
+            Architecture architecture = architectureService.getArchitectureById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Architecture not found: " + id));
+            HeuristicAggregator.AggregationResult result = heuristicAggregator.aggregateIncremental(architecture, baseline);
+            double factor = result.getConnectivityScore() * result.getComplexityPenalty();
+            double[] vector = new double[Parameter.values().length];
+            for (Parameter param : Parameter.values()) {
+                vector[param.ordinal()] = result.getParameterScore(param) * factor;
+            }
+            ids[a] = architecture.getId();
+            names[a] = architecture.getName();
+            scaled[a] = vector;
+        }
+
+        SensitivityReport report = new WeightSensitivityAnalyzer(ids, names, scaled).analyze(baseline, samples);
+        return new SensitivityResult(toMap(baseline), report);
+    }
+
+    /**
+     * Validate the requested sample sets; grid points and random samples are generated as the
+     * analyzer reads them, not held in memory
+     */
+    private WeightSamples buildSamples(SensitivityRequest request, double[] baseline) {
+        List<double[]> explicit = new ArrayList<>();
+        if (request.getWeightVectors() != null) {
+            for (Map<Parameter, Double> weights : request.getWeightVectors()) {
+                explicit.add(override(baseline, weights));
+            }
+        }
+
+        List<GridAxis> grid = request.getGrid() != null ? request.getGrid() : List.of();
+        long gridPoints = grid.isEmpty() ? 0 : 1;
+        for (GridAxis axis : grid) {
+            if (axis.getParameter() == null || axis.getSteps() < 2) {
+                throw new IllegalArgumentException("Every grid axis needs a parameter and at least 2 steps");
+            }
+            checkWeight(axis.getParameter(), axis.getFrom());
+            checkWeight(axis.getParameter(), axis.getTo());
+            gridPoints *= axis.getSteps();
+            if (gridPoints > MAX_SAMPLES) {
+                throw new IllegalArgumentException("Grid has more than " + MAX_SAMPLES + " points");
+            }
+        }
+
+        int randomSamples = Math.max(0, request.getRandomSamples());
+        if (randomSamples > 0) {
+            checkWeight(null, request.getRandomMin());
+            checkWeight(null, request.getRandomMax());
+            if (request.getRandomMax() < request.getRandomMin()) {
+                throw new IllegalArgumentException("randomMax must not be below randomMin");
+            }
+            if (randomSamples > MAX_SAMPLES) {
+                throw new IllegalArgumentException("At most " + MAX_SAMPLES + " weight vectors per sweep");
+            }
+        }
+
+        long total = explicit.size() + gridPoints + randomSamples;
+        if (total == 0) {
+            throw new IllegalArgumentException("Provide weightVectors, grid or randomSamples");
+        }
+        if (total > MAX_SAMPLES) {
+            throw new IllegalArgumentException("At most " + MAX_SAMPLES + " weight vectors per sweep");
+        }
+        return new SweepSamples(baseline, explicit, grid, (int) gridPoints, randomSamples, request);
+    }
+
+    /**
+     * The explicit vectors, then every grid point, then the random samples
+     */
+    private static final class SweepSamples implements WeightSamples {
+        private final double[] baseline;
+        private final List<double[]> explicit;
+        private final List<GridAxis> grid;
+        private final int gridPoints;
+        private final int size;
+        private final double randomMin;
+        private final double randomMax;
+        private final SplittableRandom random;
+        private final int[] step;
+        private int next;
+
+        SweepSamples(double[] baseline, List<double[]> explicit, List<GridAxis> grid, int gridPoints,
+                     int randomSamples, SensitivityRequest request) {
+            this.baseline = baseline;
+            this.explicit = explicit;
+            this.grid = grid;
+            this.gridPoints = gridPoints;
+            this.size = explicit.size() + gridPoints + randomSamples;
+            this.randomMin = request.getRandomMin();
+            this.randomMax = request.getRandomMax();
+            this.random = new SplittableRandom(request.getSeed());
+            this.step = new int[grid.size()];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void next(double[] weights) {
+            int index = next++;
+            if (index < explicit.size()) {
+                System.arraycopy(explicit.get(index), 0, weights, 0, weights.length);
+            } else if (index < explicit.size() + gridPoints) {
+                System.arraycopy(baseline, 0, weights, 0, weights.length);
+                for (int k = 0; k < step.length; k++) {
+                    GridAxis axis = grid.get(k);
+                    weights[axis.getParameter().ordinal()] =
+                            axis.getFrom() + (axis.getTo() - axis.getFrom()) * step[k] / (axis.getSteps() - 1);
+                }
+                // Advance the mixed-radix counter over the axes
+                for (int k = 0; k < step.length && ++step[k] == grid.get(k).getSteps(); k++) {
+                    step[k] = 0;
+                }
+            } else {
+                for (int p = 0; p < weights.length; p++) {
+                    weights[p] = randomMin + random.nextDouble() * (randomMax - randomMin);
+                }
+            }
+        }
+    }
+
+    private static double[] override(double[] baseline, Map<Parameter, Double> weights) {
+        double[] vector = baseline.clone();
+        if (weights != null) {
+            for (Map.Entry<Parameter, Double> entry : weights.entrySet()) {
+                checkWeight(entry.getKey(), entry.getValue());
+                vector[entry.getKey().ordinal()] = entry.getValue();
+            }
+        }
+        return vector;
+    }
+
+    private static void checkWeight(Parameter parameter, Double weight) {
+        if (weight == null || !(weight >= 0) || Double.isInfinite(weight)) {
+            throw new IllegalArgumentException("Invalid weight" + (parameter != null ? " for " + parameter : "")
+                    + ": " + weight);
+        }
+    }
+
+    private static Map<Parameter, Double> toMap(double[] weights) {
+        Map<Parameter, Double> map = new EnumMap<>(Parameter.class);
+        for (Parameter param : Parameter.values()) {
+            map.put(param, weights[param.ordinal()]);
+        }
+        return map;
+    }
+
+    // ==================== Requests and results ====================
+
+    public static class SensitivityRequest {
+        private List<String> architectureIds;
+        private ParameterWeights.WeightProfile profile;
+        private String profileName;
+        private Map<Parameter, Double> weights;
+        private List<Map<Parameter, Double>> weightVectors;
+        private List<GridAxis> grid;
+        private int randomSamples;
+        private double randomMin = 0.0;
+        private double randomMax = 3.0;
+        private long seed = 42L;
+
+        public List<String> getArchitectureIds() { return architectureIds; }
+        public void setArchitectureIds(List<String> architectureIds) { this.architectureIds = architectureIds; }
+
+        /** Baseline weights: profile or profileName (or the shared weights) plus per-parameter overrides */
+        public ParameterWeights.WeightProfile getProfile() { return profile; }
+        public void setProfile(ParameterWeights.WeightProfile profile) { this.profile = profile; }
+
+        public String getProfileName() { return profileName; }
+        public void setProfileName(String profileName) { this.profileName = profileName; }
+
+        public Map<Parameter, Double> getWeights() { return weights; }
+        public void setWeights(Map<Parameter, Double> weights) { this.weights = weights; }
+
+        /** Explicit weight vectors; missing parameters keep their baseline weight */
+        public List<Map<Parameter, Double>> getWeightVectors() { return weightVectors; }
+        public void setWeightVectors(List<Map<Parameter, Double>> weightVectors) { this.weightVectors = weightVectors; }
+
+        /** Every combination of the axis values, other parameters at their baseline weight */
+        public List<GridAxis> getGrid() { return grid; }
+        public void setGrid(List<GridAxis> grid) { this.grid = grid; }
+
+        /** Number of weight vectors drawn uniformly from [randomMin, randomMax] per parameter */
+        public int getRandomSamples() { return randomSamples; }
+        public void setRandomSamples(int randomSamples) { this.randomSamples = randomSamples; }
+
+        public double getRandomMin() { return randomMin; }
+        public void setRandomMin(double randomMin) { this.randomMin = randomMin; }
+
+        public double getRandomMax() { return randomMax; }
+        public void setRandomMax(double randomMax) { this.randomMax = randomMax; }
+
+        public long getSeed() { return seed; }
+        public void setSeed(long seed) { this.seed = seed; }
+    }
+
+    public static class GridAxis {
+        private Parameter parameter;
+        private double from;
+        private double to;
+        private int steps;
+
+        public Parameter getParameter() { return parameter; }
+        public void setParameter(Parameter parameter) { this.parameter = parameter; }
+
+        public double getFrom() { return from; }
+        public void setFrom(double from) { this.from = from; }
+
+        public double getTo() { return to; }
+        public void setTo(double to) { this.to = to; }
+
+        public int getSteps() { return steps; }
+        public void setSteps(int steps) { this.steps = steps; }
+    }
+
+    public static class SensitivityResult {
+        private final Map<Parameter, Double> baselineWeights;
+        private final SensitivityReport report;
+
+        public SensitivityResult(Map<Parameter, Double> baselineWeights, SensitivityReport report) {
+            this.baselineWeights = baselineWeights;
+            this.report = report;
+        }
+
+        public Map<Parameter, Double> getBaselineWeights() { return baselineWeights; }
+        public SensitivityReport getReport() { return report; }
+    }
+}
@@ -0,0 +1,143 @@
+package com.systemsimulator.service;
+
+import com.systemsimulator.model.Architecture;
+import com.systemsimulator.utils.AvailabilitySimulator;
+import com.systemsimulator.utils.AvailabilitySimulator.AvailabilityConfig;
+import com.systemsimulator.utils.AvailabilitySimulator.AvailabilityReport;
+import com.systemsimulator.utils.DiscreteEventSimulator;
+import com.systemsimulator.utils.QueueingNetworkSolver;
+import com.systemsimulator.utils.QueueingNetworkSolver.QueueingConfig;
+import com.systemsimulator.utils.QueueingNetworkSolver.QueueingReport;
+import com.systemsimulator.utils.DiscreteEventSimulator.SimulationConfig;
+import com.systemsimulator.utils.DiscreteEventSimulator.SimulationReport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+public class SimulationService {
+
+    private static final long MAX_REQUEST_COUNT = 10_000_000L;
+    private static final long MAX_AVAILABILITY_TRIALS = 100_000_000L;
+
+    @Autowired
+    private ArchitectureService architectureService;
+
+    /**
+     * Run a discrete-event simulation of request traffic through an architecture. Reads a
+     * snapshot, as the other analyses do, so concurrent edits cannot change the model mid-run.
+     */
+    public SimulationResult simulate(String architectureId, SimulationConfig config) {
+        Architecture architecture = architectureService.getArchitectureById(architectureId)
+                .orElseThrow(() -> new IllegalArgumentException("Architecture not found: " + architectureId))
+                .snapshot();
+        return simulate(architecture, config != null ? config : new SimulationConfig());
+    }
+
+    public SimulationResult simulate(Architecture architecture, SimulationConfig config) {
+        validateConfig(config);
+        SimulationReport report = new DiscreteEventSimulator(architecture, config).run();
+        return new SimulationResult(architecture.getId(), architecture.getName(), report);
+    }
+
+    /**
+     * Estimate availability under random component failures with a Monte Carlo simulation
+     */
+    public AvailabilityResult simulateAvailability(String architectureId, AvailabilityConfig config) {
+        Architecture architecture = architectureService.getArchitectureById(architectureId)
+                .orElseThrow(() -> new IllegalArgumentException("Architecture not found: " + architectureId))
+                .snapshot();
+        return simulateAvailability(architecture, config != null ? config : new AvailabilityConfig());
+    }
+
+    public AvailabilityResult simulateAvailability(Architecture architecture, AvailabilityConfig config) {
+        if (config.getTrials() < 1 || config.getTrials() > MAX_AVAILABILITY_TRIALS) {
+            throw new IllegalArgumentException("trials must be between 1 and " + MAX_AVAILABILITY_TRIALS);
+        }
+        if (!(config.getConfidenceLevel() > 0 && config.getConfidenceLevel() < 1)) {
+            throw new IllegalArgumentException("confidenceLevel must be between 0 and 1");
+        }
+        AvailabilityReport report = new AvailabilitySimulator(architecture, config).run();
+        return new AvailabilityResult(architecture.getId(), architecture.getName(), report);
+    }
+
+    /**
+     * Estimate utilization and latency analytically by solving the architecture as a queueing network
+     */
+    public QueueingResult analyzeQueueing(String architectureId, QueueingConfig config) {
+        Architecture architecture = architectureService.getArchitectureById(architectureId)
+                .orElseThrow(() -> new IllegalArgumentException("Architecture not found: " + architectureId))
+                .snapshot();
+        return analyzeQueueing(architecture, config != null ? config : new QueueingConfig());
+    }
+
+    public QueueingResult analyzeQueueing(Architecture architecture, QueueingConfig config) {
+        if (!(config.getArrivalRatePerSecond() >= 0) || Double.isInfinite(config.getArrivalRatePerSecond())) {
+            throw new IllegalArgumentException("arrivalRatePerSecond must be a non-negative number");
+        }
+        if (!(config.getWarningUtilization() > 0 && config.getWarningUtilization() <= 1)) {
+            throw new IllegalArgumentException("warningUtilization must be between 0 and 1");
+        }
+        QueueingReport report = new QueueingNetworkSolver(architecture, config).solve();
+        return new QueueingResult(architecture.getId(), architecture.getName(), report);
+    }
+
+    private void validateConfig(SimulationConfig config) {
+        if (config.getRequestCount() < 0 || config.getRequestCount() > MAX_REQUEST_COUNT) {
+            throw new IllegalArgumentException("requestCount must be between 0 and " + MAX_REQUEST_COUNT);
+        }
+        if (!(config.getArrivalRatePerSecond() > 0)) {
+            throw new IllegalArgumentException("arrivalRatePerSecond must be positive");
+        }
+        if (config.getMaxHops() < 1) {
+            throw new IllegalArgumentException("maxHops must be at least 1");
+        }
+    }
+
+    public static class SimulationResult {
+        private final String architectureId;
+        private final String architectureName;
+        private final SimulationReport report;
+
+        public SimulationResult(String architectureId, String architectureName, SimulationReport report) {
+            this.architectureId = architectureId;
+            this.architectureName = architectureName;
+            this.report = report;
+        }
+
+        public String getArchitectureId() { return architectureId; }
+        public String getArchitectureName() { return architectureName; }
+        public SimulationReport getReport() { return report; }
+    }
+
+    public static class AvailabilityResult {
+        private final String architectureId;
+        private final String architectureName;
+        private final AvailabilityReport report;
+
+        public AvailabilityResult(String architectureId, String architectureName, AvailabilityReport report) {
+            this.architectureId = architectureId;
+            this.architectureName = architectureName;
+            this.report = report;
+        }
+
+        public String getArchitectureId() { return architectureId; }
+        public String getArchitectureName() { return architectureName; }
+        public AvailabilityReport getReport() { return report; }
+    }
+
+    public static class QueueingResult {
+        private final String architectureId;
+        private final String architectureName;
+        private final QueueingReport report;
+
+        public QueueingResult(String architectureId, String architectureName, QueueingReport report) {
+            this.architectureId = architectureId;
+            this.architectureName = architectureName;
+            this.report = report;
+        }
+
+        public String getArchitectureId() { return architectureId; }
+        public String getArchitectureName() { return architectureName; }
+        public QueueingReport getReport() { return report; }
+    }
+}
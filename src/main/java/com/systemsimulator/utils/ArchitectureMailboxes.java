@@ -0,0 +1,179 @@
+package com.systemsimulator.utils;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * One mutation mailbox per architecture id. Tasks for the same architecture run one at a
+ * time in submission order; tasks for different architectures run in parallel on virtual
+ * threads, so there is no global lock. Each mailbox is drained by at most one thread at a
+ * time, which makes that thread the architecture's single writer.
+ */
+@Component
+public class ArchitectureMailboxes {
+
+    private final ConcurrentHashMap<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+
+    // Mailbox the current thread is draining, so a task can call back into its own mailbox
+    private static final ThreadLocal<Mailbox> draining = new ThreadLocal<>();
+
+    public ArchitectureMailboxes() {
+        this(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    ArchitectureMailboxes(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Queue a task on an architecture's mailbox. A task submitted from a task already running
+     * on that mailbox runs inline, since waiting for it would deadlock.
+     */
+    public <T> CompletableFuture<T> submit(String architectureId, Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable completing = () -> {
+            try {
+                result.complete(task.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        };
+        while (true) {
+            Mailbox mailbox = mailboxes.computeIfAbsent(architectureId, Mailbox::new);
+            if (draining.get() == mailbox) {
+                completing.run();
+                return result;
+            }
+            if (mailbox.enqueue(completing)) {
+                return result;
+            }
+            // Closed by remove() and already out of the map: the next lookup makes a new one
+        }
+    }
+
+    /**
+     * Run a task on an architecture's mailbox and wait for it. Exceptions thrown by the task
+     * are rethrown unchanged.
+     */
+    public <T> T call(String architectureId, Supplier<T> task) {
+        try {
+            return submit(architectureId, task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for architecture " + architectureId, e);
+        } catch (ExecutionException | CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Run a task on an architecture's mailbox and wait for it
+     */
+    public void run(String architectureId, Runnable task) {
+        call(architectureId, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Whether the current thread is running a mailbox task; such a task must not wait for
+     * other mailboxes, which may be waiting for it
+     */
+    public boolean isInTask() {
+        return draining.get() != null;
+    }
+
+    /**
+     * Forget an architecture's mailbox (after the architecture was deleted). Tasks already
+     * queued still run; the mailbox is dropped after them if nothing else was queued by then,
+     * so a new mailbox for the same id never runs alongside the old one.
+     */
+    public void remove(String architectureId) {
+        Mailbox mailbox = mailboxes.get(architectureId);
+        if (mailbox != null) {
+            mailbox.enqueue(mailbox::closeIfIdle);
+        }
+    }
+
+    private final class Mailbox {
+        private final String architectureId;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        // Guarded by this; once set, enqueue refuses tasks
+        private boolean closed;
+
+        Mailbox(String architectureId) {
+            this.architectureId = architectureId;
+        }
+
+        /**
+         * Queue a task; false if the mailbox was closed
+         */
+        boolean enqueue(Runnable task) {
+            synchronized (this) {
+                if (closed) {
+                    return false;
+                }
+                tasks.add(task);
+            }
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+            return true;
+        }
+
+        // Runs on the draining thread, so no other task of this mailbox is running
+        private void closeIfIdle() {
+            synchronized (this) {
+                if (tasks.isEmpty()) {
+                    closed = true;
+                    mailboxes.remove(architectureId, this);
+                }
+            }
+        }
+
+        private void drain() {
+            draining.set(this);
+            try {
+                while (true) {
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) {
+                        task.run();
+                    }
+                    scheduled.set(false);
+                    // A task queued after the last poll but before the flag was cleared
+                    if (tasks.isEmpty() || !scheduled.compareAndSet(false, true)) {
+                        return;
+                    }
+                }
+            } finally {
+                draining.remove();
+            }
+        }
+    }
+}
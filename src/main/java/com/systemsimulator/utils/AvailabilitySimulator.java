@@ -0,0 +1,449 @@
+package com.systemsimulator.utils;
+
+import com.systemsimulator.model.*;
+import org.apache.commons.math3.distribution.NormalDistribution;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Monte Carlo estimate of how often clients can be served when components fail.
+ *
+ * Each instance is up with its steady-state availability a = MTBF / (MTBF + MTTR), from the
+ * {@code mtbfHours} / {@code mttrHours} properties. A component is up if any of its k
+ * {@code instances} is up, so each trial samples it with one draw against 1 - (1 - a)^k.
+ * A component can serve if it, or any component it shares a REPLICATION group with, is up.
+ *
+ * A client is served if some serving path exists over the synchronous links (API_CALL,
+ * CACHE_LOOKUP, DATABASE_QUERY): clients and load balancers need any one downstream target,
+ * every other component needs all of its downstream dependencies.
+ *
+ * Trials are split across a ForkJoin pool; each leaf draws from its own split of one
+ * seeded {@link SplittableRandom}, so results are reproducible for a given seed.
+ */
+public class AvailabilitySimulator {
+    private static final double DEFAULT_MTBF_HOURS = 720.0;
+    private static final double DEFAULT_MTTR_HOURS = 1.0;
+    private static final double MINUTES_PER_YEAR = 365.0 * 24 * 60;
+    private static final int LEAF_TRIALS = 50_000;
+
+    private final AvailabilityConfig config;
+    private final Component[] nodes;
+    private final int[] instances;
+    private final double[] componentAvailability;
+    private final int[] replicaGroup;
+    private final int groupCount;
+    private final int[] clients;
+
+    // Evaluation program: nodes in dependency order (dependencies first), each with its
+    // downstream targets (back edges of cycles dropped) and whether any or all are needed
+    private final int[] order;
+    private final int[][] dependencies;
+    private final boolean[] needsAny;
+
+    public AvailabilitySimulator(Architecture architecture, AvailabilityConfig config) {
+        this.config = config;
+        List<Component> components = architecture.getComponents();
+        int n = components.size();
+        nodes = components.toArray(new Component[0]);
+        instances = new int[n];
+        componentAvailability = new double[n];
+        needsAny = new boolean[n];
+
+        Map<String, Integer> indexById = new HashMap<>();
+        List<Integer> clientList = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Component component = nodes[i];
+            indexById.put(component.getId(), i);
+            Map<String, Object> properties = component.getProperties();
+            instances[i] = CapacityProperties.instances(component);
+            double mtbf = Math.max(0.0, PropertyValues.getDouble(properties, "mtbfHours", DEFAULT_MTBF_HOURS));
+            double mttr = Math.max(0.0, PropertyValues.getDouble(properties, "mttrHours", DEFAULT_MTTR_HOURS));
+            double instanceAvailability = mtbf + mttr > 0 ? mtbf / (mtbf + mttr) : 1.0;
+            componentAvailability[i] = 1.0 - Math.pow(1.0 - instanceAvailability, instances[i]);
+            ComponentType type = component.getType();
+            needsAny[i] = type == ComponentType.CLIENT || type == ComponentType.LOAD_BALANCER;
+            if (type == ComponentType.CLIENT) {
+                clientList.add(i);
+            }
+        }
+        clients = clientList.stream().mapToInt(Integer::intValue).toArray();
+
+        // Union replicas into groups, and collect request-path edges
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+        }
+        List<List<Integer>> outgoing = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            outgoing.add(new ArrayList<>());
+        }
+        for (Link link : architecture.getLinks()) {
+            Integer source = link.getSource() != null ? indexById.get(link.getSource().getId()) : null;
+            Integer target = link.getTarget() != null ? indexById.get(link.getTarget().getId()) : null;
+            if (source == null || target == null) {
+                continue;
+            }
+            if (link.getType() == LinkType.REPLICATION) {
+                parent[find(parent, source)] = find(parent, target);
+            } else if (CapacityProperties.isRequestLink(link) && !outgoing.get(source).contains(target)) {
+                outgoing.get(source).add(target);
+            }
+        }
+        replicaGroup = new int[n];
+        int[] groupIndex = new int[n];
+        Arrays.fill(groupIndex, -1);
+        int groups = 0;
+        for (int i = 0; i < n; i++) {
+            int root = find(parent, i);
+            if (groupIndex[root] < 0) {
+                groupIndex[root] = groups++;
+            }
+            replicaGroup[i] = groupIndex[root];
+        }
+        groupCount = groups;
+
+        // Depth-first post-order from the clients gives dependencies before dependents
+        dependencies = new int[n][];
+        Search search = new Search(n);
+        for (int client : clients) {
+            visit(client, outgoing, search);
+        }
+        order = Arrays.copyOf(search.postOrder, search.visited);
+    }
+
+    /**
+     * Scratch arrays shared by every DFS of the constructor; a node is on the stack at most once
+     */
+    private static final class Search {
+        private final int[] state; // 0 = unvisited, 1 = on stack, 2 = done
+        private final int[] stackNodes;
+        private final int[] nextEdge;
+        private final int[] keptCount;
+        private final int[] postOrder;
+        private int visited;
+
+        private Search(int n) {
+            state = new int[n];
+            stackNodes = new int[n];
+            nextEdge = new int[n];
+            keptCount = new int[n];
+            postOrder = new int[n];
+        }
+    }
+
+    private void visit(int root, List<List<Integer>> outgoing, Search search) {
+        int[] state = search.state;
+        if (state[root] != 0) {
+            return;
+        }
+        // Iterative DFS so long chains cannot overflow the stack
+        int depth = 0;
+        push(root, outgoing, search, depth++);
+        while (depth > 0) {
+            int node = search.stackNodes[depth - 1];
+            List<Integer> out = outgoing.get(node);
+            if (search.nextEdge[depth - 1] < out.size()) {
+                int next = out.get(search.nextEdge[depth - 1]++);
+                if (state[next] == 1) {
+                    continue; // back edge: ignore to break the cycle
+                }
+                dependencies[node][search.keptCount[node]++] = next;
+                if (state[next] == 0) {
+                    push(next, outgoing, search, depth++);
+                }
+            } else {
+                depth--;
+                state[node] = 2;
+                if (search.keptCount[node] < dependencies[node].length) {
+                    dependencies[node] = Arrays.copyOf(dependencies[node], search.keptCount[node]);
+                }
+                search.postOrder[search.visited++] = node;
+            }
+        }
+    }
+
+    private void push(int node, List<List<Integer>> outgoing, Search search, int depth) {
+        search.state[node] = 1;
+        search.stackNodes[depth] = node;
+        search.nextEdge[depth] = 0;
+        dependencies[node] = new int[outgoing.get(node).size()];
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /**
+     * Run the configured number of trials on the common ForkJoin pool
+     */
+    public AvailabilityReport run() {
+        if (clients.length == 0) {
+            throw new IllegalArgumentException("Architecture has no client components to measure availability from");
+        }
+        long startNanos = System.nanoTime();
+        Counts counts = ForkJoinPool.commonPool().invoke(
+                new TrialTask(0, config.getTrials(), new SplittableRandom(config.getSeed())));
+        return buildReport(counts, System.nanoTime() - startNanos);
+    }
+
+    private final class TrialTask extends RecursiveTask<Counts> {
+        private final long from;
+        private final long to;
+        private final SplittableRandom random;
+
+        private TrialTask(long from, long to, SplittableRandom random) {
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected Counts compute() {
+            if (to - from <= LEAF_TRIALS) {
+                return runTrials(to - from, random);
+            }
+            long middle = from + (to - from) / 2;
+            TrialTask left = new TrialTask(from, middle, random.split());
+            TrialTask right = new TrialTask(middle, to, random);
+            left.fork();
+            Counts result = right.compute();
+            result.add(left.join());
+            return result;
+        }
+    }
+
+    private Counts runTrials(long trials, SplittableRandom random) {
+        int n = nodes.length;
+        Counts counts = new Counts(n, clients.length);
+        boolean[] up = new boolean[n];
+        boolean[] groupUp = new boolean[groupCount];
+        boolean[] served = new boolean[n];
+
+        for (long t = 0; t < trials; t++) {
+            Arrays.fill(groupUp, false);
+            for (int i = 0; i < n; i++) {
+                boolean componentUp = random.nextDouble() < componentAvailability[i];
+                up[i] = componentUp;
+                if (componentUp) {
+                    groupUp[replicaGroup[i]] = true;
+                }
+            }
+
+            for (int node : order) {
+                boolean ok = groupUp[replicaGroup[node]];
+                int[] deps = dependencies[node];
+                if (ok && deps.length > 0) {
+                    if (needsAny[node]) {
+                        ok = false;
+                        for (int dep : deps) {
+                            if (served[dep]) {
+                                ok = true;
+                                break;
+                            }
+                        }
+                    } else {
+                        for (int dep : deps) {
+                            if (!served[dep]) {
+                                ok = false;
+                                break;
+                            }
+                        }
+                    }
+                }
+                served[node] = ok;
+            }
+
+            boolean allServed = true;
+            for (int c = 0; c < clients.length; c++) {
+                if (served[clients[c]]) {
+                    counts.clientServed[c]++;
+                } else {
+                    allServed = false;
+                }
+            }
+            if (allServed) {
+                counts.systemServed++;
+            } else {
+                for (int i = 0; i < n; i++) {
+                    if (!up[i]) {
+                        counts.downDuringOutage[i]++;
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+
+    private static final class Counts {
+        private final long[] clientServed;
+        private final long[] downDuringOutage;
+        private long systemServed;
+
+        private Counts(int componentCount, int clientCount) {
+            this.clientServed = new long[clientCount];
+            this.downDuringOutage = new long[componentCount];
+        }
+
+        private void add(Counts other) {
+            systemServed += other.systemServed;
+            for (int i = 0; i < clientServed.length; i++) {
+                clientServed[i] += other.clientServed[i];
+            }
+            for (int i = 0; i < downDuringOutage.length; i++) {
+                downDuringOutage[i] += other.downDuringOutage[i];
+            }
+        }
+    }
+
+    private AvailabilityReport buildReport(Counts counts, long wallNanos) {
+        long trials = config.getTrials();
+        double z = new NormalDistribution().inverseCumulativeProbability(0.5 + config.getConfidenceLevel() / 2);
+
+        List<ClientAvailability> clientResults = new ArrayList<>();
+        for (int c = 0; c < clients.length; c++) {
+            Component client = nodes[clients[c]];
+            clientResults.add(new ClientAvailability(client.getId(), client.getName(),
+                    Estimate.of(counts.clientServed[c], trials, z)));
+        }
+
+        long outages = trials - counts.systemServed;
+        List<ComponentAvailability> componentResults = new ArrayList<>();
+        for (int i = 0; i < nodes.length; i++) {
+            double outageShare = outages > 0 ? (double) counts.downDuringOutage[i] / outages : 0.0;
+            componentResults.add(new ComponentAvailability(nodes[i].getId(), nodes[i].getName(),
+                    instances[i], componentAvailability[i], outageShare));
+        }
+        componentResults.sort((a, b) -> Double.compare(b.getOutageShare(), a.getOutageShare()));
+
+        Estimate system = Estimate.of(counts.systemServed, trials, z);
+        return new AvailabilityReport(trials, config.getConfidenceLevel(), system,
+                (1.0 - system.getAvailability()) * MINUTES_PER_YEAR,
+                clientResults, componentResults, wallNanos / 1_000_000L);
+    }
+
+    // ==================== Config and results ====================
+
+    public static class AvailabilityConfig {
+        private long trials = 1_000_000;
+        private double confidenceLevel = 0.95;
+        private long seed = 42L;
+
+        public long getTrials() { return trials; }
+        public void setTrials(long trials) { this.trials = trials; }
+
+        public double getConfidenceLevel() { return confidenceLevel; }
+        public void setConfidenceLevel(double confidenceLevel) { this.confidenceLevel = confidenceLevel; }
+
+        public long getSeed() { return seed; }
+        public void setSeed(long seed) { this.seed = seed; }
+    }
+
+    /**
+     * Availability point estimate with a Wilson score confidence interval
+     */
+    public static class Estimate {
+        private final double availability;
+        private final double lowerBound;
+        private final double upperBound;
+
+        public Estimate(double availability, double lowerBound, double upperBound) {
+            this.availability = availability;
+            this.lowerBound = lowerBound;
+            this.upperBound = upperBound;
+        }
+
+        static Estimate of(long successes, long trials, double z) {
+            if (trials == 0) {
+                return new Estimate(0.0, 0.0, 1.0);
+            }
+            double p = (double) successes / trials;
+            double z2 = z * z;
+            double denominator = 1.0 + z2 / trials;
+            double centre = (p + z2 / (2.0 * trials)) / denominator;
+            double margin = z * Math.sqrt(p * (1.0 - p) / trials + z2 / (4.0 * trials * trials)) / denominator;
+            return new Estimate(p, Math.max(0.0, centre - margin), Math.min(1.0, centre + margin));
+        }
+
+        public double getAvailability() { return availability; }
+        public double getLowerBound() { return lowerBound; }
+        public double getUpperBound() { return upperBound; }
+    }
+
+    public static class ClientAvailability {
+        private final String clientId;
+        private final String clientName;
+        private final Estimate estimate;
+
+        public ClientAvailability(String clientId, String clientName, Estimate estimate) {
+            this.clientId = clientId;
+            this.clientName = clientName;
+            this.estimate = estimate;
+        }
+
+        public String getClientId() { return clientId; }
+        public String getClientName() { return clientName; }
+        public Estimate getEstimate() { return estimate; }
+    }
+
+    public static class ComponentAvailability {
+        private final String componentId;
+        private final String componentName;
+        private final int instances;
+        private final double availability;
+        private final double outageShare;
+
+        public ComponentAvailability(String componentId, String componentName, int instances,
+                                     double availability, double outageShare) {
+            this.componentId = componentId;
+            this.componentName = componentName;
+            this.instances = instances;
+            this.availability = availability;
+            this.outageShare = outageShare;
+        }
+
+        public String getComponentId() { return componentId; }
+        public String getComponentName() { return componentName; }
+        public int getInstances() { return instances; }
+        /** Steady-state availability of the component (any instance up) */
+        public double getAvailability() { return availability; }
+        /** Fraction of system outages during which this component was down */
+        public double getOutageShare() { return outageShare; }
+    }
+
+    public static class AvailabilityReport {
+        private final long trials;
+        private final double confidenceLevel;
+        private final Estimate system;
+        private final double expectedDowntimeMinutesPerYear;
+        private final List<ClientAvailability> clients;
+        private final List<ComponentAvailability> components;
+        private final long wallClockMillis;
+
+        public AvailabilityReport(long trials, double confidenceLevel, Estimate system,
+                                  double expectedDowntimeMinutesPerYear, List<ClientAvailability> clients,
+                                  List<ComponentAvailability> components, long wallClockMillis) {
+            this.trials = trials;
+            this.confidenceLevel = confidenceLevel;
+            this.system = system;
+            this.expectedDowntimeMinutesPerYear = expectedDowntimeMinutesPerYear;
+            this.clients = clients;
+            this.components = components;
+            this.wallClockMillis = wallClockMillis;
+        }
+
+        public long getTrials() { return trials; }
+        public double getConfidenceLevel() { return confidenceLevel; }
+        /** Availability for all clients at once */
+        public Estimate getSystem() { return system; }
+        public double getExpectedDowntimeMinutesPerYear() { return expectedDowntimeMinutesPerYear; }
+        public List<ClientAvailability> getClients() { return clients; }
+        public List<ComponentAvailability> getComponents() { return components; }
+        public long getWallClockMillis() { return wallClockMillis; }
+    }
+}
@@ -0,0 +1,107 @@
+package com.systemsimulator.utils;
+
+import com.systemsimulator.model.*;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Capacity and request-routing settings shared by the simulators and the queueing solver,
+ * read from component/link properties with per-type defaults.
+ *
+ * Component properties: {@code instances}, {@code serviceTimeMs}, {@code queueCapacity},
+ * {@code hitRatio} (caches only). Link properties: {@code latencyMs}, {@code bandwidth}
+ * (requests per second). Times, latencies and ratios that are not finite numbers fall back to
+ * the default, so they can never turn event times into NaN or infinity.
+ */
+public final class CapacityProperties {
+
+    /** Synchronous link types a request travels along */
+    public static final Set<LinkType> REQUEST_LINKS =
+            EnumSet.of(LinkType.API_CALL, LinkType.CACHE_LOOKUP, LinkType.DATABASE_QUERY);
+
+    private static final Map<ComponentType, Double> DEFAULT_SERVICE_TIME_MS = new EnumMap<>(ComponentType.class);
+    private static final Map<LinkType, Double> DEFAULT_LINK_LATENCY_MS = new EnumMap<>(LinkType.class);
+
+    static {
+        DEFAULT_SERVICE_TIME_MS.put(ComponentType.CLIENT, 0.0);
+        DEFAULT_SERVICE_TIME_MS.put(ComponentType.LOAD_BALANCER, 0.5);
+        DEFAULT_SERVICE_TIME_MS.put(ComponentType.API_SERVICE, 5.0);
+        DEFAULT_SERVICE_TIME_MS.put(ComponentType.CACHE, 1.0);
+        DEFAULT_SERVICE_TIME_MS.put(ComponentType.DATABASE, 10.0);
+        DEFAULT_SERVICE_TIME_MS.put(ComponentType.QUEUE, 1.0);
+        DEFAULT_SERVICE_TIME_MS.put(ComponentType.STORAGE, 20.0);
+        DEFAULT_SERVICE_TIME_MS.put(ComponentType.STREAM_PROCESSOR, 5.0);
+        DEFAULT_SERVICE_TIME_MS.put(ComponentType.BATCH_PROCESSOR, 100.0);
+        DEFAULT_SERVICE_TIME_MS.put(ComponentType.EXTERNAL_SERVICE, 50.0);
+
+        DEFAULT_LINK_LATENCY_MS.put(LinkType.API_CALL, 1.0);
+        DEFAULT_LINK_LATENCY_MS.put(LinkType.CACHE_LOOKUP, 0.5);
+        DEFAULT_LINK_LATENCY_MS.put(LinkType.DATABASE_QUERY, 1.0);
+    }
+
+    private CapacityProperties() {}
+
+    /**
+     * Number of parallel servers (at least 1)
+     */
+    public static int instances(Component component) {
+        return Math.max(1, PropertyValues.getInt(component.getProperties(), "instances", 1));
+    }
+
+    /**
+     * Mean time one instance takes to serve a request
+     */
+    public static double serviceTimeMs(Component component) {
+        return Math.max(0.0, PropertyValues.getFiniteDouble(component.getProperties(), "serviceTimeMs",
+                DEFAULT_SERVICE_TIME_MS.getOrDefault(component.getType(), 1.0)));
+    }
+
+    /**
+     * Requests per second all instances together can serve; infinite for a zero service time
+     */
+    public static double capacityPerSecond(Component component) {
+        double serviceMs = serviceTimeMs(component);
+        return serviceMs > 0 ? instances(component) * 1000.0 / serviceMs : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Maximum number of waiting requests, unbounded by default
+     */
+    public static int queueCapacity(Component component) {
+        return PropertyValues.getInt(component.getProperties(), "queueCapacity", Integer.MAX_VALUE);
+    }
+
+    /**
+     * Probability that a request ends at this component instead of going further (cache hits)
+     */
+    public static double hitRatio(Component component) {
+        if (component.getType() != ComponentType.CACHE) {
+            return 0.0;
+        }
+        double ratio = PropertyValues.getFiniteDouble(component.getProperties(), "hitRatio", 0.8);
+        return Math.max(0.0, Math.min(1.0, ratio));
+    }
+
+    public static boolean isRequestLink(Link link) {
+        return link.getType() != null && REQUEST_LINKS.contains(link.getType());
+    }
+
+    /**
+     * Network latency of one request hop over the link
+     */
+    public static double linkLatencyMs(Link link) {
+        double latency = link.getType() != null ? DEFAULT_LINK_LATENCY_MS.getOrDefault(link.getType(), 0.0) : 0.0;
+        return Math.max(0.0, PropertyValues.getFiniteDouble(link.getProperties(), "latencyMs", latency));
+    }
+
+    /**
+     * Requests per second the link can carry, unbounded by default
+     */
+    public static double bandwidthPerSecond(Link link) {
+        double bandwidth = PropertyValues.getDouble(link.getProperties(), "bandwidth", Double.POSITIVE_INFINITY);
+        return Double.isNaN(bandwidth) ? Double.POSITIVE_INFINITY : Math.max(0.0, bandwidth);
+    }
+}
@@ -0,0 +1,152 @@
+package com.systemsimulator.utils;
+
+import com.systemsimulator.model.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decision table compiled from a set of connection rules: for every
+ * (source type, target type) pair, a bitset of the link types some rule allows.
+ * Rules that need property inspection are kept aside and evaluated per call.
+ */
+public class CompiledConnectionRules {
+    private static final ComponentType[] COMPONENT_TYPES = ComponentType.values();
+    private static final LinkType[] LINK_TYPES = LinkType.values();
+    private static final int TYPE_COUNT = COMPONENT_TYPES.length;
+
+    // One representative instance per component type, used to evaluate the rules once
+    private static final Component[] PROBES = new Component[TYPE_COUNT];
+
+    static {
+        for (ComponentType type : COMPONENT_TYPES) {
+            PROBES[type.ordinal()] = createProbe(type);
+        }
+    }
+
+    private final int[] allowedLinkTypes = new int[TYPE_COUNT * TYPE_COUNT];
+    private final Map<LinkType, List<ConnectionRule>> rulesByLinkType;
+    private final Map<LinkType, List<ConnectionRule>> inspectingRules = new EnumMap<>(LinkType.class);
+
+    public CompiledConnectionRules(Map<LinkType, List<ConnectionRule>> rulesByLinkType) {
+        this.rulesByLinkType = new EnumMap<>(LinkType.class);
+
+        for (Map.Entry<LinkType, List<ConnectionRule>> entry : rulesByLinkType.entrySet()) {
+            LinkType linkType = entry.getKey();
+            List<ConnectionRule> rules = new ArrayList<>(entry.getValue());
+            this.rulesByLinkType.put(linkType, rules);
+
+            for (ConnectionRule rule : rules) {
+                if (rule.requiresPropertyInspection()) {
+                    inspectingRules.computeIfAbsent(linkType, k -> new ArrayList<>()).add(rule);
+                    continue;
+                }
+                int bit = 1 << linkType.ordinal();
+                for (int s = 0; s < TYPE_COUNT; s++) {
+                    for (int t = 0; t < TYPE_COUNT; t++) {
+                        if ((allowedLinkTypes[s * TYPE_COUNT + t] & bit) == 0
+                                && rule.isValid(PROBES[s], PROBES[t], linkType)) {
+                            allowedLinkTypes[s * TYPE_COUNT + t] |= bit;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Check a connection: one table lookup, plus any property-inspecting rules for the link type
+     */
+    public boolean isValid(Component source, Component target, LinkType linkType) {
+        if (!isCanonical(source) || !isCanonical(target)) {
+            // Component class differs from the one the table was compiled with
+            return evaluateRules(rulesByLinkType.get(linkType), source, target, linkType);
+        }
+        int mask = allowedLinkTypes[source.getType().ordinal() * TYPE_COUNT + target.getType().ordinal()];
+        if ((mask & (1 << linkType.ordinal())) != 0) {
+            return true;
+        }
+        return evaluateRules(inspectingRules.get(linkType), source, target, linkType);
+    }
+
+    /**
+     * All link types allowed between two components, in LinkType order
+     */
+    public List<LinkType> getValidLinkTypes(Component source, Component target) {
+        List<LinkType> validTypes = new ArrayList<>();
+        for (LinkType linkType : LINK_TYPES) {
+            if (isValid(source, target, linkType)) {
+                validTypes.add(linkType);
+            }
+        }
+        return validTypes;
+    }
+
+    /**
+     * Link types the compiled table allows between two component types
+     * (not including property-inspecting rules)
+     */
+    public EnumSet<LinkType> getAllowedLinkTypes(ComponentType sourceType, ComponentType targetType) {
+        int mask = allowedLinkTypes[sourceType.ordinal() * TYPE_COUNT + targetType.ordinal()];
+        EnumSet<LinkType> allowed = EnumSet.noneOf(LinkType.class);
+        for (LinkType linkType : LINK_TYPES) {
+            if ((mask & (1 << linkType.ordinal())) != 0) {
+                allowed.add(linkType);
+            }
+        }
+        return allowed;
+    }
+
+    public Map<LinkType, List<ConnectionRule>> getInspectingRules() {
+        return Collections.unmodifiableMap(inspectingRules);
+    }
+
+    private static boolean evaluateRules(List<ConnectionRule> rules, Component source,
+                                         Component target, LinkType linkType) {
+        if (rules == null) {
+            return false;
+        }
+        for (ConnectionRule rule : rules) {
+            if (rule.isValid(source, target, linkType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isCanonical(Component component) {
+        ComponentType type = component.getType();
+        return type != null && PROBES[type.ordinal()].getClass().isInstance(component);
+    }
+
+    private static Component createProbe(ComponentType type) {
+        switch (type) {
+            case DATABASE:
+                return new DatabaseComponent();
+            case CACHE:
+                return new CacheComponent();
+            case API_SERVICE:
+                return new APIServiceComponent();
+            case QUEUE:
+                return new QueueComponent();
+            case STORAGE:
+                return new StorageComponent();
+            case LOAD_BALANCER:
+                return new LoadBalancerComponent();
+            case STREAM_PROCESSOR:
+                return new StreamProcessorComponent();
+            case BATCH_PROCESSOR:
+                return new BatchProcessorComponent();
+            case EXTERNAL_SERVICE:
+                return new ExternalServiceComponent();
+            case CLIENT:
+                return new ClientComponent();
+            default:
+                throw new IllegalArgumentException("Unsupported component type: " + type);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.systemsimulator.utils;
+
+import com.systemsimulator.model.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Heuristic defaults compiled from heuristics-config.json into flat score rows indexed by
+ * component type ordinal, subtype slot (0 for "default", enum ordinal + 1 for a subtype) and
+ * parameter ordinal, plus one row per link type. Unknown parameter names are dropped once at
+ * compile time. Rows are shared by every profile handed out and are never modified, so a
+ * compiled instance can be swapped in whole when the config is reloaded.
+ */
+public final class CompiledHeuristics {
+    private static final Parameter[] PARAMETERS = Parameter.values();
+    private static final ComponentType[] COMPONENT_TYPES = ComponentType.values();
+    private static final LinkType[] LINK_TYPES = LinkType.values();
+    private static final String DEFAULT_SUBTYPE = "default";
+    private static final double NEUTRAL_SCORE = 5.0;
+
+    // Subtype enum constants per component type; empty for types without subtypes
+    private static final Enum<?>[][] SUBTYPES = new Enum<?>[COMPONENT_TYPES.length][];
+
+    static {
+        for (ComponentType type : COMPONENT_TYPES) {
+            SUBTYPES[type.ordinal()] = subtypeConstants(type);
+        }
+    }
+
+    private static final double[] NEUTRAL_ROW = neutralRow();
+
+    private final double[][][] componentRows = new double[COMPONENT_TYPES.length][][];
+    private final double[][] linkRows = new double[LINK_TYPES.length][];
+    // Every configured subtype by name, including ones without an enum constant
+    private final Map<String, double[]>[] rowsByName;
+    private final Map<String, Map<String, Map<String, Double>>> config;
+
+    @SuppressWarnings("unchecked")
+    public CompiledHeuristics(Map<String, Map<String, Map<String, Double>>> config) {
+        this.config = deepCopy(config);
+        rowsByName = new Map[COMPONENT_TYPES.length];
+        for (ComponentType type : COMPONENT_TYPES) {
+            Map<String, Map<String, Double>> typeConfig = config.get(type.name());
+            Map<String, double[]> byName = new HashMap<>();
+            if (typeConfig != null) {
+                for (Map.Entry<String, Map<String, Double>> entry : typeConfig.entrySet()) {
+                    if (entry.getValue() != null) {
+                        byName.put(entry.getKey(), compileRow(entry.getValue()));
+                    }
+                }
+            }
+            double[] defaultRow = byName.getOrDefault(DEFAULT_SUBTYPE, NEUTRAL_ROW);
+
+            Enum<?>[] subtypes = SUBTYPES[type.ordinal()];
+            double[][] rows = new double[subtypes.length + 1][];
+            rows[0] = defaultRow;
+            for (Enum<?> subtype : subtypes) {
+                rows[subtype.ordinal() + 1] = byName.getOrDefault(subtype.name(), defaultRow);
+            }
+            componentRows[type.ordinal()] = rows;
+            rowsByName[type.ordinal()] = byName;
+        }
+
+        Map<String, Map<String, Double>> linksConfig = config.get("LINKS");
+        for (LinkType linkType : LINK_TYPES) {
+            Map<String, Double> linkConfig = linksConfig != null ? linksConfig.get(linkType.name()) : null;
+            linkRows[linkType.ordinal()] = linkConfig != null ? compileRow(linkConfig) : NEUTRAL_ROW;
+        }
+    }
+
+    /**
+     * Default profile of a component: one table lookup, no array copy
+     */
+    public HeuristicProfile profileFor(Component component) {
+        ComponentType type = component.getType();
+        if (type == null) {
+            return HeuristicProfile.sharing(NEUTRAL_ROW);
+        }
+        return HeuristicProfile.sharing(componentRows[type.ordinal()][subtypeSlot(type, subtypeOf(component))]);
+    }
+
+    /**
+     * Default profile of a component type and subtype name; unknown subtypes fall back to "default"
+     */
+    public HeuristicProfile profileFor(ComponentType type, String subtype) {
+        double[] row = subtype != null ? rowsByName[type.ordinal()].get(subtype) : null;
+        return HeuristicProfile.sharing(row != null ? row : componentRows[type.ordinal()][0]);
+    }
+
+    public HeuristicProfile profileFor(LinkType linkType) {
+        return HeuristicProfile.sharing(linkType != null ? linkRows[linkType.ordinal()] : NEUTRAL_ROW);
+    }
+
+    /**
+     * Scores of a type and subtype slot by parameter ordinal (NaN for unset); must not be modified
+     */
+    public double[] row(ComponentType type, int subtypeSlot) {
+        return componentRows[type.ordinal()][subtypeSlot];
+    }
+
+    public double[] row(LinkType linkType) {
+        return linkRows[linkType.ordinal()];
+    }
+
+    /**
+     * Number of subtype slots of a type, including the "default" slot 0
+     */
+    public static int subtypeSlots(ComponentType type) {
+        return SUBTYPES[type.ordinal()].length + 1;
+    }
+
+    /**
+     * Slot of a subtype constant in the table, 0 for none or a constant of another type
+     */
+    public static int subtypeSlot(ComponentType type, Enum<?> subtype) {
+        if (subtype == null) {
+            return 0;
+        }
+        Enum<?>[] subtypes = SUBTYPES[type.ordinal()];
+        int ordinal = subtype.ordinal();
+        return ordinal < subtypes.length && subtypes[ordinal] == subtype ? ordinal + 1 : 0;
+    }
+
+    /**
+     * Subtype constant of a component, or null if it has none
+     */
+    public static Enum<?> subtypeOf(Component component) {
+        if (component instanceof DatabaseComponent) {
+            return ((DatabaseComponent) component).getDatabaseType();
+        } else if (component instanceof CacheComponent) {
+            return ((CacheComponent) component).getCacheType();
+        } else if (component instanceof APIServiceComponent) {
+            return ((APIServiceComponent) component).getApiType();
+        } else if (component instanceof QueueComponent) {
+            return ((QueueComponent) component).getQueueType();
+        } else if (component instanceof StorageComponent) {
+            return ((StorageComponent) component).getStorageType();
+        } else if (component instanceof LoadBalancerComponent) {
+            return ((LoadBalancerComponent) component).getLbType();
+        }
+        return null;
+    }
+
+    /**
+     * Subtype names per slot of a type ("default" first)
+     */
+    public static String[] subtypeNames(ComponentType type) {
+        Enum<?>[] subtypes = SUBTYPES[type.ordinal()];
+        String[] names = new String[subtypes.length + 1];
+        names[0] = DEFAULT_SUBTYPE;
+        for (Enum<?> subtype : subtypes) {
+            names[subtype.ordinal() + 1] = subtype.name();
+        }
+        return names;
+    }
+
+    /**
+     * Configured subtypes of a type with their raw scores, as read from the file (read-only)
+     */
+    public Map<String, Map<String, Double>> getConfig(ComponentType type) {
+        return config.getOrDefault(type.name(), Collections.emptyMap());
+    }
+
+    private static Map<String, Map<String, Map<String, Double>>> deepCopy(
+            Map<String, Map<String, Map<String, Double>>> config) {
+        Map<String, Map<String, Map<String, Double>>> copy = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, Map<String, Double>>> type : config.entrySet()) {
+            Map<String, Map<String, Double>> subtypes = new LinkedHashMap<>();
+            if (type.getValue() != null) {
+                for (Map.Entry<String, Map<String, Double>> subtype : type.getValue().entrySet()) {
+                    if (subtype.getValue() != null) {
+                        subtypes.put(subtype.getKey(),
+                                Collections.unmodifiableMap(new LinkedHashMap<>(subtype.getValue())));
+                    }
+                }
+            }
+            copy.put(type.getKey(), Collections.unmodifiableMap(subtypes));
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+    private static double[] compileRow(Map<String, Double> scores) {
+        double[] row = new double[PARAMETERS.length];
+        Arrays.fill(row, Double.NaN);
+        for (Parameter param : PARAMETERS) {
+            Double score = scores.get(param.name());
+            if (score != null) {
+                row[param.ordinal()] = score;
+            }
+        }
+        return row;
+    }
+
+    private static double[] neutralRow() {
+        double[] row = new double[PARAMETERS.length];
+        Arrays.fill(row, NEUTRAL_SCORE);
+        return row;
+    }
+
+    private static Enum<?>[] subtypeConstants(ComponentType type) {
+        switch (type) {
+            case DATABASE:
+                return DatabaseComponent.DatabaseType.values();
+            case CACHE:
+                return CacheComponent.CacheType.values();
+            case API_SERVICE:
+                return APIServiceComponent.APIType.values();
+            case QUEUE:
+                return QueueComponent.QueueType.values();
+            case STORAGE:
+                return StorageComponent.StorageType.values();
+            case LOAD_BALANCER:
+                return LoadBalancerComponent.LoadBalancerType.values();
+            default:
+                return new Enum<?>[0];
+        }
+    }
+}
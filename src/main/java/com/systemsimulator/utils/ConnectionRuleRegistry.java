@@ -13,6 +13,11 @@ public class ConnectionRuleRegistry {
     private final Map<LinkType, List<ConnectionRule>> rulesByLinkType = new HashMap<>();
     private final List<ConnectionRule> allRules = new ArrayList<>();
 
+    // Decision table built from the current rules; null until first use after a change. Rule
+    // changes and the compile synchronize on this registry, so a compile never reads a list
+    // being modified or publishes a table older than the latest change.
+    private volatile CompiledConnectionRules compiledRules;
+
     public ConnectionRuleRegistry() {
         registerDefaultRules();
     }
@@ -35,13 +40,31 @@ public class ConnectionRuleRegistry {
     /**
      * Register a new connection rule
      */
-    public void registerRule(ConnectionRule rule) {
+    public synchronized void registerRule(ConnectionRule rule) {
         if (rule == null) {
             throw new IllegalArgumentException("Rule cannot be null");
         }
 
         allRules.add(rule);
         rulesByLinkType.computeIfAbsent(rule.getLinkType(), k -> new ArrayList<>()).add(rule);
+        compiledRules = null;
+    }
+
+    /**
+     * Get the decision table for the current rules, compiling it if the rules changed
+     */
+    public CompiledConnectionRules getCompiledRules() {
+        CompiledConnectionRules compiled = compiledRules;
+        if (compiled == null) {
+            synchronized (this) {
+                compiled = compiledRules;
+                if (compiled == null) {
+                    compiled = new CompiledConnectionRules(rulesByLinkType);
+                    compiledRules = compiled;
+                }
+            }
+        }
+        return compiled;
     }
 
     /**
@@ -89,25 +112,27 @@ public class ConnectionRuleRegistry {
     /**
      * Remove all rules for a specific link type
      */
-    public void clearRulesForLinkType(LinkType linkType) {
+    public synchronized void clearRulesForLinkType(LinkType linkType) {
         List<ConnectionRule> rules = rulesByLinkType.remove(linkType);
         if (rules != null) {
             allRules.removeAll(rules);
         }
+        compiledRules = null;
     }
 
     /**
      * Clear all registered rules
      */
-    public void clearAllRules() {
+    public synchronized void clearAllRules() {
         rulesByLinkType.clear();
         allRules.clear();
+        compiledRules = null;
     }
 
     /**
      * Reset to default rules
      */
-    public void resetToDefaults() {
+    public synchronized void resetToDefaults() {
         clearAllRules();
         registerDefaultRules();
     }
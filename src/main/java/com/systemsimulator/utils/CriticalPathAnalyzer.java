@@ -0,0 +1,232 @@
+package com.systemsimulator.utils;
+
+import com.systemsimulator.model.*;
+
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * Longest latency path through an architecture along synchronous request links
+ * (API_CALL, CACHE_LOOKUP, DATABASE_QUERY), starting from each {@link ClientComponent}
+ * (or from every entry point when there are no clients).
+ *
+ * A component weighs (10 - LATENCY score) and a link (10 - its LATENCY score), so slow hops
+ * add up along the path. Cycles are condensed into one step: a strongly connected group
+ * weighs the sum of its components plus its slowest internal link for every extra member,
+ * an upper bound on passing through all of them once. O(V + E).
+ */
+public final class CriticalPathAnalyzer {
+
+    private CriticalPathAnalyzer() {}
+
+    public static CriticalPath analyze(List<com.systemsimulator.model.Component> components, List<Link> links) {
+        int n = components != null ? components.size() : 0;
+        if (n == 0) {
+            return CriticalPath.EMPTY;
+        }
+
+        Map<String, Integer> indexById = new HashMap<>(n * 2);
+        double[] nodePenalty = new double[n];
+        for (int i = 0; i < n; i++) {
+            com.systemsimulator.model.Component component = components.get(i);
+            indexById.putIfAbsent(component.getId(), i);
+            nodePenalty[i] = 10.0 - component.getHeuristics().getScore(Parameter.LATENCY);
+        }
+
+        // Request edges in CSR form
+        int linkCount = links != null ? links.size() : 0;
+        int[] sources = new int[linkCount];
+        int[] targets = new int[linkCount];
+        double[] penalties = new double[linkCount];
+        int[] outDegree = new int[n];
+        int edgeCount = 0;
+        for (int l = 0; l < linkCount; l++) {
+            Link link = links.get(l);
+            if (!CapacityProperties.isRequestLink(link) || link.getSource() == null || link.getTarget() == null) {
+                continue;
+            }
+            Integer source = indexById.get(link.getSource().getId());
+            Integer target = indexById.get(link.getTarget().getId());
+            if (source == null || target == null) {
+                continue;
+            }
+            sources[edgeCount] = source;
+            targets[edgeCount] = target;
+            penalties[edgeCount] = 10.0 - link.getHeuristics().getScore(Parameter.LATENCY);
+            outDegree[source]++;
+            edgeCount++;
+        }
+        int[] edgeStart = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            edgeStart[i + 1] = edgeStart[i] + outDegree[i];
+        }
+        int[] edgeTarget = new int[edgeCount];
+        double[] edgePenalty = new double[edgeCount];
+        int[] fill = Arrays.copyOf(edgeStart, n);
+        for (int e = 0; e < edgeCount; e++) {
+            int slot = fill[sources[e]]++;
+            edgeTarget[slot] = targets[e];
+            edgePenalty[slot] = penalties[e];
+        }
+
+        boolean[] client = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            client[i] = components.get(i).getType() == ComponentType.CLIENT;
+        }
+        return analyze(n, nodePenalty, client, edgeStart, edgeTarget, edgePenalty,
+                i -> components.get(i).getId(), i -> components.get(i).getName());
+    }
+
+    /**
+     * Critical path of a graph already in CSR form: node i weighs nodePenalty[i], its request
+     * edges are edgeStart[i]..edgeStart[i + 1] into edgeTarget/edgePenalty, and client marks
+     * the entry points. Ids and names are only looked up for the nodes on the path.
+     */
+    public static CriticalPath analyze(int n, double[] nodePenalty, boolean[] client,
+                                       int[] edgeStart, int[] edgeTarget, double[] edgePenalty,
+                                       IntFunction<String> ids, IntFunction<String> names) {
+        if (n == 0) {
+            return CriticalPath.EMPTY;
+        }
+
+        int[] componentOf = new int[n];
+        List<int[]> sccs = GraphAlgorithms.stronglyConnectedComponents(n, edgeStart, edgeTarget, componentOf);
+        int sccCount = sccs.size();
+
+        // Weight of each condensed step, and which groups have incoming edges
+        double[] sccPenalty = new double[sccCount];
+        boolean[] hasIncoming = new boolean[sccCount];
+        for (int s = 0; s < sccCount; s++) {
+            int[] members = sccs.get(s);
+            double maxInternal = 0.0;
+            for (int node : members) {
+                sccPenalty[s] += nodePenalty[node];
+                for (int e = edgeStart[node]; e < edgeStart[node + 1]; e++) {
+                    int target = componentOf[edgeTarget[e]];
+                    if (target == s) {
+                        maxInternal = Math.max(maxInternal, edgePenalty[e]);
+                    } else {
+                        hasIncoming[target] = true;
+                    }
+                }
+            }
+            sccPenalty[s] += (members.length - 1) * maxInternal;
+        }
+
+        // Longest path starting at each group; SCCs come sinks first so successors are done
+        double[] longest = new double[sccCount];
+        int[] nextEdge = new int[sccCount];
+        for (int s = 0; s < sccCount; s++) {
+            double best = 0.0;
+            nextEdge[s] = -1;
+            for (int node : sccs.get(s)) {
+                for (int e = edgeStart[node]; e < edgeStart[node + 1]; e++) {
+                    int target = componentOf[edgeTarget[e]];
+                    if (target == s) {
+                        continue;
+                    }
+                    double candidate = edgePenalty[e] + longest[target];
+                    if (nextEdge[s] < 0 || candidate > best) {
+                        best = candidate;
+                        nextEdge[s] = e;
+                    }
+                }
+            }
+            longest[s] = sccPenalty[s] + best;
+        }
+
+        // Entry points: clients, or every group nothing leads into
+        int start = -1;
+        int startNode = -1;
+        boolean hasClient = false;
+        for (int i = 0; i < n; i++) {
+            if (client[i]) {
+                if (!hasClient || longest[componentOf[i]] > longest[start]) {
+                    start = componentOf[i];
+                    startNode = i;
+                }
+                hasClient = true;
+            }
+        }
+        if (!hasClient) {
+            for (int s = 0; s < sccCount; s++) {
+                if (!hasIncoming[s] && (start < 0 || longest[s] > longest[start])) {
+                    start = s;
+                    startNode = sccs.get(s)[0];
+                }
+            }
+        }
+
+        // Walk the chosen path
+        List<String> pathIds = new ArrayList<>();
+        List<String> pathNames = new ArrayList<>();
+        int hops = 0;
+        boolean cyclic = false;
+        int entry = startNode;
+        for (int s = start; s >= 0; ) {
+            int[] members = sccs.get(s);
+            cyclic |= members.length > 1 || selfLoop(members[0], edgeStart, edgeTarget);
+            pathIds.add(ids.apply(entry));
+            pathNames.add(names.apply(entry));
+            for (int node : members) {
+                if (node != entry) {
+                    pathIds.add(ids.apply(node));
+                    pathNames.add(names.apply(node));
+                }
+            }
+            int e = nextEdge[s];
+            if (e < 0) {
+                break;
+            }
+            hops++;
+            entry = edgeTarget[e];
+            s = componentOf[entry];
+        }
+
+        return new CriticalPath(longest[start], pathIds, pathNames, hops, cyclic);
+    }
+
+    private static boolean selfLoop(int node, int[] edgeStart, int[] edgeTarget) {
+        for (int e = edgeStart[node]; e < edgeStart[node + 1]; e++) {
+            if (edgeTarget[e] == node) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The slowest request path and its accumulated latency penalty
+     */
+    public static class CriticalPath {
+        static final CriticalPath EMPTY = new CriticalPath(0.0, Collections.emptyList(), Collections.emptyList(), 0, false);
+
+        private final double latencyPenalty;
+        private final List<String> componentIds;
+        private final List<String> componentNames;
+        private final int hops;
+        private final boolean containsCycle;
+
+        public CriticalPath(double latencyPenalty, List<String> componentIds, List<String> componentNames,
+                            int hops, boolean containsCycle) {
+            this.latencyPenalty = latencyPenalty;
+            this.componentIds = componentIds;
+            this.componentNames = componentNames;
+            this.hops = hops;
+            this.containsCycle = containsCycle;
+        }
+
+        /** Sum of (10 - LATENCY) over the components and links on the path */
+        public double getLatencyPenalty() { return latencyPenalty; }
+        public List<String> getComponentIds() { return componentIds; }
+        public List<String> getComponentNames() { return componentNames; }
+        /** Number of links on the path (cycles count as one step) */
+        public int getHops() { return hops; }
+        public boolean isContainsCycle() { return containsCycle; }
+
+        @Override
+        public String toString() {
+            return String.join(" -> ", componentNames);
+        }
+    }
+}
@@ -0,0 +1,737 @@
+package com.systemsimulator.utils;
+
+import com.systemsimulator.model.*;
+
+import java.util.*;
+
+/**
+ * Discrete-event simulation of requests flowing through an architecture.
+ *
+ * Requests are injected at each {@link ClientComponent} as a Poisson stream and follow
+ * synchronous links (API_CALL, CACHE_LOOKUP, DATABASE_QUERY) hop by hop. Every component is
+ * a FIFO multi-server queue with {@code instances} servers and a mean {@code serviceTimeMs};
+ * a request finishes at a component with no further synchronous hop, or at a cache hit
+ * ({@code hitRatio}). Asynchronous links (streams, events, ETL, batch, replication) are off
+ * the request path and ignored.
+ *
+ * The event loop allocates nothing per event: events and requests live in pooled parallel
+ * arrays and the pending-event heap is keyed by primitive (time, sequence) pairs.
+ * An instance simulates one run and is not thread-safe.
+ */
+public class DiscreteEventSimulator {
+    private static final int INJECT = 0;
+    private static final int ARRIVAL = 1;
+    private static final int DEPARTURE = 2;
+
+    private static final int[] NO_ROUTES = new int[0];
+    private static final long NO_CHILD = -1L;
+
+    private final SimulationConfig config;
+    private final SplittableRandom random;
+
+    // Compiled graph, indexed by component position in the architecture
+    private final Component[] nodes;
+    private final int[] instances;
+    private final double[] serviceTimeMs;
+    private final int[] queueCapacity;
+    private final double[] hitRatio;
+    private final boolean[] roundRobin;
+    private final int[][] routes;
+    private final int[] linkTarget;
+    private final double[] linkLatencyMs;
+    private final int[] clients;
+
+    // Per-component runtime state
+    private final int[] busy;
+    private final IntRing[] waiting;
+    private final int[] nextRoute;
+    private final double[] busyTimeMs;
+    private final double[] waitTimeMs;
+    private final long[] served;
+    private final int[] maxQueueLength;
+    private final long[] dropped;
+
+    // Pooled requests
+    private double[] requestStart = new double[256];
+    private double[] requestEnqueued = new double[256];
+    private int[] requestPath = new int[256];
+    private int[] requestHops = new int[256];
+    private int[] freeRequests = new int[256];
+    private int freeRequestCount;
+    private int requestCapacity;
+
+    // Pooled events and the heap ordering them by (time, sequence)
+    private int[] eventType = new int[256];
+    private int[] eventRequest = new int[256];
+    private int[] eventNode = new int[256];
+    private int[] freeEvents = new int[256];
+    private int freeEventCount;
+    private int eventCapacity;
+    private double[] heapTime = new double[256];
+    private long[] heapSequence = new long[256];
+    private int[] heapEvent = new int[256];
+    private int heapSize;
+    private long nextSequence;
+
+    // Path trie: each trie node is a (parent path, component) pair. Children are found through an
+    // open-addressed table keyed by parent << 32 | component, so memory grows with the paths seen
+    private int[] pathParent = new int[64];
+    private int[] pathNode = new int[64];
+    private int pathCount;
+    private long[] childKeys = newChildKeys(128);
+    private int[] childPaths = new int[128];
+    private double[][] pathLatencies = new double[64][];
+    private int[] pathCompleted = new int[64];
+
+    private double[] latencies = new double[1024];
+    private long completed;
+    private long droppedRequests;
+    private long injected;
+    private long eventsProcessed;
+    private double now;
+    private double firstInjection = Double.NaN;
+    private double lastCompletion;
+
+    public DiscreteEventSimulator(Architecture architecture, SimulationConfig config) {
+        this.config = config;
+        this.random = new SplittableRandom(config.getSeed());
+
+        List<Component> components = architecture.getComponents();
+        int n = components.size();
+        nodes = components.toArray(new Component[0]);
+        instances = new int[n];
+        serviceTimeMs = new double[n];
+        queueCapacity = new int[n];
+        hitRatio = new double[n];
+        roundRobin = new boolean[n];
+
+        Map<String, Integer> indexById = new HashMap<>();
+        List<Integer> clientList = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Component component = nodes[i];
+            indexById.put(component.getId(), i);
+            instances[i] = CapacityProperties.instances(component);
+            serviceTimeMs[i] = CapacityProperties.serviceTimeMs(component);
+            queueCapacity[i] = CapacityProperties.queueCapacity(component);
+            hitRatio[i] = CapacityProperties.hitRatio(component);
+            roundRobin[i] = component.getType() == ComponentType.LOAD_BALANCER;
+            if (component.getType() == ComponentType.CLIENT) {
+                clientList.add(i);
+            }
+        }
+        clients = clientList.stream().mapToInt(Integer::intValue).toArray();
+
+        List<List<Integer>> outgoing = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            outgoing.add(new ArrayList<>());
+        }
+        List<Link> links = architecture.getLinks();
+        linkTarget = new int[links.size()];
+        linkLatencyMs = new double[links.size()];
+        for (int l = 0; l < links.size(); l++) {
+            Link link = links.get(l);
+            Integer source = link.getSource() != null ? indexById.get(link.getSource().getId()) : null;
+            Integer target = link.getTarget() != null ? indexById.get(link.getTarget().getId()) : null;
+            if (source == null || target == null || !CapacityProperties.isRequestLink(link)) {
+                continue; // dangling, or not a synchronous request hop
+            }
+            linkTarget[l] = target;
+            linkLatencyMs[l] = CapacityProperties.linkLatencyMs(link);
+            outgoing.get(source).add(l);
+        }
+        routes = new int[n][];
+        for (int i = 0; i < n; i++) {
+            List<Integer> out = outgoing.get(i);
+            routes[i] = out.isEmpty() ? NO_ROUTES : out.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        busy = new int[n];
+        waiting = new IntRing[n];
+        for (int i = 0; i < n; i++) {
+            waiting[i] = new IntRing();
+        }
+        nextRoute = new int[n];
+        busyTimeMs = new double[n];
+        waitTimeMs = new double[n];
+        served = new long[n];
+        maxQueueLength = new int[n];
+        dropped = new long[n];
+
+        pathParent[0] = -1;
+        pathNode[0] = -1;
+        pathCount = 1;
+    }
+
+    /**
+     * Run the simulation until every injected request has completed or been dropped
+     */
+    public SimulationReport run() {
+        long startNanos = System.nanoTime();
+
+        if (clients.length > 0 && config.getRequestCount() > 0) {
+            for (int client : clients) {
+                schedule(exponential(1000.0 / config.getArrivalRatePerSecond()), INJECT, -1, client);
+            }
+        }
+
+        while (heapSize > 0) {
+            int event = popEvent();
+            int type = eventType[event];
+            int request = eventRequest[event];
+            int node = eventNode[event];
+            releaseEvent(event);
+            eventsProcessed++;
+
+            switch (type) {
+                case INJECT:
+                    inject(node);
+                    break;
+                case ARRIVAL:
+                    arrive(request, node);
+                    break;
+                case DEPARTURE:
+                    depart(request, node);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown event type: " + type);
+            }
+        }
+
+        return buildReport(System.nanoTime() - startNanos);
+    }
+
+    private void inject(int client) {
+        if (injected >= config.getRequestCount()) {
+            return;
+        }
+        injected++;
+        if (Double.isNaN(firstInjection)) {
+            firstInjection = now;
+        }
+        int request = allocateRequest();
+        requestStart[request] = now;
+        requestHops[request] = 0;
+        requestPath[request] = childPath(0, client);
+        forward(request, client);
+
+        if (injected < config.getRequestCount()) {
+            schedule(now + exponential(1000.0 / config.getArrivalRatePerSecond()), INJECT, -1, client);
+        }
+    }
+
+    private void arrive(int request, int node) {
+        requestPath[request] = childPath(requestPath[request], node);
+        if (busy[node] < instances[node]) {
+            requestEnqueued[request] = now;
+            startService(request, node);
+            return;
+        }
+        IntRing queue = waiting[node];
+        if (queue.size() >= queueCapacity[node]) {
+            dropped[node]++;
+            drop(request);
+            return;
+        }
+        requestEnqueued[request] = now;
+        queue.add(request);
+        if (queue.size() > maxQueueLength[node]) {
+            maxQueueLength[node] = queue.size();
+        }
+    }
+
+    private void depart(int request, int node) {
+        served[node]++;
+        busy[node]--;
+        if (waiting[node].size() > 0) {
+            startService(waiting[node].poll(), node);
+        }
+
+        if (hitRatio[node] > 0.0 && random.nextDouble() < hitRatio[node]) {
+            complete(request);
+        } else {
+            forward(request, node);
+        }
+    }
+
+    private void startService(int request, int node) {
+        busy[node]++;
+        waitTimeMs[node] += now - requestEnqueued[request];
+        double mean = serviceTimeMs[node];
+        double duration = config.isExponentialServiceTimes() ? exponential(mean) : mean;
+        busyTimeMs[node] += duration;
+        schedule(now + duration, DEPARTURE, request, node);
+    }
+
+    /**
+     * Send a request over the next synchronous hop out of a component, or complete it if there is none
+     */
+    private void forward(int request, int node) {
+        int[] out = routes[node];
+        if (out.length == 0) {
+            complete(request);
+            return;
+        }
+        if (++requestHops[request] > config.getMaxHops()) {
+            drop(request);
+            return;
+        }
+        int link;
+        if (roundRobin[node]) {
+            link = out[nextRoute[node]];
+            nextRoute[node] = (nextRoute[node] + 1) % out.length;
+        } else {
+            link = out.length == 1 ? out[0] : out[random.nextInt(out.length)];
+        }
+        schedule(now + linkLatencyMs[link], ARRIVAL, request, linkTarget[link]);
+    }
+
+    private void complete(int request) {
+        double latency = now - requestStart[request];
+        int path = requestPath[request];
+
+        if (completed == latencies.length) {
+            latencies = Arrays.copyOf(latencies, latencies.length * 2);
+        }
+        latencies[(int) completed] = latency;
+        completed++;
+        lastCompletion = now;
+
+        double[] samples = pathLatencies[path];
+        if (samples == null) {
+            samples = new double[16];
+            pathLatencies[path] = samples;
+        } else if (pathCompleted[path] == samples.length) {
+            samples = Arrays.copyOf(samples, samples.length * 2);
+            pathLatencies[path] = samples;
+        }
+        samples[pathCompleted[path]++] = latency;
+
+        releaseRequest(request);
+    }
+
+    private void drop(int request) {
+        droppedRequests++;
+        releaseRequest(request);
+    }
+
+    private double exponential(double mean) {
+        return mean <= 0.0 ? 0.0 : -mean * Math.log(1.0 - random.nextDouble());
+    }
+
+    // ==================== Pools ====================
+
+    private int allocateRequest() {
+        if (freeRequestCount > 0) {
+            return freeRequests[--freeRequestCount];
+        }
+        if (requestCapacity == requestStart.length) {
+            int size = requestCapacity * 2;
+            requestStart = Arrays.copyOf(requestStart, size);
+            requestEnqueued = Arrays.copyOf(requestEnqueued, size);
+            requestPath = Arrays.copyOf(requestPath, size);
+            requestHops = Arrays.copyOf(requestHops, size);
+            freeRequests = Arrays.copyOf(freeRequests, size);
+        }
+        return requestCapacity++;
+    }
+
+    private void releaseRequest(int request) {
+        freeRequests[freeRequestCount++] = request;
+    }
+
+    private int allocateEvent() {
+        if (freeEventCount > 0) {
+            return freeEvents[--freeEventCount];
+        }
+        if (eventCapacity == eventType.length) {
+            int size = eventCapacity * 2;
+            eventType = Arrays.copyOf(eventType, size);
+            eventRequest = Arrays.copyOf(eventRequest, size);
+            eventNode = Arrays.copyOf(eventNode, size);
+            freeEvents = Arrays.copyOf(freeEvents, size);
+        }
+        return eventCapacity++;
+    }
+
+    private void releaseEvent(int event) {
+        freeEvents[freeEventCount++] = event;
+    }
+
+    // ==================== Event heap ====================
+
+    private void schedule(double time, int type, int request, int node) {
+        int event = allocateEvent();
+        eventType[event] = type;
+        eventRequest[event] = request;
+        eventNode[event] = node;
+
+        if (heapSize == heapTime.length) {
+            int size = heapSize * 2;
+            heapTime = Arrays.copyOf(heapTime, size);
+            heapSequence = Arrays.copyOf(heapSequence, size);
+            heapEvent = Arrays.copyOf(heapEvent, size);
+        }
+        long sequence = nextSequence++;
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(time, sequence, heapTime[parent], heapSequence[parent])) {
+                break;
+            }
+            heapTime[i] = heapTime[parent];
+            heapSequence[i] = heapSequence[parent];
+            heapEvent[i] = heapEvent[parent];
+            i = parent;
+        }
+        heapTime[i] = time;
+        heapSequence[i] = sequence;
+        heapEvent[i] = event;
+    }
+
+    private int popEvent() {
+        int top = heapEvent[0];
+        now = heapTime[0];
+
+        int last = --heapSize;
+        double time = heapTime[last];
+        long sequence = heapSequence[last];
+        int event = heapEvent[last];
+        int i = 0;
+        int half = heapSize >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < heapSize && before(heapTime[right], heapSequence[right], heapTime[child], heapSequence[child])) {
+                child = right;
+            }
+            if (!before(heapTime[child], heapSequence[child], time, sequence)) {
+                break;
+            }
+            heapTime[i] = heapTime[child];
+            heapSequence[i] = heapSequence[child];
+            heapEvent[i] = heapEvent[child];
+            i = child;
+        }
+        heapTime[i] = time;
+        heapSequence[i] = sequence;
+        heapEvent[i] = event;
+        return top;
+    }
+
+    private static boolean before(double time1, long sequence1, double time2, long sequence2) {
+        return time1 < time2 || (time1 == time2 && sequence1 < sequence2);
+    }
+
+    // ==================== Paths ====================
+
+    private int childPath(int path, int node) {
+        long key = (long) path << 32 | node;
+        int mask = childKeys.length - 1;
+        int slot = childSlot(key, mask);
+        while (childKeys[slot] != NO_CHILD) {
+            if (childKeys[slot] == key) {
+                return childPaths[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (pathCount == pathParent.length) {
+            int size = pathCount * 2;
+            pathParent = Arrays.copyOf(pathParent, size);
+            pathNode = Arrays.copyOf(pathNode, size);
+            pathLatencies = Arrays.copyOf(pathLatencies, size);
+            pathCompleted = Arrays.copyOf(pathCompleted, size);
+        }
+        int child = pathCount++;
+        pathParent[child] = path;
+        pathNode[child] = node;
+        childKeys[slot] = key;
+        childPaths[slot] = child;
+        // Every path but the root is a child; keep the table at most half full
+        if (pathCount * 2 > childKeys.length) {
+            growChildren();
+        }
+        return child;
+    }
+
+    private void growChildren() {
+        long[] keys = childKeys;
+        int[] paths = childPaths;
+        childKeys = newChildKeys(keys.length * 2);
+        childPaths = new int[keys.length * 2];
+        int mask = childKeys.length - 1;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != NO_CHILD) {
+                int slot = childSlot(keys[i], mask);
+                while (childKeys[slot] != NO_CHILD) {
+                    slot = (slot + 1) & mask;
+                }
+                childKeys[slot] = keys[i];
+                childPaths[slot] = paths[i];
+            }
+        }
+    }
+
+    private static int childSlot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & mask;
+    }
+
+    private static long[] newChildKeys(int capacity) {
+        long[] keys = new long[capacity];
+        Arrays.fill(keys, NO_CHILD);
+        return keys;
+    }
+
+    private List<Component> pathComponents(int path) {
+        LinkedList<Component> components = new LinkedList<>();
+        for (int p = path; p > 0; p = pathParent[p]) {
+            components.addFirst(nodes[pathNode[p]]);
+        }
+        return components;
+    }
+
+    // ==================== Report ====================
+
+    private SimulationReport buildReport(long wallNanos) {
+        double durationMs = completed > 0 ? lastCompletion - firstInjection : 0.0;
+        double durationSeconds = durationMs / 1000.0;
+
+        List<PathStats> paths = new ArrayList<>();
+        for (int p = 1; p < pathCount; p++) {
+            int count = pathCompleted[p];
+            if (count == 0) {
+                continue;
+            }
+            List<String> ids = new ArrayList<>();
+            List<String> names = new ArrayList<>();
+            for (Component component : pathComponents(p)) {
+                ids.add(component.getId());
+                names.add(component.getName());
+            }
+            double throughput = durationSeconds > 0 ? count / durationSeconds : 0.0;
+            paths.add(new PathStats(ids, String.join(" -> ", names), count, throughput,
+                    LatencySummary.of(pathLatencies[p], count)));
+        }
+        paths.sort((a, b) -> Long.compare(b.getCompleted(), a.getCompleted()));
+
+        List<ComponentStats> componentStats = new ArrayList<>();
+        for (int i = 0; i < nodes.length; i++) {
+            if (nodes[i].getType() == ComponentType.CLIENT) {
+                continue;
+            }
+            double capacityMs = durationMs * instances[i];
+            double utilization = capacityMs > 0 ? Math.min(1.0, busyTimeMs[i] / capacityMs) : 0.0;
+            double averageWait = served[i] > 0 ? waitTimeMs[i] / served[i] : 0.0;
+            componentStats.add(new ComponentStats(nodes[i].getId(), nodes[i].getName(), instances[i],
+                    served[i], dropped[i], utilization, averageWait, maxQueueLength[i]));
+        }
+
+        double throughput = durationSeconds > 0 ? completed / durationSeconds : 0.0;
+        double wallSeconds = wallNanos / 1_000_000_000.0;
+        return new SimulationReport(injected, completed, droppedRequests, durationSeconds, throughput,
+                LatencySummary.of(latencies, (int) completed), paths, componentStats,
+                eventsProcessed, wallNanos / 1_000_000L,
+                wallSeconds > 0 ? eventsProcessed / wallSeconds : 0.0);
+    }
+
+    /**
+     * Growable FIFO of request slots
+     */
+    private static final class IntRing {
+        private int[] items = new int[16];
+        private int head;
+        private int size;
+
+        void add(int value) {
+            if (size == items.length) {
+                int[] grown = new int[items.length * 2];
+                for (int i = 0; i < size; i++) {
+                    grown[i] = items[(head + i) % items.length];
+                }
+                items = grown;
+                head = 0;
+            }
+            items[(head + size) % items.length] = value;
+            size++;
+        }
+
+        int poll() {
+            int value = items[head];
+            head = (head + 1) % items.length;
+            size--;
+            return value;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+
+    // ==================== Config and results ====================
+
+    public static class SimulationConfig {
+        private long requestCount = 10_000;
+        private double arrivalRatePerSecond = 100.0;
+        private long seed = 42L;
+        private int maxHops = 32;
+        private boolean exponentialServiceTimes = true;
+
+        public long getRequestCount() { return requestCount; }
+        public void setRequestCount(long requestCount) { this.requestCount = requestCount; }
+
+        /** Request rate of each client */
+        public double getArrivalRatePerSecond() { return arrivalRatePerSecond; }
+        public void setArrivalRatePerSecond(double arrivalRatePerSecond) { this.arrivalRatePerSecond = arrivalRatePerSecond; }
+
+        public long getSeed() { return seed; }
+        public void setSeed(long seed) { this.seed = seed; }
+
+        public int getMaxHops() { return maxHops; }
+        public void setMaxHops(int maxHops) { this.maxHops = maxHops; }
+
+        public boolean isExponentialServiceTimes() { return exponentialServiceTimes; }
+        public void setExponentialServiceTimes(boolean exponentialServiceTimes) { this.exponentialServiceTimes = exponentialServiceTimes; }
+    }
+
+    public static class LatencySummary {
+        private final double meanMs;
+        private final double p50Ms;
+        private final double p95Ms;
+        private final double p99Ms;
+        private final double maxMs;
+
+        public LatencySummary(double meanMs, double p50Ms, double p95Ms, double p99Ms, double maxMs) {
+            this.meanMs = meanMs;
+            this.p50Ms = p50Ms;
+            this.p95Ms = p95Ms;
+            this.p99Ms = p99Ms;
+            this.maxMs = maxMs;
+        }
+
+        /**
+         * Summarize the first {@code count} samples (nearest-rank percentiles)
+         */
+        static LatencySummary of(double[] samples, int count) {
+            if (count == 0) {
+                return new LatencySummary(0.0, 0.0, 0.0, 0.0, 0.0);
+            }
+            double[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            double sum = 0.0;
+            for (double sample : sorted) {
+                sum += sample;
+            }
+            return new LatencySummary(sum / count, percentile(sorted, 0.50), percentile(sorted, 0.95),
+                    percentile(sorted, 0.99), sorted[count - 1]);
+        }
+
+        private static double percentile(double[] sorted, double p) {
+            int rank = (int) Math.ceil(p * sorted.length);
+            return sorted[Math.max(0, rank - 1)];
+        }
+
+        public double getMeanMs() { return meanMs; }
+        public double getP50Ms() { return p50Ms; }
+        public double getP95Ms() { return p95Ms; }
+        public double getP99Ms() { return p99Ms; }
+        public double getMaxMs() { return maxMs; }
+    }
+
+    public static class PathStats {
+        private final List<String> componentIds;
+        private final String description;
+        private final long completed;
+        private final double throughputPerSecond;
+        private final LatencySummary latency;
+
+        public PathStats(List<String> componentIds, String description, long completed,
+                         double throughputPerSecond, LatencySummary latency) {
+            this.componentIds = componentIds;
+            this.description = description;
+            this.completed = completed;
+            this.throughputPerSecond = throughputPerSecond;
+            this.latency = latency;
+        }
+
+        public List<String> getComponentIds() { return componentIds; }
+        public String getDescription() { return description; }
+        public long getCompleted() { return completed; }
+        public double getThroughputPerSecond() { return throughputPerSecond; }
+        public LatencySummary getLatency() { return latency; }
+    }
+
+    public static class ComponentStats {
+        private final String componentId;
+        private final String componentName;
+        private final int instances;
+        private final long served;
+        private final long dropped;
+        private final double utilization;
+        private final double averageWaitMs;
+        private final int maxQueueLength;
+
+        public ComponentStats(String componentId, String componentName, int instances, long served,
+                              long dropped, double utilization, double averageWaitMs, int maxQueueLength) {
+            this.componentId = componentId;
+            this.componentName = componentName;
+            this.instances = instances;
+            this.served = served;
+            this.dropped = dropped;
+            this.utilization = utilization;
+            this.averageWaitMs = averageWaitMs;
+            this.maxQueueLength = maxQueueLength;
+        }
+
+        public String getComponentId() { return componentId; }
+        public String getComponentName() { return componentName; }
+        public int getInstances() { return instances; }
+        public long getServed() { return served; }
+        public long getDropped() { return dropped; }
+        public double getUtilization() { return utilization; }
+        public double getAverageWaitMs() { return averageWaitMs; }
+        public int getMaxQueueLength() { return maxQueueLength; }
+    }
+
+    public static class SimulationReport {
+        private final long requestsInjected;
+        private final long requestsCompleted;
+        private final long requestsDropped;
+        private final double simulatedSeconds;
+        private final double throughputPerSecond;
+        private final LatencySummary latency;
+        private final List<PathStats> paths;
+        private final List<ComponentStats> components;
+        private final long eventsProcessed;
+        private final long wallClockMillis;
+        private final double eventsPerSecond;
+
+        public SimulationReport(long requestsInjected, long requestsCompleted, long requestsDropped,
+                                double simulatedSeconds, double throughputPerSecond, LatencySummary latency,
+                                List<PathStats> paths, List<ComponentStats> components,
+                                long eventsProcessed, long wallClockMillis, double eventsPerSecond) {
+            this.requestsInjected = requestsInjected;
+            this.requestsCompleted = requestsCompleted;
+            this.requestsDropped = requestsDropped;
+            this.simulatedSeconds = simulatedSeconds;
+            this.throughputPerSecond = throughputPerSecond;
+            this.latency = latency;
+            this.paths = paths;
+            this.components = components;
+            this.eventsProcessed = eventsProcessed;
+            this.wallClockMillis = wallClockMillis;
+            this.eventsPerSecond = eventsPerSecond;
+        }
+
+        public long getRequestsInjected() { return requestsInjected; }
+        public long getRequestsCompleted() { return requestsCompleted; }
+        public long getRequestsDropped() { return requestsDropped; }
+        public double getSimulatedSeconds() { return simulatedSeconds; }
+        public double getThroughputPerSecond() { return throughputPerSecond; }
+        public LatencySummary getLatency() { return latency; }
+        public List<PathStats> getPaths() { return paths; }
+        public List<ComponentStats> getComponents() { return components; }
+        public long getEventsProcessed() { return eventsProcessed; }
+        public long getWallClockMillis() { return wallClockMillis; }
+        public double getEventsPerSecond() { return eventsPerSecond; }
+    }
+}
@@ -0,0 +1,354 @@
+package com.systemsimulator.utils;
+
+import com.systemsimulator.model.*;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Compact positional binary encoding of components, links and architectures. The persistence
+ * files now use {@link TaggedEntityCodec}; this encoding is still read from older files.
+ * Enums are written as ordinals, except component subtypes which are written by name so
+ * reordering a subtype enum does not change stored components. Heuristic profiles are a
+ * bitmask of set parameters followed by the set scores.
+ *
+ * Links and architectures refer to components (and architectures to links) either by id
+ * only, when the referenced object is the one stored under that id, or by embedding it.
+ * Decoding resolves references through the supplied lookups, so objects shared in memory
+ * are shared again after a restart.
+ */
+public final class EntityCodec {
+
+    private static final ComponentType[] COMPONENT_TYPES = ComponentType.values();
+    private static final LinkType[] LINK_TYPES = LinkType.values();
+
+    private static final int REFERENCE = 0;
+    private static final int EMBEDDED = 1;
+
+    // Property value tags
+    private static final int NULL = 0;
+    private static final int STRING = 1;
+    private static final int TRUE = 2;
+    private static final int FALSE = 3;
+    private static final int LONG = 4;
+    private static final int DOUBLE = 5;
+    private static final int LIST = 6;
+    private static final int MAP = 7;
+
+    private EntityCodec() {}
+
+    public static void writeComponent(BinaryWriter out, Component component) {
+        out.writeByte(component.getType().ordinal());
+        out.writeString(component.getId());
+        out.writeString(component.getName());
+        Enum<?> subtype = CompiledHeuristics.subtypeOf(component);
+        out.writeString(subtype != null ? subtype.name() : null);
+        writeProfile(out, component.getHeuristics());
+        writeProperties(out, component.getProperties());
+    }
+
+    public static Component readComponent(BinaryReader in) {
+        ComponentType type = componentType(in.readByte());
+        String id = in.readString();
+        String name = in.readString();
+        String subtype = in.readString();
+        Component component = newComponent(type, id, name, subtype);
+        component.setHeuristics(readProfile(in));
+        component.setProperties(readProperties(in));
+        return component;
+    }
+
+    /**
+     * Write a link; its endpoints are written as references when {@code stored} returns the
+     * same instance for their id, else embedded
+     */
+    public static void writeLink(BinaryWriter out, Link link, Function<String, Component> stored) {
+        out.writeString(link.getId());
+        out.writeByte(link.getType() != null ? link.getType().ordinal() + 1 : 0);
+        writeComponentRef(out, link.getSource(), stored);
+        writeComponentRef(out, link.getTarget(), stored);
+        writeProfile(out, link.getHeuristics());
+        writeProperties(out, link.getProperties());
+    }
+
+    public static Link readLink(BinaryReader in, Function<String, Component> resolve) {
+        Link link = new Link();
+        link.setId(in.readString());
+        int type = in.readByte();
+        if (type > LINK_TYPES.length) {
+            throw new IllegalArgumentException("Unknown link type " + (type - 1));
+        }
+        link.setType(type > 0 ? LINK_TYPES[type - 1] : null);
+        link.setSource(readComponentRef(in, resolve));
+        link.setTarget(readComponentRef(in, resolve));
+        link.setHeuristics(readProfile(in));
+        link.setProperties(readProperties(in));
+        return link;
+    }
+
+    public static void writeArchitecture(BinaryWriter out, Architecture architecture,
+                                         Function<String, Component> storedComponents,
+                                         Function<String, Link> storedLinks) {
+        out.writeString(architecture.getId());
+        out.writeString(architecture.getName());
+        // Components and links of one version, even if the architecture is being edited
+        Architecture version = architecture.snapshot();
+        List<Component> components = version.getComponents();
+        out.writeVarInt(components.size());
+        for (Component component : components) {
+            writeComponentRef(out, component, storedComponents);
+        }
+        List<Link> links = version.getLinks();
+        out.writeVarInt(links.size());
+        for (Link link : links) {
+            if (link.getId() != null && storedLinks.apply(link.getId()) == link) {
+                out.writeByte(REFERENCE);
+                out.writeString(link.getId());
+            } else {
+                out.writeByte(EMBEDDED);
+                writeLink(out, link, storedComponents);
+            }
+        }
+    }
+
+    public static Architecture readArchitecture(BinaryReader in,
+                                                Function<String, Component> components,
+                                                Function<String, Link> links) {
+        Architecture architecture = new Architecture(in.readString(), in.readString());
+        int componentCount = in.readVarInt();
+        List<Component> componentList = new ArrayList<>(componentCount);
+        for (int i = 0; i < componentCount; i++) {
+            componentList.add(readComponentRef(in, components));
+        }
+        int linkCount = in.readVarInt();
+        List<Link> linkList = new ArrayList<>(linkCount);
+        for (int i = 0; i < linkCount; i++) {
+            if (in.readByte() == REFERENCE) {
+                String id = in.readString();
+                Link link = links.apply(id);
+                if (link == null) {
+                    throw new IllegalArgumentException("Unresolved link reference " + id);
+                }
+                linkList.add(link);
+            } else {
+                linkList.add(readLink(in, components));
+            }
+        }
+        architecture.setComponents(componentList);
+        architecture.setLinks(linkList);
+        return architecture;
+    }
+
+    /**
+     * Instantiate a component of a type; unknown or missing subtypes take the type's default
+     */
+    public static Component newComponent(ComponentType type, String id, String name, String subtype) {
+        if (type == null) {
+            throw new IllegalArgumentException("Component " + id + " has no type");
+        }
+        switch (type) {
+            case DATABASE:
+                return new DatabaseComponent(id, name,
+                        subtype(DatabaseComponent.DatabaseType.class, subtype, DatabaseComponent.DatabaseType.SQL));
+            case CACHE:
+                return new CacheComponent(id, name,
+                        subtype(CacheComponent.CacheType.class, subtype, CacheComponent.CacheType.IN_MEMORY));
+            case API_SERVICE:
+                return new APIServiceComponent(id, name,
+                        subtype(APIServiceComponent.APIType.class, subtype, APIServiceComponent.APIType.REST));
+            case QUEUE:
+                return new QueueComponent(id, name,
+                        subtype(QueueComponent.QueueType.class, subtype, QueueComponent.QueueType.MESSAGE_QUEUE));
+            case STORAGE:
+                return new StorageComponent(id, name,
+                        subtype(StorageComponent.StorageType.class, subtype, StorageComponent.StorageType.OBJECT_STORAGE));
+            case LOAD_BALANCER:
+                return new LoadBalancerComponent(id, name, subtype(LoadBalancerComponent.LoadBalancerType.class,
+                        subtype, LoadBalancerComponent.LoadBalancerType.ROUND_ROBIN));
+            case CLIENT:
+                return new ClientComponent(id, name);
+            case STREAM_PROCESSOR:
+                return new StreamProcessorComponent(id, name);
+            case BATCH_PROCESSOR:
+                return new BatchProcessorComponent(id, name);
+            case EXTERNAL_SERVICE:
+                return new ExternalServiceComponent(id, name);
+            default:
+                throw new IllegalArgumentException("Unsupported component type: " + type);
+        }
+    }
+
+    public static void writeProfile(BinaryWriter out, HeuristicProfile profile) {
+        if (profile == null) {
+            out.writeVarInt(0);
+            return;
+        }
+        int mask = 0;
+        for (int i = 0; i < HeuristicProfile.PARAMETER_COUNT; i++) {
+            if (!Double.isNaN(profile.scoreAt(i))) {
+                mask |= 1 << i;
+            }
+        }
+        out.writeVarInt(mask);
+        for (int i = 0; i < HeuristicProfile.PARAMETER_COUNT; i++) {
+            if ((mask & (1 << i)) != 0) {
+                out.writeDouble(profile.scoreAt(i));
+            }
+        }
+    }
+
+    public static HeuristicProfile readProfile(BinaryReader in) {
+        int mask = in.readVarInt();
+        HeuristicProfile profile = new HeuristicProfile();
+        Parameter[] parameters = Parameter.values();
+        for (int i = 0; mask >>> i != 0; i++) {
+            if ((mask & (1 << i)) != 0) {
+                double score = in.readDouble();
+                // Parameters this build does not know are skipped
+                if (i < parameters.length) {
+                    profile.setScore(parameters[i], score);
+                }
+            }
+        }
+        return profile;
+    }
+
+    public static void writeProperties(BinaryWriter out, Map<String, Object> properties) {
+        if (properties == null) {
+            out.writeVarInt(0);
+            return;
+        }
+        out.writeVarInt(properties.size() + 1);
+        for (Map.Entry<String, Object> entry : properties.entrySet()) {
+            out.writeString(entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    public static Map<String, Object> readProperties(BinaryReader in) {
+        int size = in.readVarInt();
+        if (size == 0) {
+            return null;
+        }
+        Map<String, Object> properties = new HashMap<>(Math.max(4, (size - 1) * 4 / 3 + 1));
+        for (int i = 1; i < size; i++) {
+            properties.put(in.readString(), readValue(in));
+        }
+        return properties;
+    }
+
+    /**
+     * Write a JSON-like property value; anything else is stored as its string form
+     */
+    private static void writeValue(BinaryWriter out, Object value) {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING).writeString((String) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Integer || value instanceof Long
+                || value instanceof Short || value instanceof Byte) {
+            out.writeByte(LONG).writeSignedVarLong(((Number) value).longValue());
+        } else if (value instanceof Number) {
+            out.writeByte(DOUBLE).writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof Collection) {
+            Collection<?> list = (Collection<?>) value;
+            out.writeByte(LIST).writeVarInt(list.size());
+            for (Object element : list) {
+                writeValue(out, element);
+            }
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            out.writeByte(MAP).writeVarInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                out.writeString(String.valueOf(entry.getKey()));
+                writeValue(out, entry.getValue());
+            }
+        } else {
+            out.writeByte(STRING).writeString(value.toString());
+        }
+    }
+
+    private static Object readValue(BinaryReader in) {
+        int tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return in.readString();
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case LONG: {
+                long value = in.readSignedVarLong();
+                // Jackson reads small integers as Integer; keep the same types after a restart
+                return value == (int) value ? (Object) (int) value : (Object) value;
+            }
+            case DOUBLE:
+                return in.readDouble();
+            case LIST: {
+                int size = in.readVarInt();
+                List<Object> list = new ArrayList<>(Math.min(size, in.remaining()));
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            }
+            case MAP: {
+                int size = in.readVarInt();
+                Map<String, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    map.put(in.readString(), readValue(in));
+                }
+                return map;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown property value tag " + tag);
+        }
+    }
+
+    private static void writeComponentRef(BinaryWriter out, Component component,
+                                          Function<String, Component> stored) {
+        if (component == null) {
+            out.writeByte(EMBEDDED).writeBoolean(false);
+        } else if (component.getId() != null && stored.apply(component.getId()) == component) {
+            out.writeByte(REFERENCE);
+            out.writeString(component.getId());
+        } else {
+            out.writeByte(EMBEDDED).writeBoolean(true);
+            writeComponent(out, component);
+        }
+    }
+
+    private static Component readComponentRef(BinaryReader in, Function<String, Component> resolve) {
+        if (in.readByte() == REFERENCE) {
+            String id = in.readString();
+            Component component = resolve.apply(id);
+            if (component == null) {
+                throw new IllegalArgumentException("Unresolved component reference " + id);
+            }
+            return component;
+        }
+        return in.readBoolean() ? readComponent(in) : null;
+    }
+
+    private static ComponentType componentType(int ordinal) {
+        if (ordinal >= COMPONENT_TYPES.length) {
+            throw new IllegalArgumentException("Unknown component type " + ordinal);
+        }
+        return COMPONENT_TYPES[ordinal];
+    }
+
+    private static <E extends Enum<E>> E subtype(Class<E> type, String name, E defaultValue) {
+        if (name != null) {
+            try {
+                return Enum.valueOf(type, name);
+            } catch (IllegalArgumentException e) {
+                // Use default
+            }
+        }
+        return defaultValue;
+    }
+}
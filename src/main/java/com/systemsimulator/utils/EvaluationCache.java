@@ -0,0 +1,200 @@
+package com.systemsimulator.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache for evaluation results keyed by a structural hash of what was evaluated.
+ * Entries are evicted least-recently-used once the cache is full and expire after a fixed age.
+ */
+@Component
+public class EvaluationCache {
+
+    @Value("${simulator.evaluation-cache.max-size:1024}")
+    private int maxSize = 1024;
+
+    @Value("${simulator.evaluation-cache.ttl-seconds:600}")
+    private long ttlSeconds = 600;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            if (size() > maxSize) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /**
+     * Get a cached value, or null on a miss or if the entry has expired
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V get(Key key, Class<V> type) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && System.nanoTime() - entry.createdAt > ttlSeconds * 1_000_000_000L) {
+                entries.remove(key);
+                evictions.incrementAndGet();
+                entry = null;
+            }
+            if (entry == null || !type.isInstance(entry.value)) {
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return (V) entry.value;
+        }
+    }
+
+    public void put(Key key, Object value) {
+        synchronized (entries) {
+            entries.put(key, new Entry(value, System.nanoTime()));
+        }
+    }
+
+    /**
+     * Drop every cached result (e.g. after heuristics or rules changed globally)
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            evictions.addAndGet(entries.size());
+            entries.clear();
+        }
+    }
+
+    public CacheStats getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new CacheStats(hits.get(), misses.get(), evictions.get(), size, maxSize);
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public void setTtlSeconds(long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final long createdAt;
+
+        private Entry(Object value, long createdAt) {
+            this.value = value;
+            this.createdAt = createdAt;
+        }
+    }
+
+    /**
+     * 128-bit structural hash built with {@link KeyBuilder}
+     */
+    public static final class Key {
+        private final long high;
+        private final long low;
+
+        public Key(long high, long low) {
+            this.high = high;
+            this.low = low;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return high == other.high && low == other.low;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(high ^ low);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%016x%016x", high, low);
+        }
+    }
+
+    /**
+     * Feeds values into two independent 64-bit hashes
+     */
+    public static final class KeyBuilder {
+        private long h1 = 0xcbf29ce484222325L;
+        private long h2 = 0x9e3779b97f4a7c15L;
+
+        public KeyBuilder add(long value) {
+            h1 = (h1 ^ value) * 0x100000001b3L;
+            h2 = Long.rotateLeft(h2 ^ mix(value), 27) * 0x9e3779b97f4a7c15L + 0x632be59bd9b4e019L;
+            return this;
+        }
+
+        public KeyBuilder add(double value) {
+            return add(Double.doubleToLongBits(value));
+        }
+
+        public KeyBuilder add(String value) {
+            if (value == null) {
+                return add(-1L);
+            }
+            add(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                add(value.charAt(i));
+            }
+            return this;
+        }
+
+        public KeyBuilder add(Key key) {
+            return add(key.high).add(key.low);
+        }
+
+        public Key build() {
+            return new Key(mix(h1), mix(h2));
+        }
+
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+            z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+            return z ^ (z >>> 31);
+        }
+    }
+
+    public static class CacheStats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final int size;
+        private final int maxSize;
+
+        public CacheStats(long hits, long misses, long evictions, int size, int maxSize) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+            this.maxSize = maxSize;
+        }
+
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getEvictions() { return evictions; }
+        public int getSize() { return size; }
+        public int getMaxSize() { return maxSize; }
+        public double getHitRate() {
+            long total = hits + misses;
+            return total > 0 ? (double) hits / total : 0.0;
+        }
+    }
+}
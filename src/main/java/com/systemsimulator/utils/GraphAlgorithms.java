@@ -0,0 +1,82 @@
+package com.systemsimulator.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Graph routines over compact adjacency arrays (CSR form: the edges of node i are
+ * {@code edgeTarget[edgeStart[i]] .. edgeTarget[edgeStart[i + 1] - 1]}).
+ */
+public final class GraphAlgorithms {
+
+    private GraphAlgorithms() {}
+
+    /**
+     * Tarjan's strongly connected components, iterative so deep graphs cannot overflow the stack.
+     * SCCs are returned sinks first (reverse topological order of the condensation), and
+     * {@code componentOf[node]} is set to the index of the node's SCC in the returned list.
+     */
+    public static List<int[]> stronglyConnectedComponents(int nodeCount, int[] edgeStart, int[] edgeTarget,
+                                                          int[] componentOf) {
+        int[] index = new int[nodeCount];
+        int[] lowLink = new int[nodeCount];
+        boolean[] onStack = new boolean[nodeCount];
+        Arrays.fill(index, -1);
+        int[] stack = new int[nodeCount];
+        int stackSize = 0;
+        int[] callNode = new int[nodeCount];
+        int[] callEdge = new int[nodeCount];
+        int nextIndex = 0;
+        List<int[]> sccs = new ArrayList<>();
+
+        for (int root = 0; root < nodeCount; root++) {
+            if (index[root] >= 0) {
+                continue;
+            }
+            int depth = 0;
+            callNode[0] = root;
+            callEdge[0] = edgeStart[root];
+            index[root] = lowLink[root] = nextIndex++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+
+            while (depth >= 0) {
+                int node = callNode[depth];
+                if (callEdge[depth] < edgeStart[node + 1]) {
+                    int next = edgeTarget[callEdge[depth]++];
+                    if (index[next] < 0) {
+                        index[next] = lowLink[next] = nextIndex++;
+                        stack[stackSize++] = next;
+                        onStack[next] = true;
+                        depth++;
+                        callNode[depth] = next;
+                        callEdge[depth] = edgeStart[next];
+                    } else if (onStack[next]) {
+                        lowLink[node] = Math.min(lowLink[node], index[next]);
+                    }
+                    continue;
+                }
+                if (lowLink[node] == index[node]) {
+                    int start = stackSize;
+                    do {
+                        start--;
+                    } while (stack[start] != node);
+                    int[] members = Arrays.copyOfRange(stack, start, stackSize);
+                    for (int member : members) {
+                        onStack[member] = false;
+                        componentOf[member] = sccs.size();
+                    }
+                    stackSize = start;
+                    sccs.add(members);
+                }
+                depth--;
+                if (depth >= 0) {
+                    int parent = callNode[depth];
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+                }
+            }
+        }
+        return sccs;
+    }
+}
@@ -3,13 +3,29 @@ package com.systemsimulator.utils;
 import com.systemsimulator.model.*;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
 
 @Component
 public class HeuristicAggregator {
 
+    private static final Parameter[] PARAMETERS = Parameter.values();
+    private static final int PARAMETER_COUNT = PARAMETERS.length;
+    private static final double[] UNIT_WEIGHTS = ParameterWeights.toVector(null);
+    // Critical-path penalty at which the LATENCY score halves
+    private static final double LATENCY_PENALTY_SCALE = 20.0;
+
+    // Critical path per architecture version, keyed by the version's totals: each published
+    // state has its own Totals instance, so an entry is dropped when its state is collected
+    private final Map<IncrementalEvaluator.Totals, CriticalPathAnalyzer.CriticalPath> criticalPaths =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
     /**
      * Aggregates heuristics parameter-wise with specific aggregation logic for each parameter.
      * Different parameters have different aggregation strategies:
@@ -20,6 +36,234 @@ public class HeuristicAggregator {
     public Map<Parameter, Double> aggregateByParameter(
             List<com.systemsimulator.model.Component> components,
             List<Link> links) {
+        return aggregateSinglePass(components, links, UNIT_WEIGHTS).getParameterScoreMap();
+    }
+
+    /**
+     * Single-pass aggregation kernel. Computes every per-parameter sum, minimum and the cost
+     * penalty in one traversal of the components, the latency critical path in one traversal
+     * of the graph, and derives the architecture-wise scores, plain averages and weighted
+     * overall score from them.
+     */
+    public AggregationResult aggregateSinglePass(List<com.systemsimulator.model.Component> components,
+                                                 List<Link> links,
+                                                 double[] weights) {
+        int componentCount = components != null ? components.size() : 0;
+        int linkCount = links != null ? links.size() : 0;
+
+        if (componentCount == 0) {
+            return new AggregationResult(0, linkCount, null, null, 0.0,
+                    calculateConnectivityScore(0, linkCount), calculateComplexityPenalty(0, linkCount), 0.0,
+                    CriticalPathAnalyzer.CriticalPath.EMPTY);
+        }
+
+        double[] sums = new double[PARAMETER_COUNT];
+        double[] minimums = new double[PARAMETER_COUNT];
+        Arrays.fill(minimums, 10.0);
+        double costPenalty = 0.0;
+
+        for (com.systemsimulator.model.Component component : components) {
+            HeuristicProfile heuristics = component.getHeuristics();
+            for (int i = 0; i < PARAMETER_COUNT; i++) {
+                double score = heuristics.scoreAt(i);
+                if (Double.isNaN(score)) {
+                    score = 0.0;
+                }
+                sums[i] += score;
+                if (score < minimums[i]) {
+                    minimums[i] = score;
+                }
+            }
+            costPenalty += 10.0 - heuristics.getScore(Parameter.COST);
+        }
+
+        CriticalPathAnalyzer.CriticalPath criticalPath = CriticalPathAnalyzer.analyze(components, links);
+        return buildResult(componentCount, linkCount, sums, minimums, criticalPath, costPenalty, weights);
+    }
+
+    /**
+     * Score an architecture from its incrementally maintained totals plus its critical path.
+     * O(number of parameters) once the version's critical path is known; finding it is O(V + E)
+     * and done once per version.
+     */
+    public AggregationResult aggregateIncremental(Architecture architecture, double[] weights) {
+        // One consistent version, even if the architecture is being edited concurrently
+        Architecture snapshot = architecture.snapshot();
+        IncrementalEvaluator.Totals totals = snapshot.getTotals();
+        CriticalPathAnalyzer.CriticalPath criticalPath = criticalPaths.get(totals);
+        if (criticalPath == null) {
+            // Concurrent callers may both compute it; they get equal paths
+            criticalPath = CriticalPathAnalyzer.analyze(snapshot.getComponents(), snapshot.getLinks());
+            criticalPaths.put(totals, criticalPath);
+        }
+        return aggregateIncremental(totals, criticalPath, weights);
+    }
+
+    /**
+     * Score from an architecture's running evaluator (writer side); the critical path is
+     * computed from the components and links the evaluator holds
+     */
+    public AggregationResult aggregateIncremental(IncrementalEvaluator evaluator, double[] weights) {
+        return aggregateIncremental(evaluator.totals(), CriticalPathAnalyzer.analyze(
+                new ArrayList<>(evaluator.getComponents()), new ArrayList<>(evaluator.getLinks())), weights);
+    }
+
+    /**
+     * Score an architecture from its incrementally maintained totals with request-scoped weights
+     */
+    public AggregationResult aggregateIncremental(Architecture architecture, WeightVector weights) {
+        return aggregateIncremental(architecture, weights.values());
+    }
+
+    /**
+     * Score an architecture from its incrementally maintained totals and an already computed critical path
+     */
+    public AggregationResult aggregateIncremental(IncrementalEvaluator evaluator,
+                                                  CriticalPathAnalyzer.CriticalPath criticalPath,
+                                                  double[] weights) {
+        return aggregateIncremental(evaluator.totals(), criticalPath, weights);
+    }
+
+    /**
+     * Score an architecture version from a snapshot of its totals and its critical path
+     */
+    public AggregationResult aggregateIncremental(IncrementalEvaluator.Totals totals,
+                                                  CriticalPathAnalyzer.CriticalPath criticalPath,
+                                                  double[] weights) {
+        int componentCount = totals.getComponentCount();
+        int linkCount = totals.getLinkCount();
+
+        if (componentCount == 0) {
+            return new AggregationResult(0, linkCount, null, null, 0.0,
+                    calculateConnectivityScore(0, linkCount), calculateComplexityPenalty(0, linkCount), 0.0,
+                    CriticalPathAnalyzer.CriticalPath.EMPTY);
+        }
+
+        double[] sums = new double[PARAMETER_COUNT];
+        double[] minimums = new double[PARAMETER_COUNT];
+        for (int i = 0; i < PARAMETER_COUNT; i++) {
+            sums[i] = totals.getSum(i);
+            minimums[i] = totals.getMinimum(i);
+        }
+
+        return buildResult(componentCount, linkCount, sums, minimums, criticalPath,
+                totals.getCostPenalty(), weights);
+    }
+
+    /**
+     * Score an architecture straight from its mapped file, without materializing components
+     * or links. Same numbers as {@link #aggregateSinglePass} on the materialized architecture.
+     */
+    public AggregationResult aggregateMapped(MappedArchitecture architecture, double[] weights) {
+        int componentCount = architecture.getComponentCount();
+        int linkCount = architecture.getLinkCount();
+
+        if (componentCount == 0) {
+            return new AggregationResult(0, linkCount, null, null, 0.0,
+                    calculateConnectivityScore(0, linkCount), calculateComplexityPenalty(0, linkCount), 0.0,
+                    CriticalPathAnalyzer.CriticalPath.EMPTY);
+        }
+
+        double[] sums = new double[PARAMETER_COUNT];
+        double[] minimums = new double[PARAMETER_COUNT];
+        Arrays.fill(minimums, 10.0);
+        double costPenalty = 0.0;
+        int cost = Parameter.COST.ordinal();
+
+        for (int c = 0; c < componentCount; c++) {
+            for (int i = 0; i < PARAMETER_COUNT; i++) {
+                double score = architecture.componentScore(c, i);
+                if (Double.isNaN(score)) {
+                    score = 0.0;
+                }
+                sums[i] += score;
+                if (score < minimums[i]) {
+                    minimums[i] = score;
+                }
+                if (i == cost) {
+                    costPenalty += 10.0 - score;
+                }
+            }
+        }
+
+        return buildResult(componentCount, linkCount, sums, minimums, architecture.criticalPath(),
+                costPenalty, weights);
+    }
+
+    /**
+     * Score an architecture from its mapped file with request-scoped weights
+     */
+    public AggregationResult aggregateMapped(MappedArchitecture architecture, WeightVector weights) {
+        return aggregateMapped(architecture, weights.values());
+    }
+
+    /**
+     * Derive all scores from per-parameter sums/minimums, the critical path and the cost penalty total
+     */
+    private AggregationResult buildResult(int componentCount, int linkCount,
+                                          double[] sums, double[] minimums,
+                                          CriticalPathAnalyzer.CriticalPath criticalPath,
+                                          double costPenalty, double[] weights) {
+        double[] parameterScores = new double[PARAMETER_COUNT];
+        double[] averageScores = new double[PARAMETER_COUNT];
+        for (int i = 0; i < PARAMETER_COUNT; i++) {
+            averageScores[i] = sums[i] / componentCount;
+            switch (PARAMETERS[i]) {
+                case LATENCY:
+                    parameterScores[i] = latencyScore(criticalPath);
+                    break;
+                case COST:
+                    parameterScores[i] = costScore(costPenalty, componentCount);
+                    break;
+                case AVAILABILITY:
+                case CONSISTENCY:
+                case SECURITY:
+                case DURABILITY:
+                    parameterScores[i] = minimums[i];
+                    break;
+                default:
+                    parameterScores[i] = averageScores[i];
+                    break;
+            }
+        }
+
+        double overallScore = calculateOverallScore(parameterScores, weights);
+        double connectivityScore = calculateConnectivityScore(componentCount, linkCount);
+        double complexityPenalty = calculateComplexityPenalty(componentCount, linkCount);
+
+        return new AggregationResult(componentCount, linkCount, parameterScores, averageScores,
+                overallScore, connectivityScore, complexityPenalty,
+                overallScore * connectivityScore * complexityPenalty, criticalPath);
+    }
+
+    /**
+     * LATENCY score from the penalty accumulated along the critical path: 10 for a penalty-free
+     * path, halving once the path penalty reaches LATENCY_PENALTY_SCALE.
+     */
+    double latencyScore(CriticalPathAnalyzer.CriticalPath criticalPath) {
+        double penalty = criticalPath.getLatencyPenalty();
+        double finalScore = 10.0 * LATENCY_PENALTY_SCALE / (LATENCY_PENALTY_SCALE + penalty);
+        return Math.min(10.0, Math.max(1.0, finalScore));
+    }
+
+    /**
+     * COST score from the summed component cost penalties
+     */
+    private double costScore(double totalCostPenalty, int componentCount) {
+        double avgCost = componentCount > 0 ? totalCostPenalty / componentCount : 0;
+        double scaleFactor = Math.max(0.5, 1.0 - (componentCount * 0.02));
+        double finalScore = Math.max(1.0, 10.0 - avgCost) * scaleFactor;
+
+        return Math.min(10.0, Math.max(1.0, finalScore));
+    }
+
+    /**
+     * Reference per-parameter implementation (one pass over the components per parameter).
+     * Kept to check and benchmark {@link #aggregateSinglePass} against.
+     */
+    Map<Parameter, Double> aggregateByParameterPerPass(
+            List<com.systemsimulator.model.Component> components,
+            List<Link> links) {
 
         Map<Parameter, Double> aggregated = new HashMap<>();
 
@@ -66,48 +310,11 @@ public class HeuristicAggregator {
     }
 
     /**
-     * Aggregate LATENCY - Additive with path consideration
-     * In a request path, latencies add up. We estimate worst-case latency.
+     * Aggregate LATENCY - Additive along the slowest request path
      */
     private double aggregateLatency(List<com.systemsimulator.model.Component> components,
                                     List<Link> links) {
-        if (components.isEmpty()) {
-            return 10.0; // Perfect score
-        }
-
-        // Calculate average component latency (inverted score: lower is better)
-        double totalLatencyScore = 0.0;
-        int count = 0;
-
-        for (com.systemsimulator.model.Component component : components) {
-            Double score = component.getHeuristics().getScore(Parameter.LATENCY);
-            if (score != null) {
-                // Convert score to latency contribution (10 - score gives penalty)
-                totalLatencyScore += (10.0 - score);
-                count++;
-            }
-        }
-
-        // Add link latency penalties
-        if (links != null && !links.isEmpty()) {
-            for (Link link : links) {
-                // Each link adds latency overhead
-                totalLatencyScore += (10.0 - link.getHeuristics().getScore(Parameter.LATENCY));
-            }
-            count += links.size();
-        }
-
-        // Convert back to score (higher is better)
-        double avgLatencyPenalty = count > 0 ? totalLatencyScore / count : 0;
-        double finalScore = Math.max(1.0, 10.0 - avgLatencyPenalty);
-
-        // Apply path depth penalty (more hops = more latency)
-        if (links != null && components.size() > 1) {
-            double pathFactor = Math.max(0.7, 1.0 - (links.size() / (double) components.size() * 0.1));
-            finalScore *= pathFactor;
-        }
-
-        return Math.min(10.0, Math.max(1.0, finalScore));
+        return latencyScore(CriticalPathAnalyzer.analyze(components, links));
     }
 
     /**
@@ -211,29 +418,63 @@ public class HeuristicAggregator {
         return totalWeight > 0 ? weightedSum / totalWeight : 0.0;
     }
 
+    /**
+     * Calculate overall weighted score from parameter scores indexed by ordinal.
+     * NaN entries are treated as absent. Does not allocate.
+     */
+    public double calculateOverallScore(double[] parameterScores, double[] weights) {
+        double weightedSum = 0.0;
+        double totalWeight = 0.0;
+
+        for (int i = 0; i < parameterScores.length; i++) {
+            double score = parameterScores[i];
+            if (Double.isNaN(score)) {
+                continue;
+            }
+            weightedSum += score * weights[i];
+            totalWeight += weights[i];
+        }
+
+        return totalWeight > 0 ? weightedSum / totalWeight : 0.0;
+    }
+
+    /**
+     * Calculate the weighted score of every component into {@code out} using a precomputed
+     * weight vector (see {@link ParameterWeights#getWeightVector()}). Does not allocate.
+     */
+    public void calculateWeightedScores(List<com.systemsimulator.model.Component> components,
+                                        double[] weights,
+                                        double[] out) {
+        int size = components.size();
+        if (out.length < size) {
+            throw new IllegalArgumentException("Output array too small: " + out.length + " < " + size);
+        }
+        for (int i = 0; i < size; i++) {
+            out[i] = components.get(i).getHeuristics().getWeightedScore(weights);
+        }
+    }
+
     /**
      * Main aggregation method with parameter-wise logic and weighted scoring
      */
     public double aggregate(List<com.systemsimulator.model.Component> components,
                           List<Link> links,
                           ParameterWeights weights) {
+        return aggregate(components, links, weights.getCurrent());
+    }
+
+    /**
+     * Main aggregation method with explicit, immutable weights (a profile or per-request weights)
+     */
+    public double aggregate(List<com.systemsimulator.model.Component> components,
+                          List<Link> links,
+                          WeightVector weights) {
         if (components == null || components.isEmpty()) {
             return 0.0;
         }
 
-        // Aggregate each parameter separately
-        Map<Parameter, Double> parameterScores = aggregateByParameter(components, links);
-
-        // Calculate weighted overall score
-        double overallScore = calculateOverallScore(parameterScores, weights.getDefaultWeights());
-
-        // Apply architectural penalties/bonuses
-        double connectivityFactor = calculateConnectivityScore(components.size(),
-                                                               links != null ? links.size() : 0);
-        double complexityPenalty = calculateComplexityPenalty(components.size(),
-                                                              links != null ? links.size() : 0);
-
-        return overallScore * connectivityFactor * complexityPenalty;
+        // Weighted parameter scores with connectivity and complexity factors applied
+        return aggregateSinglePass(components, links, weights.values()).getArchitectureScore();
     }
 
     /**
@@ -242,29 +483,37 @@ public class HeuristicAggregator {
     public Map<String, Object> getDetailedScores(List<com.systemsimulator.model.Component> components,
                                                   List<Link> links,
                                                   ParameterWeights weights) {
+        return getDetailedScores(components, links, weights.getCurrent());
+    }
+
+    /**
+     * Get detailed parameter-wise scores for reporting with explicit weights
+     */
+    public Map<String, Object> getDetailedScores(List<com.systemsimulator.model.Component> components,
+                                                  List<Link> links,
+                                                  WeightVector weights) {
         Map<String, Object> result = new HashMap<>();
+        AggregationResult aggregation = aggregateSinglePass(components, links, weights.values());
 
         // Parameter-wise scores
-        Map<Parameter, Double> parameterScores = aggregateByParameter(components, links);
-        result.put("parameterScores", parameterScores);
+        result.put("parameterScores", aggregation.getParameterScoreMap());
 
         // Overall weighted score
-        double overallScore = calculateOverallScore(parameterScores, weights.getDefaultWeights());
-        result.put("overallScore", overallScore);
+        result.put("overallScore", aggregation.getOverallScore());
 
         // Architecture metrics
-        result.put("componentCount", components.size());
-        result.put("linkCount", links != null ? links.size() : 0);
-        result.put("connectivityScore", calculateConnectivityScore(components.size(),
-                                                                    links != null ? links.size() : 0));
-        result.put("complexityPenalty", calculateComplexityPenalty(components.size(),
-                                                                    links != null ? links.size() : 0));
+        result.put("componentCount", aggregation.getComponentCount());
+        result.put("linkCount", aggregation.getLinkCount());
+        result.put("connectivityScore", aggregation.getConnectivityScore());
+        result.put("complexityPenalty", aggregation.getComplexityPenalty());
+        result.put("criticalPath", aggregation.getCriticalPath());
 
         // Bottleneck analysis
         if (components.size() > 0 && links != null && !links.isEmpty()) {
             Map<String, Double> bottlenecks = new HashMap<>();
+            ConnectionDegrees degrees = calculateConnectionDegrees(components, links);
             for (com.systemsimulator.model.Component component : components) {
-                double bottleneckScore = calculateBottleneckScore(component, links);
+                double bottleneckScore = calculateBottleneckScore(degrees.getTotal(component.getId()));
                 if (bottleneckScore < 1.0) {
                     bottlenecks.put(component.getName(), bottleneckScore);
                 }
@@ -327,8 +576,13 @@ public class HeuristicAggregator {
             }
         }
 
-        int totalConnections = incomingLinks + outgoingLinks;
+        return calculateBottleneckScore(incomingLinks + outgoingLinks);
+    }
 
+    /**
+     * Bottleneck score for a component with the given number of incoming + outgoing links
+     */
+    public double calculateBottleneckScore(int totalConnections) {
         // Components with more than 10 connections are likely bottlenecks
         if (totalConnections > 10) {
             return 0.5; // High bottleneck risk
@@ -339,6 +593,44 @@ public class HeuristicAggregator {
         }
     }
 
+    /**
+     * Count incoming and outgoing links for every component in a single pass over the links.
+     * Links whose endpoints are not among the given components are ignored.
+     */
+    public ConnectionDegrees calculateConnectionDegrees(List<com.systemsimulator.model.Component> components,
+                                                        List<Link> links) {
+        Map<String, Integer> indexById = new HashMap<>();
+        if (components != null) {
+            for (com.systemsimulator.model.Component component : components) {
+                if (component.getId() != null) {
+                    indexById.putIfAbsent(component.getId(), indexById.size());
+                }
+            }
+        }
+
+        int[] incoming = new int[indexById.size()];
+        int[] outgoing = new int[indexById.size()];
+
+        if (links != null) {
+            for (Link link : links) {
+                if (link.getSource() != null) {
+                    Integer index = indexById.get(link.getSource().getId());
+                    if (index != null) {
+                        outgoing[index]++;
+                    }
+                }
+                if (link.getTarget() != null) {
+                    Integer index = indexById.get(link.getTarget().getId());
+                    if (index != null) {
+                        incoming[index]++;
+                    }
+                }
+            }
+        }
+
+        return new ConnectionDegrees(indexById, incoming, outgoing);
+    }
+
     /**
      * Evaluate parameter-specific scores across architecture
      */
@@ -445,4 +737,112 @@ public class HeuristicAggregator {
 
         return totalWeight > 0 ? weightedSum / totalWeight : 0.0;
     }
+
+    /**
+     * Result of {@link #aggregateSinglePass}. Score arrays are indexed by parameter ordinal.
+     */
+    public static class AggregationResult {
+        private final int componentCount;
+        private final int linkCount;
+        private final double[] parameterScores;
+        private final double[] averageScores;
+        private final double overallScore;
+        private final double connectivityScore;
+        private final double complexityPenalty;
+        private final double architectureScore;
+        private final CriticalPathAnalyzer.CriticalPath criticalPath;
+
+        public AggregationResult(int componentCount, int linkCount,
+                                 double[] parameterScores, double[] averageScores,
+                                 double overallScore, double connectivityScore,
+                                 double complexityPenalty, double architectureScore,
+                                 CriticalPathAnalyzer.CriticalPath criticalPath) {
+            this.componentCount = componentCount;
+            this.linkCount = linkCount;
+            this.parameterScores = parameterScores;
+            this.averageScores = averageScores;
+            this.overallScore = overallScore;
+            this.connectivityScore = connectivityScore;
+            this.complexityPenalty = complexityPenalty;
+            this.architectureScore = architectureScore;
+            this.criticalPath = criticalPath;
+        }
+
+        public int getComponentCount() { return componentCount; }
+        public int getLinkCount() { return linkCount; }
+        public double getOverallScore() { return overallScore; }
+        public double getConnectivityScore() { return connectivityScore; }
+        public double getComplexityPenalty() { return complexityPenalty; }
+        public double getArchitectureScore() { return architectureScore; }
+        public CriticalPathAnalyzer.CriticalPath getCriticalPath() { return criticalPath; }
+        public boolean isEmpty() { return parameterScores == null; }
+
+        /**
+         * Architecture-wise score for a parameter (latency/cost penalties, minimum or average)
+         */
+        public double getParameterScore(Parameter param) {
+            return parameterScores != null ? parameterScores[param.ordinal()] : 0.0;
+        }
+
+        /**
+         * Plain average of a parameter across all components
+         */
+        public double getAverageScore(Parameter param) {
+            return averageScores != null ? averageScores[param.ordinal()] : 0.0;
+        }
+
+        /**
+         * Same values as {@link HeuristicAggregator#aggregateByParameter(List, List)}
+         */
+        public Map<Parameter, Double> getParameterScoreMap() {
+            return toMap(parameterScores);
+        }
+
+        /**
+         * Same values as {@link HeuristicAggregator#aggregateByParameter(List)}
+         */
+        public Map<Parameter, Double> getAverageScoreMap() {
+            return toMap(averageScores);
+        }
+
+        private static Map<Parameter, Double> toMap(double[] scores) {
+            Map<Parameter, Double> map = new EnumMap<>(Parameter.class);
+            if (scores != null) {
+                for (int i = 0; i < scores.length; i++) {
+                    map.put(PARAMETERS[i], scores[i]);
+                }
+            }
+            return map;
+        }
+    }
+
+    /**
+     * Per-component link counts for one architecture, see {@link #calculateConnectionDegrees}
+     */
+    public static class ConnectionDegrees {
+        private final Map<String, Integer> indexById;
+        private final int[] incoming;
+        private final int[] outgoing;
+
+        public ConnectionDegrees(Map<String, Integer> indexById, int[] incoming, int[] outgoing) {
+            this.indexById = indexById;
+            this.incoming = incoming;
+            this.outgoing = outgoing;
+        }
+
+        public int getIncoming(String componentId) {
+            Integer index = indexById.get(componentId);
+            return index != null ? incoming[index] : 0;
+        }
+
+        public int getOutgoing(String componentId) {
+            Integer index = indexById.get(componentId);
+            return index != null ? outgoing[index] : 0;
+        }
+
+        public int getTotal(String componentId) {
+            Integer index = indexById.get(componentId);
+            return index != null ? incoming[index] + outgoing[index] : 0;
+        }
+    }
 }
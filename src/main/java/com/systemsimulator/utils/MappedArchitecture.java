@@ -0,0 +1,488 @@
+package com.systemsimulator.utils;
+
+import com.systemsimulator.model.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Read-optimized file format for an architecture, opened through a {@link MappedByteBuffer} so
+ * it can be scored straight from the page cache without building Component/Link objects.
+ * Only {@link #toArchitecture()} materializes objects, e.g. before an edit.
+ *
+ * Layout (little-endian, offsets in bytes from the start of the file):
+ * <pre>
+ * header       64 bytes: magic, version, counts, section offsets, architecture id/name
+ * strings      int[stringCount + 1] offsets, then UTF-8 bytes; every id and name once
+ * components   fixed-width records: id, name, subtype, properties offset,
+ *              type + 1 (0 for none; version 1 files store the type itself), scores
+ * links        fixed-width records: id, source index, target index, properties offset,
+ *              type + 1 (0 for none), scores
+ * adjacency    CSR by source component: int[componentCount + 1] starts, int[] link indexes
+ * properties   EntityCodec-encoded property maps
+ * </pre>
+ * Scores are one double per {@link Parameter} ordinal, NaN when unset. Components referenced
+ * only by links follow the architecture's own components and are not part of its score.
+ */
+public final class MappedArchitecture {
+
+    private static final int MAGIC = 0x43524153; // "SARC"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 64;
+    private static final int RECORD_HEADER_BYTES = 24;
+    private static final int NONE = -1;
+
+    private static final ComponentType[] COMPONENT_TYPES = ComponentType.values();
+    private static final LinkType[] LINK_TYPES = LinkType.values();
+    private static final Parameter[] PARAMETERS = Parameter.values();
+
+    private final ByteBuffer buffer;
+    private final int version;
+    private final int componentCount;
+    private final int ownComponentCount;
+    private final int linkCount;
+    private final int stringCount;
+    private final int parameterCount;
+    private final int recordBytes;
+    private final int stringOffset;
+    private final int stringDataOffset;
+    private final int componentOffset;
+    private final int linkOffset;
+    private final int adjacencyOffset;
+    private final int propertiesOffset;
+    private final int idString;
+    private final int nameString;
+
+    private MappedArchitecture(ByteBuffer buffer) {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not an architecture file");
+        }
+        version = buffer.getInt(4);
+        if (version > VERSION) {
+            throw new IllegalArgumentException("Unsupported architecture file version " + version);
+        }
+        componentCount = buffer.getInt(8);
+        ownComponentCount = buffer.getInt(12);
+        linkCount = buffer.getInt(16);
+        stringCount = buffer.getInt(20);
+        parameterCount = buffer.getInt(24);
+        stringOffset = buffer.getInt(28);
+        componentOffset = buffer.getInt(32);
+        linkOffset = buffer.getInt(36);
+        adjacencyOffset = buffer.getInt(40);
+        propertiesOffset = buffer.getInt(44);
+        idString = buffer.getInt(48);
+        nameString = buffer.getInt(52);
+        recordBytes = RECORD_HEADER_BYTES + 8 * parameterCount;
+        stringDataOffset = stringOffset + 4 * (stringCount + 1);
+    }
+
+    /**
+     * Map an architecture file read-only. The mapping stays valid after the file is replaced.
+     */
+    public static MappedArchitecture open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new MappedArchitecture(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Read an architecture from bytes in this format (e.g. not backed by a file)
+     */
+    public static MappedArchitecture wrap(ByteBuffer buffer) {
+        return new MappedArchitecture(buffer.duplicate());
+    }
+
+    /**
+     * Write an architecture to a file; written to a temporary file first and moved into place
+     */
+    public static void write(Architecture architecture, Path file) throws IOException {
+        byte[] bytes = encode(architecture);
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer data = ByteBuffer.wrap(bytes);
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static byte[] encode(Architecture current) {
+        Architecture architecture = current.snapshot();
+        // Own components first; endpoints that are not in the architecture are appended
+        List<Component> components = new ArrayList<>(architecture.getComponents());
+        int ownCount = components.size();
+        Map<String, Integer> indexById = new HashMap<>(ownCount * 2);
+        for (int i = 0; i < ownCount; i++) {
+            indexById.putIfAbsent(components.get(i).getId(), i);
+        }
+        List<Link> links = architecture.getLinks();
+        int[] sources = new int[links.size()];
+        int[] targets = new int[links.size()];
+        for (int l = 0; l < links.size(); l++) {
+            sources[l] = endpointIndex(links.get(l).getSource(), components, indexById);
+            targets[l] = endpointIndex(links.get(l).getTarget(), components, indexById);
+        }
+
+        StringTable strings = new StringTable();
+        int architectureId = strings.add(architecture.getId());
+        int architectureName = strings.add(architecture.getName());
+        BinaryWriter properties = new BinaryWriter();
+        int recordBytes = RECORD_HEADER_BYTES + 8 * PARAMETERS.length;
+
+        BinaryWriter componentRecords = new BinaryWriter(components.size() * recordBytes);
+        for (Component component : components) {
+            Enum<?> subtype = CompiledHeuristics.subtypeOf(component);
+            componentRecords.writeInt(strings.add(component.getId()));
+            componentRecords.writeInt(strings.add(component.getName()));
+            componentRecords.writeInt(subtype != null ? strings.add(subtype.name()) : NONE);
+            componentRecords.writeInt(writeProperties(properties, component.getProperties()));
+            componentRecords.writeLong(component.getType() != null ? component.getType().ordinal() + 1 : 0);
+            writeScores(componentRecords, component.getHeuristics());
+        }
+
+        BinaryWriter linkRecords = new BinaryWriter(links.size() * recordBytes);
+        int[] outDegree = new int[components.size()];
+        for (int l = 0; l < links.size(); l++) {
+            Link link = links.get(l);
+            linkRecords.writeInt(strings.add(link.getId()));
+            linkRecords.writeInt(sources[l]);
+            linkRecords.writeInt(targets[l]);
+            linkRecords.writeInt(writeProperties(properties, link.getProperties()));
+            linkRecords.writeLong(link.getType() != null ? link.getType().ordinal() + 1 : 0);
+            writeScores(linkRecords, link.getHeuristics());
+            if (sources[l] != NONE) {
+                outDegree[sources[l]]++;
+            }
+        }
+
+        // Outgoing links per component in CSR form
+        BinaryWriter adjacency = new BinaryWriter(4 * (components.size() + 1 + links.size()));
+        int[] start = new int[components.size() + 1];
+        for (int i = 0; i < components.size(); i++) {
+            start[i + 1] = start[i] + outDegree[i];
+        }
+        int[] edges = new int[start[components.size()]];
+        int[] fill = Arrays.copyOf(start, components.size());
+        for (int l = 0; l < links.size(); l++) {
+            if (sources[l] != NONE) {
+                edges[fill[sources[l]]++] = l;
+            }
+        }
+        for (int value : start) {
+            adjacency.writeInt(value);
+        }
+        for (int value : edges) {
+            adjacency.writeInt(value);
+        }
+
+        BinaryWriter stringTable = strings.encode();
+        int stringOffset = HEADER_BYTES;
+        int componentOffset = align(stringOffset + stringTable.size());
+        int linkOffset = componentOffset + componentRecords.size();
+        int adjacencyOffset = linkOffset + linkRecords.size();
+        int propertiesOffset = adjacencyOffset + adjacency.size();
+
+        BinaryWriter out = new BinaryWriter(propertiesOffset + properties.size());
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(components.size());
+        out.writeInt(ownCount);
+        out.writeInt(links.size());
+        out.writeInt(strings.size());
+        out.writeInt(PARAMETERS.length);
+        out.writeInt(stringOffset);
+        out.writeInt(componentOffset);
+        out.writeInt(linkOffset);
+        out.writeInt(adjacencyOffset);
+        out.writeInt(propertiesOffset);
+        out.writeInt(architectureId);
+        out.writeInt(architectureName);
+        out.writeLong(0);
+        out.writeBytes(stringTable.buffer(), 0, stringTable.size());
+        while (out.size() < componentOffset) {
+            out.writeByte(0);
+        }
+        out.writeBytes(componentRecords.buffer(), 0, componentRecords.size());
+        out.writeBytes(linkRecords.buffer(), 0, linkRecords.size());
+        out.writeBytes(adjacency.buffer(), 0, adjacency.size());
+        out.writeBytes(properties.buffer(), 0, properties.size());
+        return out.toByteArray();
+    }
+
+    public String getId() {
+        return string(idString);
+    }
+
+    public String getName() {
+        return string(nameString);
+    }
+
+    /**
+     * Number of components that belong to the architecture (and are scored)
+     */
+    public int getComponentCount() {
+        return ownComponentCount;
+    }
+
+    public int getLinkCount() {
+        return linkCount;
+    }
+
+    public String componentId(int index) {
+        return string(buffer.getInt(componentRecord(index)));
+    }
+
+    public String componentName(int index) {
+        return string(buffer.getInt(componentRecord(index) + 4));
+    }
+
+    public ComponentType componentType(int index) {
+        int type = buffer.get(componentRecord(index) + 16);
+        if (version < 2) {
+            return COMPONENT_TYPES[type];
+        }
+        return type > 0 ? COMPONENT_TYPES[type - 1] : null;
+    }
+
+    /**
+     * Component score by parameter ordinal, NaN if unset
+     */
+    public double componentScore(int index, int parameter) {
+        return parameter < parameterCount
+                ? buffer.getDouble(componentRecord(index) + RECORD_HEADER_BYTES + 8 * parameter)
+                : Double.NaN;
+    }
+
+    public String linkId(int index) {
+        return string(buffer.getInt(linkRecord(index)));
+    }
+
+    /**
+     * Index of the link's source component, -1 if it has none
+     */
+    public int linkSource(int index) {
+        return buffer.getInt(linkRecord(index) + 4);
+    }
+
+    public int linkTarget(int index) {
+        return buffer.getInt(linkRecord(index) + 8);
+    }
+
+    public LinkType linkType(int index) {
+        int type = buffer.get(linkRecord(index) + 16);
+        return type > 0 ? LINK_TYPES[type - 1] : null;
+    }
+
+    public double linkScore(int index, int parameter) {
+        return parameter < parameterCount
+                ? buffer.getDouble(linkRecord(index) + RECORD_HEADER_BYTES + 8 * parameter)
+                : Double.NaN;
+    }
+
+    /**
+     * Critical request path, read from the adjacency block
+     */
+    public CriticalPathAnalyzer.CriticalPath criticalPath() {
+        int n = ownComponentCount;
+        int latency = Parameter.LATENCY.ordinal();
+        double[] nodePenalty = new double[n];
+        boolean[] client = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            nodePenalty[i] = 10.0 - orZero(componentScore(i, latency));
+            client[i] = componentType(i) == ComponentType.CLIENT;
+        }
+
+        // Keep request links between own components, in the order they are stored per source
+        int[] edgeStart = new int[n + 1];
+        int[] edgeTarget = new int[adjacencyStart(n)];
+        double[] edgePenalty = new double[edgeTarget.length];
+        int edgeCount = 0;
+        for (int i = 0; i < n; i++) {
+            edgeStart[i] = edgeCount;
+            for (int e = adjacencyStart(i); e < adjacencyStart(i + 1); e++) {
+                int link = buffer.getInt(adjacencyOffset + 4 * (componentCount + 1 + e));
+                LinkType type = linkType(link);
+                int target = linkTarget(link);
+                if (type == null || !CapacityProperties.REQUEST_LINKS.contains(type) || target < 0 || target >= n) {
+                    continue;
+                }
+                edgeTarget[edgeCount] = target;
+                edgePenalty[edgeCount] = 10.0 - orZero(linkScore(link, latency));
+                edgeCount++;
+            }
+        }
+        edgeStart[n] = edgeCount;
+        return CriticalPathAnalyzer.analyze(n, nodePenalty, client, edgeStart, edgeTarget, edgePenalty,
+                this::componentId, this::componentName);
+    }
+
+    /**
+     * Build Component and Link objects for the whole architecture
+     */
+    public Architecture toArchitecture() {
+        Component[] components = new Component[componentCount];
+        for (int i = 0; i < componentCount; i++) {
+            int record = componentRecord(i);
+            int subtype = buffer.getInt(record + 8);
+            Component component = EntityCodec.newComponent(componentType(i), componentId(i), componentName(i),
+                    subtype != NONE ? string(subtype) : null);
+            component.setHeuristics(profile(record));
+            component.setProperties(properties(buffer.getInt(record + 12)));
+            components[i] = component;
+        }
+
+        Architecture architecture = new Architecture(getId(), getName());
+        List<Component> own = new ArrayList<>(ownComponentCount);
+        for (int i = 0; i < ownComponentCount; i++) {
+            own.add(components[i]);
+        }
+        List<Link> links = new ArrayList<>(linkCount);
+        for (int l = 0; l < linkCount; l++) {
+            int record = linkRecord(l);
+            int source = linkSource(l);
+            int target = linkTarget(l);
+            Link link = new Link(linkId(l), source != NONE ? components[source] : null,
+                    target != NONE ? components[target] : null, linkType(l));
+            link.setHeuristics(profile(record));
+            link.setProperties(properties(buffer.getInt(record + 12)));
+            links.add(link);
+        }
+        architecture.setComponents(own);
+        architecture.setLinks(links);
+        return architecture;
+    }
+
+    private int componentRecord(int index) {
+        if (index < 0 || index >= componentCount) {
+            throw new IndexOutOfBoundsException("Component " + index);
+        }
+        return componentOffset + index * recordBytes;
+    }
+
+    private int linkRecord(int index) {
+        if (index < 0 || index >= linkCount) {
+            throw new IndexOutOfBoundsException("Link " + index);
+        }
+        return linkOffset + index * recordBytes;
+    }
+
+    private int adjacencyStart(int component) {
+        return buffer.getInt(adjacencyOffset + 4 * component);
+    }
+
+    private String string(int index) {
+        if (index == NONE) {
+            return null;
+        }
+        int start = buffer.getInt(stringOffset + 4 * index);
+        int end = buffer.getInt(stringOffset + 4 * (index + 1));
+        byte[] bytes = new byte[end - start];
+        buffer.get(stringDataOffset + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private HeuristicProfile profile(int record) {
+        HeuristicProfile profile = new HeuristicProfile();
+        for (int p = 0; p < Math.min(parameterCount, PARAMETERS.length); p++) {
+            double score = buffer.getDouble(record + RECORD_HEADER_BYTES + 8 * p);
+            if (!Double.isNaN(score)) {
+                profile.setScore(PARAMETERS[p], score);
+            }
+        }
+        return profile;
+    }
+
+    private Map<String, Object> properties(int offset) {
+        if (offset == NONE) {
+            return null;
+        }
+        return EntityCodec.readProperties(new BinaryReader(buffer.slice(propertiesOffset + offset,
+                buffer.capacity() - propertiesOffset - offset)));
+    }
+
+    private static int endpointIndex(Component endpoint, List<Component> components, Map<String, Integer> indexById) {
+        if (endpoint == null) {
+            return NONE;
+        }
+        Integer index = indexById.get(endpoint.getId());
+        if (index == null) {
+            index = components.size();
+            components.add(endpoint);
+            indexById.put(endpoint.getId(), index);
+        }
+        return index;
+    }
+
+    private static int writeProperties(BinaryWriter out, Map<String, Object> properties) {
+        if (properties == null) {
+            return NONE;
+        }
+        int offset = out.size();
+        EntityCodec.writeProperties(out, properties);
+        return offset;
+    }
+
+    private static void writeScores(BinaryWriter out, HeuristicProfile heuristics) {
+        for (int p = 0; p < PARAMETERS.length; p++) {
+            out.writeDouble(heuristics != null ? heuristics.scoreAt(p) : Double.NaN);
+        }
+    }
+
+    private static double orZero(double score) {
+        return Double.isNaN(score) ? 0.0 : score;
+    }
+
+    private static int align(int offset) {
+        return (offset + 7) & ~7;
+    }
+
+    /**
+     * Interns strings in first-seen order; index -1 stands for null
+     */
+    private static final class StringTable {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<byte[]> values = new ArrayList<>();
+
+        int add(String value) {
+            if (value == null) {
+                return NONE;
+            }
+            return indexes.computeIfAbsent(value, key -> {
+                values.add(key.getBytes(StandardCharsets.UTF_8));
+                return values.size() - 1;
+            });
+        }
+
+        int size() {
+            return values.size();
+        }
+
+        BinaryWriter encode() {
+            BinaryWriter out = new BinaryWriter();
+            out.writeInt(0);
+            int end = 0;
+            for (byte[] value : values) {
+                end += value.length;
+                out.writeInt(end);
+            }
+            for (byte[] value : values) {
+                out.writeBytes(value, 0, value.length);
+            }
+            return out;
+        }
+    }
+}
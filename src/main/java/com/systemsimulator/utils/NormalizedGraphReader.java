@@ -0,0 +1,398 @@
+package com.systemsimulator.utils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.systemsimulator.model.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Reads architectures in the format written by {@link NormalizedGraphWriter} token by token,
+ * without building a JSON tree. Links may also name their endpoints with nested
+ * {@code source}/{@code target} objects, as in the nested format; only their ids are used.
+ *
+ * Endpoint ids resolve against the components read so far in the same import (any
+ * architecture of a batch), then against already stored components. A component id that
+ * appears again in the same import refers to the first definition; so does a repeated link id. Components and links
+ * without heuristics get the configured defaults. Everything read is collected for one
+ * batch commit; nothing is stored here.
+ */
+public class NormalizedGraphReader {
+
+    private final Function<String, Component> storedComponents;
+    private final Function<Component, HeuristicProfile> componentDefaults;
+    private final Function<LinkType, HeuristicProfile> linkDefaults;
+
+    private final Map<String, Component> componentsById = new HashMap<>();
+    private final Map<String, Link> linksById = new HashMap<>();
+    private final List<Component> components = new ArrayList<>();
+    private final List<Link> links = new ArrayList<>();
+    private final List<Architecture> architectures = new ArrayList<>();
+
+    public NormalizedGraphReader(Function<String, Component> storedComponents,
+                                 Function<Component, HeuristicProfile> componentDefaults,
+                                 Function<LinkType, HeuristicProfile> linkDefaults) {
+        this.storedComponents = storedComponents;
+        this.componentDefaults = componentDefaults;
+        this.linkDefaults = linkDefaults;
+    }
+
+    /** Components read, in document order (including referenced components) */
+    public List<Component> getComponents() { return components; }
+
+    /** Links read, in document order */
+    public List<Link> getLinks() { return links; }
+
+    /** Architectures read, in document order */
+    public List<Architecture> getArchitectures() { return architectures; }
+
+    /**
+     * Read one architecture object
+     */
+    public Architecture readArchitecture(JsonParser parser) throws IOException {
+        if (parser.currentToken() == null) {
+            parser.nextToken();
+        }
+        expect(parser, JsonToken.START_OBJECT);
+        Architecture architecture = new Architecture();
+        List<Component> own = new ArrayList<>();
+        List<PendingLink> pending = new ArrayList<>();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "architectureId":
+                case "id":
+                    architecture.setId(parser.getValueAsString());
+                    break;
+                case "architectureName":
+                case "name":
+                    architecture.setName(parser.getValueAsString());
+                    break;
+                case "components":
+                    readArray(parser, () -> own.add(readComponent(parser)));
+                    break;
+                case "referencedComponents":
+                    readArray(parser, () -> readComponent(parser));
+                    break;
+                case "links":
+                    readArray(parser, () -> pending.add(readLink(parser)));
+                    break;
+                default:
+                    if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+                        parser.skipChildren();
+                    }
+            }
+        }
+
+        // Links are resolved once the whole object is read, so field order does not matter
+        List<Link> resolved = new ArrayList<>(pending.size());
+        for (PendingLink link : pending) {
+            if (link.sourceId != null) {
+                link.link.setSource(resolve(link.sourceId, link.link));
+                link.link.setTarget(resolve(link.targetId, link.link));
+            }
+            resolved.add(link.link);
+        }
+        if (architecture.getId() == null) {
+            architecture.setId(UUID.randomUUID().toString());
+        }
+        architecture.setComponents(own);
+        architecture.setLinks(resolved);
+        architectures.add(architecture);
+        return architecture;
+    }
+
+    /**
+     * Read a batch: a JSON array of architecture objects, or {@code {"architectures": [...]}}
+     */
+    public List<Architecture> readArchitectures(JsonParser parser) throws IOException {
+        if (parser.currentToken() == null) {
+            parser.nextToken();
+        }
+        if (parser.currentToken() == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("architectures".equals(field)) {
+                    readArray(parser, () -> readArchitecture(parser));
+                } else if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                }
+            }
+        } else {
+            readArray(parser, () -> readArchitecture(parser));
+        }
+        return architectures;
+    }
+
+    private Component readComponent(JsonParser parser) throws IOException {
+        expect(parser, JsonToken.START_OBJECT);
+        String id = null;
+        String name = null;
+        ComponentType type = null;
+        String subtype = null;
+        HeuristicProfile heuristics = null;
+        Map<String, Object> properties = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "id":
+                    id = parser.getValueAsString();
+                    break;
+                case "name":
+                    name = parser.getValueAsString();
+                    break;
+                case "type":
+                    type = enumValue(parser, ComponentType.class);
+                    break;
+                case "heuristics":
+                    heuristics = readHeuristics(parser);
+                    break;
+                case "properties":
+                    properties = readProperties(parser);
+                    break;
+                default:
+                    // Subtype fields are named after their enum: apiType, databaseType, lbType, ...
+                    if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+                        parser.skipChildren();
+                    } else if (value == JsonToken.VALUE_STRING && (field.endsWith("Type") || field.equals("subtype"))) {
+                        subtype = parser.getText();
+                    }
+            }
+        }
+        if (id == null || type == null) {
+            throw error(parser, "Component needs an id and a type");
+        }
+
+        // Architectures of a batch may share components; the first definition wins
+        Component existing = componentsById.get(id);
+        if (existing != null) {
+            return existing;
+        }
+        Component component = EntityCodec.newComponent(type, id, name, subtype);
+        if (properties != null) {
+            component.setProperties(properties);
+        }
+        component.setHeuristics(heuristics != null ? heuristics : componentDefaults.apply(component));
+        componentsById.put(id, component);
+        components.add(component);
+        return component;
+    }
+
+    private PendingLink readLink(JsonParser parser) throws IOException {
+        expect(parser, JsonToken.START_OBJECT);
+        Link link = new Link();
+        String sourceId = null;
+        String targetId = null;
+        HeuristicProfile heuristics = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "id":
+                    link.setId(parser.getValueAsString());
+                    break;
+                case "sourceId":
+                    sourceId = parser.getValueAsString();
+                    break;
+                case "targetId":
+                    targetId = parser.getValueAsString();
+                    break;
+                case "source":
+                    sourceId = value == JsonToken.START_OBJECT ? nestedId(parser) : parser.getValueAsString();
+                    break;
+                case "target":
+                    targetId = value == JsonToken.START_OBJECT ? nestedId(parser) : parser.getValueAsString();
+                    break;
+                case "type":
+                    link.setType(enumValue(parser, LinkType.class));
+                    break;
+                case "heuristics":
+                    heuristics = readHeuristics(parser);
+                    break;
+                case "properties":
+                    link.setProperties(readProperties(parser));
+                    break;
+                default:
+                    if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+                        parser.skipChildren();
+                    }
+            }
+        }
+        if (sourceId == null || targetId == null || link.getType() == null) {
+            throw error(parser, "Link " + link.getId() + " needs a source, a target and a type");
+        }
+        if (link.getId() == null) {
+            link.setId(UUID.randomUUID().toString());
+        }
+        Link existing = linksById.get(link.getId());
+        if (existing != null) {
+            // Shared by several architectures of a batch: the first definition wins
+            return new PendingLink(existing, null, null);
+        }
+        link.setHeuristics(heuristics != null ? heuristics : linkDefaults.apply(link.getType()));
+        linksById.put(link.getId(), link);
+        links.add(link);
+        return new PendingLink(link, sourceId, targetId);
+    }
+
+    private Component resolve(String id, Link link) {
+        Component component = componentsById.get(id);
+        if (component == null) {
+            component = storedComponents.apply(id);
+        }
+        if (component == null) {
+            throw new IllegalArgumentException("Link " + link.getId() + " refers to unknown component " + id);
+        }
+        return component;
+    }
+
+    private static String nestedId(JsonParser parser) throws IOException {
+        String id = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("id".equals(field)) {
+                id = parser.getValueAsString();
+            } else if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+                parser.skipChildren();
+            }
+        }
+        return id;
+    }
+
+    /**
+     * {@code {"scores": {"LATENCY": 8.0, ...}}}
+     */
+    private static HeuristicProfile readHeuristics(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(parser, JsonToken.START_OBJECT);
+        HeuristicProfile heuristics = new HeuristicProfile();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("scores".equals(field) && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    Parameter parameter = enumValue(parser, Parameter.class, parser.currentName());
+                    parser.nextToken();
+                    if (parser.currentToken() != JsonToken.VALUE_NULL) {
+                        heuristics.setScore(parameter, parser.getValueAsDouble());
+                    }
+                }
+            } else if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+                parser.skipChildren();
+            }
+        }
+        return heuristics;
+    }
+
+    private static Map<String, Object> readProperties(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return new HashMap<>();
+        }
+        expect(parser, JsonToken.START_OBJECT);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> properties = (Map<String, Object>) readValue(parser);
+        return new HashMap<>(properties);
+    }
+
+    /**
+     * Plain Java value of the current token: maps, lists, strings, numbers, booleans or null
+     */
+    private static Object readValue(JsonParser parser) throws IOException {
+        switch (parser.currentToken()) {
+            case START_OBJECT: {
+                Map<String, Object> map = new LinkedHashMap<>();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String key = parser.currentName();
+                    parser.nextToken();
+                    map.put(key, readValue(parser));
+                }
+                return map;
+            }
+            case START_ARRAY: {
+                List<Object> list = new ArrayList<>();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    list.add(readValue(parser));
+                }
+                return list;
+            }
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return parser.getNumberValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            default:
+                return null;
+        }
+    }
+
+    private static <E extends Enum<E>> E enumValue(JsonParser parser, Class<E> type) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : enumValue(parser, type, parser.getText());
+    }
+
+    private static <E extends Enum<E>> E enumValue(JsonParser parser, Class<E> type, String name) {
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            throw error(parser, "Unknown " + type.getSimpleName() + ": " + name);
+        }
+    }
+
+    private void readArray(JsonParser parser, Element element) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return;
+        }
+        expect(parser, JsonToken.START_ARRAY);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            element.read();
+        }
+    }
+
+    private static void expect(JsonParser parser, JsonToken token) {
+        if (parser.currentToken() != token) {
+            throw error(parser, "Expected " + token + " but found " + parser.currentToken());
+        }
+    }
+
+    private static IllegalArgumentException error(JsonParser parser, String message) {
+        return new IllegalArgumentException(message + " (line " + parser.currentLocation().getLineNr()
+                + ", column " + parser.currentLocation().getColumnNr() + ")");
+    }
+
+    private interface Element {
+        void read() throws IOException;
+    }
+
+    // A link whose endpoints are resolved at the end of its architecture object (ids are null
+    // for a repeated link, which is resolved through its first definition)
+    private static final class PendingLink {
+        final Link link;
+        final String sourceId;
+        final String targetId;
+
+        PendingLink(Link link, String sourceId, String targetId) {
+            this.link = link;
+            this.sourceId = sourceId;
+            this.targetId = targetId;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.systemsimulator.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.systemsimulator.model.Architecture;
+import com.systemsimulator.model.Component;
+import com.systemsimulator.model.Link;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streams components and links in the normalized wire format: every component is written
+ * once, and links carry only {@code sourceId}/{@code targetId} next to their own type,
+ * heuristics and properties. The nested format repeats both full endpoint components in
+ * every link.
+ *
+ * <pre>
+ * {"architectureId": ..., "architectureName": ..., "format": "normalized",
+ *  "components": [...], "referencedComponents": [...], "links": [{"id", "sourceId", "targetId", ...}]}
+ * </pre>
+ *
+ * {@code referencedComponents} holds link endpoints that are not among {@code components}.
+ * Components are written with the generator's codec, so they look exactly as in the nested format.
+ */
+public final class NormalizedGraphWriter {
+
+    public static final String NORMALIZED = "normalized";
+    public static final String NESTED = "nested";
+
+    private NormalizedGraphWriter() {}
+
+    /**
+     * Check a {@code format} request parameter; true for the normalized format
+     */
+    public static boolean isNormalized(String format) {
+        if (format == null || NORMALIZED.equalsIgnoreCase(format)) {
+            return true;
+        }
+        if (NESTED.equalsIgnoreCase(format)) {
+            return false;
+        }
+        throw new IllegalArgumentException("Unknown format: " + format + " (expected normalized or nested)");
+    }
+
+    /**
+     * Write one version of an architecture as a normalized JSON object
+     */
+    public static void writeArchitecture(JsonGenerator generator, Architecture architecture) throws IOException {
+        Architecture snapshot = architecture.snapshot();
+        generator.writeStartObject();
+        generator.writeStringField("architectureId", snapshot.getId());
+        generator.writeStringField("architectureName", snapshot.getName());
+        writeGraph(generator, snapshot.getComponents(), snapshot.getLinks());
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    /**
+     * Write links and their endpoints as a normalized JSON object
+     */
+    public static void writeLinks(JsonGenerator generator, Collection<Link> links) throws IOException {
+        Map<String, Component> endpoints = new LinkedHashMap<>();
+        for (Link link : links) {
+            for (Component endpoint : Arrays.asList(link.getSource(), link.getTarget())) {
+                if (endpoint != null) {
+                    endpoints.putIfAbsent(endpoint.getId(), endpoint);
+                }
+            }
+        }
+        generator.writeStartObject();
+        writeGraph(generator, endpoints.values(), links);
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    private static void writeGraph(JsonGenerator generator, Collection<Component> components,
+                                   Collection<Link> links) throws IOException {
+        generator.writeStringField("format", NORMALIZED);
+
+        Set<String> written = new HashSet<>();
+        generator.writeArrayFieldStart("components");
+        for (Component component : components) {
+            if (written.add(component.getId())) {
+                generator.writeObject(component);
+            }
+        }
+        generator.writeEndArray();
+
+        generator.writeArrayFieldStart("referencedComponents");
+        for (Link link : links) {
+            writeEndpoint(generator, link.getSource(), written);
+            writeEndpoint(generator, link.getTarget(), written);
+        }
+        generator.writeEndArray();
+
+        generator.writeArrayFieldStart("links");
+        for (Link link : links) {
+            writeLink(generator, link);
+        }
+        generator.writeEndArray();
+    }
+
+    private static void writeEndpoint(JsonGenerator generator, Component endpoint, Set<String> written)
+            throws IOException {
+        if (endpoint != null && written.add(endpoint.getId())) {
+            generator.writeObject(endpoint);
+        }
+    }
+
+    private static void writeLink(JsonGenerator generator, Link link) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("id", link.getId());
+        generator.writeStringField("sourceId", link.getSource() != null ? link.getSource().getId() : null);
+        generator.writeStringField("targetId", link.getTarget() != null ? link.getTarget().getId() : null);
+        generator.writeStringField("type", link.getType() != null ? link.getType().name() : null);
+        generator.writeObjectField("heuristics", link.getHeuristics());
+        generator.writeObjectField("properties", link.getProperties());
+        generator.writeEndObject();
+    }
+}
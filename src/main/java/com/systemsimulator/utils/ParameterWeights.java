@@ -3,22 +3,23 @@ package com.systemsimulator.utils;
 import com.systemsimulator.model.Parameter;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class ParameterWeights {
-    private Map<Parameter, Double> defaultWeights = new HashMap<>();
+    private static final Map<WeightProfile, WeightVector> PROFILES = buildProfiles();
 
-    public ParameterWeights() {
-        initializeDefaultWeights();
-    }
+    // Replaced as a whole on every change, so readers always see one consistent set of weights
+    private volatile WeightVector current = PROFILES.get(WeightProfile.BALANCED);
+    private final Map<String, WeightVector> customProfiles = new ConcurrentHashMap<>();
 
     /**
      * Initialize default weights for each parameter
      * These weights determine how important each parameter is in overall scoring
      */
-    private void initializeDefaultWeights() {
+    private static Map<Parameter, Double> defaultWeights() {
+        Map<Parameter, Double> defaultWeights = new EnumMap<>(Parameter.class);
         defaultWeights.put(Parameter.LATENCY, 1.5);          // High priority
         defaultWeights.put(Parameter.THROUGHPUT, 1.2);       // Important for performance
         defaultWeights.put(Parameter.COST, 1.0);             // Moderate priority
@@ -29,68 +30,185 @@ public class ParameterWeights {
         defaultWeights.put(Parameter.MAINTAINABILITY, 0.8);  // Lower priority
         defaultWeights.put(Parameter.ENERGY_EFFICIENCY, 0.7); // Lower priority
         defaultWeights.put(Parameter.SECURITY, 1.1);         // Important for safety
+        return defaultWeights;
     }
 
     /**
-     * Get all default parameter weights
+     * Weights a profile changes (e.g., for performance-focused vs cost-focused architectures)
+     */
+    private static Map<Parameter, Double> profileChanges(WeightProfile profile) {
+        Map<Parameter, Double> changes = new EnumMap<>(Parameter.class);
+        switch (profile) {
+            case PERFORMANCE_FOCUSED:
+                changes.put(Parameter.LATENCY, 2.0);
+                changes.put(Parameter.THROUGHPUT, 2.0);
+                changes.put(Parameter.SCALABILITY, 1.5);
+                changes.put(Parameter.COST, 0.5);
+                break;
+            case COST_OPTIMIZED:
+                changes.put(Parameter.COST, 2.0);
+                changes.put(Parameter.ENERGY_EFFICIENCY, 1.5);
+                changes.put(Parameter.LATENCY, 0.8);
+                changes.put(Parameter.THROUGHPUT, 0.8);
+                break;
+            case RELIABILITY_FOCUSED:
+                changes.put(Parameter.AVAILABILITY, 2.0);
+                changes.put(Parameter.DURABILITY, 2.0);
+                changes.put(Parameter.CONSISTENCY, 1.5);
+                changes.put(Parameter.LATENCY, 0.8);
+                break;
+            case BALANCED:
+            default:
+                break;
+        }
+        return changes;
+    }
+
+    private static Map<WeightProfile, WeightVector> buildProfiles() {
+        WeightVector defaults = WeightVector.of(WeightProfile.BALANCED.name(), defaultWeights());
+        Map<WeightProfile, WeightVector> profiles = new EnumMap<>(WeightProfile.class);
+        for (WeightProfile profile : WeightProfile.values()) {
+            profiles.put(profile, defaults.withOverrides(profileChanges(profile)).named(profile.name()));
+        }
+        return profiles;
+    }
+
+    /**
+     * Precomputed weights of a built-in profile applied to the default weights
+     */
+    public static WeightVector profile(WeightProfile profile) {
+        return PROFILES.get(profile);
+    }
+
+    /**
+     * Get all current parameter weights (read-only, not copied)
      */
     public Map<Parameter, Double> getDefaultWeights() {
-        return new HashMap<>(defaultWeights);
+        return current.getWeights();
+    }
+
+    /**
+     * Snapshot of the current shared weights; later changes do not affect it
+     */
+    public WeightVector getCurrent() {
+        return current;
+    }
+
+    /**
+     * Get a copy of the current weights as a vector indexed by parameter ordinal
+     */
+    public double[] getWeightVector() {
+        return current.toArray();
+    }
+
+    /**
+     * Convert a weights map to a vector indexed by parameter ordinal (missing weights default to 1.0)
+     */
+    public static double[] toVector(Map<Parameter, Double> weights) {
+        Parameter[] parameters = Parameter.values();
+        double[] vector = new double[parameters.length];
+        for (Parameter param : parameters) {
+            Double weight = weights != null ? weights.get(param) : null;
+            vector[param.ordinal()] = weight != null ? weight : 1.0;
+        }
+        return vector;
+    }
+
+    /**
+     * Weights for one request: the named profile (or the current weights when null) with any
+     * explicit per-parameter weights on top. The shared weights are not changed.
+     */
+    public WeightVector resolve(WeightProfile profile, Map<Parameter, Double> overrides) {
+        return resolve(profile, null, overrides);
+    }
+
+    /**
+     * Weights for one request from a built-in profile or a registered custom profile (at most
+     * one of them), with any explicit per-parameter weights on top
+     */
+    public WeightVector resolve(WeightProfile profile, String profileName, Map<Parameter, Double> overrides) {
+        if (profile != null && profileName != null) {
+            throw new IllegalArgumentException("Specify either profile or profileName, not both");
+        }
+        WeightVector base;
+        if (profileName != null) {
+            base = getCustomProfile(profileName)
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown weight profile: " + profileName));
+        } else {
+            base = profile != null ? profile(profile) : current;
+        }
+        return base.withOverrides(overrides);
+    }
+
+    /**
+     * Register a named custom profile once: a built-in profile (BALANCED when null) with the given
+     * weights on top. Registering the same weights again returns the existing profile; reusing
+     * the name for different weights is rejected.
+     */
+    public WeightVector registerProfile(String name, WeightProfile base, Map<Parameter, Double> weights) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Profile name must not be empty");
+        }
+        for (WeightProfile builtIn : WeightProfile.values()) {
+            if (builtIn.name().equalsIgnoreCase(name)) {
+                throw new IllegalArgumentException("Profile name is reserved: " + name);
+            }
+        }
+        WeightVector profile = profile(base != null ? base : WeightProfile.BALANCED)
+                .withOverrides(weights)
+                .named(name);
+        WeightVector existing = customProfiles.putIfAbsent(name, profile);
+        if (existing == null) {
+            return profile;
+        }
+        if (!existing.sameWeights(profile)) {
+            throw new IllegalArgumentException("Profile already registered with different weights: " + name);
+        }
+        return existing;
+    }
+
+    public Optional<WeightVector> getCustomProfile(String name) {
+        return Optional.ofNullable(customProfiles.get(name));
+    }
+
+    public List<WeightVector> getCustomProfiles() {
+        List<WeightVector> profiles = new ArrayList<>(customProfiles.values());
+        profiles.sort(Comparator.comparing(WeightVector::getName));
+        return profiles;
     }
 
     /**
      * Set weight for a specific parameter
      */
-    public void setWeight(Parameter parameter, double weight) {
+    public synchronized void setWeight(Parameter parameter, double weight) {
         if (weight < 0.0) {
             throw new IllegalArgumentException("Weight cannot be negative");
         }
-        defaultWeights.put(parameter, weight);
+        current = current.withOverrides(Map.of(parameter, weight)).named(null);
     }
 
     /**
      * Get weight for a specific parameter
      */
     public double getWeight(Parameter parameter) {
-        return defaultWeights.getOrDefault(parameter, 1.0);
+        return current.get(parameter);
     }
 
     /**
      * Reset to default weights
      */
-    public void resetToDefaults() {
-        defaultWeights.clear();
-        initializeDefaultWeights();
+    public synchronized void resetToDefaults() {
+        current = PROFILES.get(WeightProfile.BALANCED);
     }
 
     /**
-     * Apply a custom weight profile (e.g., for performance-focused vs cost-focused architectures)
+     * Apply a custom weight profile to the shared weights. Prefer passing
+     * {@link #profile(WeightProfile)} to the aggregator, which leaves other callers alone.
      */
-    public void applyProfile(WeightProfile profile) {
-        switch (profile) {
-            case PERFORMANCE_FOCUSED:
-                defaultWeights.put(Parameter.LATENCY, 2.0);
-                defaultWeights.put(Parameter.THROUGHPUT, 2.0);
-                defaultWeights.put(Parameter.SCALABILITY, 1.5);
-                defaultWeights.put(Parameter.COST, 0.5);
-                break;
-            case COST_OPTIMIZED:
-                defaultWeights.put(Parameter.COST, 2.0);
-                defaultWeights.put(Parameter.ENERGY_EFFICIENCY, 1.5);
-                defaultWeights.put(Parameter.LATENCY, 0.8);
-                defaultWeights.put(Parameter.THROUGHPUT, 0.8);
-                break;
-            case RELIABILITY_FOCUSED:
-                defaultWeights.put(Parameter.AVAILABILITY, 2.0);
-                defaultWeights.put(Parameter.DURABILITY, 2.0);
-                defaultWeights.put(Parameter.CONSISTENCY, 1.5);
-                defaultWeights.put(Parameter.LATENCY, 0.8);
-                break;
-            case BALANCED:
-            default:
-                initializeDefaultWeights();
-                break;
-        }
+    public synchronized void applyProfile(WeightProfile profile) {
+        current = profile == WeightProfile.BALANCED
+                ? PROFILES.get(WeightProfile.BALANCED)
+                : current.withOverrides(profileChanges(profile)).named(null);
     }
 
     /**
@@ -0,0 +1,112 @@
+package com.systemsimulator.utils;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Pareto frontier (skyline) of score vectors where higher is better in every dimension.
+ * A vector dominates another if it is at least as good everywhere and better somewhere.
+ *
+ * Uses Sort-Filter-Skyline: points are visited in decreasing order of their sum, so a point
+ * can only be dominated by points already visited, and only the frontier found so far has to
+ * be checked. Cost is O(N log N + N * S * d) for N points, S frontier points and d dimensions,
+ * instead of O(N^2 * d) for all pairs.
+ */
+public final class ParetoFrontier {
+
+    private ParetoFrontier() {}
+
+    public static Result analyze(double[][] points) {
+        int n = points.length;
+        Integer[] order = new Integer[n];
+        double[] sums = new double[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+            for (double value : points[i]) {
+                sums[i] += value;
+            }
+        }
+        Arrays.sort(order, (a, b) -> {
+            int bySum = Double.compare(sums[b], sums[a]);
+            return bySum != 0 ? bySum : Integer.compare(a, b);
+        });
+
+        int[] frontier = new int[n];
+        int size = 0;
+        for (int candidate : order) {
+            boolean dominated = false;
+            for (int k = 0; k < size && !dominated; k++) {
+                dominated = dominates(points[frontier[k]], points[candidate]);
+            }
+            if (!dominated) {
+                frontier[size++] = candidate;
+            }
+        }
+        int[] members = Arrays.copyOf(frontier, size);
+
+        // Counts against the frontier only, which keeps this at O(N * S * d)
+        int[] dominatedBy = new int[n];
+        int[] dominates = new int[n];
+        IntStream.range(0, n).parallel().forEach(i -> {
+            int count = 0;
+            for (int member : members) {
+                if (dominates(points[member], points[i])) {
+                    count++;
+                }
+            }
+            dominatedBy[i] = count;
+        });
+        IntStream.range(0, size).parallel().forEach(k -> {
+            int member = members[k];
+            int count = 0;
+            for (int i = 0; i < n; i++) {
+                if (dominates(points[member], points[i])) {
+                    count++;
+                }
+            }
+            dominates[member] = count;
+        });
+
+        Arrays.sort(members);
+        return new Result(members, dominates, dominatedBy);
+    }
+
+    /**
+     * True if {@code a} is at least as good as {@code b} in every dimension and better in one
+     */
+    public static boolean dominates(double[] a, double[] b) {
+        boolean better = false;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] < b[i]) {
+                return false;
+            }
+            if (a[i] > b[i]) {
+                better = true;
+            }
+        }
+        return better;
+    }
+
+    public static class Result {
+        private final int[] frontier;
+        private final int[] dominates;
+        private final int[] dominatedBy;
+
+        public Result(int[] frontier, int[] dominates, int[] dominatedBy) {
+            this.frontier = frontier;
+            this.dominates = dominates;
+            this.dominatedBy = dominatedBy;
+        }
+
+        /** Indices of the non-dominated points, ascending */
+        public int[] getFrontier() { return frontier; }
+
+        public boolean isOnFrontier(int index) { return dominatedBy[index] == 0; }
+
+        /** Number of points a frontier point dominates (0 for points off the frontier) */
+        public int getDominates(int index) { return dominates[index]; }
+
+        /** Number of frontier points that dominate this point */
+        public int getDominatedBy(int index) { return dominatedBy[index]; }
+    }
+}
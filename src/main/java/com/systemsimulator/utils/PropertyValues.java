@@ -0,0 +1,42 @@
+package com.systemsimulator.utils;
+
+import java.util.Map;
+
+/**
+ * Reads numeric settings from a component's or link's free-form properties map.
+ * Values may arrive from JSON as numbers or strings; anything unreadable yields the default.
+ */
+public final class PropertyValues {
+
+    private PropertyValues() {}
+
+    public static double getDouble(Map<String, Object> properties, String key, double defaultValue) {
+        if (properties == null) {
+            return defaultValue;
+        }
+        Object value = properties.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        } else if (value instanceof String) {
+            try {
+                return Double.parseDouble((String) value);
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Like {@link #getDouble}, but NaN and infinite values also yield the default
+     */
+    public static double getFiniteDouble(Map<String, Object> properties, String key, double defaultValue) {
+        double value = getDouble(properties, key, defaultValue);
+        return Double.isFinite(value) ? value : defaultValue;
+    }
+
+    public static int getInt(Map<String, Object> properties, String key, int defaultValue) {
+        double value = getDouble(properties, key, Double.NaN);
+        return Double.isNaN(value) ? defaultValue : (int) value;
+    }
+}
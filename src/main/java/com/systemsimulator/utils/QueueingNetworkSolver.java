@@ -0,0 +1,510 @@
+package com.systemsimulator.utils;
+
+import com.systemsimulator.model.*;
+
+import java.util.*;
+
+/**
+ * Closed-form estimate of the traffic the {@link DiscreteEventSimulator} would see, treating the
+ * architecture as an open Jackson network of M/M/c stations.
+ *
+ * Clients inject {@code arrivalRatePerSecond} each. A request at a component ends there with
+ * probability {@code hitRatio} (caches) or when there is no onward synchronous link, and is
+ * otherwise routed to each outgoing request link with equal probability. Each component is an
+ * M/M/c station with c = {@code instances} and mean service time {@code serviceTimeMs}.
+ *
+ * The traffic equations lambda = gamma + P^T lambda are solved one strongly connected component
+ * at a time in topological order: acyclic parts by direct propagation, cycles by Gauss-Seidel
+ * sweeps over their edges. End-to-end latency uses the matching backward system
+ * R_i = T_i + sum_j p_ij (linkLatency_ij + R_j). Cost is O(V + E) plus, per cycle, its edge
+ * count times the sweeps needed, which grow as requests become less likely to leave the cycle.
+ */
+public class QueueingNetworkSolver {
+    // Wait probabilities below this are not worth more Erlang B steps
+    private static final double NEGLIGIBLE_WAIT = 1e-15;
+    // Gauss-Seidel stops once no value changes by more than this fraction
+    private static final double TOLERANCE = 1e-13;
+    // Edge visits allowed per cycle before giving up on convergence
+    private static final long MAX_SWEEP_WORK = 200_000_000L;
+
+    private final QueueingConfig config;
+    private final Component[] nodes;
+    private final int[] instances;
+    private final double[] serviceTimeMs;
+
+    // Routing in CSR form: edges of node i are [edgeStart[i], edgeStart[i + 1])
+    private final int[] edgeStart;
+    private final int[] edgeTarget;
+    private final double[] edgeProbability;
+    private final double[] edgeLatencyMs;
+    // The same edges by target: edges into node i are inEdge[inStart[i]..inStart[i + 1])
+    private final int[] edgeSource;
+    private final int[] inStart;
+    private final int[] inEdge;
+    private final double[] externalArrivals;
+    private final int[] clients;
+
+    public QueueingNetworkSolver(Architecture architecture, QueueingConfig config) {
+        this.config = config;
+        List<Component> components = architecture.getComponents();
+        int n = components.size();
+        nodes = components.toArray(new Component[0]);
+        instances = new int[n];
+        serviceTimeMs = new double[n];
+        externalArrivals = new double[n];
+
+        Map<String, Integer> indexById = new HashMap<>(n * 2);
+        List<Integer> clientList = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Component component = nodes[i];
+            indexById.put(component.getId(), i);
+            instances[i] = CapacityProperties.instances(component);
+            serviceTimeMs[i] = CapacityProperties.serviceTimeMs(component);
+            if (component.getType() == ComponentType.CLIENT) {
+                externalArrivals[i] = config.getArrivalRatePerSecond();
+                clientList.add(i);
+            }
+        }
+        clients = clientList.stream().mapToInt(Integer::intValue).toArray();
+
+        List<Link> links = architecture.getLinks();
+        int[] sources = new int[links.size()];
+        int[] targets = new int[links.size()];
+        double[] latencies = new double[links.size()];
+        int[] outDegree = new int[n];
+        int edgeCount = 0;
+        for (Link link : links) {
+            Integer source = link.getSource() != null ? indexById.get(link.getSource().getId()) : null;
+            Integer target = link.getTarget() != null ? indexById.get(link.getTarget().getId()) : null;
+            if (source == null || target == null || !CapacityProperties.isRequestLink(link)) {
+                continue;
+            }
+            sources[edgeCount] = source;
+            targets[edgeCount] = target;
+            latencies[edgeCount] = CapacityProperties.linkLatencyMs(link);
+            outDegree[source]++;
+            edgeCount++;
+        }
+
+        edgeStart = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            edgeStart[i + 1] = edgeStart[i] + outDegree[i];
+        }
+        edgeTarget = new int[edgeCount];
+        edgeSource = new int[edgeCount];
+        edgeProbability = new double[edgeCount];
+        edgeLatencyMs = new double[edgeCount];
+        int[] inDegree = new int[n];
+        int[] fill = Arrays.copyOf(edgeStart, n);
+        for (int e = 0; e < edgeCount; e++) {
+            int source = sources[e];
+            int slot = fill[source]++;
+            edgeTarget[slot] = targets[e];
+            edgeSource[slot] = source;
+            edgeLatencyMs[slot] = latencies[e];
+            edgeProbability[slot] = (1.0 - CapacityProperties.hitRatio(nodes[source])) / outDegree[source];
+            inDegree[targets[e]]++;
+        }
+
+        inStart = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            inStart[i + 1] = inStart[i] + inDegree[i];
+        }
+        inEdge = new int[edgeCount];
+        int[] inFill = Arrays.copyOf(inStart, n);
+        for (int e = 0; e < edgeCount; e++) {
+            inEdge[inFill[edgeTarget[e]]++] = e;
+        }
+    }
+
+    public QueueingReport solve() {
+        long startNanos = System.nanoTime();
+        int n = nodes.length;
+
+        int[] componentOf = new int[n];
+        List<int[]> sccs = GraphAlgorithms.stronglyConnectedComponents(n, edgeStart, edgeTarget, componentOf);
+
+        // Forward pass (sources first): arrival rate per component, requests per second
+        double[] lambda = Arrays.copyOf(externalArrivals, n);
+        for (int s = sccs.size() - 1; s >= 0; s--) {
+            int[] members = sccs.get(s);
+            if (isTrivial(members)) {
+                propagate(members[0], lambda);
+                continue;
+            }
+            solveArrivals(members, s, componentOf, lambda);
+            for (int node : members) {
+                propagateOutside(node, s, componentOf, lambda);
+            }
+        }
+
+        // Station metrics
+        double[] responseMs = new double[n];
+        List<StationMetrics> stations = new ArrayList<>();
+        List<String> warnings = new ArrayList<>();
+        boolean stable = true;
+        for (int i = 0; i < n; i++) {
+            if (nodes[i].getType() == ComponentType.CLIENT) {
+                continue;
+            }
+            StationMetrics metrics = station(i, lambda[i]);
+            responseMs[i] = metrics.getMeanResponseMs();
+            stations.add(metrics);
+            if (metrics.isSaturated()) {
+                stable = false;
+                warnings.add(String.format("%s is saturated: %.1f req/s offered, capacity %.1f req/s",
+                        nodes[i].getName(), lambda[i], metrics.getCapacityPerSecond()));
+            } else if (metrics.getUtilization() >= config.getWarningUtilization()) {
+                warnings.add(String.format("%s is near saturation: utilization %.0f%%",
+                        nodes[i].getName(), metrics.getUtilization() * 100));
+            }
+        }
+
+        // Backward pass (sinks first): expected remaining latency from each component
+        double[] remainingMs = new double[n];
+        for (int s = 0; s < sccs.size(); s++) {
+            int[] members = sccs.get(s);
+            if (isTrivial(members)) {
+                int node = members[0];
+                remainingMs[node] = responseMs[node] + downstreamLatency(node, remainingMs, -1, componentOf);
+                continue;
+            }
+            solveRemaining(members, s, componentOf, responseMs, remainingMs);
+        }
+
+        List<ClientLatency> clientLatencies = new ArrayList<>();
+        double offered = 0.0;
+        double weightedLatency = 0.0;
+        for (int client : clients) {
+            double rate = externalArrivals[client];
+            clientLatencies.add(new ClientLatency(nodes[client].getId(), nodes[client].getName(),
+                    rate, remainingMs[client]));
+            offered += rate;
+            weightedLatency += rate * remainingMs[client];
+        }
+        double meanLatency = offered > 0 ? weightedLatency / offered : 0.0;
+
+        return new QueueingReport(stable, offered, meanLatency, clientLatencies, stations, warnings,
+                (System.nanoTime() - startNanos) / 1000L);
+    }
+
+    private boolean isTrivial(int[] members) {
+        if (members.length != 1) {
+            return false;
+        }
+        int node = members[0];
+        for (int e = edgeStart[node]; e < edgeStart[node + 1]; e++) {
+            if (edgeTarget[e] == node) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void propagate(int node, double[] lambda) {
+        double rate = lambda[node];
+        if (rate == 0.0) {
+            return;
+        }
+        for (int e = edgeStart[node]; e < edgeStart[node + 1]; e++) {
+            if (edgeProbability[e] > 0) {
+                lambda[edgeTarget[e]] += rate * edgeProbability[e];
+            }
+        }
+    }
+
+    private void propagateOutside(int node, int scc, int[] componentOf, double[] lambda) {
+        double rate = lambda[node];
+        for (int e = edgeStart[node]; e < edgeStart[node + 1]; e++) {
+            if (componentOf[edgeTarget[e]] != scc && edgeProbability[e] > 0) {
+                lambda[edgeTarget[e]] += rate * edgeProbability[e];
+            }
+        }
+    }
+
+    /**
+     * Solve lambda_S = inflow_S + P_S^T lambda_S for one cycle in place, starting from the
+     * inflow; a cycle with no way out gets infinite rates. Members come in DFS discovery order,
+     * so a forward sweep follows most edges and each sweep carries traffic around the cycle.
+     */
+    private void solveArrivals(int[] members, int scc, int[] componentOf, double[] lambda) {
+        double[] inflow = new double[members.length];
+        double totalInflow = 0.0;
+        for (int a = 0; a < members.length; a++) {
+            inflow[a] = lambda[members[a]];
+            totalInflow += inflow[a];
+        }
+        if (!leaks(members, scc, componentOf)) {
+            for (int node : members) {
+                lambda[node] = totalInflow > 0 ? Double.POSITIVE_INFINITY : 0.0;
+            }
+            return;
+        }
+        long sweeps = maxSweeps(members);
+        for (long sweep = 0; ; sweep++) {
+            double change = 0.0;
+            double largest = 0.0;
+            for (int a = 0; a < members.length; a++) {
+                int node = members[a];
+                double value = inflow[a];
+                for (int i = inStart[node]; i < inStart[node + 1]; i++) {
+                    int e = inEdge[i];
+                    if (componentOf[edgeSource[e]] == scc) {
+                        value += edgeProbability[e] * lambda[edgeSource[e]];
+                    }
+                }
+                change = Math.max(change, value - lambda[node]);
+                largest = Math.max(largest, value);
+                lambda[node] = value;
+            }
+            if (change <= TOLERANCE * largest) {
+                return;
+            }
+            checkConverging(sweep, sweeps, members);
+        }
+    }
+
+    /**
+     * Solve R_S = T_S + outside contributions + P_S R_S for one cycle in place, starting from
+     * zero; swept backwards, so latency flows from later members to earlier ones in one pass
+     */
+    private void solveRemaining(int[] members, int scc, int[] componentOf, double[] responseMs, double[] remainingMs) {
+        double[] constant = new double[members.length];
+        boolean infinite = !leaks(members, scc, componentOf);
+        for (int a = 0; a < members.length; a++) {
+            int node = members[a];
+            double value = responseMs[node] + downstreamLatency(node, remainingMs, scc, componentOf);
+            for (int e = edgeStart[node]; e < edgeStart[node + 1]; e++) {
+                if (componentOf[edgeTarget[e]] == scc) {
+                    value += edgeProbability[e] * edgeLatencyMs[e];
+                }
+            }
+            infinite |= !Double.isFinite(value);
+            constant[a] = value;
+            remainingMs[node] = 0.0;
+        }
+        if (infinite) {
+            for (int node : members) {
+                remainingMs[node] = Double.POSITIVE_INFINITY;
+            }
+            return;
+        }
+        long sweeps = maxSweeps(members);
+        for (long sweep = 0; ; sweep++) {
+            double change = 0.0;
+            double largest = 0.0;
+            for (int a = members.length - 1; a >= 0; a--) {
+                int node = members[a];
+                double value = constant[a];
+                for (int e = edgeStart[node]; e < edgeStart[node + 1]; e++) {
+                    if (componentOf[edgeTarget[e]] == scc) {
+                        value += edgeProbability[e] * remainingMs[edgeTarget[e]];
+                    }
+                }
+                change = Math.max(change, value - remainingMs[node]);
+                largest = Math.max(largest, value);
+                remainingMs[node] = value;
+            }
+            if (change <= TOLERANCE * largest) {
+                return;
+            }
+            checkConverging(sweep, sweeps, members);
+        }
+    }
+
+    /**
+     * Whether a request can leave the cycle (by ending at a member or taking an edge out of it).
+     * Without a way out P_S is stochastic and the systems have no finite solution.
+     */
+    private boolean leaks(int[] members, int scc, int[] componentOf) {
+        for (int node : members) {
+            double staying = 0.0;
+            for (int e = edgeStart[node]; e < edgeStart[node + 1]; e++) {
+                if (componentOf[edgeTarget[e]] == scc) {
+                    staying += edgeProbability[e];
+                }
+            }
+            if (staying < 1.0 - TOLERANCE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long maxSweeps(int[] members) {
+        long work = members.length;
+        for (int node : members) {
+            work += edgeStart[node + 1] - edgeStart[node];
+        }
+        return Math.max(1, MAX_SWEEP_WORK / work);
+    }
+
+    private void checkConverging(long sweep, long sweeps, int[] members) {
+        if (sweep >= sweeps) {
+            throw new IllegalArgumentException(String.format(
+                    "Routing cycle through %s (%d components) is left too rarely to solve",
+                    nodes[members[0]].getName(), members.length));
+        }
+    }
+
+    /**
+     * Expected link latency plus remaining latency over the edges leaving the given SCC
+     * (all edges when scc is -1)
+     */
+    private double downstreamLatency(int node, double[] remainingMs, int scc, int[] componentOf) {
+        double total = 0.0;
+        for (int e = edgeStart[node]; e < edgeStart[node + 1]; e++) {
+            int target = edgeTarget[e];
+            if (edgeProbability[e] == 0.0 || (scc >= 0 && componentOf[target] == scc)) {
+                continue;
+            }
+            total += edgeProbability[e] * (edgeLatencyMs[e] + remainingMs[target]);
+        }
+        return total;
+    }
+
+    private StationMetrics station(int node, double arrivalRate) {
+        int servers = instances[node];
+        double serviceMs = serviceTimeMs[node];
+        double capacity = CapacityProperties.capacityPerSecond(nodes[node]);
+        if (serviceMs == 0.0 || arrivalRate == 0.0) {
+            return new StationMetrics(nodes[node].getId(), nodes[node].getName(), servers, arrivalRate,
+                    serviceMs, capacity, 0.0, 0.0, 0.0, serviceMs, false);
+        }
+        double utilization = arrivalRate / capacity;
+        if (utilization >= 1.0) {
+            return new StationMetrics(nodes[node].getId(), nodes[node].getName(), servers, arrivalRate,
+                    serviceMs, capacity, utilization, 1.0, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, true);
+        }
+        double offeredLoad = arrivalRate * serviceMs / 1000.0;
+        double waitProbability = erlangC(servers, offeredLoad);
+        double meanWaitMs = waitProbability / (capacity - arrivalRate) * 1000.0;
+        return new StationMetrics(nodes[node].getId(), nodes[node].getName(), servers, arrivalRate,
+                serviceMs, capacity, utilization, waitProbability, meanWaitMs, meanWaitMs + serviceMs, false);
+    }
+
+    /**
+     * Probability an arrival has to wait at an M/M/c station with offered load a = lambda / mu (a < c),
+     * via the numerically stable Erlang B recursion. Past k = a the Erlang B value only shrinks,
+     * so the recursion stops once the result is below {@link #NEGLIGIBLE_WAIT}: the cost is
+     * O(min(c, a + O(sqrt a))) however many instances a component declares.
+     */
+    static double erlangC(int servers, double offeredLoad) {
+        double utilization = offeredLoad / servers;
+        double erlangB = 1.0;
+        for (int k = 1; k <= servers; k++) {
+            erlangB = offeredLoad * erlangB / (k + offeredLoad * erlangB);
+            if (k > offeredLoad && erlangB < NEGLIGIBLE_WAIT * (1.0 - utilization)) {
+                break; // an upper bound on the remaining value, and already negligible
+            }
+        }
+        return erlangB / (1.0 - utilization * (1.0 - erlangB));
+    }
+
+    // ==================== Config and results ====================
+
+    public static class QueueingConfig {
+        private double arrivalRatePerSecond = 100.0;
+        private double warningUtilization = 0.8;
+
+        /** Request rate of each client */
+        public double getArrivalRatePerSecond() { return arrivalRatePerSecond; }
+        public void setArrivalRatePerSecond(double arrivalRatePerSecond) { this.arrivalRatePerSecond = arrivalRatePerSecond; }
+
+        public double getWarningUtilization() { return warningUtilization; }
+        public void setWarningUtilization(double warningUtilization) { this.warningUtilization = warningUtilization; }
+    }
+
+    public static class StationMetrics {
+        private final String componentId;
+        private final String componentName;
+        private final int instances;
+        private final double arrivalRatePerSecond;
+        private final double serviceTimeMs;
+        private final double capacityPerSecond;
+        private final double utilization;
+        private final double waitProbability;
+        private final double meanWaitMs;
+        private final double meanResponseMs;
+        private final boolean saturated;
+
+        public StationMetrics(String componentId, String componentName, int instances, double arrivalRatePerSecond,
+                              double serviceTimeMs, double capacityPerSecond, double utilization,
+                              double waitProbability, double meanWaitMs, double meanResponseMs, boolean saturated) {
+            this.componentId = componentId;
+            this.componentName = componentName;
+            this.instances = instances;
+            this.arrivalRatePerSecond = arrivalRatePerSecond;
+            this.serviceTimeMs = serviceTimeMs;
+            this.capacityPerSecond = capacityPerSecond;
+            this.utilization = utilization;
+            this.waitProbability = waitProbability;
+            this.meanWaitMs = meanWaitMs;
+            this.meanResponseMs = meanResponseMs;
+            this.saturated = saturated;
+        }
+
+        public String getComponentId() { return componentId; }
+        public String getComponentName() { return componentName; }
+        public int getInstances() { return instances; }
+        public double getArrivalRatePerSecond() { return arrivalRatePerSecond; }
+        public double getServiceTimeMs() { return serviceTimeMs; }
+        public double getCapacityPerSecond() { return capacityPerSecond; }
+        public double getUtilization() { return utilization; }
+        /** Erlang C probability that a request has to queue */
+        public double getWaitProbability() { return waitProbability; }
+        public double getMeanWaitMs() { return meanWaitMs; }
+        public double getMeanResponseMs() { return meanResponseMs; }
+        public boolean isSaturated() { return saturated; }
+    }
+
+    public static class ClientLatency {
+        private final String clientId;
+        private final String clientName;
+        private final double arrivalRatePerSecond;
+        private final double meanLatencyMs;
+
+        public ClientLatency(String clientId, String clientName, double arrivalRatePerSecond, double meanLatencyMs) {
+            this.clientId = clientId;
+            this.clientName = clientName;
+            this.arrivalRatePerSecond = arrivalRatePerSecond;
+            this.meanLatencyMs = meanLatencyMs;
+        }
+
+        public String getClientId() { return clientId; }
+        public String getClientName() { return clientName; }
+        public double getArrivalRatePerSecond() { return arrivalRatePerSecond; }
+        public double getMeanLatencyMs() { return meanLatencyMs; }
+    }
+
+    public static class QueueingReport {
+        private final boolean stable;
+        private final double offeredLoadPerSecond;
+        private final double meanLatencyMs;
+        private final List<ClientLatency> clients;
+        private final List<StationMetrics> stations;
+        private final List<String> warnings;
+        private final long solveMicros;
+
+        public QueueingReport(boolean stable, double offeredLoadPerSecond, double meanLatencyMs,
+                              List<ClientLatency> clients, List<StationMetrics> stations,
+                              List<String> warnings, long solveMicros) {
+            this.stable = stable;
+            this.offeredLoadPerSecond = offeredLoadPerSecond;
+            this.meanLatencyMs = meanLatencyMs;
+            this.clients = clients;
+            this.stations = stations;
+            this.warnings = warnings;
+            this.solveMicros = solveMicros;
+        }
+
+        /** False if any station is offered more than its capacity */
+        public boolean isStable() { return stable; }
+        public double getOfferedLoadPerSecond() { return offeredLoadPerSecond; }
+        public double getMeanLatencyMs() { return meanLatencyMs; }
+        public List<ClientLatency> getClients() { return clients; }
+        public List<StationMetrics> getStations() { return stations; }
+        public List<String> getWarnings() { return warnings; }
+        public long getSolveMicros() { return solveMicros; }
+    }
+}
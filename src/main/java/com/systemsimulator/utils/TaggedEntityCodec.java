@@ -0,0 +1,753 @@
+package com.systemsimulator.utils;
+
+import com.systemsimulator.model.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Tagged binary encoding of components, links and architectures, used by the persistence
+ * files and, as a document, on the wire ({@link #MEDIA_TYPE}). Every value is a field: a
+ * varint key holding the field number and wire type, then the value. A message is a run of
+ * fields closed by a zero key, so a reader can skip any field it does not know.
+ *
+ * Compatibility rules, so that older builds read what newer builds write and vice versa:
+ * <ul>
+ * <li>field numbers are never reused or given another wire type; new fields are optional,
+ *     and missing fields keep their defaults</li>
+ * <li>{@link ComponentType}, {@link LinkType} and {@link Parameter} are written as ordinals,
+ *     so their constants are only ever appended. An unknown component type reads as an
+ *     external service, an unknown link type as no type, and scores of unknown parameters
+ *     are dropped</li>
+ * <li>component subtypes are written by name; unknown names take the type's default</li>
+ * </ul>
+ *
+ * References work as in {@link EntityCodec}: a component or link is written by id when the
+ * supplied lookup returns the same instance, else embedded.
+ */
+public final class TaggedEntityCodec {
+
+    /** Media type of a document written by {@link #writeDocument} */
+    public static final String MEDIA_TYPE = "application/x-simulator-architecture";
+
+    private static final byte[] MAGIC = {'S', 'I', 'M', 'A'};
+    // Only raised for changes older readers cannot skip over
+    private static final int FORMAT_VERSION = 1;
+
+    private static final ComponentType[] COMPONENT_TYPES = ComponentType.values();
+    private static final LinkType[] LINK_TYPES = LinkType.values();
+    private static final Parameter[] PARAMETERS = Parameter.values();
+
+    // Wire types
+    private static final int VARINT = 0;
+    private static final int FIXED64 = 1;
+    private static final int BYTES = 2;
+    private static final int MESSAGE = 3;
+
+    private static final int END = 0;
+
+    // A streamed document is handed to the output stream in chunks of about this size
+    private static final int FLUSH_BYTES = 64 * 1024;
+
+    // Deepest nesting of messages, lists and maps a reader accepts, as in Jackson
+    private static final int MAX_DEPTH = 1000;
+
+    // Keys are (field number << 2) | wire type
+
+    // Document
+    private static final int DOCUMENT_COMPONENT = 1 << 2 | MESSAGE;
+    private static final int DOCUMENT_LINK = 2 << 2 | MESSAGE;
+    private static final int DOCUMENT_ARCHITECTURE = 3 << 2 | MESSAGE;
+
+    // Component
+    private static final int COMPONENT_TYPE = 1 << 2 | VARINT;
+    private static final int COMPONENT_ID = 2 << 2 | BYTES;
+    private static final int COMPONENT_NAME = 3 << 2 | BYTES;
+    private static final int COMPONENT_SUBTYPE = 4 << 2 | BYTES;
+    private static final int COMPONENT_HEURISTICS = 5 << 2 | MESSAGE;
+    private static final int COMPONENT_PROPERTIES = 6 << 2 | MESSAGE;
+
+    // Link
+    private static final int LINK_ID = 1 << 2 | BYTES;
+    private static final int LINK_TYPE = 2 << 2 | VARINT;
+    private static final int LINK_SOURCE_ID = 3 << 2 | BYTES;
+    private static final int LINK_SOURCE = 4 << 2 | MESSAGE;
+    private static final int LINK_TARGET_ID = 5 << 2 | BYTES;
+    private static final int LINK_TARGET = 6 << 2 | MESSAGE;
+    private static final int LINK_HEURISTICS = 7 << 2 | MESSAGE;
+    private static final int LINK_PROPERTIES = 8 << 2 | MESSAGE;
+
+    // Architecture; components and links keep their order across the id and embedded fields
+    private static final int ARCHITECTURE_ID = 1 << 2 | BYTES;
+    private static final int ARCHITECTURE_NAME = 2 << 2 | BYTES;
+    private static final int ARCHITECTURE_COMPONENT_ID = 3 << 2 | BYTES;
+    private static final int ARCHITECTURE_COMPONENT = 4 << 2 | MESSAGE;
+    private static final int ARCHITECTURE_LINK_ID = 5 << 2 | BYTES;
+    private static final int ARCHITECTURE_LINK = 6 << 2 | MESSAGE;
+
+    // Heuristic profiles hold one FIXED64 field per set score, numbered parameter ordinal + 1
+
+    // Property maps hold entry messages (a key and one value field); lists hold value fields
+    private static final int ENTRY = 1 << 2 | MESSAGE;
+    private static final int ENTRY_KEY = 1 << 2 | BYTES;
+    private static final int VALUE_NULL = 2 << 2 | VARINT;
+    private static final int VALUE_STRING = 3 << 2 | BYTES;
+    private static final int VALUE_BOOLEAN = 4 << 2 | VARINT;
+    private static final int VALUE_LONG = 5 << 2 | VARINT;
+    private static final int VALUE_DOUBLE = 6 << 2 | FIXED64;
+    private static final int VALUE_LIST = 7 << 2 | MESSAGE;
+    private static final int VALUE_MAP = 8 << 2 | MESSAGE;
+
+    private TaggedEntityCodec() {}
+
+    /**
+     * Write components, then links, then architectures as a self-contained document. Links and
+     * architectures refer to objects written earlier in it by id; anything else is embedded.
+     */
+    public static void writeDocument(BinaryWriter out, Collection<Component> components,
+                                     Collection<Link> links, Collection<Architecture> architectures) {
+        writeDocument(out, components, links, architectures, () -> {});
+    }
+
+    private static void writeDocument(BinaryWriter out, Collection<Component> components,
+                                      Collection<Link> links, Collection<Architecture> architectures,
+                                      Runnable recordWritten) {
+        out.writeBytes(MAGIC, 0, MAGIC.length);
+        out.writeVarInt(FORMAT_VERSION);
+        Map<String, Component> writtenComponents = new HashMap<>();
+        for (Component component : components) {
+            out.writeVarInt(DOCUMENT_COMPONENT);
+            writeComponent(out, component);
+            writtenComponents.putIfAbsent(component.getId(), component);
+            recordWritten.run();
+        }
+        Map<String, Link> writtenLinks = new HashMap<>();
+        for (Link link : links) {
+            out.writeVarInt(DOCUMENT_LINK);
+            writeLink(out, link, writtenComponents::get);
+            writtenLinks.putIfAbsent(link.getId(), link);
+            recordWritten.run();
+        }
+        for (Architecture architecture : architectures) {
+            out.writeVarInt(DOCUMENT_ARCHITECTURE);
+            writeArchitecture(out, architecture, writtenComponents::get, writtenLinks::get);
+            recordWritten.run();
+        }
+        out.writeVarInt(END);
+    }
+
+    /**
+     * Write architectures as a document holding each component and link once, including link
+     * endpoints outside the architectures
+     */
+    public static void writeArchitectures(BinaryWriter out, Collection<Architecture> architectures) {
+        writeArchitectures(out, architectures, () -> {});
+    }
+
+    /**
+     * Stream architectures as in {@link #writeArchitectures(BinaryWriter, Collection)}, buffering
+     * only the records not yet handed to {@code out}
+     */
+    public static void writeArchitectures(OutputStream out, Collection<Architecture> architectures) throws IOException {
+        BinaryWriter buffer = new BinaryWriter(FLUSH_BYTES + FLUSH_BYTES / 4);
+        try {
+            writeArchitectures(buffer, architectures, () -> {
+                if (buffer.size() >= FLUSH_BYTES) {
+                    flush(buffer, out);
+                }
+            });
+            flush(buffer, out);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void flush(BinaryWriter buffer, OutputStream out) {
+        try {
+            out.write(buffer.buffer(), 0, buffer.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.reset();
+    }
+
+    private static void writeArchitectures(BinaryWriter out, Collection<Architecture> architectures,
+                                           Runnable recordWritten) {
+        List<Architecture> snapshots = new ArrayList<>(architectures.size());
+        Map<String, Component> components = new LinkedHashMap<>();
+        Map<String, Link> links = new LinkedHashMap<>();
+        for (Architecture architecture : architectures) {
+            Architecture snapshot = architecture.snapshot();
+            snapshots.add(snapshot);
+            for (Component component : snapshot.getComponents()) {
+                components.putIfAbsent(component.getId(), component);
+            }
+            for (Link link : snapshot.getLinks()) {
+                links.putIfAbsent(link.getId(), link);
+            }
+        }
+        writeDocument(out, withEndpoints(components, links.values()), links.values(), snapshots, recordWritten);
+    }
+
+    /**
+     * Write links and their endpoints as a document
+     */
+    public static void writeLinks(BinaryWriter out, Collection<Link> links) {
+        writeDocument(out, withEndpoints(new LinkedHashMap<>(), links), links, Collections.emptyList());
+    }
+
+    /**
+     * Read a document. Link endpoints and architecture members given by id resolve against the
+     * components and links read before them, then against {@code stored}. Components and links
+     * embedded in links or architectures are listed in the document like top-level ones; stored
+     * components are not.
+     */
+    public static Document readDocument(BinaryReader in, Function<String, Component> stored) {
+        for (byte b : MAGIC) {
+            if (in.readByte() != (b & 0xFF)) {
+                throw new IllegalArgumentException("Not an architecture document");
+            }
+        }
+        int version = in.readVarInt();
+        if (version > FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported architecture document version " + version);
+        }
+        Document document = new Document(stored);
+        int key;
+        while ((key = in.readVarInt()) != END) {
+            switch (key) {
+                case DOCUMENT_COMPONENT: {
+                    Component component = readComponent(in);
+                    if (component.getId() == null) {
+                        throw new IllegalArgumentException("Component without an id");
+                    }
+                    if (document.componentsById.putIfAbsent(component.getId(), component) == null) {
+                        document.components.add(component);
+                    }
+                    break;
+                }
+                case DOCUMENT_LINK: {
+                    Link link = readLink(in, document::resolve);
+                    if (link.getId() == null || !document.linksById.containsKey(link.getId())) {
+                        document.addLink(link);
+                    }
+                    break;
+                }
+                case DOCUMENT_ARCHITECTURE: {
+                    Architecture architecture = readArchitecture(in, document::resolve, document.linksById::get);
+                    for (Component component : architecture.getComponents()) {
+                        document.addEmbedded(component);
+                    }
+                    for (Link link : architecture.getLinks()) {
+                        if (link.getId() == null || document.linksById.get(link.getId()) != link) {
+                            document.addLink(link);
+                        }
+                    }
+                    document.architectures.add(architecture);
+                    break;
+                }
+                default:
+                    skip(in, key);
+            }
+        }
+        return document;
+    }
+
+    public static void writeComponent(BinaryWriter out, Component component) {
+        if (component.getType() != null) {
+            out.writeVarInt(COMPONENT_TYPE).writeVarInt(component.getType().ordinal());
+        }
+        writeString(out, COMPONENT_ID, component.getId());
+        writeString(out, COMPONENT_NAME, component.getName());
+        Enum<?> subtype = CompiledHeuristics.subtypeOf(component);
+        writeString(out, COMPONENT_SUBTYPE, subtype != null ? subtype.name() : null);
+        writeProfile(out, COMPONENT_HEURISTICS, component.getHeuristics());
+        writeProperties(out, COMPONENT_PROPERTIES, component.getProperties());
+        out.writeVarInt(END);
+    }
+
+    public static Component readComponent(BinaryReader in) {
+        ComponentType type = ComponentType.EXTERNAL_SERVICE;
+        String id = null;
+        String name = null;
+        String subtype = null;
+        HeuristicProfile heuristics = null;
+        Map<String, Object> properties = null;
+        int key;
+        while ((key = in.readVarInt()) != END) {
+            switch (key) {
+                case COMPONENT_TYPE: {
+                    int ordinal = in.readVarInt();
+                    if (ordinal < 0) {
+                        throw new IllegalArgumentException("Invalid component type " + ordinal);
+                    }
+                    type = ordinal < COMPONENT_TYPES.length ? COMPONENT_TYPES[ordinal] : ComponentType.EXTERNAL_SERVICE;
+                    break;
+                }
+                case COMPONENT_ID:
+                    id = in.readString();
+                    break;
+                case COMPONENT_NAME:
+                    name = in.readString();
+                    break;
+                case COMPONENT_SUBTYPE:
+                    subtype = in.readString();
+                    break;
+                case COMPONENT_HEURISTICS:
+                    heuristics = readProfile(in);
+                    break;
+                case COMPONENT_PROPERTIES:
+                    properties = readMap(in, new HashMap<>(), 0);
+                    break;
+                default:
+                    skip(in, key);
+            }
+        }
+        Component component = EntityCodec.newComponent(type, id, name, subtype);
+        if (heuristics != null) {
+            component.setHeuristics(heuristics);
+        }
+        if (properties != null) {
+            component.setProperties(properties);
+        }
+        return component;
+    }
+
+    /**
+     * Write a link; its endpoints are written by id when {@code stored} returns the same
+     * instance for their id, else embedded
+     */
+    public static void writeLink(BinaryWriter out, Link link, Function<String, Component> stored) {
+        writeString(out, LINK_ID, link.getId());
+        if (link.getType() != null) {
+            out.writeVarInt(LINK_TYPE).writeVarInt(link.getType().ordinal());
+        }
+        writeComponentRef(out, LINK_SOURCE_ID, LINK_SOURCE, link.getSource(), stored);
+        writeComponentRef(out, LINK_TARGET_ID, LINK_TARGET, link.getTarget(), stored);
+        writeProfile(out, LINK_HEURISTICS, link.getHeuristics());
+        writeProperties(out, LINK_PROPERTIES, link.getProperties());
+        out.writeVarInt(END);
+    }
+
+    public static Link readLink(BinaryReader in, Function<String, Component> resolve) {
+        Link link = new Link();
+        int key;
+        while ((key = in.readVarInt()) != END) {
+            switch (key) {
+                case LINK_ID:
+                    link.setId(in.readString());
+                    break;
+                case LINK_TYPE: {
+                    int ordinal = in.readVarInt();
+                    if (ordinal < 0) {
+                        throw new IllegalArgumentException("Invalid link type " + ordinal);
+                    }
+                    link.setType(ordinal < LINK_TYPES.length ? LINK_TYPES[ordinal] : null);
+                    break;
+                }
+                case LINK_SOURCE_ID:
+                    link.setSource(resolveComponent(in.readString(), resolve));
+                    break;
+                case LINK_SOURCE:
+                    link.setSource(readComponent(in));
+                    break;
+                case LINK_TARGET_ID:
+                    link.setTarget(resolveComponent(in.readString(), resolve));
+                    break;
+                case LINK_TARGET:
+                    link.setTarget(readComponent(in));
+                    break;
+                case LINK_HEURISTICS:
+                    link.setHeuristics(readProfile(in));
+                    break;
+                case LINK_PROPERTIES:
+                    link.setProperties(readMap(in, new HashMap<>(), 0));
+                    break;
+                default:
+                    skip(in, key);
+            }
+        }
+        return link;
+    }
+
+    public static void writeArchitecture(BinaryWriter out, Architecture architecture,
+                                         Function<String, Component> storedComponents,
+                                         Function<String, Link> storedLinks) {
+        // Components and links of one version, even if the architecture is being edited
+        Architecture version = architecture.snapshot();
+        writeString(out, ARCHITECTURE_ID, version.getId());
+        writeString(out, ARCHITECTURE_NAME, version.getName());
+        // A component embedded once is referenced by id for the rest of the architecture
+        Map<String, Component> written = new HashMap<>();
+        Function<String, Component> known = id -> {
+            Component component = written.get(id);
+            return component != null ? component : storedComponents.apply(id);
+        };
+        for (Component component : version.getComponents()) {
+            writeComponentRef(out, ARCHITECTURE_COMPONENT_ID, ARCHITECTURE_COMPONENT, component, known);
+            remember(written, component);
+        }
+        for (Link link : version.getLinks()) {
+            if (link.getId() != null && storedLinks.apply(link.getId()) == link) {
+                writeString(out, ARCHITECTURE_LINK_ID, link.getId());
+            } else {
+                out.writeVarInt(ARCHITECTURE_LINK);
+                writeLink(out, link, known);
+                remember(written, link.getSource());
+                remember(written, link.getTarget());
+            }
+        }
+        out.writeVarInt(END);
+    }
+
+    public static Architecture readArchitecture(BinaryReader in,
+                                                Function<String, Component> components,
+                                                Function<String, Link> links) {
+        Architecture architecture = new Architecture();
+        List<Component> componentList = new ArrayList<>();
+        List<Link> linkList = new ArrayList<>();
+        Map<String, Component> read = new HashMap<>();
+        Function<String, Component> known = id -> {
+            Component component = read.get(id);
+            return component != null ? component : components.apply(id);
+        };
+        int key;
+        while ((key = in.readVarInt()) != END) {
+            switch (key) {
+                case ARCHITECTURE_ID:
+                    architecture.setId(in.readString());
+                    break;
+                case ARCHITECTURE_NAME:
+                    architecture.setName(in.readString());
+                    break;
+                case ARCHITECTURE_COMPONENT_ID:
+                    componentList.add(resolveComponent(in.readString(), known));
+                    break;
+                case ARCHITECTURE_COMPONENT: {
+                    Component component = readComponent(in);
+                    remember(read, component);
+                    componentList.add(component);
+                    break;
+                }
+                case ARCHITECTURE_LINK_ID: {
+                    String id = in.readString();
+                    Link link = links.apply(id);
+                    if (link == null) {
+                        throw new IllegalArgumentException("Unresolved link reference " + id);
+                    }
+                    linkList.add(link);
+                    break;
+                }
+                case ARCHITECTURE_LINK: {
+                    Link link = readLink(in, known);
+                    remember(read, link.getSource());
+                    remember(read, link.getTarget());
+                    linkList.add(link);
+                    break;
+                }
+                default:
+                    skip(in, key);
+            }
+        }
+        architecture.setComponents(componentList);
+        architecture.setLinks(linkList);
+        return architecture;
+    }
+
+    private static void remember(Map<String, Component> components, Component component) {
+        if (component != null && component.getId() != null) {
+            components.putIfAbsent(component.getId(), component);
+        }
+    }
+
+    private static void writeProfile(BinaryWriter out, int key, HeuristicProfile profile) {
+        if (profile == null) {
+            return;
+        }
+        out.writeVarInt(key);
+        for (int i = 0; i < HeuristicProfile.PARAMETER_COUNT; i++) {
+            double score = profile.scoreAt(i);
+            if (!Double.isNaN(score)) {
+                out.writeVarInt((i + 1) << 2 | FIXED64).writeDouble(score);
+            }
+        }
+        out.writeVarInt(END);
+    }
+
+    private static HeuristicProfile readProfile(BinaryReader in) {
+        HeuristicProfile profile = new HeuristicProfile();
+        int key;
+        while ((key = in.readVarInt()) != END) {
+            int ordinal = (key >>> 2) - 1;
+            if (ordinal < 0) {
+                throw new IllegalArgumentException("Invalid heuristic field key " + key);
+            }
+            if ((key & 3) == FIXED64 && ordinal < PARAMETERS.length) {
+                profile.setScore(PARAMETERS[ordinal], in.readDouble());
+            } else {
+                // Including parameters this build does not know
+                skip(in, key);
+            }
+        }
+        return profile;
+    }
+
+    private static void writeProperties(BinaryWriter out, int key, Map<String, Object> properties) {
+        if (properties != null) {
+            out.writeVarInt(key);
+            writeEntries(out, properties);
+        }
+    }
+
+    private static void writeEntries(BinaryWriter out, Map<?, ?> map) {
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            out.writeVarInt(ENTRY);
+            writeString(out, ENTRY_KEY, String.valueOf(entry.getKey()));
+            writeValue(out, entry.getValue());
+            out.writeVarInt(END);
+        }
+        out.writeVarInt(END);
+    }
+
+    /**
+     * Write a JSON-like property value as one value field; anything else is stored as its string form
+     */
+    private static void writeValue(BinaryWriter out, Object value) {
+        if (value == null) {
+            out.writeVarInt(VALUE_NULL).writeVarInt(0);
+        } else if (value instanceof String) {
+            out.writeVarInt(VALUE_STRING).writeString((String) value);
+        } else if (value instanceof Boolean) {
+            out.writeVarInt(VALUE_BOOLEAN).writeBoolean((Boolean) value);
+        } else if (value instanceof Integer || value instanceof Long
+                || value instanceof Short || value instanceof Byte) {
+            out.writeVarInt(VALUE_LONG).writeSignedVarLong(((Number) value).longValue());
+        } else if (value instanceof Number) {
+            out.writeVarInt(VALUE_DOUBLE).writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof Collection) {
+            out.writeVarInt(VALUE_LIST);
+            for (Object element : (Collection<?>) value) {
+                writeValue(out, element);
+            }
+            out.writeVarInt(END);
+        } else if (value instanceof Map) {
+            out.writeVarInt(VALUE_MAP);
+            writeEntries(out, (Map<?, ?>) value);
+        } else {
+            out.writeVarInt(VALUE_STRING).writeString(value.toString());
+        }
+    }
+
+    private static Map<String, Object> readMap(BinaryReader in, Map<String, Object> map, int depth) {
+        int inner = deeper(depth);
+        int key;
+        while ((key = in.readVarInt()) != END) {
+            if (key != ENTRY) {
+                skip(in, key, inner);
+                continue;
+            }
+            String name = null;
+            Object value = null;
+            int field;
+            while ((field = in.readVarInt()) != END) {
+                if (field == ENTRY_KEY) {
+                    name = in.readString();
+                } else if (isValue(field)) {
+                    value = readValue(in, field, inner);
+                } else {
+                    skip(in, field, inner);
+                }
+            }
+            if (name != null) {
+                map.put(name, value);
+            }
+        }
+        return map;
+    }
+
+    private static boolean isValue(int key) {
+        switch (key) {
+            case VALUE_NULL:
+            case VALUE_STRING:
+            case VALUE_BOOLEAN:
+            case VALUE_LONG:
+            case VALUE_DOUBLE:
+            case VALUE_LIST:
+            case VALUE_MAP:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static Object readValue(BinaryReader in, int key, int depth) {
+        switch (key) {
+            case VALUE_NULL:
+                in.readVarInt();
+                return null;
+            case VALUE_STRING:
+                return in.readString();
+            case VALUE_BOOLEAN:
+                return in.readVarInt() != 0;
+            case VALUE_LONG: {
+                long value = in.readSignedVarLong();
+                // Jackson reads small integers as Integer; keep the same types after a round trip
+                return value == (int) value ? (Object) (int) value : (Object) value;
+            }
+            case VALUE_DOUBLE:
+                return in.readDouble();
+            case VALUE_LIST: {
+                List<Object> list = new ArrayList<>();
+                int inner = deeper(depth);
+                int element;
+                while ((element = in.readVarInt()) != END) {
+                    if (isValue(element)) {
+                        list.add(readValue(in, element, inner));
+                    } else {
+                        // A value kind this build does not know
+                        skip(in, element, inner);
+                    }
+                }
+                return list;
+            }
+            case VALUE_MAP:
+                return readMap(in, new LinkedHashMap<>(), depth);
+            default:
+                throw new IllegalArgumentException("Unknown property value key " + key);
+        }
+    }
+
+    private static void writeComponentRef(BinaryWriter out, int idKey, int embeddedKey, Component component,
+                                          Function<String, Component> stored) {
+        if (component == null) {
+            return;
+        }
+        if (component.getId() != null && stored.apply(component.getId()) == component) {
+            writeString(out, idKey, component.getId());
+        } else {
+            out.writeVarInt(embeddedKey);
+            writeComponent(out, component);
+        }
+    }
+
+    private static Component resolveComponent(String id, Function<String, Component> resolve) {
+        Component component = id != null ? resolve.apply(id) : null;
+        if (component == null) {
+            throw new IllegalArgumentException("Unresolved component reference " + id);
+        }
+        return component;
+    }
+
+    private static Collection<Component> withEndpoints(Map<String, Component> components, Collection<Link> links) {
+        for (Link link : links) {
+            for (Component endpoint : Arrays.asList(link.getSource(), link.getTarget())) {
+                if (endpoint != null) {
+                    components.putIfAbsent(endpoint.getId(), endpoint);
+                }
+            }
+        }
+        return components.values();
+    }
+
+    private static void writeString(BinaryWriter out, int key, String value) {
+        if (value != null) {
+            out.writeVarInt(key).writeString(value);
+        }
+    }
+
+    /**
+     * Skip the value of a field this build does not know
+     */
+    private static void skip(BinaryReader in, int key) {
+        skip(in, key, 0);
+    }
+
+    private static void skip(BinaryReader in, int key, int depth) {
+        switch (key & 3) {
+            case VARINT:
+                in.readVarLong();
+                break;
+            case FIXED64:
+                in.skip(8);
+                break;
+            case BYTES: {
+                int length = in.readVarInt();
+                if (length > 0) {
+                    in.skip(length - 1);
+                }
+                break;
+            }
+            default: {
+                int inner = deeper(depth);
+                int field;
+                while ((field = in.readVarInt()) != END) {
+                    skip(in, field, inner);
+                }
+            }
+        }
+    }
+
+    private static int deeper(int depth) {
+        if (depth >= MAX_DEPTH) {
+            throw new IllegalArgumentException("Binary input nested deeper than " + MAX_DEPTH + " levels");
+        }
+        return depth + 1;
+    }
+
+    /**
+     * Components, links and architectures read from a document, in document order
+     */
+    public static final class Document {
+        private final List<Component> components = new ArrayList<>();
+        private final List<Link> links = new ArrayList<>();
+        private final List<Architecture> architectures = new ArrayList<>();
+        private final Map<String, Component> componentsById = new HashMap<>();
+        private final Map<String, Link> linksById = new HashMap<>();
+        private final Function<String, Component> stored;
+
+        private Document(Function<String, Component> stored) {
+            this.stored = stored;
+        }
+
+        public List<Component> getComponents() { return components; }
+        public List<Link> getLinks() { return links; }
+        public List<Architecture> getArchitectures() { return architectures; }
+
+        private Component resolve(String id) {
+            Component component = componentsById.get(id);
+            return component != null ? component : stored.apply(id);
+        }
+
+        private void addLink(Link link) {
+            if (link.getId() == null) {
+                link.setId(UUID.randomUUID().toString());
+            } else if (linksById.containsKey(link.getId())) {
+                throw new IllegalArgumentException("Link " + link.getId() + " is defined twice");
+            }
+            linksById.put(link.getId(), link);
+            links.add(link);
+            addEmbedded(link.getSource());
+            addEmbedded(link.getTarget());
+        }
+
+        /**
+         * List a component that was embedded rather than referenced, unless it is a stored one
+         */
+        private void addEmbedded(Component component) {
+            if (component == null || componentsById.get(component.getId()) == component
+                    || (component.getId() != null && stored.apply(component.getId()) == component)) {
+                return;
+            }
+            if (component.getId() == null) {
+                throw new IllegalArgumentException("Component without an id");
+            }
+            if (componentsById.putIfAbsent(component.getId(), component) != null) {
+                throw new IllegalArgumentException("Component " + component.getId() + " is defined twice");
+            }
+            components.add(component);
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.systemsimulator.utils;
+
+import com.systemsimulator.model.*;
+
+import java.util.*;
+
+/**
+ * Maximum request rate an architecture can sustain, as a max flow over the synchronous
+ * request links (API_CALL, CACHE_LOOKUP, DATABASE_QUERY).
+ *
+ * Every component is split into an in-node and an out-node joined by an arc of its capacity
+ * ({@code instances} x 1000 / {@code serviceTimeMs}); each link is an arc of its
+ * {@code bandwidth} (unbounded by default). Requests enter at the clients (or, without
+ * clients, at components nothing calls) and leave wherever they can end: components with no
+ * onward request link, and caches. The max flow is found with Dinic's algorithm and the
+ * saturated arcs leaving the source side of the residual graph form the minimum cut, i.e. the
+ * components and links that actually limit throughput.
+ */
+public final class ThroughputAnalyzer {
+    private static final double EPSILON = 1e-9;
+
+    private ThroughputAnalyzer() {}
+
+    public static ThroughputReport analyze(List<com.systemsimulator.model.Component> components, List<Link> links) {
+        long startNanos = System.nanoTime();
+        int n = components != null ? components.size() : 0;
+        if (n == 0) {
+            return new ThroughputReport(0.0, true, Collections.emptyList(), Collections.emptyList(),
+                    Collections.emptyList(), 0L);
+        }
+
+        Map<String, Integer> indexById = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            indexById.putIfAbsent(components.get(i).getId(), i);
+        }
+
+        int linkCount = links != null ? links.size() : 0;
+        int[] linkSource = new int[linkCount];
+        int[] linkTarget = new int[linkCount];
+        boolean[] hasIncoming = new boolean[n];
+        boolean[] hasOutgoing = new boolean[n];
+        for (int l = 0; l < linkCount; l++) {
+            Link link = links.get(l);
+            Integer source = link.getSource() != null ? indexById.get(link.getSource().getId()) : null;
+            Integer target = link.getTarget() != null ? indexById.get(link.getTarget().getId()) : null;
+            if (source == null || target == null || !CapacityProperties.isRequestLink(link)) {
+                linkSource[l] = -1;
+                continue;
+            }
+            linkSource[l] = source;
+            linkTarget[l] = target;
+            hasOutgoing[source] = true;
+            hasIncoming[target] = true;
+        }
+
+        boolean hasClient = false;
+        for (com.systemsimulator.model.Component component : components) {
+            hasClient |= component.getType() == ComponentType.CLIENT;
+        }
+
+        // Nodes: in(i) = i, out(i) = n + i, source = 2n, sink = 2n + 1
+        FlowNetwork network = new FlowNetwork(2 * n + 2, 2 * (n + linkCount) + 2 * n);
+        int source = 2 * n;
+        int sink = 2 * n + 1;
+        double[] nodeCapacity = new double[n];
+        int[] nodeArc = new int[n];
+        double finiteTotal = 0.0;
+        for (int i = 0; i < n; i++) {
+            nodeCapacity[i] = CapacityProperties.capacityPerSecond(components.get(i));
+            if (Double.isFinite(nodeCapacity[i])) {
+                finiteTotal += nodeCapacity[i];
+            }
+        }
+        double[] bandwidth = new double[linkCount];
+        for (int l = 0; l < linkCount; l++) {
+            if (linkSource[l] >= 0) {
+                bandwidth[l] = CapacityProperties.bandwidthPerSecond(links.get(l));
+                if (Double.isFinite(bandwidth[l])) {
+                    finiteTotal += bandwidth[l];
+                }
+            }
+        }
+        // Anything above the sum of all finite capacities can only come from an unbounded path
+        double unbounded = finiteTotal + 1.0;
+
+        for (int i = 0; i < n; i++) {
+            nodeArc[i] = network.addArc(i, n + i, Math.min(nodeCapacity[i], unbounded));
+            com.systemsimulator.model.Component component = components.get(i);
+            boolean isClient = component.getType() == ComponentType.CLIENT;
+            boolean entry = hasClient ? isClient : hasOutgoing[i] && !hasIncoming[i];
+            if (entry) {
+                network.addArc(source, i, unbounded);
+            }
+            boolean exit = !isClient && hasIncoming[i]
+                    && (!hasOutgoing[i] || component.getType() == ComponentType.CACHE);
+            if (exit) {
+                network.addArc(n + i, sink, unbounded);
+            }
+        }
+        int[] linkArc = new int[linkCount];
+        for (int l = 0; l < linkCount; l++) {
+            linkArc[l] = linkSource[l] >= 0
+                    ? network.addArc(n + linkSource[l], linkTarget[l], Math.min(bandwidth[l], unbounded))
+                    : -1;
+        }
+
+        double maxFlow = network.maxFlow(source, sink);
+        boolean bounded = maxFlow < unbounded - EPSILON;
+
+        List<ComponentFlow> flows = new ArrayList<>(n);
+        List<ComponentFlow> cutComponents = new ArrayList<>();
+        List<LinkFlow> cutLinks = new ArrayList<>();
+        boolean[] reachable = bounded ? network.residualReachable(source) : new boolean[2 * n + 2];
+        for (int i = 0; i < n; i++) {
+            com.systemsimulator.model.Component component = components.get(i);
+            double flow = network.flow(nodeArc[i]);
+            boolean onCut = reachable[i] && !reachable[n + i];
+            ComponentFlow componentFlow = new ComponentFlow(component.getId(), component.getName(),
+                    component.getType(), nodeCapacity[i], flow, onCut);
+            flows.add(componentFlow);
+            if (onCut) {
+                cutComponents.add(componentFlow);
+            }
+        }
+        for (int l = 0; l < linkCount; l++) {
+            if (linkArc[l] >= 0 && reachable[n + linkSource[l]] && !reachable[linkTarget[l]]) {
+                Link link = links.get(l);
+                cutLinks.add(new LinkFlow(link.getId(), link.getSource().getId(), link.getTarget().getId(),
+                        bandwidth[l], network.flow(linkArc[l])));
+            }
+        }
+        flows.sort((a, b) -> Double.compare(b.getUtilization(), a.getUtilization()));
+
+        return new ThroughputReport(bounded ? maxFlow : Double.POSITIVE_INFINITY, bounded,
+                cutComponents, cutLinks, flows, (System.nanoTime() - startNanos) / 1000L);
+    }
+
+    /**
+     * Residual graph for Dinic's algorithm; arc a and a ^ 1 are each other's reverse
+     */
+    private static final class FlowNetwork {
+        private final int nodeCount;
+        private final int[] head;
+        private int[] next;
+        private int[] to;
+        private double[] capacity;
+        private double[] residual;
+        private int arcCount;
+
+        private FlowNetwork(int nodeCount, int expectedArcs) {
+            this.nodeCount = nodeCount;
+            this.head = new int[nodeCount];
+            Arrays.fill(head, -1);
+            this.next = new int[expectedArcs];
+            this.to = new int[expectedArcs];
+            this.capacity = new double[expectedArcs];
+            this.residual = new double[expectedArcs];
+        }
+
+        private int addArc(int from, int target, double cap) {
+            if (arcCount + 2 > to.length) {
+                int size = Math.max(16, to.length * 2);
+                next = Arrays.copyOf(next, size);
+                to = Arrays.copyOf(to, size);
+                capacity = Arrays.copyOf(capacity, size);
+                residual = Arrays.copyOf(residual, size);
+            }
+            int arc = arcCount;
+            link(arc, from, target, cap);
+            link(arc + 1, target, from, 0.0);
+            arcCount += 2;
+            return arc;
+        }
+
+        private void link(int arc, int from, int target, double cap) {
+            to[arc] = target;
+            capacity[arc] = cap;
+            residual[arc] = cap;
+            next[arc] = head[from];
+            head[from] = arc;
+        }
+
+        private double flow(int arc) {
+            return capacity[arc] - residual[arc];
+        }
+
+        private double maxFlow(int source, int sink) {
+            double total = 0.0;
+            int[] level = new int[nodeCount];
+            int[] current = new int[nodeCount];
+            int[] path = new int[nodeCount];
+            while (buildLevels(source, sink, level)) {
+                System.arraycopy(head, 0, current, 0, nodeCount);
+                total += blockingFlow(source, sink, level, current, path);
+            }
+            return total;
+        }
+
+        private boolean buildLevels(int source, int sink, int[] level) {
+            Arrays.fill(level, -1);
+            int[] queue = new int[nodeCount];
+            int tail = 0;
+            queue[tail++] = source;
+            level[source] = 0;
+            for (int headIndex = 0; headIndex < tail; headIndex++) {
+                int node = queue[headIndex];
+                for (int arc = head[node]; arc >= 0; arc = next[arc]) {
+                    if (residual[arc] > EPSILON && level[to[arc]] < 0) {
+                        level[to[arc]] = level[node] + 1;
+                        queue[tail++] = to[arc];
+                    }
+                }
+            }
+            return level[sink] >= 0;
+        }
+
+        /**
+         * Iterative DFS over the level graph so long request chains cannot overflow the stack
+         */
+        private double blockingFlow(int source, int sink, int[] level, int[] current, int[] path) {
+            double total = 0.0;
+            int depth = 0;
+            int node = source;
+            while (true) {
+                if (node == sink) {
+                    double push = Double.POSITIVE_INFINITY;
+                    for (int k = 0; k < depth; k++) {
+                        push = Math.min(push, residual[path[k]]);
+                    }
+                    int firstSaturated = -1;
+                    for (int k = 0; k < depth; k++) {
+                        residual[path[k]] -= push;
+                        residual[path[k] ^ 1] += push;
+                        if (firstSaturated < 0 && residual[path[k]] <= EPSILON) {
+                            firstSaturated = k;
+                        }
+                    }
+                    total += push;
+                    depth = firstSaturated;
+                    node = depth == 0 ? source : to[path[depth - 1]];
+                    continue;
+                }
+                int arc = current[node];
+                while (arc >= 0 && (residual[arc] <= EPSILON || level[to[arc]] != level[node] + 1)) {
+                    arc = next[arc];
+                }
+                current[node] = arc;
+                if (arc >= 0) {
+                    path[depth++] = arc;
+                    node = to[arc];
+                    continue;
+                }
+                // Dead end: retreat and skip the arc that led here
+                level[node] = -1;
+                if (depth == 0) {
+                    return total;
+                }
+                int back = path[--depth];
+                node = to[back ^ 1];
+                current[node] = next[current[node]];
+            }
+        }
+
+        private boolean[] residualReachable(int source) {
+            boolean[] seen = new boolean[nodeCount];
+            int[] stack = new int[nodeCount];
+            int size = 0;
+            stack[size++] = source;
+            seen[source] = true;
+            while (size > 0) {
+                int node = stack[--size];
+                for (int arc = head[node]; arc >= 0; arc = next[arc]) {
+                    if (residual[arc] > EPSILON && !seen[to[arc]]) {
+                        seen[to[arc]] = true;
+                        stack[size++] = to[arc];
+                    }
+                }
+            }
+            return seen;
+        }
+    }
+
+    // ==================== Results ====================
+
+    public static class ComponentFlow {
+        private final String componentId;
+        private final String componentName;
+        private final ComponentType componentType;
+        private final double capacityPerSecond;
+        private final double flowPerSecond;
+        private final boolean onMinCut;
+
+        public ComponentFlow(String componentId, String componentName, ComponentType componentType,
+                             double capacityPerSecond, double flowPerSecond, boolean onMinCut) {
+            this.componentId = componentId;
+            this.componentName = componentName;
+            this.componentType = componentType;
+            this.capacityPerSecond = capacityPerSecond;
+            this.flowPerSecond = flowPerSecond;
+            this.onMinCut = onMinCut;
+        }
+
+        public String getComponentId() { return componentId; }
+        public String getComponentName() { return componentName; }
+        public ComponentType getComponentType() { return componentType; }
+        public double getCapacityPerSecond() { return capacityPerSecond; }
+        /** Requests per second through this component at maximum system throughput */
+        public double getFlowPerSecond() { return flowPerSecond; }
+        public double getUtilization() {
+            return capacityPerSecond > 0 && Double.isFinite(capacityPerSecond) ? flowPerSecond / capacityPerSecond : 0.0;
+        }
+        public boolean isOnMinCut() { return onMinCut; }
+    }
+
+    public static class LinkFlow {
+        private final String linkId;
+        private final String sourceId;
+        private final String targetId;
+        private final double bandwidthPerSecond;
+        private final double flowPerSecond;
+
+        public LinkFlow(String linkId, String sourceId, String targetId,
+                        double bandwidthPerSecond, double flowPerSecond) {
+            this.linkId = linkId;
+            this.sourceId = sourceId;
+            this.targetId = targetId;
+            this.bandwidthPerSecond = bandwidthPerSecond;
+            this.flowPerSecond = flowPerSecond;
+        }
+
+        public String getLinkId() { return linkId; }
+        public String getSourceId() { return sourceId; }
+        public String getTargetId() { return targetId; }
+        public double getBandwidthPerSecond() { return bandwidthPerSecond; }
+        public double getFlowPerSecond() { return flowPerSecond; }
+    }
+
+    public static class ThroughputReport {
+        private final double maxThroughputPerSecond;
+        private final boolean bounded;
+        private final List<ComponentFlow> minCutComponents;
+        private final List<LinkFlow> minCutLinks;
+        private final List<ComponentFlow> components;
+        private final long solveMicros;
+
+        public ThroughputReport(double maxThroughputPerSecond, boolean bounded,
+                                List<ComponentFlow> minCutComponents, List<LinkFlow> minCutLinks,
+                                List<ComponentFlow> components, long solveMicros) {
+            this.maxThroughputPerSecond = maxThroughputPerSecond;
+            this.bounded = bounded;
+            this.minCutComponents = minCutComponents;
+            this.minCutLinks = minCutLinks;
+            this.components = components;
+            this.solveMicros = solveMicros;
+        }
+
+        /** Highest request rate the clients can push through to where requests end */
+        public double getMaxThroughputPerSecond() { return maxThroughputPerSecond; }
+        /** False if some request path has no finite capacity anywhere */
+        public boolean isBounded() { return bounded; }
+        /** Components whose combined capacity equals the maximum throughput */
+        public List<ComponentFlow> getMinCutComponents() { return minCutComponents; }
+        public List<LinkFlow> getMinCutLinks() { return minCutLinks; }
+        /** All components, most utilized first */
+        public List<ComponentFlow> getComponents() { return components; }
+        public long getSolveMicros() { return solveMicros; }
+    }
+}
@@ -0,0 +1,394 @@
+package com.systemsimulator.utils;
+
+import com.systemsimulator.model.Parameter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * How architecture rankings respond to changes in the parameter weights.
+ *
+ * The weighted score of an architecture is (w . s) / (w . 1) * c, where s are its parameter
+ * scores and c its connectivity and complexity factors, so for A architectures and M weight
+ * vectors all scores are one matrix product. Architectures are scaled once (v = s * c) and the
+ * weights are transposed so the innermost loop runs over contiguous weight samples, which the
+ * JIT vectorizes. Samples are read from a {@link WeightSamples} source and processed in
+ * blocks, so memory stays at O(A * block) however many samples a sweep has. Each sample's
+ * ranking is a merge sort of the previous one: O(A) when little changed, O(A log A) at worst.
+ *
+ * Because the sign of score(a) - score(b) only depends on w . (v_a - v_b), which is linear in
+ * each single weight, break-even weights between neighbours in the baseline ranking are exact.
+ */
+public final class WeightSensitivityAnalyzer {
+    private static final Parameter[] PARAMETERS = Parameter.values();
+    private static final int BLOCK_SIZE = 1024;
+
+    private final String[] ids;
+    private final String[] names;
+    private final double[][] scaledScores;
+
+    /**
+     * @param scaledScores per architecture, parameter scores already multiplied by its
+     *                     connectivity score and complexity penalty
+     */
+    public WeightSensitivityAnalyzer(String[] ids, String[] names, double[][] scaledScores) {
+        this.ids = ids;
+        this.names = names;
+        this.scaledScores = scaledScores;
+    }
+
+    /**
+     * Weighted score of every architecture for every weight vector: result[a][m]
+     */
+    public double[][] scores(double[][] weightVectors) {
+        int count = weightVectors.length;
+        double[][] result = new double[ids.length][count];
+        double[][] transposed = transpose(weightVectors, 0, count);
+        double[] totals = totals(transposed, count);
+        for (int a = 0; a < ids.length; a++) {
+            multiply(scaledScores[a], transposed, totals, count, result[a]);
+        }
+        return result;
+    }
+
+    public SensitivityReport analyze(double[] baseWeights, double[][] weightVectors) {
+        return analyze(baseWeights, WeightSamples.of(weightVectors));
+    }
+
+    public SensitivityReport analyze(double[] baseWeights, WeightSamples weightSamples) {
+        long startNanos = System.nanoTime();
+        int architectures = ids.length;
+        int samples = weightSamples.size();
+
+        double[] baseScores = new double[architectures];
+        for (int a = 0; a < architectures; a++) {
+            baseScores[a] = weightedScore(scaledScores[a], baseWeights);
+        }
+        int[] scratch = new int[architectures];
+        int[] baseOrder = identity(architectures);
+        sortByScore(baseOrder, baseScores, scratch);
+        int[] baseRank = new int[architectures];
+        for (int r = 0; r < architectures; r++) {
+            baseRank[baseOrder[r]] = r + 1;
+        }
+
+        long[] wins = new long[architectures];
+        long[] sameRank = new long[architectures];
+        long[] rankSum = new long[architectures];
+        int[] bestRank = new int[architectures];
+        int[] worstRank = new int[architectures];
+        Arrays.fill(bestRank, Integer.MAX_VALUE);
+        long sameWinner = 0;
+        long sameRanking = 0;
+
+        // Each sample's order starts from the previous one; nearby weights rarely reorder much
+        int[] order = baseOrder.clone();
+        double[][] blockScores = new double[architectures][BLOCK_SIZE];
+        double[] sampleScores = new double[architectures];
+        double[][] transposed = new double[PARAMETERS.length][BLOCK_SIZE];
+        double[] weights = new double[PARAMETERS.length];
+        for (int from = 0; from < samples; from += BLOCK_SIZE) {
+            int count = Math.min(BLOCK_SIZE, samples - from);
+            for (int m = 0; m < count; m++) {
+                weightSamples.next(weights);
+                for (int p = 0; p < PARAMETERS.length; p++) {
+                    transposed[p][m] = weights[p];
+                }
+            }
+            double[] totals = totals(transposed, count);
+            for (int a = 0; a < architectures; a++) {
+                Arrays.fill(blockScores[a], 0, count, 0.0);
+                multiply(scaledScores[a], transposed, totals, count, blockScores[a]);
+            }
+
+            for (int m = 0; m < count; m++) {
+                for (int a = 0; a < architectures; a++) {
+                    sampleScores[a] = blockScores[a][m];
+                }
+                sortByScore(order, sampleScores, scratch);
+                boolean unchanged = true;
+                for (int r = 0; r < architectures; r++) {
+                    int a = order[r];
+                    int rank = r + 1;
+                    rankSum[a] += rank;
+                    bestRank[a] = Math.min(bestRank[a], rank);
+                    worstRank[a] = Math.max(worstRank[a], rank);
+                    if (rank == baseRank[a]) {
+                        sameRank[a]++;
+                    } else {
+                        unchanged = false;
+                    }
+                }
+                wins[order[0]]++;
+                if (order[0] == baseOrder[0]) {
+                    sameWinner++;
+                }
+                if (unchanged) {
+                    sameRanking++;
+                }
+            }
+        }
+
+        List<ArchitectureStability> stability = new ArrayList<>(architectures);
+        for (int r = 0; r < architectures; r++) {
+            int a = baseOrder[r];
+            stability.add(new ArchitectureStability(ids[a], names[a], baseScores[a], r + 1,
+                    samples > 0 ? (double) wins[a] / samples : 0.0,
+                    samples > 0 ? (double) sameRank[a] / samples : 0.0,
+                    samples > 0 ? (double) rankSum[a] / samples : r + 1,
+                    samples > 0 ? bestRank[a] : r + 1,
+                    samples > 0 ? worstRank[a] : r + 1));
+        }
+
+        return new SensitivityReport(samples,
+                samples > 0 ? (double) sameWinner / samples : 1.0,
+                samples > 0 ? (double) sameRanking / samples : 1.0,
+                stability, breakEvens(baseWeights, baseOrder),
+                (System.nanoTime() - startNanos) / 1000L);
+    }
+
+    /**
+     * For every pair of neighbours in the baseline ranking and every parameter, the weight
+     * (others unchanged) at which the two architectures swap places, if one exists
+     */
+    private List<BreakEven> breakEvens(double[] baseWeights, int[] baseOrder) {
+        List<BreakEven> result = new ArrayList<>();
+        for (int r = 0; r + 1 < baseOrder.length; r++) {
+            double[] higher = scaledScores[baseOrder[r]];
+            double[] lower = scaledScores[baseOrder[r + 1]];
+            double margin = 0.0;
+            for (int p = 0; p < PARAMETERS.length; p++) {
+                margin += baseWeights[p] * (higher[p] - lower[p]);
+            }
+            for (int p = 0; p < PARAMETERS.length; p++) {
+                double difference = higher[p] - lower[p];
+                if (difference == 0.0) {
+                    continue;
+                }
+                double weight = baseWeights[p] - margin / difference;
+                if (weight < 0.0) {
+                    continue;
+                }
+                result.add(new BreakEven(ids[baseOrder[r]], ids[baseOrder[r + 1]], PARAMETERS[p],
+                        baseWeights[p], weight, difference > 0));
+            }
+        }
+        return result;
+    }
+
+    private static double weightedScore(double[] scaled, double[] weights) {
+        double sum = 0.0;
+        double total = 0.0;
+        for (int p = 0; p < scaled.length; p++) {
+            sum += scaled[p] * weights[p];
+            total += weights[p];
+        }
+        return total > 0 ? sum / total : 0.0;
+    }
+
+    /**
+     * out[m] = (sum_p scaled[p] * weights[p][m]) / totals[m] over a block of samples
+     */
+    private static void multiply(double[] scaled, double[][] transposed, double[] totals, int count, double[] out) {
+        for (int p = 0; p < scaled.length; p++) {
+            double value = scaled[p];
+            if (value == 0.0) {
+                continue;
+            }
+            double[] column = transposed[p];
+            for (int m = 0; m < count; m++) {
+                out[m] += value * column[m];
+            }
+        }
+        for (int m = 0; m < count; m++) {
+            out[m] = totals[m] > 0 ? out[m] / totals[m] : 0.0;
+        }
+    }
+
+    private static double[][] transpose(double[][] weightVectors, int from, int count) {
+        double[][] transposed = new double[PARAMETERS.length][count];
+        for (int m = 0; m < count; m++) {
+            double[] weights = weightVectors[from + m];
+            for (int p = 0; p < PARAMETERS.length; p++) {
+                transposed[p][m] = weights[p];
+            }
+        }
+        return transposed;
+    }
+
+    /**
+     * Weight vectors of a sweep, produced one at a time in order
+     */
+    public interface WeightSamples {
+        /** Number of vectors */
+        int size();
+
+        /** Write the next vector (one weight per parameter ordinal) into {@code weights} */
+        void next(double[] weights);
+
+        static WeightSamples of(double[][] weightVectors) {
+            return new WeightSamples() {
+                private int next;
+
+                @Override
+                public int size() {
+                    return weightVectors.length;
+                }
+
+                @Override
+                public void next(double[] weights) {
+                    System.arraycopy(weightVectors[next++], 0, weights, 0, weights.length);
+                }
+            };
+        }
+    }
+
+    private static double[] totals(double[][] transposed, int count) {
+        double[] totals = new double[count];
+        for (double[] column : transposed) {
+            for (int m = 0; m < count; m++) {
+                totals[m] += column[m];
+            }
+        }
+        return totals;
+    }
+
+    private static int[] identity(int size) {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        return order;
+    }
+
+    /**
+     * Bottom-up merge sort of architecture indexes, best score first and lower index first on
+     * ties. Runs already in order are not merged, so a nearly sorted order costs O(A).
+     */
+    private static void sortByScore(int[] order, double[] scores, int[] scratch) {
+        int n = order.length;
+        for (int width = 1; width < n; width *= 2) {
+            for (int low = 0; low + width < n; low += 2 * width) {
+                int middle = low + width;
+                int high = Math.min(low + 2 * width, n);
+                if (!before(order[middle], order[middle - 1], scores)) {
+                    continue;
+                }
+                System.arraycopy(order, low, scratch, low, high - low);
+                int i = low;
+                int j = middle;
+                for (int k = low; k < high; k++) {
+                    if (j >= high || (i < middle && !before(scratch[j], scratch[i], scores))) {
+                        order[k] = scratch[i++];
+                    } else {
+                        order[k] = scratch[j++];
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean before(int a, int b, double[] scores) {
+        return scores[a] > scores[b] || (scores[a] == scores[b] && a < b);
+    }
+
+    // ==================== Results ====================
+
+    public static class ArchitectureStability {
+        private final String architectureId;
+        private final String architectureName;
+        private final double baselineScore;
+        private final int baselineRank;
+        private final double winShare;
+        private final double sameRankShare;
+        private final double meanRank;
+        private final int bestRank;
+        private final int worstRank;
+
+        public ArchitectureStability(String architectureId, String architectureName, double baselineScore,
+                                     int baselineRank, double winShare, double sameRankShare,
+                                     double meanRank, int bestRank, int worstRank) {
+            this.architectureId = architectureId;
+            this.architectureName = architectureName;
+            this.baselineScore = baselineScore;
+            this.baselineRank = baselineRank;
+            this.winShare = winShare;
+            this.sameRankShare = sameRankShare;
+            this.meanRank = meanRank;
+            this.bestRank = bestRank;
+            this.worstRank = worstRank;
+        }
+
+        public String getArchitectureId() { return architectureId; }
+        public String getArchitectureName() { return architectureName; }
+        public double getBaselineScore() { return baselineScore; }
+        public int getBaselineRank() { return baselineRank; }
+        /** Fraction of weight vectors under which this architecture ranks first */
+        public double getWinShare() { return winShare; }
+        /** Fraction of weight vectors under which it keeps its baseline rank */
+        public double getSameRankShare() { return sameRankShare; }
+        public double getMeanRank() { return meanRank; }
+        public int getBestRank() { return bestRank; }
+        public int getWorstRank() { return worstRank; }
+    }
+
+    public static class BreakEven {
+        private final String higherArchitectureId;
+        private final String lowerArchitectureId;
+        private final Parameter parameter;
+        private final double baselineWeight;
+        private final double breakEvenWeight;
+        private final boolean decreaseFlips;
+
+        public BreakEven(String higherArchitectureId, String lowerArchitectureId, Parameter parameter,
+                         double baselineWeight, double breakEvenWeight, boolean decreaseFlips) {
+            this.higherArchitectureId = higherArchitectureId;
+            this.lowerArchitectureId = lowerArchitectureId;
+            this.parameter = parameter;
+            this.baselineWeight = baselineWeight;
+            this.breakEvenWeight = breakEvenWeight;
+            this.decreaseFlips = decreaseFlips;
+        }
+
+        /** Architecture ranked higher at the baseline weights */
+        public String getHigherArchitectureId() { return higherArchitectureId; }
+        public String getLowerArchitectureId() { return lowerArchitectureId; }
+        public Parameter getParameter() { return parameter; }
+        public double getBaselineWeight() { return baselineWeight; }
+        /** Weight at which both score the same */
+        public double getBreakEvenWeight() { return breakEvenWeight; }
+        /** True if lowering the weight below the break-even swaps them, false if raising it does */
+        public boolean isDecreaseFlips() { return decreaseFlips; }
+    }
+
+    public static class SensitivityReport {
+        private final int samples;
+        private final double winnerStability;
+        private final double rankingStability;
+        private final List<ArchitectureStability> architectures;
+        private final List<BreakEven> breakEvens;
+        private final long computeMicros;
+
+        public SensitivityReport(int samples, double winnerStability, double rankingStability,
+                                 List<ArchitectureStability> architectures, List<BreakEven> breakEvens,
+                                 long computeMicros) {
+            this.samples = samples;
+            this.winnerStability = winnerStability;
+            this.rankingStability = rankingStability;
+            this.architectures = architectures;
+            this.breakEvens = breakEvens;
+            this.computeMicros = computeMicros;
+        }
+
+        public int getSamples() { return samples; }
+        /** Fraction of weight vectors that keep the baseline winner first */
+        public double getWinnerStability() { return winnerStability; }
+        /** Fraction of weight vectors that keep the whole baseline ranking */
+        public double getRankingStability() { return rankingStability; }
+        /** Per architecture, in baseline rank order */
+        public List<ArchitectureStability> getArchitectures() { return architectures; }
+        public List<BreakEven> getBreakEvens() { return breakEvens; }
+        public long getComputeMicros() { return computeMicros; }
+    }
+}
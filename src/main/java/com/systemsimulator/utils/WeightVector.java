@@ -0,0 +1,130 @@
+package com.systemsimulator.utils;
+
+import com.systemsimulator.model.Parameter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Immutable set of parameter weights, indexed by parameter ordinal. Built once per profile or
+ * per request and passed explicitly into the aggregator, so concurrent evaluations with
+ * different weights never share mutable state and nothing is copied per call.
+ */
+public final class WeightVector {
+    private static final Parameter[] PARAMETERS = Parameter.values();
+
+    private final String name;
+    private final double[] weights;
+    private final Map<Parameter, Double> weightMap;
+
+    private WeightVector(String name, double[] weights) {
+        this.name = name;
+        this.weights = weights;
+        Map<Parameter, Double> map = new EnumMap<>(Parameter.class);
+        for (Parameter param : PARAMETERS) {
+            map.put(param, weights[param.ordinal()]);
+        }
+        this.weightMap = Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Weights from a map; missing parameters default to 1.0
+     */
+    public static WeightVector of(String name, Map<Parameter, Double> weights) {
+        double[] vector = new double[PARAMETERS.length];
+        for (Parameter param : PARAMETERS) {
+            Double weight = weights != null ? weights.get(param) : null;
+            vector[param.ordinal()] = weight != null ? checkWeight(param, weight) : 1.0;
+        }
+        return new WeightVector(name, vector);
+    }
+
+    /**
+     * Weights from a vector indexed by parameter ordinal; the array is copied
+     */
+    public static WeightVector of(String name, double[] weights) {
+        if (weights == null || weights.length != PARAMETERS.length) {
+            throw new IllegalArgumentException("Expected " + PARAMETERS.length + " weights");
+        }
+        double[] vector = weights.clone();
+        for (Parameter param : PARAMETERS) {
+            checkWeight(param, vector[param.ordinal()]);
+        }
+        return new WeightVector(name, vector);
+    }
+
+    /**
+     * These weights with the given per-parameter weights on top; returns this when there are none
+     */
+    public WeightVector withOverrides(Map<Parameter, Double> overrides) {
+        if (overrides == null || overrides.isEmpty()) {
+            return this;
+        }
+        double[] vector = weights.clone();
+        for (Map.Entry<Parameter, Double> entry : overrides.entrySet()) {
+            if (entry.getKey() == null) {
+                throw new IllegalArgumentException("Invalid weight for null: " + entry.getValue());
+            }
+            vector[entry.getKey().ordinal()] = checkWeight(entry.getKey(), entry.getValue());
+        }
+        return new WeightVector(name, vector);
+    }
+
+    /**
+     * Same weights under another name
+     */
+    public WeightVector named(String newName) {
+        return new WeightVector(newName, weights);
+    }
+
+    public String getName() { return name; }
+
+    public Map<Parameter, Double> getWeights() { return weightMap; }
+
+    public double get(Parameter parameter) {
+        return weights[parameter.ordinal()];
+    }
+
+    public double get(int ordinal) {
+        return weights[ordinal];
+    }
+
+    public int size() {
+        return weights.length;
+    }
+
+    /**
+     * Copy of the weights indexed by parameter ordinal
+     */
+    public double[] toArray() {
+        return weights.clone();
+    }
+
+    /**
+     * The backing array, for the aggregator's hot loops; never modified
+     */
+    double[] values() {
+        return weights;
+    }
+
+    /**
+     * True if both hold the same weights, whatever their names
+     */
+    public boolean sameWeights(WeightVector other) {
+        return other != null && Arrays.equals(weights, other.weights);
+    }
+
+    private static double checkWeight(Parameter parameter, Double weight) {
+        if (weight == null || !(weight >= 0) || Double.isInfinite(weight)) {
+            throw new IllegalArgumentException("Invalid weight for " + parameter + ": " + weight);
+        }
+        return weight;
+    }
+
+    @Override
+    public String toString() {
+        return (name != null ? name : "custom") + weightMap;
+    }
+}
@@ -0,0 +1,457 @@
+package com.systemsimulator.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only record log with group commit and compacting snapshots.
+ *
+ * Records are opaque byte arrays. {@link #append} only queues a record; a background thread
+ * writes everything queued since its last pass with one {@link FileChannel} write (and one
+ * force when fsync is on). Without fsync callers never wait for the disk; with it
+ * {@link #mutate} returns once its batch has been forced, so concurrent mutations share one
+ * force. {@link #sync} waits until everything appended so far has been written.
+ *
+ * The log is split into numbered segment files. Once the current segment grows past the
+ * snapshot threshold, the writer starts a new segment and asks the {@link SnapshotSource} for
+ * the full current state, writes it to a snapshot file and deletes the older segments.
+ * Mutations run under {@link #mutate}, which the segment switch briefly excludes, so every
+ * record in an older segment is already reflected in the state the snapshot is taken from.
+ * Records must therefore be idempotent (e.g. "put this value", "delete this key"): replaying
+ * a record that the snapshot already contains has to be harmless.
+ *
+ * Every record is framed as length, CRC32C and payload. On replay a torn or corrupt tail of
+ * the last segment (a crash mid-write) is cut off; corruption anywhere else is an error.
+ */
+public final class WriteAheadLog implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    private static final int SEGMENT_MAGIC = 0x4C415753;  // "SWAL"
+    private static final int SNAPSHOT_MAGIC = 0x504E5353; // "SSNP"
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_BYTES = 16;
+    private static final int FRAME_HEADER_BYTES = 8;
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    /**
+     * Writes the complete current state as records, in replay order
+     */
+    @FunctionalInterface
+    public interface SnapshotSource {
+        void writeTo(Consumer<byte[]> sink);
+    }
+
+    private final Path directory;
+    private final boolean fsync;
+    private final long flushIntervalMillis;
+    private final long snapshotThresholdBytes;
+
+    private final ReadWriteLock mutationLock = new ReentrantReadWriteLock();
+    private final Object queueLock = new Object();
+    private List<byte[]> queue = new ArrayList<>();
+    private long appended;
+    private long written;
+    private boolean snapshotRequested;
+    private boolean closed;
+    private IOException failure;
+
+    private SnapshotSource snapshotSource;
+    private FileChannel segment;
+    private long generation;
+    private long segmentBytes;
+    private Thread writer;
+
+    public WriteAheadLog(Path directory, boolean fsync, long flushIntervalMillis, long snapshotThresholdBytes) {
+        this.directory = directory;
+        this.fsync = fsync;
+        this.flushIntervalMillis = Math.max(1, flushIntervalMillis);
+        this.snapshotThresholdBytes = snapshotThresholdBytes;
+    }
+
+    /**
+     * Feed the snapshot and then every later segment to the handler, in order. Returns the
+     * number of records replayed. Must be called before {@link #start}.
+     */
+    public long replay(Consumer<BinaryReader> handler) throws IOException {
+        Files.createDirectories(directory);
+        long count = 0;
+        long firstGeneration = 0;
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (Files.isRegularFile(snapshot)) {
+            ByteBuffer data = readFile(snapshot);
+            firstGeneration = readHeader(data, SNAPSHOT_MAGIC, snapshot);
+            count += replayRecords(data, handler, snapshot, false);
+        }
+        TreeMap<Long, Path> segments = listSegments();
+        for (Path stale : segments.headMap(firstGeneration).values()) {
+            Files.deleteIfExists(stale);
+        }
+        TreeMap<Long, Path> live = new TreeMap<>(segments.tailMap(firstGeneration, true));
+        for (var entry : live.entrySet()) {
+            ByteBuffer data = readFile(entry.getValue());
+            if (data.remaining() < FILE_HEADER_BYTES) {
+                // Crashed while creating the segment
+                continue;
+            }
+            readHeader(data, SEGMENT_MAGIC, entry.getValue());
+            count += replayRecords(data, handler, entry.getValue(), entry.getKey().equals(live.lastKey()));
+        }
+        generation = live.isEmpty() ? firstGeneration : live.lastKey() + 1;
+        return count;
+    }
+
+    /**
+     * Open a fresh segment and start the background writer
+     */
+    public void start(SnapshotSource source) throws IOException {
+        this.snapshotSource = source;
+        Files.createDirectories(directory);
+        segment = openSegment(generation);
+        writer = new Thread(this::runWriter, "wal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Run a state change that appends records. Mutations run concurrently with each other but
+     * not with the switch to a new segment. With fsync on, waits (outside the lock) until the
+     * records are on disk; nothing is thrown if the log has failed or closed meanwhile.
+     */
+    public void mutate(Runnable mutation) {
+        mutationLock.readLock().lock();
+        try {
+            mutation.run();
+        } finally {
+            mutationLock.readLock().unlock();
+        }
+        if (fsync) {
+            synchronized (queueLock) {
+                awaitWritten(appended);
+            }
+        }
+    }
+
+    /**
+     * Queue a record; call from inside {@link #mutate}, at the point the change takes effect.
+     * Records appended after the log was closed or failed are dropped.
+     */
+    public void append(byte[] record) {
+        synchronized (queueLock) {
+            if (closed) {
+                return;
+            }
+            queue.add(record);
+            appended++;
+        }
+    }
+
+    /**
+     * Wait until every record appended so far has been written (and forced, with fsync on)
+     */
+    public void sync() throws IOException, InterruptedException {
+        synchronized (queueLock) {
+            long target = appended;
+            queueLock.notifyAll();
+            while (written < target && failure == null && !closed) {
+                queueLock.wait();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    // Leaves the writer to its flush interval, so mutations arriving meanwhile join the batch
+    private void awaitWritten(long target) {
+        boolean interrupted = false;
+        while (written < target && failure == null && !closed) {
+            try {
+                queueLock.wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Take a snapshot now instead of waiting for the segment to reach the threshold
+     */
+    public void requestSnapshot() {
+        synchronized (queueLock) {
+            snapshotRequested = true;
+            queueLock.notifyAll();
+        }
+    }
+
+    /**
+     * Write what is queued and stop the writer
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (queueLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queueLock.notifyAll();
+        }
+        if (writer != null) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (segment != null) {
+            segment.close();
+        }
+    }
+
+    private void runWriter() {
+        BinaryWriter batch = new BinaryWriter(64 * 1024);
+        while (true) {
+            List<byte[]> records;
+            boolean snapshot;
+            boolean last;
+            synchronized (queueLock) {
+                if (queue.isEmpty() && !snapshotRequested && !closed) {
+                    try {
+                        queueLock.wait(flushIntervalMillis);
+                    } catch (InterruptedException e) {
+                        closed = true;
+                    }
+                }
+                records = queue;
+                queue = new ArrayList<>();
+                snapshot = snapshotRequested;
+                snapshotRequested = false;
+                last = closed;
+            }
+            try {
+                writeBatch(batch, records);
+                if (snapshot || segmentBytes >= snapshotThresholdBytes) {
+                    snapshot(batch);
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.error("Write-ahead log write failed, further changes are not persisted", e);
+                synchronized (queueLock) {
+                    failure = e instanceof IOException ? (IOException) e : new IOException(e);
+                    closed = true;
+                    queue.clear();
+                    queueLock.notifyAll();
+                }
+                return;
+            }
+            if (last) {
+                return;
+            }
+        }
+    }
+
+    private void writeBatch(BinaryWriter batch, List<byte[]> records) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+        batch.reset();
+        for (byte[] record : records) {
+            frame(batch, record);
+        }
+        writeFully(segment, ByteBuffer.wrap(batch.buffer(), 0, batch.size()));
+        if (fsync) {
+            segment.force(false);
+        }
+        segmentBytes += batch.size();
+        synchronized (queueLock) {
+            written += records.size();
+            queueLock.notifyAll();
+        }
+    }
+
+    private void snapshot(BinaryWriter batch) throws IOException {
+        // Switch segments while no mutation is running: every record in the old segment is then
+        // already visible in the state the snapshot reads
+        long snapshotGeneration;
+        mutationLock.writeLock().lock();
+        try {
+            List<byte[]> records;
+            synchronized (queueLock) {
+                records = queue;
+                queue = new ArrayList<>();
+            }
+            writeBatch(batch, records);
+            segment.force(false);
+            segment.close();
+            generation++;
+            segment = openSegment(generation);
+            snapshotGeneration = generation;
+        } finally {
+            mutationLock.writeLock().unlock();
+        }
+
+        long started = System.nanoTime();
+        Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        long[] count = new long[1];
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            BinaryWriter chunk = new BinaryWriter(1024 * 1024);
+            writeHeader(chunk, SNAPSHOT_MAGIC, snapshotGeneration);
+            IOException[] error = new IOException[1];
+            snapshotSource.writeTo(record -> {
+                if (error[0] != null) {
+                    return;
+                }
+                frame(chunk, record);
+                count[0]++;
+                if (chunk.size() >= 1024 * 1024) {
+                    try {
+                        writeFully(out, ByteBuffer.wrap(chunk.buffer(), 0, chunk.size()));
+                    } catch (IOException e) {
+                        error[0] = e;
+                    }
+                    chunk.reset();
+                }
+            });
+            if (error[0] != null) {
+                throw error[0];
+            }
+            writeFully(out, ByteBuffer.wrap(chunk.buffer(), 0, chunk.size()));
+            out.force(true);
+        }
+        Files.move(temporary, directory.resolve(SNAPSHOT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        for (Path stale : listSegments().headMap(snapshotGeneration).values()) {
+            Files.deleteIfExists(stale);
+        }
+        logger.info("Wrote snapshot of {} records in {} ms", count[0], (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        FileChannel channel = FileChannel.open(segmentPath(number), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        BinaryWriter header = new BinaryWriter(FILE_HEADER_BYTES);
+        writeHeader(header, SEGMENT_MAGIC, number);
+        writeFully(channel, ByteBuffer.wrap(header.buffer(), 0, header.size()));
+        segmentBytes = 0;
+        return channel;
+    }
+
+    private long replayRecords(ByteBuffer data, Consumer<BinaryReader> handler, Path file, boolean tail)
+            throws IOException {
+        long count = 0;
+        CRC32C crc = new CRC32C();
+        while (data.hasRemaining()) {
+            int start = data.position();
+            boolean intact = data.remaining() >= FRAME_HEADER_BYTES;
+            int length = intact ? data.getInt() : -1;
+            int checksum = intact ? data.getInt() : 0;
+            intact = length >= 0 && length <= data.remaining();
+            if (intact) {
+                ByteBuffer payload = data.slice(data.position(), length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                intact = (int) crc.getValue() == checksum;
+                if (intact) {
+                    handler.accept(new BinaryReader(payload));
+                    data.position(data.position() + length);
+                    count++;
+                    continue;
+                }
+            }
+            if (!tail) {
+                throw new IOException("Corrupt record at offset " + start + " in " + file);
+            }
+            logger.warn("Discarding torn write-ahead log tail at offset {} in {}", start, file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(start);
+            }
+            break;
+        }
+        return count;
+    }
+
+    private TreeMap<Long, Path> listSegments() throws IOException {
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    segments.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())), file);
+                } catch (NumberFormatException e) {
+                    // Not ours
+                }
+            }
+        }
+        return segments;
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private static void frame(BinaryWriter out, byte[] record) {
+        CRC32C crc = new CRC32C();
+        crc.update(record, 0, record.length);
+        out.writeInt(record.length);
+        out.writeInt((int) crc.getValue());
+        out.writeBytes(record, 0, record.length);
+    }
+
+    private static void writeHeader(BinaryWriter out, int magic, long number) {
+        out.writeInt(magic);
+        out.writeInt(VERSION);
+        out.writeLong(number);
+    }
+
+    private static long readHeader(ByteBuffer data, int magic, Path file) throws IOException {
+        if (data.remaining() < FILE_HEADER_BYTES || data.getInt() != magic) {
+            throw new IOException("Not a write-ahead log file: " + file);
+        }
+        int version = data.getInt();
+        if (version > VERSION) {
+            throw new IOException("Unsupported write-ahead log version " + version + " in " + file);
+        }
+        return data.getLong();
+    }
+
+    private static ByteBuffer readFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Write-ahead log file too large: " + file);
+            }
+            ByteBuffer data = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+            while (data.hasRemaining() && channel.read(data) >= 0) {
+                // keep reading
+            }
+            data.flip();
+            return data;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -7,6 +7,10 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -30,6 +34,15 @@ class SystemSimulatorIntegrationTest {
     @Autowired
     private HeuristicService heuristicService;
 
+    @Autowired
+    private SimulationService simulationService;
+
+    @Autowired
+    private BatchEvaluationService batchEvaluationService;
+
+    @Autowired
+    private ArchitectureTransferService transferService;
+
     @Test
     void testCreateComponent() {
         // Create a database component
@@ -361,5 +374,197 @@ class SystemSimulatorIntegrationTest {
 
         assertFalse(componentService.componentExists("api-delete-test"));
     }
-}
 
+    @Test
+    void testEvaluationCacheInvalidatedByHeuristicUpdate() {
+        Architecture arch = architectureService.createArchitecture("Cached Architecture");
+        Component api = componentService.createComponent(
+                ComponentType.API_SERVICE, "api-cache-test", "API", Map.of()
+        );
+        Component db = componentService.createComponent(
+                ComponentType.DATABASE, "db-cache-test", "DB", Map.of()
+        );
+        architectureService.addComponentToArchitecture(arch.getId(), api);
+        architectureService.addComponentToArchitecture(arch.getId(), db);
+        architectureService.addLinkToArchitecture(arch.getId(),
+                linkService.createLink("link-cache-test", "api-cache-test", "db-cache-test", LinkType.DATABASE_QUERY));
+
+        ArchitectureService.ArchitectureEvaluation first = architectureService.evaluateArchitectureDetailed(arch.getId());
+        long hitsBefore = architectureService.getEvaluationCacheStats().getHits();
+        ArchitectureService.ArchitectureEvaluation second = architectureService.evaluateArchitectureDetailed(arch.getId());
+
+        assertEquals(hitsBefore + 1, architectureService.getEvaluationCacheStats().getHits());
+        assertEquals(first.getOverallScore(), second.getOverallScore());
+
+        // Changing a score must not serve the cached result
+        heuristicService.updateHeuristicScore(db, Parameter.AVAILABILITY, 1.0);
+        ArchitectureService.ArchitectureEvaluation updated = architectureService.evaluateArchitectureDetailed(arch.getId());
+
+        assertTrue(updated.getOverallScore() < first.getOverallScore(),
+                   "Lower availability should lower the score");
+        assertEquals(architectureService.evaluateArchitecture(arch.getId()), updated.getOverallScore(), 1e-12);
+    }
+
+    @Test
+    void testIdenticalArchitecturesShareCachedEvaluation() {
+        Component api = componentService.createComponent(ComponentType.API_SERVICE, "api-shared", "API", Map.of());
+        Component db = componentService.createComponent(ComponentType.DATABASE, "db-shared", "DB", Map.of());
+        Link link = linkService.createLink("link-shared", "api-shared", "db-shared", LinkType.DATABASE_QUERY);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Architecture arch = architectureService.createArchitecture("Shared " + i);
+            architectureService.addComponentToArchitecture(arch.getId(), api);
+            architectureService.addComponentToArchitecture(arch.getId(), db);
+            architectureService.addLinkToArchitecture(arch.getId(), link);
+            ids.add(arch.getId());
+        }
+
+        ArchitectureService.ArchitectureEvaluation first = architectureService.evaluateArchitectureDetailed(ids.get(0));
+        long hitsBefore = architectureService.getEvaluationCacheStats().getHits();
+        ArchitectureService.ArchitectureEvaluation second = architectureService.evaluateArchitectureDetailed(ids.get(1));
+
+        assertEquals(hitsBefore + 1, architectureService.getEvaluationCacheStats().getHits());
+        assertEquals(ids.get(1), second.getArchitectureId());
+        assertEquals("Shared 1", second.getArchitectureName());
+        assertEquals(first.getOverallScore(), second.getOverallScore());
+    }
+
+    @Test
+    void testRemovingComponentRemovesItsLinks() {
+        Architecture arch = architectureService.createArchitecture("Removal");
+        Component client = componentService.createComponent(ComponentType.CLIENT, "client-remove", "Client", Map.of());
+        Component api = componentService.createComponent(ComponentType.API_SERVICE, "api-remove", "API", Map.of());
+        Component db = componentService.createComponent(ComponentType.DATABASE, "db-remove", "DB", Map.of());
+        architectureService.addComponentToArchitecture(arch.getId(), client);
+        architectureService.addComponentToArchitecture(arch.getId(), api);
+        architectureService.addComponentToArchitecture(arch.getId(), db);
+        architectureService.addLinkToArchitecture(arch.getId(),
+                linkService.createLink("link-remove-1", "client-remove", "api-remove", LinkType.API_CALL));
+        architectureService.addLinkToArchitecture(arch.getId(),
+                linkService.createLink("link-remove-2", "api-remove", "db-remove", LinkType.DATABASE_QUERY));
+
+        Architecture updated = architectureService.removeComponentFromArchitecture(arch.getId(), "api-remove");
+
+        assertEquals(2, updated.getComponents().size());
+        assertTrue(updated.getLinks().isEmpty(), "Links to and from the removed component are removed too");
+        assertEquals(architectureService.evaluateArchitecture(arch.getId()),
+                architectureService.evaluateArchitectureDetailed(arch.getId()).getOverallScore(), 1e-12);
+    }
+
+    @Test
+    void testSimulateArchitecture() {
+        Component client = componentService.createComponent(ComponentType.CLIENT, "client-sim", "Web Client", Map.of());
+        Component api = componentService.createComponent(ComponentType.API_SERVICE, "api-sim", "Orders API", Map.of("instances", 2));
+        Architecture architecture = architectureService.createArchitecture("Simulated");
+        architectureService.addComponentToArchitecture(architecture.getId(), client);
+        architectureService.addComponentToArchitecture(architecture.getId(), api);
+        Link link = linkService.createLink("link-sim", client.getId(), api.getId(), LinkType.API_CALL);
+        architectureService.addLinkToArchitecture(architecture.getId(), link);
+
+        DiscreteEventSimulator.SimulationConfig config = new DiscreteEventSimulator.SimulationConfig();
+        config.setRequestCount(1000);
+        SimulationService.SimulationResult result = simulationService.simulate(architecture.getId(), config);
+
+        assertEquals(architecture.getId(), result.getArchitectureId());
+        assertEquals(1000, result.getReport().getRequestsCompleted());
+        assertTrue(result.getReport().getThroughputPerSecond() > 0);
+        assertThrows(IllegalArgumentException.class, () -> simulationService.simulate("missing", config));
+    }
+
+    @Test
+    void testBatchEvaluation() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Architecture architecture = architectureService.createArchitecture("Batch " + i);
+            Component api = componentService.createComponent(ComponentType.API_SERVICE, "api-batch-" + i, "API", Map.of());
+            architectureService.addComponentToArchitecture(architecture.getId(), api);
+            ids.add(architecture.getId());
+        }
+        ids.add("missing-architecture");
+
+        BatchEvaluationService.BatchRequest request = new BatchEvaluationService.BatchRequest();
+        request.setArchitectureIds(ids);
+        request.setProfile(ParameterWeights.WeightProfile.COST_OPTIMIZED);
+        request.setDetailed(false);
+        List<BatchEvaluationService.BatchItemResult> results = Collections.synchronizedList(new ArrayList<>());
+        BatchEvaluationService.BatchSummary summary = batchEvaluationService.evaluateBatch(request, results::add);
+
+        assertEquals(6, summary.getTotal());
+        assertEquals(1, summary.getFailed());
+        assertEquals(6, results.size());
+        WeightVector costOptimized = ParameterWeights.profile(ParameterWeights.WeightProfile.COST_OPTIMIZED);
+        for (BatchEvaluationService.BatchItemResult result : results) {
+            assertEquals(ids.get(result.getIndex()), result.getArchitectureId());
+            if (result.getArchitectureId().equals("missing-architecture")) {
+                assertFalse(result.isSuccess());
+                assertNotNull(result.getError());
+            } else {
+                assertTrue(result.isSuccess());
+                assertEquals(architectureService.evaluateArchitecture(result.getArchitectureId(), costOptimized),
+                        result.getScore(), 1e-12);
+            }
+        }
+
+        request.setArchitectureIds(List.of());
+        assertThrows(IllegalArgumentException.class, () -> batchEvaluationService.evaluateBatch(request, r -> {}));
+    }
+
+    @Test
+    void testRankArchitectures() {
+        List<String> ids = new ArrayList<>();
+        String[] databases = {"rank-db-sql", "rank-db-nosql", "rank-db-graph"};
+        DatabaseComponent.DatabaseType[] types = {DatabaseComponent.DatabaseType.SQL,
+                DatabaseComponent.DatabaseType.NOSQL, DatabaseComponent.DatabaseType.GRAPH_DB};
+        for (int i = 0; i < databases.length; i++) {
+            Architecture architecture = architectureService.createArchitecture("Rank " + i);
+            Component db = componentService.createComponent(ComponentType.DATABASE, databases[i], "DB",
+                    Map.of("subtype", types[i].name()));
+            architectureService.addComponentToArchitecture(architecture.getId(), db);
+            ids.add(architecture.getId());
+        }
+
+        ArchitectureService.ArchitectureRanking ranking =
+                architectureService.rankArchitectures(ids, WeightVector.of("unit", Map.of()));
+
+        assertEquals(3, ranking.getRankings().size());
+        assertFalse(ranking.getParetoFrontier().isEmpty());
+        for (int i = 0; i < 3; i++) {
+            ArchitectureService.RankedArchitecture ranked = ranking.getRankings().get(i);
+            assertEquals(i + 1, ranked.getRank());
+            if (i > 0) {
+                assertTrue(ranking.getRankings().get(i - 1).getScore() >= ranked.getScore());
+            }
+            assertEquals(ranked.isOnFrontier(), ranking.getParetoFrontier().contains(ranked.getArchitectureId()));
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> architectureService.rankArchitectures(List.of(ids.get(0), "missing"), WeightVector.of("unit", Map.of())));
+    }
+
+    @Test
+    void testImportDoesNotReplaceStoredObjects() throws Exception {
+        String json = "{\"id\": \"import-arch\", \"name\": \"Imported\","
+                + " \"components\": [{\"id\": \"import-api\", \"name\": \"API\", \"type\": \"API_SERVICE\"},"
+                + " {\"id\": \"import-db\", \"name\": \"DB\", \"type\": \"DATABASE\"}],"
+                + " \"links\": [{\"id\": \"import-link\", \"sourceId\": \"import-api\", \"targetId\": \"import-db\","
+                + " \"type\": \"DATABASE_QUERY\"}]}";
+
+        ArchitectureTransferService.ImportResult first = transferService.importArchitecture(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(List.of("import-arch"), first.getArchitectureIds());
+        Component storedApi = componentService.getComponentById("import-api").orElseThrow();
+        Architecture storedArchitecture = architectureService.getArchitectureById("import-arch").orElseThrow();
+
+        ArchitectureTransferService.ImportResult second = transferService.importArchitecture(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+        String copyId = second.getArchitectureIds().get(0);
+        assertNotEquals("import-arch", copyId);
+        assertSame(storedApi, componentService.getComponentById("import-api").orElseThrow());
+        assertSame(storedArchitecture, architectureService.getArchitectureById("import-arch").orElseThrow());
+
+        Architecture copy = architectureService.getArchitectureById(copyId).orElseThrow();
+        Link copiedLink = copy.getLinks().get(0);
+        assertNotEquals("import-link", copiedLink.getId());
+        assertNotEquals("import-api", copiedLink.getSource().getId());
+        assertSame(copiedLink.getSource(), componentService.getComponentById(copiedLink.getSource().getId()).orElseThrow());
+    }
+}
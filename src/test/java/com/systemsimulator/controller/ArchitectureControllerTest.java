@@ -0,0 +1,93 @@
+package com.systemsimulator.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.systemsimulator.model.Architecture;
+import com.systemsimulator.model.Component;
+import com.systemsimulator.model.ComponentType;
+import com.systemsimulator.service.ArchitectureService;
+import com.systemsimulator.service.ComponentService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ArchitectureControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ArchitectureService architectureService;
+
+    @Autowired
+    private ComponentService componentService;
+
+    @Test
+    void testBatchEvaluationStreamsNdjson() throws Exception {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Architecture architecture = architectureService.createArchitecture("Streamed " + i);
+            Component api = componentService.createComponent(ComponentType.API_SERVICE, "api-stream-" + i, "API", Map.of());
+            architectureService.addComponentToArchitecture(architecture.getId(), api);
+            ids.add(architecture.getId());
+        }
+        ids.add("missing-architecture");
+        String body = objectMapper.writeValueAsString(Map.of("architectureIds", ids, "profile", "COST_OPTIMIZED"));
+
+        MvcResult started = mockMvc.perform(post("/api/architecture/evaluate/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // The endpoint sets its own timeout instead of relying on a global one
+        assertEquals(TimeUnit.MINUTES.toMillis(30), started.getRequest().getAsyncContext().getTimeout());
+
+        MvcResult finished = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        String[] lines = finished.getResponse().getContentAsString().split("\n");
+        assertEquals(ids.size(), lines.length);
+        Set<String> seen = new HashSet<>();
+        for (String line : lines) {
+            JsonNode result = objectMapper.readTree(line);
+            String id = result.get("architectureId").asText();
+            assertEquals(ids.get(result.get("index").asInt()), id);
+            assertEquals(!id.equals("missing-architecture"), result.get("success").asBoolean());
+            seen.add(id);
+        }
+        assertEquals(new HashSet<>(ids), seen);
+    }
+
+    @Test
+    void testBatchEvaluationRejectsEmptyRequest() throws Exception {
+        mockMvc.perform(post("/api/architecture/evaluate/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"architectureIds\": []}"))
+                .andExpect(status().isBadRequest());
+    }
+}
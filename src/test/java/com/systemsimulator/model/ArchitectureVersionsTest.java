@@ -0,0 +1,203 @@
+package com.systemsimulator.model;
+
+import com.systemsimulator.utils.HeuristicAggregator;
+import com.systemsimulator.utils.ParameterWeights;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchitectureVersionsTest {
+
+    @Test
+    void testPersistentListMatchesArrayList() {
+        SplittableRandom random = new SplittableRandom(5);
+        PersistentList<Integer> list = PersistentList.empty();
+        List<Integer> expected = new ArrayList<>();
+        List<PersistentList<Integer>> versions = new ArrayList<>();
+        List<List<Integer>> expectedVersions = new ArrayList<>();
+
+        for (int step = 0; step < 5000; step++) {
+            if (expected.isEmpty() || random.nextInt(3) > 0) {
+                list = list.plus(step);
+                expected.add(step);
+            } else {
+                int index = random.nextInt(expected.size());
+                list = list.minus(index);
+                expected.remove(index);
+            }
+            if (step % 500 == 0) {
+                versions.add(list);
+                expectedVersions.add(new ArrayList<>(expected));
+            }
+        }
+
+        assertEquals(expected, list);
+        assertEquals(expected.size(), list.size());
+        assertEquals(expected.get(expected.size() / 2), list.get(expected.size() / 2));
+        // Earlier versions are unaffected by later edits
+        for (int i = 0; i < versions.size(); i++) {
+            assertEquals(expectedVersions.get(i), versions.get(i));
+        }
+        assertEquals(expected, PersistentList.of(expected));
+        assertThrows(UnsupportedOperationException.class, () -> versions.get(1).add(1));
+    }
+
+    @Test
+    void testUndoRedoRestoresContentsAndTotals() {
+        Architecture architecture = new Architecture("arch", "Shop");
+        Component api = new APIServiceComponent("api", "API", APIServiceComponent.APIType.REST);
+        Component sql = new DatabaseComponent("sql", "Orders", DatabaseComponent.DatabaseType.SQL);
+        sql.getHeuristics().setScore(Parameter.SCALABILITY, 4.0);
+        architecture.addComponent(api);
+        architecture.addComponent(sql);
+        Link query = new Link("q", api, sql, LinkType.DATABASE_QUERY);
+        architecture.addLink(query);
+        architecture.removeLink(query);
+
+        assertEquals(4, architecture.getVersion().getNumber());
+        assertTrue(architecture.undo());
+        assertTrue(architecture.undo());
+        assertEquals(List.of(api, sql), architecture.getComponents());
+        assertTrue(architecture.getLinks().isEmpty());
+        assertTotalsMatch(architecture);
+
+        assertTrue(architecture.redo());
+        assertEquals(List.of(query), architecture.getLinks());
+        assertTotalsMatch(architecture);
+        assertEquals(List.of(0, 1, 2, 3, 4),
+                architecture.getVersions().stream().map(Architecture.Version::getNumber).toList());
+
+        // A new edit drops the redo history
+        architecture.removeComponent(api);
+        assertFalse(architecture.redo());
+        assertEquals(5, architecture.getVersion().getNumber());
+        assertEquals(Integer.valueOf(3), architecture.getVersion().getParentNumber());
+        assertTotalsMatch(architecture);
+
+        while (architecture.undo()) {
+            assertTotalsMatch(architecture);
+        }
+        assertTrue(architecture.getComponents().isEmpty());
+    }
+
+    @Test
+    void testForksAreIndependent() {
+        Architecture original = new Architecture("arch", "Shop");
+        Component api = new APIServiceComponent("api", "API", APIServiceComponent.APIType.REST);
+        Component sql = new DatabaseComponent("db", "Orders", DatabaseComponent.DatabaseType.SQL);
+        original.addComponent(api);
+        original.addComponent(sql);
+
+        Architecture fork = original.fork("fork", "Shop on NoSQL");
+        Component nosql = new DatabaseComponent("db2", "Orders", DatabaseComponent.DatabaseType.NOSQL);
+        fork.removeComponent(sql);
+        fork.addComponent(nosql);
+
+        assertEquals(List.of(api, sql), original.getComponents());
+        assertEquals(List.of(api, nosql), fork.getComponents());
+        assertTotalsMatch(original);
+        assertTotalsMatch(fork);
+
+        Architecture earlier = original.fork("early", "Only API", 1);
+        assertEquals(List.of(api), earlier.getComponents());
+        assertTotalsMatch(earlier);
+        assertThrows(IllegalArgumentException.class, () -> original.fork("x", "x", 42));
+    }
+
+    @Test
+    void testReplacingContentsStartsNewHistory() {
+        Architecture architecture = new Architecture("arch", "Shop");
+        architecture.addComponent(new ClientComponent("client", "Client"));
+        architecture.setComponents(List.of(new ClientComponent("web", "Web")));
+
+        assertFalse(architecture.undo());
+        assertEquals(1, architecture.getVersions().size());
+        assertEquals("web", architecture.getComponents().get(0).getId());
+        assertTotalsMatch(architecture);
+    }
+
+    @Test
+    void testTotalsStampChangesWithEveryVersionAndRefresh() {
+        Architecture architecture = new Architecture("arch", "Shop");
+        Component api = new APIServiceComponent("api", "API", APIServiceComponent.APIType.REST);
+        architecture.addComponent(api);
+        long added = architecture.getTotals().getStamp();
+
+        assertEquals(added, architecture.snapshot().getTotals().getStamp());
+        assertEquals(added, architecture.fork("copy", "Copy").getTotals().getStamp());
+
+        api.getHeuristics().setScore(Parameter.COST, 1.0);
+        architecture.refreshComponent(api);
+        long refreshed = architecture.getTotals().getStamp();
+        assertNotEquals(added, refreshed);
+
+        architecture.addComponent(new ClientComponent("client", "Client"));
+        assertNotEquals(refreshed, architecture.getTotals().getStamp());
+        architecture.undo();
+        assertNotEquals(refreshed, architecture.getTotals().getStamp());
+    }
+
+    @Test
+    void testHistoryIsBounded() {
+        Architecture architecture = new Architecture("arch", "Shop");
+        Component api = new APIServiceComponent("api", "API", APIServiceComponent.APIType.REST);
+        for (int i = 0; i < Architecture.MAX_HISTORY * 3; i++) {
+            architecture.addComponent(api);
+            architecture.removeComponent(api);
+            assertTrue(architecture.getVersions().size() <= Architecture.MAX_HISTORY);
+        }
+
+        int undone = 0;
+        while (architecture.undo()) {
+            undone++;
+        }
+        assertTrue(undone >= Architecture.MAX_HISTORY / 2 - 1);
+        assertTrue(undone < Architecture.MAX_HISTORY);
+        assertNull(architecture.getVersions().get(0).getParentNumber());
+        assertTotalsMatch(architecture);
+    }
+
+    @Test
+    void testTrimmingKeepsForkHistory() {
+        Architecture original = new Architecture("arch", "Shop");
+        Component api = new APIServiceComponent("api", "API", APIServiceComponent.APIType.REST);
+        for (int i = 0; i < Architecture.MAX_HISTORY * 2 / 5; i++) {
+            original.addComponent(api);
+            original.removeComponent(api);
+        }
+        Architecture fork = original.fork("fork", "Fork");
+        Architecture snapshot = original.snapshot();
+        int forkHistory = fork.getVersions().size();
+
+        for (int i = 0; i < Architecture.MAX_HISTORY; i++) {
+            original.addComponent(api);
+            original.removeComponent(api);
+        }
+        assertTrue(original.getVersions().size() <= Architecture.MAX_HISTORY);
+        assertEquals(forkHistory, fork.getVersions().size());
+        assertEquals(forkHistory, snapshot.getVersions().size());
+
+        int undone = 0;
+        while (fork.undo()) {
+            undone++;
+        }
+        assertEquals(forkHistory - 1, undone);
+        assertEquals(0, fork.getVersion().getNumber());
+        assertTotalsMatch(fork);
+    }
+
+    private static void assertTotalsMatch(Architecture architecture) {
+        double[] weights = ParameterWeights.toVector(null);
+        HeuristicAggregator aggregator = new HeuristicAggregator();
+        HeuristicAggregator.AggregationResult incremental = aggregator.aggregateIncremental(architecture, weights);
+        HeuristicAggregator.AggregationResult fresh =
+                aggregator.aggregateSinglePass(architecture.getComponents(), architecture.getLinks(), weights);
+        assertEquals(fresh.getComponentCount(), incremental.getComponentCount());
+        assertEquals(fresh.getLinkCount(), incremental.getLinkCount());
+        assertEquals(fresh.getArchitectureScore(), incremental.getArchitectureScore(), 1e-9);
+    }
+}
@@ -0,0 +1,60 @@
+package com.systemsimulator.repository;
+
+import com.systemsimulator.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryLinkRepositoryTest {
+
+    private InMemoryLinkRepository repository;
+    private Component api;
+    private Component db;
+    private Component cache;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryLinkRepository();
+        api = new APIServiceComponent("api1", "API", APIServiceComponent.APIType.REST);
+        db = new DatabaseComponent("db1", "DB", DatabaseComponent.DatabaseType.SQL);
+        cache = new CacheComponent("cache1", "Cache", CacheComponent.CacheType.IN_MEMORY);
+    }
+
+    @Test
+    void testIndexesFollowSaveAndDelete() {
+        repository.save(new Link("l1", api, db, LinkType.DATABASE_QUERY));
+        repository.save(new Link("l2", api, cache, LinkType.CACHE_LOOKUP));
+
+        assertEquals(2, repository.findBySourceId("api1").size());
+        assertEquals(1, repository.findByTargetId("db1").size());
+        assertEquals(1, repository.countByTargetId("cache1"));
+        assertEquals(List.of("l2"), repository.findByType(LinkType.CACHE_LOOKUP).stream().map(Link::getId).toList());
+        assertTrue(repository.existsByComponentId("db1"));
+
+        repository.deleteById("l1");
+
+        assertEquals(1, repository.countBySourceId("api1"));
+        assertTrue(repository.findByTargetId("db1").isEmpty());
+        assertTrue(repository.findByType(LinkType.DATABASE_QUERY).isEmpty());
+        assertFalse(repository.existsByComponentId("db1"));
+    }
+
+    @Test
+    void testResaveMovesLinkBetweenIndexes() {
+        Link link = new Link("l1", api, db, LinkType.DATABASE_QUERY);
+        repository.save(link);
+
+        // Mutate the stored object and save it again: the old index entries must be dropped
+        link.setTarget(cache);
+        link.setType(LinkType.CACHE_LOOKUP);
+        repository.save(link);
+
+        assertTrue(repository.findByTargetId("db1").isEmpty());
+        assertEquals(1, repository.countByTargetId("cache1"));
+        assertTrue(repository.findByType(LinkType.DATABASE_QUERY).isEmpty());
+        assertEquals(1, repository.findByType(LinkType.CACHE_LOOKUP).size());
+    }
+}
@@ -0,0 +1,253 @@
+package com.systemsimulator.repository;
+
+import com.systemsimulator.model.*;
+import com.systemsimulator.utils.BinaryWriter;
+import com.systemsimulator.utils.EntityCodec;
+import com.systemsimulator.utils.HeuristicAggregator;
+import com.systemsimulator.utils.ParameterWeights;
+import com.systemsimulator.utils.WriteAheadLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RepositoryJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private InMemoryComponentRepository components;
+    private InMemoryLinkRepository links;
+    private InMemoryArchitectureRepository architectures;
+    private RepositoryJournal journal;
+
+    private void open() throws IOException {
+        components = new InMemoryComponentRepository();
+        links = new InMemoryLinkRepository();
+        architectures = new InMemoryArchitectureRepository();
+        journal = new RepositoryJournal(components, links, architectures, directory.toString(), false, 64);
+        journal.init();
+    }
+
+    private void restart() throws Exception {
+        journal.sync();
+        journal.close();
+        open();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    private void saveSample() {
+        Component api = new APIServiceComponent("api1", "API", APIServiceComponent.APIType.GRAPHQL);
+        api.getHeuristics().setScore(Parameter.LATENCY, 7.5);
+        api.setProperties(Map.of("replicas", 3, "region", "eu", "ratio", 0.25, "tags", List.of("a", "b")));
+        Component db = new DatabaseComponent("db1", "DB", DatabaseComponent.DatabaseType.NOSQL);
+        components.save(api);
+        components.save(db);
+        Link link = new Link("l1", api, db, LinkType.DATABASE_QUERY);
+        links.save(link);
+
+        Architecture architecture = new Architecture("arch1", "Shop");
+        architecture.addComponent(api);
+        architecture.addComponent(db);
+        architecture.addLink(link);
+        architectures.save(architecture);
+    }
+
+    @Test
+    void testStateSurvivesRestart() throws Exception {
+        open();
+        saveSample();
+        restart();
+
+        Component api = components.findById("api1").orElseThrow();
+        assertEquals(APIServiceComponent.APIType.GRAPHQL, ((APIServiceComponent) api).getApiType());
+        assertEquals(7.5, api.getHeuristics().getScore(Parameter.LATENCY));
+        assertFalse(api.getHeuristics().hasScore(Parameter.COST));
+        assertEquals(3, api.getProperties().get("replicas"));
+        assertEquals(0.25, api.getProperties().get("ratio"));
+        assertEquals(List.of("a", "b"), api.getProperties().get("tags"));
+        assertEquals(DatabaseComponent.DatabaseType.NOSQL,
+                ((DatabaseComponent) components.findById("db1").orElseThrow()).getDatabaseType());
+
+        Link link = links.findById("l1").orElseThrow();
+        assertSame(api, link.getSource(), "Links should point at the stored component again");
+        assertEquals(1, links.countByTargetId("db1"));
+
+        Architecture architecture = architectures.findById("arch1").orElseThrow();
+        assertEquals("Shop", architecture.getName());
+        assertSame(api, architecture.getComponents().get(0));
+        assertSame(link, architecture.getLinks().get(0));
+    }
+
+    @Test
+    void testUpdatedLinkHeuristicsReachTheArchitectureAfterRestart() throws Exception {
+        open();
+        saveSample();
+        // As LinkController.updateLinkHeuristics does: edit in place, journal only the link
+        Link link = links.findById("l1").orElseThrow();
+        link.getHeuristics().setScore(Parameter.LATENCY, 2.0);
+        links.save(link);
+        Component db = components.findById("db1").orElseThrow();
+        db.getHeuristics().setScore(Parameter.COST, 4.0);
+        components.save(db);
+        restart();
+
+        Architecture architecture = architectures.findById("arch1").orElseThrow();
+        Link restored = architecture.getLinks().get(0);
+        assertSame(links.findById("l1").orElseThrow(), restored);
+        assertEquals(2.0, restored.getHeuristics().getScore(Parameter.LATENCY));
+        assertSame(components.findById("db1").orElseThrow(), architecture.getComponents().get(1));
+        assertSame(architecture.getComponents().get(1), restored.getTarget());
+
+        double[] weights = ParameterWeights.toVector(null);
+        HeuristicAggregator aggregator = new HeuristicAggregator();
+        assertEquals(
+                aggregator.aggregateSinglePass(List.of(architecture.getComponents().get(0), db), List.of(link), weights)
+                        .getArchitectureScore(),
+                aggregator.aggregateIncremental(architecture, weights).getArchitectureScore(), 1e-9);
+    }
+
+    @Test
+    void testBatchSavesSurviveRestart() throws Exception {
+        open();
+        Component api = new APIServiceComponent("api1", "API", APIServiceComponent.APIType.REST);
+        Component db = new DatabaseComponent("db1", "DB", DatabaseComponent.DatabaseType.SQL);
+        Link link = new Link("l1", api, db, LinkType.DATABASE_QUERY);
+        Architecture first = new Architecture("arch1", "Shop");
+        first.setComponents(List.of(api, db));
+        first.setLinks(List.of(link));
+        Architecture second = new Architecture("arch2", "Shop copy");
+        second.setComponents(List.of(api));
+
+        components.saveAll(List.of(api, db));
+        links.saveAll(List.of(link));
+        architectures.saveAll(List.of(first, second));
+        restart();
+
+        Component restored = components.findById("api1").orElseThrow();
+        assertSame(restored, links.findById("l1").orElseThrow().getSource());
+        assertEquals(1, links.countBySourceId("api1"));
+        assertSame(links.findById("l1").orElseThrow(), architectures.findById("arch1").orElseThrow().getLinks().get(0));
+        assertSame(restored, architectures.findById("arch2").orElseThrow().getComponents().get(0));
+    }
+
+    @Test
+    void testFsyncSaveIsOnDiskWhenItReturns() throws Exception {
+        components = new InMemoryComponentRepository();
+        links = new InMemoryLinkRepository();
+        architectures = new InMemoryArchitectureRepository();
+        journal = new RepositoryJournal(components, links, architectures, directory.toString(), true, 64);
+        journal.init();
+
+        components.save(new DatabaseComponent("db1", "DB", DatabaseComponent.DatabaseType.SQL));
+
+        // No sync(): the save itself waited for its batch to be forced
+        assertEquals(1, new WriteAheadLog(directory, false, 5, Long.MAX_VALUE).replay(record -> {}));
+    }
+
+    @Test
+    void testPositionalRecordsAreStillReplayed() throws Exception {
+        Component api = new APIServiceComponent("api1", "API", APIServiceComponent.APIType.GRPC);
+        Component db = new DatabaseComponent("db1", "DB", DatabaseComponent.DatabaseType.SQL);
+        Link link = new Link("l1", api, db, LinkType.DATABASE_QUERY);
+        Map<String, Component> written = Map.of("api1", api, "db1", db);
+
+        // Records as written before the tagged encoding: kinds 1 and 4
+        WriteAheadLog log = new WriteAheadLog(directory, false, 5, Long.MAX_VALUE);
+        log.replay(record -> {});
+        log.start(sink -> {});
+        for (Component component : List.of(api, db)) {
+            BinaryWriter out = new BinaryWriter().writeByte(1);
+            EntityCodec.writeComponent(out, component);
+            log.mutate(() -> log.append(out.toByteArray()));
+        }
+        BinaryWriter out = new BinaryWriter().writeByte(4);
+        EntityCodec.writeLink(out, link, written::get);
+        log.mutate(() -> log.append(out.toByteArray()));
+        log.sync();
+        log.close();
+
+        open();
+        assertEquals(APIServiceComponent.APIType.GRPC,
+                ((APIServiceComponent) components.findById("api1").orElseThrow()).getApiType());
+        assertSame(components.findById("db1").orElseThrow(), links.findById("l1").orElseThrow().getTarget());
+
+        // New changes are appended in the tagged encoding and replay alongside the old records
+        links.save(new Link("l2", components.findById("db1").orElseThrow(),
+                components.findById("api1").orElseThrow(), LinkType.API_CALL));
+        restart();
+        assertEquals(2, links.count());
+        assertSame(components.findById("api1").orElseThrow(), links.findById("l2").orElseThrow().getTarget());
+    }
+
+    @Test
+    void testDeletesAreReplayed() throws Exception {
+        open();
+        saveSample();
+        links.deleteById("l1");
+        components.deleteById("db1");
+        restart();
+
+        assertFalse(links.existsById("l1"));
+        assertFalse(components.existsById("db1"));
+        // The architecture still holds the deleted component, as it did in memory
+        Architecture architecture = architectures.findById("arch1").orElseThrow();
+        assertEquals("db1", architecture.getComponents().get(1).getId());
+        assertEquals(1, architecture.getLinks().size());
+    }
+
+    @Test
+    void testSnapshotCompactsLog() throws Exception {
+        open();
+        saveSample();
+        for (int i = 0; i < 100; i++) {
+            components.save(new CacheComponent("cache" + i, "Cache " + i, CacheComponent.CacheType.DISTRIBUTED));
+        }
+        journal.sync();
+        journal.requestSnapshot();
+        components.deleteById("cache0");
+        restart();
+
+        assertTrue(Files.exists(directory.resolve("snapshot.bin")));
+        assertEquals(101, components.count());
+        assertFalse(components.existsById("cache0"));
+        assertSame(components.findById("api1").orElseThrow(), links.findById("l1").orElseThrow().getSource());
+    }
+
+    @Test
+    void testTornTailIsDiscarded() throws Exception {
+        open();
+        saveSample();
+        journal.sync();
+        journal.close();
+
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(file -> file.getFileName().toString().startsWith("wal-")).findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        open();
+
+        assertTrue(components.existsById("api1"));
+        assertTrue(links.existsById("l1"));
+        assertFalse(architectures.existsById("arch1"), "The torn last record is dropped");
+    }
+}
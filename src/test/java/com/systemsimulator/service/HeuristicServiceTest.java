@@ -1,11 +1,22 @@
 package com.systemsimulator.service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.systemsimulator.model.*;
+import com.systemsimulator.repository.InMemoryArchitectureRepository;
+import com.systemsimulator.repository.InMemoryComponentRepository;
+import com.systemsimulator.utils.ArchitectureMailboxes;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -15,6 +26,8 @@ class HeuristicServiceTest {
     @Autowired
     private HeuristicService heuristicService;
 
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
     @Test
     void testDatabaseHeuristics() {
         HeuristicProfile profile = heuristicService.getDefaultHeuristicsForType(ComponentType.DATABASE);
@@ -113,5 +126,91 @@ class HeuristicServiceTest {
             heuristicService.updateHeuristicScore(component, Parameter.LATENCY, -1.0);
         });
     }
-}
 
+    @Test
+    void testCompiledProfilesAreSharedUntilChanged() {
+        Component first = new DatabaseComponent("db1", "DB 1", DatabaseComponent.DatabaseType.NOSQL);
+        Component second = new DatabaseComponent("db2", "DB 2", DatabaseComponent.DatabaseType.NOSQL);
+        first.setHeuristics(heuristicService.getHeuristicsForComponent(first));
+        second.setHeuristics(heuristicService.getHeuristicsForComponent(second));
+
+        HeuristicProfile byName = heuristicService.getHeuristicsForTypeAndSubtype(ComponentType.DATABASE, "NOSQL");
+        assertEquals(byName.getScores(), first.getHeuristics().getScores());
+        assertTrue(first.getHeuristics().isShared());
+
+        double latency = second.getHeuristics().getScore(Parameter.LATENCY);
+        heuristicService.updateHeuristicScore(first, Parameter.LATENCY, 1.0);
+
+        assertFalse(first.getHeuristics().isShared());
+        assertEquals(1.0, first.getHeuristics().getScore(Parameter.LATENCY));
+        assertEquals(latency, second.getHeuristics().getScore(Parameter.LATENCY));
+        assertEquals(latency, heuristicService.getHeuristicsForComponent(second).getScore(Parameter.LATENCY));
+        assertEquals(heuristicService.getDefaultHeuristicsForType(ComponentType.DATABASE).getScores(),
+                heuristicService.getHeuristicsForTypeAndSubtype(ComponentType.DATABASE, "UNKNOWN").getScores());
+    }
+
+    @Test
+    void testReloadRescoresOnlyChangedEntries(@TempDir Path directory) throws Exception {
+        Path config = directory.resolve("heuristics-config.json");
+        Map<String, Map<String, Map<String, Double>>> json = readBundledConfig();
+        objectMapper.writeValue(config.toFile(), json);
+
+        InMemoryComponentRepository repository = new InMemoryComponentRepository();
+        InMemoryArchitectureRepository architectures = new InMemoryArchitectureRepository();
+        ArchitectureMailboxes mailboxes = new ArchitectureMailboxes();
+        HeuristicService service = new HeuristicService();
+        ReflectionTestUtils.setField(service, "configPath", config.toString());
+        ReflectionTestUtils.setField(service, "componentRepository", repository);
+        ReflectionTestUtils.setField(service, "architectureRepository", architectures);
+        ReflectionTestUtils.setField(service, "mailboxes", mailboxes);
+        service.init();
+        try {
+            Component nosql = new DatabaseComponent("db1", "NoSQL", DatabaseComponent.DatabaseType.NOSQL);
+            Component sql = new DatabaseComponent("db2", "SQL", DatabaseComponent.DatabaseType.SQL);
+            nosql.setHeuristics(service.getHeuristicsForComponent(nosql));
+            sql.setHeuristics(service.getHeuristicsForComponent(sql));
+            repository.save(nosql);
+            repository.save(sql);
+            // Only reachable through its architecture
+            Component embedded = new DatabaseComponent("db3", "Embedded", DatabaseComponent.DatabaseType.NOSQL);
+            embedded.setHeuristics(service.getHeuristicsForComponent(embedded));
+            Architecture architecture = new Architecture("arch", "Arch");
+            architecture.addComponent(nosql);
+            architecture.addComponent(embedded);
+            architectures.save(architecture);
+            service.updateHeuristicScore(nosql, Parameter.COST, 1.0);
+            Map<Parameter, Double> sqlBefore = sql.getHeuristics().getScores();
+
+            json.get("DATABASE").get("NOSQL").put("LATENCY", 0.5);
+            json.get("DATABASE").get("NOSQL").put("COST", 9.5);
+            objectMapper.writeValue(config.toFile(), json);
+            HeuristicService.ReloadResult result = service.reloadConfiguration();
+
+            assertEquals(1, result.getChangedEntries());
+            assertEquals(2, result.getRescoredComponents());
+            assertEquals(0.5, nosql.getHeuristics().getScore(Parameter.LATENCY));
+            assertEquals(0.5, embedded.getHeuristics().getScore(Parameter.LATENCY));
+            assertEquals(1.0, nosql.getHeuristics().getScore(Parameter.COST), "Manual override is kept");
+            assertEquals(sqlBefore, sql.getHeuristics().getScores());
+            assertEquals(0.5, service.getHeuristicsForComponent(nosql).getScore(Parameter.LATENCY));
+
+            // The watcher picks up the next edit by itself
+            json.get("DATABASE").get("NOSQL").put("LATENCY", 2.5);
+            objectMapper.writeValue(config.toFile(), json);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (nosql.getHeuristics().getScore(Parameter.LATENCY) != 2.5 && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+            assertEquals(2.5, nosql.getHeuristics().getScore(Parameter.LATENCY));
+        } finally {
+            service.stop();
+            mailboxes.shutdown();
+        }
+    }
+
+    private Map<String, Map<String, Map<String, Double>>> readBundledConfig() throws Exception {
+        try (InputStream in = new ClassPathResource("heuristics-config.json").getInputStream()) {
+            return objectMapper.readValue(in, new TypeReference<Map<String, Map<String, Map<String, Double>>>>() {});
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.systemsimulator.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.systemsimulator.model.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark comparing the binary {@link TaggedEntityCodec} document with the nested and
+ * normalized JSON encodings of an architecture, for encoding and decoding. {@link #main} prints
+ * the encoded sizes before running.
+ * Run with {@code mvn test-compile}, then {@link #main} (or {@code org.openjdk.jmh.Main}) on the test classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArchitectureEncodingBenchmark {
+
+    @Param({"1000", "10000"})
+    private int componentCount;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Architecture architecture;
+    private byte[] normalizedJson;
+    private byte[] binary;
+
+    @Setup
+    public void setUp() throws IOException {
+        architecture = sample(componentCount);
+        normalizedJson = encodeNormalizedJson();
+        binary = encodeBinary();
+    }
+
+    private static Architecture sample(int componentCount) {
+        SplittableRandom random = new SplittableRandom(42);
+        Architecture architecture = new Architecture("arch", "Benchmark");
+        Component[] components = new Component[componentCount];
+        for (int i = 0; i < componentCount; i++) {
+            Component component = i % 3 == 0
+                    ? new DatabaseComponent("c" + i, "Database " + i, DatabaseComponent.DatabaseType.SQL)
+                    : new APIServiceComponent("c" + i, "Service " + i, APIServiceComponent.APIType.REST);
+            for (Parameter param : Parameter.values()) {
+                component.getHeuristics().setScore(param, random.nextDouble(1.0, 10.0));
+            }
+            component.getProperties().put("replicas", 1 + random.nextInt(8));
+            component.getProperties().put("region", i % 2 == 0 ? "eu-west" : "us-east");
+            components[i] = component;
+            architecture.addComponent(component);
+        }
+        for (int i = 0; i < componentCount * 2; i++) {
+            Link link = new Link("l" + i, components[random.nextInt(componentCount)],
+                    components[random.nextInt(componentCount)], LinkType.API_CALL);
+            link.getHeuristics().setScore(Parameter.LATENCY, random.nextDouble(1.0, 10.0));
+            architecture.addLink(link);
+        }
+        return architecture;
+    }
+
+    @Benchmark
+    public byte[] encodeNestedJson() throws IOException {
+        return objectMapper.writeValueAsBytes(architecture);
+    }
+
+    @Benchmark
+    public byte[] encodeNormalizedJson() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            NormalizedGraphWriter.writeArchitecture(generator, architecture);
+        }
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        BinaryWriter out = new BinaryWriter(64 * 1024);
+        TaggedEntityCodec.writeArchitectures(out, List.of(architecture));
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public Architecture decodeNormalizedJson() throws IOException {
+        NormalizedGraphReader reader = new NormalizedGraphReader(id -> null,
+                component -> new HeuristicProfile(), type -> new HeuristicProfile());
+        try (JsonParser parser = objectMapper.createParser(normalizedJson)) {
+            return reader.readArchitecture(parser);
+        }
+    }
+
+    @Benchmark
+    public Architecture decodeBinary() {
+        return TaggedEntityCodec.readDocument(new BinaryReader(binary), id -> null).getArchitectures().get(0);
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        for (int count : new int[] {1000, 10000}) {
+            ArchitectureEncodingBenchmark benchmark = new ArchitectureEncodingBenchmark();
+            benchmark.componentCount = count;
+            benchmark.setUp();
+            System.out.printf("%d components: nested JSON %d bytes, normalized JSON %d bytes, binary %d bytes%n",
+                    count, benchmark.encodeNestedJson().length, benchmark.normalizedJson.length, benchmark.binary.length);
+        }
+        Options options = new OptionsBuilder()
+                .include(ArchitectureEncodingBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,165 @@
+package com.systemsimulator.utils;
+
+import com.systemsimulator.model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchitectureMailboxesTest {
+
+    private final ArchitectureMailboxes mailboxes = new ArchitectureMailboxes(Executors.newCachedThreadPool());
+
+    @AfterEach
+    void tearDown() {
+        mailboxes.shutdown();
+    }
+
+    @Test
+    void testConcurrentWritersAreSerializedPerArchitecture() throws Exception {
+        Architecture architecture = new Architecture("arch", "Shared");
+        AtomicInteger running = new AtomicInteger();
+        AtomicBoolean overlapped = new AtomicBoolean();
+
+        List<CompletableFuture<Void>> writers = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            Component component = new APIServiceComponent("api" + i, "API " + i, APIServiceComponent.APIType.REST);
+            component.getHeuristics().setScore(Parameter.COST, i % 10);
+            writers.add(CompletableFuture.runAsync(() -> mailboxes.run("arch", () -> {
+                if (running.incrementAndGet() > 1) {
+                    overlapped.set(true);
+                }
+                architecture.addComponent(component);
+                running.decrementAndGet();
+            })));
+        }
+        CompletableFuture.allOf(writers.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        assertFalse(overlapped.get(), "Two writers ran on the same architecture at once");
+        assertEquals(400, architecture.getComponents().size());
+        assertEquals(400, architecture.getTotals().getComponentCount());
+    }
+
+    @Test
+    void testDifferentArchitecturesRunInParallel() throws Exception {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        CompletableFuture<Boolean> first = mailboxes.submit("a", () -> await(bothStarted));
+        CompletableFuture<Boolean> second = mailboxes.submit("b", () -> await(bothStarted));
+
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+        assertTrue(second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testTaskExceptionsAreRethrownUnchanged() {
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+                () -> mailboxes.call("arch", () -> {
+                    throw new IllegalArgumentException("Component not found: x");
+                }));
+        assertEquals("Component not found: x", thrown.getMessage());
+        // The mailbox keeps working after a failed task
+        int answer = mailboxes.call("arch", () -> 42);
+        assertEquals(42, answer);
+    }
+
+    @Test
+    void testRemoveNeverLetsTwoMailboxesRunAtOnce() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        AtomicInteger completed = new AtomicInteger();
+
+        List<CompletableFuture<Void>> writers = new ArrayList<>();
+        for (int w = 0; w < 4; w++) {
+            writers.add(CompletableFuture.runAsync(() -> {
+                List<CompletableFuture<Object>> queued = new ArrayList<>();
+                for (int i = 0; i < 500; i++) {
+                    queued.add(mailboxes.submit("arch", () -> {
+                        if (running.incrementAndGet() > 1) {
+                            overlapped.set(true);
+                        }
+                        for (int k = 0; k < 20; k++) {
+                            Thread.yield();
+                        }
+                        running.decrementAndGet();
+                        return completed.incrementAndGet();
+                    }));
+                    if (i % 7 == 0) {
+                        mailboxes.remove("arch");
+                    }
+                }
+                CompletableFuture.allOf(queued.toArray(new CompletableFuture[0])).join();
+            }));
+        }
+        CompletableFuture.allOf(writers.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+        assertFalse(overlapped.get(), "A re-created mailbox ran alongside the removed one");
+        assertEquals(2000, completed.get());
+    }
+
+    @Test
+    void testNestedCallOnSameMailboxRunsInline() {
+        assertEquals("inner", mailboxes.call("arch", () -> mailboxes.call("arch", () -> "inner")));
+    }
+
+    @Test
+    void testIsInTaskOnlyWhileRunningATask() {
+        assertFalse(mailboxes.isInTask());
+        assertTrue(mailboxes.call("arch", mailboxes::isInTask));
+        assertFalse(mailboxes.isInTask());
+    }
+
+    @Test
+    void testReadersSeeConsistentSnapshots() throws Exception {
+        Architecture architecture = new Architecture("arch", "Growing");
+        HeuristicAggregator aggregator = new HeuristicAggregator();
+        double[] weights = ParameterWeights.toVector(null);
+
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            Component previous = null;
+            for (int i = 0; i < 300; i++) {
+                Component component = new APIServiceComponent("api" + i, "API " + i, APIServiceComponent.APIType.REST);
+                component.getHeuristics().setScore(Parameter.LATENCY, i % 10);
+                Component source = previous;
+                mailboxes.run("arch", () -> {
+                    architecture.addComponent(component);
+                    if (source != null) {
+                        architecture.addLink(new Link("link" + component.getId(), source, component, LinkType.API_CALL));
+                    }
+                });
+                previous = component;
+            }
+        });
+
+        while (!writer.isDone()) {
+            Architecture snapshot = architecture.snapshot();
+            HeuristicAggregator.AggregationResult incremental = aggregator.aggregateIncremental(snapshot, weights);
+            HeuristicAggregator.AggregationResult fresh =
+                    aggregator.aggregateSinglePass(snapshot.getComponents(), snapshot.getLinks(), weights);
+            assertEquals(fresh.getComponentCount(), incremental.getComponentCount());
+            assertEquals(fresh.getLinkCount(), incremental.getLinkCount());
+            assertEquals(fresh.getArchitectureScore(), incremental.getArchitectureScore(), 1e-9);
+        }
+        writer.get();
+        assertEquals(299, architecture.getLinks().size());
+        assertThrows(UnsupportedOperationException.class, () -> architecture.getComponents().clear());
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        latch.countDown();
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
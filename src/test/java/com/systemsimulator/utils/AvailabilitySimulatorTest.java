@@ -0,0 +1,135 @@
+package com.systemsimulator.utils;
+
+import com.systemsimulator.model.*;
+import com.systemsimulator.utils.AvailabilitySimulator.AvailabilityConfig;
+import com.systemsimulator.utils.AvailabilitySimulator.AvailabilityReport;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AvailabilitySimulatorTest {
+
+    private static <T extends Component> T failing(T component, double mtbfHours, double mttrHours) {
+        component.getProperties().put("mtbfHours", mtbfHours);
+        component.getProperties().put("mttrHours", mttrHours);
+        return component;
+    }
+
+    private static Component client() {
+        return failing(new ClientComponent("client", "client"), 1.0, 0.0);
+    }
+
+    private static Component api(String id) {
+        return failing(new APIServiceComponent(id, id, APIServiceComponent.APIType.REST), 9.0, 1.0);
+    }
+
+    private static Component db(String id) {
+        return failing(new DatabaseComponent(id, id, DatabaseComponent.DatabaseType.SQL), 9.0, 1.0);
+    }
+
+    private static AvailabilityReport run(Architecture architecture) {
+        AvailabilityConfig config = new AvailabilityConfig();
+        config.setTrials(400_000);
+        return new AvailabilitySimulator(architecture, config).run();
+    }
+
+    private static void assertWithinInterval(double expected, AvailabilitySimulator.Estimate estimate) {
+        assertTrue(estimate.getLowerBound() <= expected && expected <= estimate.getUpperBound(),
+                expected + " not in [" + estimate.getLowerBound() + ", " + estimate.getUpperBound() + "]");
+        assertEquals(expected, estimate.getAvailability(), 0.003);
+    }
+
+    @Test
+    void testSerialChainMultipliesAvailability() {
+        Architecture architecture = new Architecture("arch", "arch");
+        Component client = client();
+        Component api = api("api");
+        Component db = db("db");
+        architecture.addComponent(client);
+        architecture.addComponent(api);
+        architecture.addComponent(db);
+        architecture.addLink(new Link("l1", client, api, LinkType.API_CALL));
+        architecture.addLink(new Link("l2", api, db, LinkType.DATABASE_QUERY));
+
+        AvailabilityReport report = run(architecture);
+
+        assertWithinInterval(0.81, report.getSystem());
+        // P(api down | outage) = 0.1 / 0.19; the client never fails
+        assertEquals(0.1 / 0.19, report.getComponents().get(0).getOutageShare(), 0.01);
+        assertEquals("client", report.getComponents().get(2).getComponentId());
+        assertEquals(0.0, report.getComponents().get(2).getOutageShare());
+    }
+
+    @Test
+    void testLoadBalancerFanOutIsRedundant() {
+        Architecture architecture = new Architecture("arch", "arch");
+        Component client = client();
+        Component lb = failing(new LoadBalancerComponent("lb", "lb", LoadBalancerComponent.LoadBalancerType.ROUND_ROBIN), 1.0, 0.0);
+        Component api1 = api("api1");
+        Component api2 = api("api2");
+        architecture.addComponent(client);
+        architecture.addComponent(lb);
+        architecture.addComponent(api1);
+        architecture.addComponent(api2);
+        architecture.addLink(new Link("l1", client, lb, LinkType.API_CALL));
+        architecture.addLink(new Link("l2", lb, api1, LinkType.API_CALL));
+        architecture.addLink(new Link("l3", lb, api2, LinkType.API_CALL));
+
+        assertWithinInterval(0.99, run(architecture).getSystem());
+    }
+
+    @Test
+    void testReplicaCanServeForFailedPrimary() {
+        Architecture architecture = new Architecture("arch", "arch");
+        Component client = client();
+        Component api = failing(new APIServiceComponent("api", "api", APIServiceComponent.APIType.REST), 1.0, 0.0);
+        Component primary = db("primary");
+        Component replica = db("replica");
+        architecture.addComponent(client);
+        architecture.addComponent(api);
+        architecture.addComponent(primary);
+        architecture.addComponent(replica);
+        architecture.addLink(new Link("l1", client, api, LinkType.API_CALL));
+        architecture.addLink(new Link("l2", api, primary, LinkType.DATABASE_QUERY));
+        architecture.addLink(new Link("l3", primary, replica, LinkType.REPLICATION));
+
+        assertWithinInterval(0.99, run(architecture).getSystem());
+    }
+
+    @Test
+    void testInstancesAreIndependentReplicas() {
+        Architecture architecture = new Architecture("arch", "arch");
+        Component client = client();
+        Component api = api("api");
+        api.getProperties().put("instances", 2);
+        architecture.addComponent(client);
+        architecture.addComponent(api);
+        architecture.addLink(new Link("l1", client, api, LinkType.API_CALL));
+
+        AvailabilityReport report = run(architecture);
+
+        assertWithinInterval(0.99, report.getSystem());
+        assertEquals(1.0, report.getSystem().getAvailability() + report.getExpectedDowntimeMinutesPerYear() / (365.0 * 24 * 60), 1e-9);
+    }
+
+    @Test
+    void testSameSeedGivesSameEstimate() {
+        Architecture architecture = new Architecture("arch", "arch");
+        Component client = client();
+        Component api = api("api");
+        architecture.addComponent(client);
+        architecture.addComponent(api);
+        architecture.addLink(new Link("l1", client, api, LinkType.API_CALL));
+
+        assertEquals(run(architecture).getSystem().getAvailability(), run(architecture).getSystem().getAvailability());
+    }
+
+    @Test
+    void testArchitectureWithoutClientsIsRejected() {
+        Architecture architecture = new Architecture("arch", "arch");
+        architecture.addComponent(api("api"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new AvailabilitySimulator(architecture, new AvailabilityConfig()).run());
+    }
+}
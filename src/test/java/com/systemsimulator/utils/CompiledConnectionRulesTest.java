@@ -0,0 +1,161 @@
+package com.systemsimulator.utils;
+
+import com.systemsimulator.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BiPredicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledConnectionRulesTest {
+
+    private ConnectionRuleRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new ConnectionRuleRegistry();
+    }
+
+    private static List<Component> oneOfEachType() {
+        List<Component> components = new ArrayList<>();
+        components.add(new DatabaseComponent("db", "db", DatabaseComponent.DatabaseType.SQL));
+        components.add(new CacheComponent("cache", "cache", CacheComponent.CacheType.DISTRIBUTED));
+        components.add(new APIServiceComponent("api", "api", APIServiceComponent.APIType.REST));
+        components.add(new QueueComponent("queue", "queue", QueueComponent.QueueType.MESSAGE_QUEUE));
+        components.add(new StorageComponent("storage", "storage", StorageComponent.StorageType.OBJECT_STORAGE));
+        components.add(new LoadBalancerComponent("lb", "lb", LoadBalancerComponent.LoadBalancerType.ROUND_ROBIN));
+        components.add(new StreamProcessorComponent("stream", "stream"));
+        components.add(new BatchProcessorComponent("batch", "batch"));
+        components.add(new ExternalServiceComponent("ext", "ext"));
+        components.add(new ClientComponent("client", "client"));
+        return components;
+    }
+
+    private static boolean evaluateRaw(ConnectionRuleRegistry registry, Component source,
+                                       Component target, LinkType linkType) {
+        for (ConnectionRule rule : registry.getRulesForLinkType(linkType)) {
+            if (rule.isValid(source, target, linkType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    void testCompiledTableMatchesRuleEvaluation() {
+        CompiledConnectionRules compiled = registry.getCompiledRules();
+        List<Component> components = oneOfEachType();
+
+        for (Component source : components) {
+            for (Component target : components) {
+                for (LinkType linkType : LinkType.values()) {
+                    assertEquals(evaluateRaw(registry, source, target, linkType),
+                            compiled.isValid(source, target, linkType),
+                            source.getType() + " -> " + target.getType() + " via " + linkType);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testAllowedLinkTypesForTypePair() {
+        CompiledConnectionRules compiled = registry.getCompiledRules();
+
+        assertTrue(compiled.getAllowedLinkTypes(ComponentType.API_SERVICE, ComponentType.CACHE)
+                .contains(LinkType.CACHE_LOOKUP));
+        assertFalse(compiled.getAllowedLinkTypes(ComponentType.CLIENT, ComponentType.DATABASE)
+                .contains(LinkType.REPLICATION));
+    }
+
+    @Test
+    void testRecompiledWhenRulesChange() {
+        CompiledConnectionRules before = registry.getCompiledRules();
+        assertSame(before, registry.getCompiledRules(), "Table is reused while rules are unchanged");
+
+        registry.clearRulesForLinkType(LinkType.CACHE_LOOKUP);
+        CompiledConnectionRules after = registry.getCompiledRules();
+
+        assertNotSame(before, after);
+        assertFalse(after.isValid(new APIServiceComponent("api", "api", APIServiceComponent.APIType.REST),
+                new CacheComponent("cache", "cache", CacheComponent.CacheType.DISTRIBUTED), LinkType.CACHE_LOOKUP));
+    }
+
+    @Test
+    void testRuleRegisteredDuringCompileIsNotLost() throws Exception {
+        CountDownLatch compiling = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        // Holds the first compile in progress until the test lets it finish
+        registry.registerRule(eventFlowRule((source, target) -> {
+            compiling.countDown();
+            try {
+                resume.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }));
+        Thread compiler = new Thread(registry::getCompiledRules);
+        compiler.start();
+        compiling.await();
+
+        Thread registrar = new Thread(() -> registry.registerRule(eventFlowRule(
+                (source, target) -> source instanceof ClientComponent && target instanceof ClientComponent)));
+        registrar.start();
+        while (registrar.isAlive() && registrar.getState() != Thread.State.BLOCKED) {
+            Thread.onSpinWait();
+        }
+        resume.countDown();
+        compiler.join();
+        registrar.join();
+
+        Component client = new ClientComponent("client", "client");
+        assertTrue(registry.getCompiledRules().isValid(client, client, LinkType.EVENT_FLOW));
+    }
+
+    private static ConnectionRule eventFlowRule(BiPredicate<Component, Component> valid) {
+        return new ConnectionRule() {
+            @Override
+            public boolean isValid(Component source, Component target, LinkType linkType) {
+                return valid.test(source, target);
+            }
+
+            @Override
+            public LinkType getLinkType() { return LinkType.EVENT_FLOW; }
+
+            @Override
+            public String getDescription() { return "Test rule"; }
+        };
+    }
+
+    @Test
+    void testPropertyInspectingRulesAreEvaluatedPerCall() {
+        registry.registerRule(new ConnectionRule() {
+            @Override
+            public boolean isValid(Component source, Component target, LinkType linkType) {
+                return source instanceof DatabaseComponent && target instanceof DatabaseComponent
+                        && ((DatabaseComponent) source).getDatabaseType() == DatabaseComponent.DatabaseType.SQL;
+            }
+
+            @Override
+            public LinkType getLinkType() { return LinkType.BATCH_TRANSFER; }
+
+            @Override
+            public String getDescription() { return "SQL databases can bulk-copy to other databases"; }
+
+            @Override
+            public boolean requiresPropertyInspection() { return true; }
+        });
+
+        CompiledConnectionRules compiled = registry.getCompiledRules();
+        Component sql = new DatabaseComponent("sql", "sql", DatabaseComponent.DatabaseType.SQL);
+        Component nosql = new DatabaseComponent("nosql", "nosql", DatabaseComponent.DatabaseType.NOSQL);
+
+        assertTrue(compiled.isValid(sql, nosql, LinkType.BATCH_TRANSFER));
+        assertEquals(evaluateRaw(registry, nosql, sql, LinkType.BATCH_TRANSFER),
+                compiled.isValid(nosql, sql, LinkType.BATCH_TRANSFER));
+    }
+}
@@ -0,0 +1,116 @@
+package com.systemsimulator.utils;
+
+import com.systemsimulator.model.*;
+import com.systemsimulator.utils.CriticalPathAnalyzer.CriticalPath;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CriticalPathAnalyzerTest {
+
+    private static Component api(String id, double latency) {
+        Component api = new APIServiceComponent(id, id, APIServiceComponent.APIType.REST);
+        api.getHeuristics().setScore(Parameter.LATENCY, latency);
+        return api;
+    }
+
+    private static Link link(String id, Component source, Component target, LinkType type, double latency) {
+        Link link = new Link(id, source, target, type);
+        link.getHeuristics().setScore(Parameter.LATENCY, latency);
+        return link;
+    }
+
+    @Test
+    void testFollowsSlowestBranchFromClient() {
+        Component client = new ClientComponent("client", "client");
+        client.getHeuristics().setScore(Parameter.LATENCY, 10.0);
+        Component gateway = api("gateway", 9.0);
+        Component fast = api("fast", 9.0);
+        Component slow = api("slow", 4.0);
+        Component db = new DatabaseComponent("db", "db", DatabaseComponent.DatabaseType.SQL);
+        db.getHeuristics().setScore(Parameter.LATENCY, 6.0);
+
+        List<Link> links = List.of(
+                link("l1", client, gateway, LinkType.API_CALL, 9.0),
+                link("l2", gateway, fast, LinkType.API_CALL, 9.0),
+                link("l3", gateway, slow, LinkType.API_CALL, 9.0),
+                link("l4", slow, db, LinkType.DATABASE_QUERY, 8.0),
+                // Asynchronous links are not on the request path
+                link("l5", fast, db, LinkType.EVENT_FLOW, 0.0));
+
+        CriticalPath path = CriticalPathAnalyzer.analyze(List.of(client, gateway, fast, slow, db), links);
+
+        assertEquals(List.of("client", "gateway", "slow", "db"), path.getComponentIds());
+        assertEquals(3, path.getHops());
+        assertFalse(path.isContainsCycle());
+        // client 0 + l1 1 + gateway 1 + l3 1 + slow 6 + l4 2 + db 4
+        assertEquals(15.0, path.getLatencyPenalty(), 1e-9);
+    }
+
+    @Test
+    void testDeepChainScoresWorseThanFanOut() {
+        HeuristicAggregator aggregator = new HeuristicAggregator();
+        Component client = new ClientComponent("client", "client");
+        Component[] apis = new Component[4];
+        for (int i = 0; i < apis.length; i++) {
+            apis[i] = api("api" + i, 8.0);
+        }
+        List<Component> components = List.of(client, apis[0], apis[1], apis[2], apis[3]);
+
+        List<Link> chain = List.of(
+                link("c0", client, apis[0], LinkType.API_CALL, 9.0),
+                link("c1", apis[0], apis[1], LinkType.API_CALL, 9.0),
+                link("c2", apis[1], apis[2], LinkType.API_CALL, 9.0),
+                link("c3", apis[2], apis[3], LinkType.API_CALL, 9.0));
+        List<Link> fanOut = List.of(
+                link("f0", client, apis[0], LinkType.API_CALL, 9.0),
+                link("f1", apis[0], apis[1], LinkType.API_CALL, 9.0),
+                link("f2", apis[0], apis[2], LinkType.API_CALL, 9.0),
+                link("f3", apis[0], apis[3], LinkType.API_CALL, 9.0));
+
+        double chainScore = aggregator.aggregateSinglePass(components, chain, ParameterWeights.toVector(null)).getParameterScore(Parameter.LATENCY);
+        double fanOutScore = aggregator.aggregateSinglePass(components, fanOut, ParameterWeights.toVector(null)).getParameterScore(Parameter.LATENCY);
+
+        assertTrue(chainScore < fanOutScore, chainScore + " should be below " + fanOutScore);
+    }
+
+    @Test
+    void testCycleIsCondensed() {
+        Component client = new ClientComponent("client", "client");
+        Component a = api("a", 8.0);
+        Component b = api("b", 7.0);
+        Component db = new DatabaseComponent("db", "db", DatabaseComponent.DatabaseType.SQL);
+
+        List<Link> links = List.of(
+                link("l1", client, a, LinkType.API_CALL, 10.0),
+                link("l2", a, b, LinkType.API_CALL, 9.0),
+                link("l3", b, a, LinkType.API_CALL, 7.0),
+                link("l4", b, db, LinkType.DATABASE_QUERY, 10.0));
+
+        CriticalPath path = CriticalPathAnalyzer.analyze(List.of(client, a, b, db), links);
+
+        assertTrue(path.isContainsCycle());
+        assertEquals(List.of("client", "a", "b", "db"), path.getComponentIds());
+        assertEquals(2, path.getHops());
+        // a 2 + b 3 + one extra member at the slowest internal link (3)
+        double dbPenalty = 10.0 - db.getHeuristics().getScore(Parameter.LATENCY);
+        double clientPenalty = 10.0 - client.getHeuristics().getScore(Parameter.LATENCY);
+        assertEquals(clientPenalty + 8.0 + dbPenalty, path.getLatencyPenalty(), 1e-9);
+    }
+
+    @Test
+    void testWithoutClientsStartsFromEntryPoints() {
+        Component a = api("a", 9.0);
+        Component b = api("b", 5.0);
+        Component c = api("c", 9.0);
+
+        CriticalPath path = CriticalPathAnalyzer.analyze(List.of(a, b, c),
+                List.of(link("l1", a, b, LinkType.API_CALL, 10.0)));
+
+        assertEquals(List.of("a", "b"), path.getComponentIds());
+        assertEquals(6.0, path.getLatencyPenalty(), 1e-9);
+        assertEquals(0.0, CriticalPathAnalyzer.analyze(List.of(), List.of()).getLatencyPenalty());
+    }
+}
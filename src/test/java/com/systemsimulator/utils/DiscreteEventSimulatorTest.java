@@ -0,0 +1,192 @@
+package com.systemsimulator.utils;
+
+import com.systemsimulator.model.*;
+import com.systemsimulator.utils.DiscreteEventSimulator.SimulationConfig;
+import com.systemsimulator.utils.DiscreteEventSimulator.SimulationReport;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiscreteEventSimulatorTest {
+
+    private static Component api(String id, int instances, double serviceTimeMs) {
+        Component api = new APIServiceComponent(id, id, APIServiceComponent.APIType.REST);
+        api.getProperties().put("instances", instances);
+        api.getProperties().put("serviceTimeMs", serviceTimeMs);
+        return api;
+    }
+
+    private static Architecture clientTo(Component... chain) {
+        Architecture architecture = new Architecture("arch", "arch");
+        Component client = new ClientComponent("client", "client");
+        architecture.addComponent(client);
+        Component previous = client;
+        int linkId = 0;
+        for (Component component : chain) {
+            architecture.addComponent(component);
+            architecture.addLink(new Link("link-" + linkId++, previous, component, LinkType.API_CALL));
+            previous = component;
+        }
+        return architecture;
+    }
+
+    private static SimulationConfig config(long requests, double rate, boolean exponential) {
+        SimulationConfig config = new SimulationConfig();
+        config.setRequestCount(requests);
+        config.setArrivalRatePerSecond(rate);
+        config.setExponentialServiceTimes(exponential);
+        return config;
+    }
+
+    @Test
+    void testUncontendedLatencyIsServiceTimePlusLinkLatency() {
+        Architecture architecture = clientTo(api("api", 1000, 10.0));
+
+        SimulationReport report = new DiscreteEventSimulator(architecture, config(1000, 50, false)).run();
+
+        assertEquals(1000, report.getRequestsCompleted());
+        assertEquals(0, report.getRequestsDropped());
+        assertEquals(11.0, report.getLatency().getP50Ms(), 1e-9);
+        assertEquals(11.0, report.getLatency().getP99Ms(), 1e-9);
+        assertEquals(1, report.getPaths().size());
+        assertEquals(List.of("client", "api"), report.getPaths().get(0).getComponentIds());
+    }
+
+    @Test
+    void testNonFiniteServiceTimesFallBackToDefaults() {
+        Component nan = new APIServiceComponent("nan", "nan", APIServiceComponent.APIType.REST);
+        nan.getProperties().put("serviceTimeMs", Double.NaN);
+        Component text = new APIServiceComponent("text", "text", APIServiceComponent.APIType.REST);
+        text.getProperties().put("serviceTimeMs", "Infinity");
+        Component reference = new APIServiceComponent("reference", "reference", APIServiceComponent.APIType.REST);
+        Architecture architecture = clientTo(nan, text, reference);
+        architecture.getLinks().get(0).getProperties().put("latencyMs", "NaN");
+
+        SimulationReport report = new DiscreteEventSimulator(architecture, config(1000, 10, false)).run();
+
+        assertEquals(1000, report.getRequestsCompleted());
+        // Three default 5ms API services and three default 1ms API calls
+        assertEquals(18.0, report.getLatency().getP50Ms(), 1e-9);
+        assertTrue(Double.isFinite(report.getLatency().getMeanMs()));
+        assertEquals(CapacityProperties.serviceTimeMs(reference), CapacityProperties.serviceTimeMs(nan));
+        assertEquals(CapacityProperties.serviceTimeMs(reference), CapacityProperties.serviceTimeMs(text));
+    }
+
+    @Test
+    void testSingleServerQueueMatchesMM1MeanResponseTime() {
+        // lambda = 50/s, mu = 100/s: mean time in system 1 / (mu - lambda) = 20ms, plus 1ms link
+        Architecture architecture = clientTo(api("api", 1, 10.0));
+
+        SimulationReport report = new DiscreteEventSimulator(architecture, config(200_000, 50, true)).run();
+
+        assertEquals(21.0, report.getLatency().getMeanMs(), 1.0);
+        assertEquals(0.5, report.getComponents().get(0).getUtilization(), 0.02);
+        assertTrue(report.getLatency().getP99Ms() > report.getLatency().getP95Ms());
+        assertTrue(report.getLatency().getP95Ms() > report.getLatency().getP50Ms());
+    }
+
+    @Test
+    void testMoreInstancesReduceQueueing() {
+        SimulationReport single = new DiscreteEventSimulator(
+                clientTo(api("api", 1, 10.0)), config(20_000, 90, true)).run();
+        SimulationReport scaled = new DiscreteEventSimulator(
+                clientTo(api("api", 4, 10.0)), config(20_000, 90, true)).run();
+
+        assertTrue(single.getLatency().getP95Ms() > 2 * scaled.getLatency().getP95Ms());
+        assertTrue(single.getComponents().get(0).getAverageWaitMs() > scaled.getComponents().get(0).getAverageWaitMs());
+    }
+
+    @Test
+    void testLoadBalancerSplitsRoundRobin() {
+        Architecture architecture = new Architecture("arch", "arch");
+        Component client = new ClientComponent("client", "client");
+        Component lb = new LoadBalancerComponent("lb", "lb", LoadBalancerComponent.LoadBalancerType.ROUND_ROBIN);
+        Component api1 = api("api1", 8, 5.0);
+        Component api2 = api("api2", 8, 5.0);
+        architecture.addComponent(client);
+        architecture.addComponent(lb);
+        architecture.addComponent(api1);
+        architecture.addComponent(api2);
+        architecture.addLink(new Link("l1", client, lb, LinkType.API_CALL));
+        architecture.addLink(new Link("l2", lb, api1, LinkType.API_CALL));
+        architecture.addLink(new Link("l3", lb, api2, LinkType.API_CALL));
+
+        SimulationReport report = new DiscreteEventSimulator(architecture, config(1000, 100, true)).run();
+
+        assertEquals(2, report.getPaths().size());
+        assertEquals(500, report.getPaths().get(0).getCompleted());
+        assertEquals(500, report.getPaths().get(1).getCompleted());
+    }
+
+    @Test
+    void testManyPathsAreTrackedSeparately() {
+        // 300 backends behind a balancer: more paths than the trie starts with
+        Architecture architecture = new Architecture("arch", "arch");
+        Component client = new ClientComponent("client", "client");
+        Component lb = new LoadBalancerComponent("lb", "lb", LoadBalancerComponent.LoadBalancerType.ROUND_ROBIN);
+        architecture.addComponent(client);
+        architecture.addComponent(lb);
+        architecture.addLink(new Link("l", client, lb, LinkType.API_CALL));
+        for (int i = 0; i < 300; i++) {
+            Component backend = api("api" + i, 8, 1.0);
+            architecture.addComponent(backend);
+            architecture.addLink(new Link("l" + i, lb, backend, LinkType.API_CALL));
+        }
+
+        SimulationReport report = new DiscreteEventSimulator(architecture, config(600, 100, false)).run();
+
+        assertEquals(300, report.getPaths().size());
+        for (DiscreteEventSimulator.PathStats path : report.getPaths()) {
+            assertEquals(2, path.getCompleted());
+            assertEquals(3, path.getComponentIds().size());
+        }
+    }
+
+    @Test
+    void testCacheHitsEndTheRequestAtTheCache() {
+        Architecture architecture = new Architecture("arch", "arch");
+        Component client = new ClientComponent("client", "client");
+        Component service = api("api", 8, 2.0);
+        Component cache = new CacheComponent("cache", "cache", CacheComponent.CacheType.DISTRIBUTED);
+        cache.getProperties().put("hitRatio", 1.0);
+        Component db = new DatabaseComponent("db", "db", DatabaseComponent.DatabaseType.SQL);
+        architecture.addComponent(client);
+        architecture.addComponent(service);
+        architecture.addComponent(cache);
+        architecture.addComponent(db);
+        architecture.addLink(new Link("l1", client, service, LinkType.API_CALL));
+        architecture.addLink(new Link("l2", service, cache, LinkType.CACHE_LOOKUP));
+        architecture.addLink(new Link("l3", cache, db, LinkType.DATABASE_QUERY));
+        architecture.addLink(new Link("l4", db, service, LinkType.STREAM));
+
+        SimulationReport report = new DiscreteEventSimulator(architecture, config(500, 100, true)).run();
+
+        assertEquals(1, report.getPaths().size());
+        assertEquals(List.of("client", "api", "cache"), report.getPaths().get(0).getComponentIds());
+    }
+
+    @Test
+    void testBoundedQueueDropsRequests() {
+        Component service = api("api", 1, 50.0);
+        service.getProperties().put("queueCapacity", "2");
+
+        SimulationReport report = new DiscreteEventSimulator(clientTo(service), config(2000, 200, true)).run();
+
+        assertTrue(report.getRequestsDropped() > 0);
+        assertEquals(report.getRequestsInjected(), report.getRequestsCompleted() + report.getRequestsDropped());
+        assertTrue(report.getComponents().get(0).getMaxQueueLength() <= 2);
+    }
+
+    @Test
+    void testSameSeedGivesSameResult() {
+        SimulationReport first = new DiscreteEventSimulator(
+                clientTo(api("api", 2, 10.0)), config(5000, 150, true)).run();
+        SimulationReport second = new DiscreteEventSimulator(
+                clientTo(api("api", 2, 10.0)), config(5000, 150, true)).run();
+
+        assertEquals(first.getLatency().getP99Ms(), second.getLatency().getP99Ms());
+        assertEquals(first.getEventsProcessed(), second.getEventsProcessed());
+    }
+}
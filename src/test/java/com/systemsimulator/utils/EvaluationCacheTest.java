@@ -0,0 +1,63 @@
+package com.systemsimulator.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EvaluationCacheTest {
+
+    private EvaluationCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new EvaluationCache();
+        cache.setMaxSize(2);
+    }
+
+    private static EvaluationCache.Key key(String value) {
+        return new EvaluationCache.KeyBuilder().add(value).build();
+    }
+
+    @Test
+    void testHitAndMissCounters() {
+        assertNull(cache.get(key("a"), String.class));
+        cache.put(key("a"), "result-a");
+
+        assertEquals("result-a", cache.get(key("a"), String.class));
+        assertNull(cache.get(key("a"), Integer.class), "Entries of another type are a miss");
+
+        EvaluationCache.CacheStats stats = cache.getStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(2, stats.getMisses());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEviction() {
+        cache.put(key("a"), "a");
+        cache.put(key("b"), "b");
+        cache.get(key("a"), String.class);
+        cache.put(key("c"), "c");
+
+        assertNotNull(cache.get(key("a"), String.class));
+        assertNull(cache.get(key("b"), String.class), "Least recently used entry should be evicted");
+        assertEquals(1, cache.getStats().getEvictions());
+    }
+
+    @Test
+    void testExpiredEntriesAreMisses() {
+        cache.setTtlSeconds(0);
+        cache.put(key("a"), "a");
+
+        assertNull(cache.get(key("a"), String.class));
+        assertEquals(0, cache.getStats().getSize());
+    }
+
+    @Test
+    void testKeysDistinguishContent() {
+        assertEquals(key("abc"), key("abc"));
+        assertNotEquals(key("abc"), key("acb"));
+        assertNotEquals(new EvaluationCache.KeyBuilder().add(1.0).build(),
+                        new EvaluationCache.KeyBuilder().add(1.0000001).build());
+    }
+}
@@ -0,0 +1,80 @@
+package com.systemsimulator.utils;
+
+import com.systemsimulator.model.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark comparing the per-parameter aggregation with the single-pass kernel.
+ * Run with {@code mvn test-compile}, then {@link #main} (or {@code org.openjdk.jmh.Main}) on the test classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HeuristicAggregatorBenchmark {
+
+    @Param({"10000", "50000"})
+    private int componentCount;
+
+    private HeuristicAggregator aggregator;
+    private Map<Parameter, Double> weightMap;
+    private double[] weights;
+    private List<Component> components;
+    private List<Link> links;
+
+    @Setup
+    public void setUp() {
+        aggregator = new HeuristicAggregator();
+        ParameterWeights parameterWeights = new ParameterWeights();
+        weightMap = parameterWeights.getDefaultWeights();
+        weights = parameterWeights.getWeightVector();
+        components = new ArrayList<>(componentCount);
+        links = new ArrayList<>(componentCount * 2);
+
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < componentCount; i++) {
+            Component component = new APIServiceComponent("c" + i, "Component " + i, APIServiceComponent.APIType.REST);
+            for (Parameter param : Parameter.values()) {
+                component.getHeuristics().setScore(param, random.nextDouble(1.0, 10.0));
+            }
+            components.add(component);
+        }
+        for (int i = 0; i < componentCount * 2; i++) {
+            Component source = components.get(random.nextInt(componentCount));
+            Component target = components.get(random.nextInt(componentCount));
+            Link link = new Link("l" + i, source, target, LinkType.API_CALL);
+            link.getHeuristics().setScore(Parameter.LATENCY, random.nextDouble(1.0, 10.0));
+            links.add(link);
+        }
+    }
+
+    @Benchmark
+    public double perParameter() {
+        Map<Parameter, Double> scores = aggregator.aggregateByParameterPerPass(components, links);
+        return aggregator.calculateOverallScore(scores, weightMap);
+    }
+
+    @Benchmark
+    public double singlePass() {
+        return aggregator.aggregateSinglePass(components, links, weights).getOverallScore();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(HeuristicAggregatorBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
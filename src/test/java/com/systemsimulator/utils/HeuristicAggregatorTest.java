@@ -148,5 +148,216 @@ class HeuristicAggregatorTest {
         // Calculation: (8.0*2.0 + 6.0*0.5 + 9.0*1.5) / (2.0+0.5+1.5) = 32.5 / 4.0 = 8.125
         assertEquals(8.125, weighted, 0.01);
     }
-}
 
+    @Test
+    void testWeightVectorMatchesWeightMap() {
+        HeuristicProfile profile = new HeuristicProfile();
+        profile.setScore(Parameter.LATENCY, 8.0);
+        profile.setScore(Parameter.COST, 6.0);
+        profile.setScore(Parameter.AVAILABILITY, 9.0);
+
+        double fromMap = profile.getWeightedScore(weights.getDefaultWeights());
+        double fromVector = profile.getWeightedScore(weights.getWeightVector());
+
+        assertEquals(fromMap, fromVector, 1e-12);
+    }
+
+    @Test
+    void testWeightVectorTracksWeightChanges() {
+        double[] before = weights.getWeightVector();
+        weights.setWeight(Parameter.COST, 3.0);
+        double[] after = weights.getWeightVector();
+
+        assertNotSame(before, after);
+        assertEquals(3.0, after[Parameter.COST.ordinal()]);
+    }
+
+    @Test
+    void testWeightVectorIsACopy() {
+        double[] vector = weights.getWeightVector();
+        vector[Parameter.COST.ordinal()] = 99.0;
+
+        assertEquals(1.0, weights.getWeightVector()[Parameter.COST.ordinal()]);
+        assertEquals(1.0, ParameterWeights.profile(ParameterWeights.WeightProfile.BALANCED).get(Parameter.COST));
+    }
+
+    @Test
+    void testCalculateWeightedScores() {
+        Component db = new DatabaseComponent("db1", "DB", DatabaseComponent.DatabaseType.SQL);
+        db.getHeuristics().setScore(Parameter.LATENCY, 6.0);
+        Component cache = new CacheComponent("cache1", "Cache", CacheComponent.CacheType.IN_MEMORY);
+        cache.getHeuristics().setScore(Parameter.LATENCY, 9.5);
+        cache.getHeuristics().setScore(Parameter.DURABILITY, 3.0);
+
+        double[] vector = weights.getWeightVector();
+        double[] out = new double[2];
+        aggregator.calculateWeightedScores(List.of(db, cache), vector, out);
+
+        assertEquals(6.0, out[0], 1e-12);
+        assertEquals((9.5 * 1.5 + 3.0 * 1.0) / 2.5, out[1], 1e-12);
+    }
+
+    @Test
+    void testOverallScoreSkipsUnsetParameters() {
+        double[] scores = new double[Parameter.values().length];
+        Arrays.fill(scores, Double.NaN);
+        scores[Parameter.LATENCY.ordinal()] = 8.0;
+        scores[Parameter.COST.ordinal()] = 6.0;
+
+        double[] vector = ParameterWeights.toVector(Map.of(Parameter.LATENCY, 2.0, Parameter.COST, 0.5));
+
+        assertEquals((8.0 * 2.0 + 6.0 * 0.5) / 2.5, aggregator.calculateOverallScore(scores, vector), 1e-12);
+    }
+
+    @Test
+    void testSinglePassMatchesPerParameterAggregation() {
+        SplittableRandom random = new SplittableRandom(7);
+        List<Component> components = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Component component = new APIServiceComponent("api" + i, "API" + i, APIServiceComponent.APIType.REST);
+            for (Parameter param : Parameter.values()) {
+                if (random.nextInt(5) > 0) {
+                    component.getHeuristics().setScore(param, random.nextDouble(0.0, 10.0));
+                }
+            }
+            components.add(component);
+        }
+        List<Link> links = new ArrayList<>();
+        for (int i = 0; i < 70; i++) {
+            Link link = new Link("link" + i, components.get(random.nextInt(40)),
+                                 components.get(random.nextInt(40)), LinkType.API_CALL);
+            link.getHeuristics().setScore(Parameter.LATENCY, random.nextDouble(0.0, 10.0));
+            links.add(link);
+        }
+
+        HeuristicAggregator.AggregationResult result =
+                aggregator.aggregateSinglePass(components, links, weights.getWeightVector());
+        Map<Parameter, Double> expected = aggregator.aggregateByParameterPerPass(components, links);
+        Map<Parameter, Double> expectedAverages = aggregator.aggregateByParameter(components);
+
+        for (Parameter param : Parameter.values()) {
+            assertEquals(expected.get(param), result.getParameterScore(param), 1e-12, param.name());
+            assertEquals(expectedAverages.get(param), result.getAverageScore(param), 1e-12, param.name());
+        }
+
+        double expectedOverall = aggregator.calculateOverallScore(expected, weights.getDefaultWeights());
+        assertEquals(expectedOverall, result.getOverallScore(), 1e-12);
+        assertEquals(expectedOverall * aggregator.calculateConnectivityScore(40, 70)
+                     * aggregator.calculateComplexityPenalty(40, 70),
+                     aggregator.aggregate(components, links, weights), 1e-12);
+    }
+
+    @Test
+    void testSinglePassWithEmptyComponents() {
+        HeuristicAggregator.AggregationResult result =
+                aggregator.aggregateSinglePass(new ArrayList<>(), new ArrayList<>(), weights.getWeightVector());
+
+        assertTrue(result.isEmpty());
+        assertEquals(0.0, result.getArchitectureScore());
+        assertTrue(result.getParameterScoreMap().isEmpty());
+    }
+
+    @Test
+    void testConnectionDegreesMatchPerComponentScan() {
+        Component lb = new LoadBalancerComponent("lb1", "LB", LoadBalancerComponent.LoadBalancerType.ROUND_ROBIN);
+        Component db = new DatabaseComponent("db1", "DB", DatabaseComponent.DatabaseType.SQL);
+        List<Component> components = new ArrayList<>(List.of(lb, db));
+        List<Link> links = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Component api = new APIServiceComponent("api" + i, "API" + i, APIServiceComponent.APIType.REST);
+            components.add(api);
+            links.add(new Link("lb-link" + i, lb, api, LinkType.API_CALL));
+            links.add(new Link("db-link" + i, api, db, LinkType.DATABASE_QUERY));
+        }
+
+        HeuristicAggregator.ConnectionDegrees degrees = aggregator.calculateConnectionDegrees(components, links);
+
+        assertEquals(0, degrees.getIncoming("lb1"));
+        assertEquals(8, degrees.getOutgoing("lb1"));
+        assertEquals(8, degrees.getIncoming("db1"));
+        assertEquals(2, degrees.getTotal("api3"));
+        assertEquals(0, degrees.getTotal("missing"));
+        for (Component component : components) {
+            assertEquals(aggregator.calculateBottleneckScore(component, links),
+                         aggregator.calculateBottleneckScore(degrees.getTotal(component.getId())));
+        }
+    }
+
+    @Test
+    void testCriticalPathIsComputedOncePerVersion() {
+        Architecture architecture = new Architecture("arch1", "Cached");
+        Component client = new ClientComponent("client", "Client");
+        Component api = new APIServiceComponent("api", "API", APIServiceComponent.APIType.REST);
+        Component db = new DatabaseComponent("db", "DB", DatabaseComponent.DatabaseType.SQL);
+        architecture.addComponent(client);
+        architecture.addComponent(api);
+        architecture.addComponent(db);
+        architecture.addLink(new Link("l1", client, api, LinkType.API_CALL));
+        double[] vector = ParameterWeights.toVector(null);
+
+        HeuristicAggregator.AggregationResult first = aggregator.aggregateIncremental(architecture, vector);
+        assertSame(first.getCriticalPath(), aggregator.aggregateIncremental(architecture, vector).getCriticalPath());
+
+        architecture.addLink(new Link("l2", api, db, LinkType.DATABASE_QUERY));
+        HeuristicAggregator.AggregationResult edited = aggregator.aggregateIncremental(architecture, vector);
+        assertNotSame(first.getCriticalPath(), edited.getCriticalPath());
+        assertEquals(List.of("client", "api", "db"), edited.getCriticalPath().getComponentIds());
+
+        api.getHeuristics().setScore(Parameter.LATENCY, 1.0);
+        architecture.refreshComponent(api);
+        HeuristicAggregator.AggregationResult rescored = aggregator.aggregateIncremental(architecture, vector);
+        assertNotEquals(edited.getCriticalPath().getLatencyPenalty(), rescored.getCriticalPath().getLatencyPenalty());
+    }
+
+    @Test
+    void testIncrementalEvaluationTracksEdits() {
+        Architecture architecture = new Architecture("arch1", "Incremental");
+        SplittableRandom random = new SplittableRandom(11);
+        List<Component> components = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Component component = new APIServiceComponent("api" + i, "API" + i, APIServiceComponent.APIType.REST);
+            for (Parameter param : Parameter.values()) {
+                component.getHeuristics().setScore(param, random.nextDouble(0.0, 10.0));
+            }
+            components.add(component);
+            architecture.addComponent(component);
+        }
+        architecture.getEvaluator();
+        for (int i = 0; i < 30; i++) {
+            Link link = new Link("link" + i, components.get(random.nextInt(20)),
+                                 components.get(random.nextInt(20)), LinkType.API_CALL);
+            link.getHeuristics().setScore(Parameter.LATENCY, random.nextDouble(0.0, 10.0));
+            architecture.addLink(link);
+        }
+
+        // Remove a component and a link, and re-score one component in place
+        architecture.removeComponent(components.get(3));
+        architecture.removeLink(architecture.getLinks().get(5));
+        components.get(7).getHeuristics().setScore(Parameter.AVAILABILITY, 0.0);
+        architecture.refreshComponent(components.get(7));
+
+        double[] vector = weights.getWeightVector();
+        HeuristicAggregator.AggregationResult incremental =
+                aggregator.aggregateIncremental(architecture.getEvaluator(), vector);
+        HeuristicAggregator.AggregationResult fresh =
+                aggregator.aggregateSinglePass(architecture.getComponents(), architecture.getLinks(), vector);
+
+        assertEquals(fresh.getComponentCount(), incremental.getComponentCount());
+        assertEquals(fresh.getLinkCount(), incremental.getLinkCount());
+        for (Parameter param : Parameter.values()) {
+            assertEquals(fresh.getParameterScore(param), incremental.getParameterScore(param), 1e-9, param.name());
+            assertEquals(fresh.getAverageScore(param), incremental.getAverageScore(param), 1e-9, param.name());
+        }
+        assertEquals(0.0, incremental.getParameterScore(Parameter.AVAILABILITY));
+        assertEquals(fresh.getArchitectureScore(), incremental.getArchitectureScore(), 1e-9);
+
+        HeuristicAggregator.ConnectionDegrees degrees =
+                aggregator.calculateConnectionDegrees(architecture.getComponents(), architecture.getLinks());
+        for (Component component : architecture.getComponents()) {
+            assertEquals(degrees.getIncoming(component.getId()),
+                         architecture.getEvaluator().getIncoming(component.getId()));
+            assertEquals(degrees.getOutgoing(component.getId()),
+                         architecture.getEvaluator().getOutgoing(component.getId()));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.systemsimulator.utils;
+
+import com.systemsimulator.model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedArchitectureTest {
+
+    @TempDir
+    Path directory;
+
+    private static Architecture sample() {
+        Component client = new ClientComponent("client", "Client");
+        Component api = new APIServiceComponent("api", "API", APIServiceComponent.APIType.GRPC);
+        api.getHeuristics().setScore(Parameter.LATENCY, 8.0);
+        api.getHeuristics().setScore(Parameter.COST, 6.0);
+        api.getHeuristics().setScore(Parameter.AVAILABILITY, 7.0);
+        api.setProperties(Map.of("capacityPerSecond", 500, "region", "eu"));
+        Component db = new DatabaseComponent("db", "DB", DatabaseComponent.DatabaseType.NOSQL);
+        db.getHeuristics().setScore(Parameter.LATENCY, 5.0);
+        db.getHeuristics().setScore(Parameter.AVAILABILITY, 9.0);
+        // Endpoint of a link that is not itself part of the architecture
+        Component external = new ExternalServiceComponent("ext", "Payments");
+
+        Link call = new Link("l1", client, api, LinkType.API_CALL);
+        Link query = new Link("l2", api, db, LinkType.DATABASE_QUERY);
+        query.getHeuristics().setScore(Parameter.LATENCY, 7.0);
+        Link outbound = new Link("l3", api, external, LinkType.API_CALL);
+
+        Architecture architecture = new Architecture("arch", "Checkout");
+        architecture.setComponents(new ArrayList<>(List.of(client, api, db)));
+        architecture.setLinks(new ArrayList<>(List.of(call, query, outbound)));
+        return architecture;
+    }
+
+    @Test
+    void testScoresFromFileMatchMaterializedEvaluation() throws Exception {
+        Architecture architecture = sample();
+        Path file = directory.resolve("arch.bin");
+        MappedArchitecture.write(architecture, file);
+        MappedArchitecture mapped = MappedArchitecture.open(file);
+
+        HeuristicAggregator aggregator = new HeuristicAggregator();
+        double[] weights = ParameterWeights.toVector(null);
+        HeuristicAggregator.AggregationResult expected =
+                aggregator.aggregateSinglePass(architecture.getComponents(), architecture.getLinks(), weights);
+        HeuristicAggregator.AggregationResult actual = aggregator.aggregateMapped(mapped, weights);
+
+        assertEquals(3, mapped.getComponentCount());
+        assertEquals(expected.getArchitectureScore(), actual.getArchitectureScore(), 1e-12);
+        assertEquals(expected.getParameterScoreMap(), actual.getParameterScoreMap());
+        assertEquals(expected.getCriticalPath().getComponentIds(), actual.getCriticalPath().getComponentIds());
+        assertEquals(expected.getCriticalPath().getLatencyPenalty(), actual.getCriticalPath().getLatencyPenalty(), 1e-12);
+    }
+
+    @Test
+    void testMaterializesEquivalentObjects() {
+        MappedArchitecture mapped = MappedArchitecture.wrap(
+                ByteBuffer.wrap(MappedArchitecture.encode(sample())));
+
+        Architecture restored = mapped.toArchitecture();
+
+        assertEquals("arch", restored.getId());
+        assertEquals("Checkout", restored.getName());
+        assertEquals(List.of("client", "api", "db"),
+                restored.getComponents().stream().map(Component::getId).toList());
+        Component api = restored.getComponents().get(1);
+        assertEquals(APIServiceComponent.APIType.GRPC, ((APIServiceComponent) api).getApiType());
+        assertEquals(6.0, api.getHeuristics().getScore(Parameter.COST));
+        assertFalse(api.getHeuristics().hasScore(Parameter.SECURITY));
+        assertEquals(500, api.getProperties().get("capacityPerSecond"));
+
+        Link query = restored.getLinks().get(1);
+        assertSame(api, query.getSource(), "Links share the materialized components");
+        assertEquals(LinkType.DATABASE_QUERY, query.getType());
+        assertEquals(7.0, query.getHeuristics().getScore(Parameter.LATENCY));
+        Link outbound = restored.getLinks().get(2);
+        assertEquals("ext", outbound.getTarget().getId());
+        assertEquals(ComponentType.EXTERNAL_SERVICE, outbound.getTarget().getType());
+    }
+
+    @Test
+    void testComponentWithoutType() {
+        Component untyped = new Component("untyped", "Untyped") {
+            @Override
+            public ComponentType getType() {
+                return null;
+            }
+        };
+        Architecture architecture = new Architecture("arch", "Untyped");
+        architecture.addComponent(untyped);
+        architecture.addComponent(new ClientComponent("client", "Client"));
+
+        MappedArchitecture mapped = MappedArchitecture.wrap(ByteBuffer.wrap(MappedArchitecture.encode(architecture)));
+
+        assertNull(mapped.componentType(0));
+        assertEquals(ComponentType.CLIENT, mapped.componentType(1));
+        assertThrows(IllegalArgumentException.class, mapped::toArchitecture);
+    }
+
+    @Test
+    void testReadsVersionOneComponentTypes() {
+        ByteBuffer buffer = ByteBuffer.wrap(MappedArchitecture.encode(sample())).order(java.nio.ByteOrder.LITTLE_ENDIAN);
+        // Version 1 stored the type ordinal itself
+        buffer.putInt(4, 1);
+        int componentOffset = buffer.getInt(32);
+        int recordBytes = 24 + 8 * buffer.getInt(24);
+        for (int i = 0; i < buffer.getInt(8); i++) {
+            int type = componentOffset + i * recordBytes + 16;
+            buffer.put(type, (byte) (buffer.get(type) - 1));
+        }
+
+        MappedArchitecture mapped = MappedArchitecture.wrap(buffer);
+
+        assertEquals(ComponentType.CLIENT, mapped.componentType(0));
+        assertEquals(ComponentType.API_SERVICE, mapped.componentType(1));
+        assertEquals(ComponentType.EXTERNAL_SERVICE, mapped.componentType(3));
+    }
+
+    @Test
+    void testRejectsOtherFiles() {
+        assertThrows(IllegalArgumentException.class,
+                () -> MappedArchitecture.wrap(ByteBuffer.wrap(new byte[128])));
+    }
+}
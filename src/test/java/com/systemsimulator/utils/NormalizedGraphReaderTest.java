@@ -0,0 +1,112 @@
+package com.systemsimulator.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.systemsimulator.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NormalizedGraphReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private NormalizedGraphReader newReader(Map<String, Component> stored) {
+        return new NormalizedGraphReader(stored::get,
+                component -> new HeuristicProfile(), type -> new HeuristicProfile());
+    }
+
+    @Test
+    void testReadsWhatTheWriterWrites() throws Exception {
+        Component api = new APIServiceComponent("api", "API", APIServiceComponent.APIType.GRAPHQL);
+        api.getHeuristics().setScore(Parameter.LATENCY, 7.5);
+        api.setProperties(Map.of("replicas", 3, "tags", List.of("a", "b")));
+        Component db = new DatabaseComponent("db", "DB", DatabaseComponent.DatabaseType.NOSQL);
+        Component external = new ExternalServiceComponent("ext", "Payments");
+        Link query = new Link("l1", api, db, LinkType.DATABASE_QUERY);
+        query.getHeuristics().setScore(Parameter.COST, 2.0);
+        Architecture architecture = new Architecture("arch", "Shop");
+        architecture.addComponent(api);
+        architecture.addComponent(db);
+        architecture.addLink(query);
+        architecture.addLink(new Link("l2", api, external, LinkType.API_CALL));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            NormalizedGraphWriter.writeArchitecture(generator, architecture);
+        }
+        NormalizedGraphReader reader = newReader(Map.of());
+        Architecture read;
+        try (JsonParser parser = objectMapper.createParser(out.toByteArray())) {
+            read = reader.readArchitecture(parser);
+        }
+
+        assertEquals("arch", read.getId());
+        assertEquals("Shop", read.getName());
+        assertEquals(2, read.getComponents().size());
+        assertEquals(3, reader.getComponents().size(), "Referenced components are imported too");
+        Component readApi = read.getComponents().get(0);
+        assertEquals(APIServiceComponent.APIType.GRAPHQL, ((APIServiceComponent) readApi).getApiType());
+        assertEquals(7.5, readApi.getHeuristics().getScore(Parameter.LATENCY));
+        assertEquals(List.of("a", "b"), readApi.getProperties().get("tags"));
+
+        Link readQuery = read.getLinks().get(0);
+        assertSame(readApi, readQuery.getSource());
+        assertEquals(DatabaseComponent.DatabaseType.NOSQL, ((DatabaseComponent) readQuery.getTarget()).getDatabaseType());
+        assertEquals(2.0, readQuery.getHeuristics().getScore(Parameter.COST));
+        assertEquals("ext", read.getLinks().get(1).getTarget().getId());
+    }
+
+    @Test
+    void testBatchSharesComponentsAndResolvesStoredOnes() throws Exception {
+        Component stored = new CacheComponent("cache", "Cache", CacheComponent.CacheType.DISTRIBUTED);
+        String json = "{\"architectures\": ["
+                + "{\"links\": [{\"id\": \"l1\", \"sourceId\": \"api\", \"targetId\": \"cache\", \"type\": \"CACHE_LOOKUP\"}],"
+                + " \"architectureName\": \"First\","
+                + " \"components\": [{\"id\": \"api\", \"name\": \"API\", \"type\": \"API_SERVICE\", \"apiType\": \"REST\"}]},"
+                + "{\"id\": \"second\", \"name\": \"Second\","
+                + " \"components\": [{\"id\": \"api\", \"name\": \"Renamed\", \"type\": \"API_SERVICE\"}],"
+                + " \"links\": [{\"id\": \"l2\", \"source\": {\"id\": \"api\"}, \"target\": {\"id\": \"cache\"}, \"type\": \"CACHE_LOOKUP\"}]}"
+                + "]}";
+
+        NormalizedGraphReader reader = newReader(Map.of("cache", stored));
+        List<Architecture> architectures;
+        try (JsonParser parser = objectMapper.createParser(json)) {
+            architectures = reader.readArchitectures(parser);
+        }
+
+        assertEquals(2, architectures.size());
+        assertNotNull(architectures.get(0).getId());
+        assertEquals("second", architectures.get(1).getId());
+        assertEquals(1, reader.getComponents().size());
+        Component api = architectures.get(0).getComponents().get(0);
+        assertSame(api, architectures.get(1).getComponents().get(0), "The first definition wins");
+        assertEquals("API", api.getName());
+        assertSame(stored, architectures.get(0).getLinks().get(0).getTarget());
+        assertSame(api, architectures.get(1).getLinks().get(0).getSource());
+        assertNotNull(architectures.get(1).getLinks().get(0).getHeuristics(), "Defaults are applied");
+    }
+
+    @Test
+    void testRejectsUnknownEndpointsAndTypes() throws Exception {
+        String unknownEndpoint = "{\"components\": [{\"id\": \"a\", \"type\": \"CLIENT\"}],"
+                + " \"links\": [{\"id\": \"l\", \"sourceId\": \"a\", \"targetId\": \"missing\", \"type\": \"API_CALL\"}]}";
+        try (JsonParser parser = objectMapper.createParser(unknownEndpoint)) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> newReader(Map.of()).readArchitecture(parser));
+            assertTrue(e.getMessage().contains("missing"));
+        }
+
+        String unknownType = "{\"components\": [{\"id\": \"a\", \"type\": \"MAINFRAME\"}]}";
+        try (JsonParser parser = objectMapper.createParser(unknownType)) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> newReader(Map.of()).readArchitecture(parser));
+            assertTrue(e.getMessage().contains("line 1"));
+        }
+    }
+}
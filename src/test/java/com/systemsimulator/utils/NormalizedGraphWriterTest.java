@@ -0,0 +1,87 @@
+package com.systemsimulator.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.systemsimulator.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NormalizedGraphWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private JsonNode write(Architecture architecture) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            NormalizedGraphWriter.writeArchitecture(generator, architecture);
+        }
+        return objectMapper.readTree(out.toByteArray());
+    }
+
+    @Test
+    void testComponentsAreWrittenOnceAndLinksByEndpointId() throws Exception {
+        Component api = new APIServiceComponent("api", "API", APIServiceComponent.APIType.REST);
+        api.setProperties(Map.of("region", "eu"));
+        Component db = new DatabaseComponent("db", "DB", DatabaseComponent.DatabaseType.SQL);
+        Component external = new ExternalServiceComponent("ext", "Payments");
+        Link query = new Link("l1", api, db, LinkType.DATABASE_QUERY);
+        query.getHeuristics().setScore(Parameter.LATENCY, 6.0);
+        Link reverse = new Link("l2", db, api, LinkType.API_CALL);
+        Link outbound = new Link("l3", api, external, LinkType.API_CALL);
+
+        Architecture architecture = new Architecture("arch", "Shop");
+        architecture.addComponent(api);
+        architecture.addComponent(db);
+        architecture.addLink(query);
+        architecture.addLink(reverse);
+        architecture.addLink(outbound);
+
+        JsonNode json = write(architecture);
+
+        assertEquals("arch", json.get("architectureId").asText());
+        assertEquals("normalized", json.get("format").asText());
+        assertEquals(2, json.get("components").size());
+        assertEquals(objectMapper.valueToTree(api), json.get("components").get(0));
+        assertEquals(1, json.get("referencedComponents").size());
+        assertEquals("ext", json.get("referencedComponents").get(0).get("id").asText());
+
+        JsonNode link = json.get("links").get(0);
+        assertEquals("api", link.get("sourceId").asText());
+        assertEquals("db", link.get("targetId").asText());
+        assertEquals("DATABASE_QUERY", link.get("type").asText());
+        assertEquals(objectMapper.valueToTree(query.getHeuristics()), link.get("heuristics"));
+        assertFalse(link.has("source"));
+        assertEquals(3, json.get("links").size());
+    }
+
+    @Test
+    void testLinksListCarriesEachEndpointOnce() throws Exception {
+        Component a = new ClientComponent("a", "A");
+        Component b = new CacheComponent("b", "B", CacheComponent.CacheType.DISTRIBUTED);
+        List<Link> links = List.of(new Link("l1", a, b, LinkType.CACHE_LOOKUP), new Link("l2", b, a, LinkType.CACHE_LOOKUP));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            NormalizedGraphWriter.writeLinks(generator, links);
+        }
+        JsonNode json = objectMapper.readTree(out.toByteArray());
+
+        assertEquals(2, json.get("components").size());
+        assertEquals(0, json.get("referencedComponents").size());
+        assertEquals("b", json.get("links").get(1).get("sourceId").asText());
+    }
+
+    @Test
+    void testFormatParameter() {
+        assertTrue(NormalizedGraphWriter.isNormalized(null));
+        assertTrue(NormalizedGraphWriter.isNormalized("normalized"));
+        assertFalse(NormalizedGraphWriter.isNormalized("NESTED"));
+        assertThrows(IllegalArgumentException.class, () -> NormalizedGraphWriter.isNormalized("xml"));
+    }
+}
@@ -0,0 +1,78 @@
+package com.systemsimulator.utils;
+
+import com.systemsimulator.model.Parameter;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParameterWeightsTest {
+
+    @Test
+    void testProfilesArePrecomputedAndShared() {
+        WeightVector performance = ParameterWeights.profile(ParameterWeights.WeightProfile.PERFORMANCE_FOCUSED);
+
+        assertSame(performance, ParameterWeights.profile(ParameterWeights.WeightProfile.PERFORMANCE_FOCUSED));
+        assertEquals(2.0, performance.get(Parameter.LATENCY));
+        assertEquals(0.5, performance.get(Parameter.COST));
+        assertEquals(1.3, performance.get(Parameter.AVAILABILITY));
+        assertThrows(UnsupportedOperationException.class, () -> performance.getWeights().put(Parameter.COST, 9.0));
+    }
+
+    @Test
+    void testResolveLeavesSharedWeightsAlone() {
+        ParameterWeights weights = new ParameterWeights();
+        WeightVector before = weights.getCurrent();
+
+        WeightVector resolved = weights.resolve(ParameterWeights.WeightProfile.COST_OPTIMIZED,
+                Map.of(Parameter.SECURITY, 3.0));
+
+        assertEquals(2.0, resolved.get(Parameter.COST));
+        assertEquals(3.0, resolved.get(Parameter.SECURITY));
+        assertSame(before, weights.getCurrent());
+        assertSame(ParameterWeights.profile(ParameterWeights.WeightProfile.RELIABILITY_FOCUSED),
+                weights.resolve(ParameterWeights.WeightProfile.RELIABILITY_FOCUSED, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> weights.resolve(null, Map.of(Parameter.COST, -1.0)));
+    }
+
+    @Test
+    void testSnapshotsSurviveSharedChanges() {
+        ParameterWeights weights = new ParameterWeights();
+        WeightVector snapshot = weights.getCurrent();
+
+        weights.applyProfile(ParameterWeights.WeightProfile.PERFORMANCE_FOCUSED);
+        weights.setWeight(Parameter.SECURITY, 4.0);
+
+        assertEquals(1.5, snapshot.get(Parameter.LATENCY));
+        assertEquals(1.1, snapshot.get(Parameter.SECURITY));
+        assertEquals(2.0, weights.getWeight(Parameter.LATENCY));
+        assertEquals(4.0, weights.getWeight(Parameter.SECURITY));
+
+        weights.resetToDefaults();
+        assertSame(ParameterWeights.profile(ParameterWeights.WeightProfile.BALANCED), weights.getCurrent());
+    }
+
+    @Test
+    void testCustomProfilesRegisterOnce() {
+        ParameterWeights weights = new ParameterWeights();
+        WeightVector registered = weights.registerProfile("latency-critical",
+                ParameterWeights.WeightProfile.PERFORMANCE_FOCUSED, Map.of(Parameter.LATENCY, 5.0));
+
+        assertEquals("latency-critical", registered.getName());
+        assertEquals(5.0, registered.get(Parameter.LATENCY));
+        assertEquals(2.0, registered.get(Parameter.THROUGHPUT));
+        assertSame(registered, weights.registerProfile("latency-critical",
+                ParameterWeights.WeightProfile.PERFORMANCE_FOCUSED, Map.of(Parameter.LATENCY, 5.0)));
+        assertSame(registered, weights.resolve(null, "latency-critical", null));
+        assertEquals(1, weights.getCustomProfiles().size());
+
+        assertThrows(IllegalArgumentException.class, () -> weights.registerProfile("latency-critical",
+                null, Map.of(Parameter.LATENCY, 4.0)));
+        assertThrows(IllegalArgumentException.class, () -> weights.registerProfile("balanced", null, null));
+        assertThrows(IllegalArgumentException.class, () -> weights.resolve(null, "unknown", null));
+        assertThrows(IllegalArgumentException.class, () -> weights.resolve(
+                ParameterWeights.WeightProfile.BALANCED, "latency-critical", null));
+    }
+}
@@ -0,0 +1,69 @@
+package com.systemsimulator.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParetoFrontierTest {
+
+    @Test
+    void testSmallFrontier() {
+        double[][] points = {
+                {5, 5},
+                {9, 1},
+                {4, 4},   // dominated by {5, 5}
+                {1, 9},
+                {5, 5},   // equal points do not dominate each other
+                {0, 0}    // dominated by everything else
+        };
+
+        ParetoFrontier.Result result = ParetoFrontier.analyze(points);
+
+        assertArrayEquals(new int[]{0, 1, 3, 4}, result.getFrontier());
+        assertFalse(result.isOnFrontier(2));
+        assertEquals(2, result.getDominatedBy(2));
+        assertEquals(4, result.getDominatedBy(5));
+        assertEquals(2, result.getDominates(0));
+        assertEquals(1, result.getDominates(1));
+    }
+
+    @Test
+    void testMatchesPairwiseCheck() {
+        SplittableRandom random = new SplittableRandom(3);
+        double[][] points = new double[2000][10];
+        for (double[] point : points) {
+            for (int d = 0; d < point.length; d++) {
+                // Coarse values so ties and duplicates occur
+                point[d] = random.nextInt(6);
+            }
+        }
+
+        ParetoFrontier.Result result = ParetoFrontier.analyze(points);
+
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < points.length; i++) {
+            boolean dominated = false;
+            for (int j = 0; j < points.length && !dominated; j++) {
+                dominated = ParetoFrontier.dominates(points[j], points[i]);
+            }
+            if (!dominated) {
+                expected.add(i);
+            }
+        }
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), result.getFrontier());
+
+        for (int member : result.getFrontier()) {
+            int count = 0;
+            for (double[] point : points) {
+                if (ParetoFrontier.dominates(points[member], point)) {
+                    count++;
+                }
+            }
+            assertEquals(count, result.getDominates(member));
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.systemsimulator.utils;
+
+import com.systemsimulator.model.*;
+import com.systemsimulator.utils.QueueingNetworkSolver.QueueingConfig;
+import com.systemsimulator.utils.QueueingNetworkSolver.QueueingReport;
+import com.systemsimulator.utils.QueueingNetworkSolver.StationMetrics;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueueingNetworkSolverTest {
+
+    private static Component api(String id, int instances, double serviceTimeMs) {
+        Component api = new APIServiceComponent(id, id, APIServiceComponent.APIType.REST);
+        api.getProperties().put("instances", instances);
+        api.getProperties().put("serviceTimeMs", serviceTimeMs);
+        return api;
+    }
+
+    private static QueueingReport solve(Architecture architecture, double rate) {
+        QueueingConfig config = new QueueingConfig();
+        config.setArrivalRatePerSecond(rate);
+        return new QueueingNetworkSolver(architecture, config).solve();
+    }
+
+    private static StationMetrics station(QueueingReport report, String id) {
+        return report.getStations().stream()
+                .filter(s -> s.getComponentId().equals(id))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    void testErlangC() {
+        assertEquals(0.5, QueueingNetworkSolver.erlangC(1, 0.5), 1e-12);
+        assertEquals(1.0 / 3.0, QueueingNetworkSolver.erlangC(2, 1.0), 1e-12);
+        // Stops long before the declared instance count, at a negligible wait probability
+        assertEquals(0.0, QueueingNetworkSolver.erlangC(Integer.MAX_VALUE, 10.0), 1e-15);
+        for (int servers : new int[] {50, 1000}) {
+            double load = servers * 0.9;
+            double erlangB = 1.0;
+            for (int k = 1; k <= servers; k++) {
+                erlangB = load * erlangB / (k + load * erlangB);
+            }
+            assertEquals(erlangB / (1.0 - 0.9 * (1.0 - erlangB)), QueueingNetworkSolver.erlangC(servers, load), 1e-12);
+        }
+    }
+
+    @Test
+    void testSingleServerMatchesMM1() {
+        Architecture architecture = new Architecture("arch", "arch");
+        Component client = new ClientComponent("client", "client");
+        Component service = api("api", 1, 10.0);
+        architecture.addComponent(client);
+        architecture.addComponent(service);
+        architecture.addLink(new Link("l1", client, service, LinkType.API_CALL));
+
+        QueueingReport report = solve(architecture, 50);
+
+        StationMetrics metrics = station(report, "api");
+        assertEquals(0.5, metrics.getUtilization(), 1e-12);
+        assertEquals(20.0, metrics.getMeanResponseMs(), 1e-9);
+        assertEquals(21.0, report.getMeanLatencyMs(), 1e-9);
+        assertTrue(report.isStable());
+        assertTrue(report.getWarnings().isEmpty());
+    }
+
+    @Test
+    void testTrafficSplitsAcrossLoadBalancerAndCache() {
+        Architecture architecture = new Architecture("arch", "arch");
+        Component client = new ClientComponent("client", "client");
+        Component lb = new LoadBalancerComponent("lb", "lb", LoadBalancerComponent.LoadBalancerType.ROUND_ROBIN);
+        Component api1 = api("api1", 2, 5.0);
+        Component api2 = api("api2", 2, 5.0);
+        Component cache = new CacheComponent("cache", "cache", CacheComponent.CacheType.DISTRIBUTED);
+        Component db = new DatabaseComponent("db", "db", DatabaseComponent.DatabaseType.SQL);
+        for (Component component : new Component[]{client, lb, api1, api2, cache, db}) {
+            architecture.addComponent(component);
+        }
+        architecture.addLink(new Link("l1", client, lb, LinkType.API_CALL));
+        architecture.addLink(new Link("l2", lb, api1, LinkType.API_CALL));
+        architecture.addLink(new Link("l3", lb, api2, LinkType.API_CALL));
+        architecture.addLink(new Link("l4", api1, cache, LinkType.CACHE_LOOKUP));
+        architecture.addLink(new Link("l5", api2, cache, LinkType.CACHE_LOOKUP));
+        architecture.addLink(new Link("l6", cache, db, LinkType.DATABASE_QUERY));
+
+        QueueingReport report = solve(architecture, 100);
+
+        assertEquals(50.0, station(report, "api1").getArrivalRatePerSecond(), 1e-9);
+        assertEquals(100.0, station(report, "cache").getArrivalRatePerSecond(), 1e-9);
+        assertEquals(20.0, station(report, "db").getArrivalRatePerSecond(), 1e-9);
+    }
+
+    @Test
+    void testCycleIsSolvedAsLinearSystem() {
+        // api -> cache -> api; half of the cache lookups miss and go back to the API
+        Architecture architecture = new Architecture("arch", "arch");
+        Component client = new ClientComponent("client", "client");
+        Component service = api("api", 4, 1.0);
+        Component cache = new CacheComponent("cache", "cache", CacheComponent.CacheType.DISTRIBUTED);
+        cache.getProperties().put("hitRatio", 0.5);
+        architecture.addComponent(client);
+        architecture.addComponent(service);
+        architecture.addComponent(cache);
+        architecture.addLink(new Link("l1", client, service, LinkType.API_CALL));
+        architecture.addLink(new Link("l2", service, cache, LinkType.CACHE_LOOKUP));
+        architecture.addLink(new Link("l3", cache, service, LinkType.API_CALL));
+
+        QueueingReport report = solve(architecture, 10);
+
+        assertEquals(20.0, station(report, "api").getArrivalRatePerSecond(), 1e-9);
+        assertEquals(20.0, station(report, "cache").getArrivalRatePerSecond(), 1e-9);
+        assertTrue(Double.isFinite(report.getMeanLatencyMs()));
+    }
+
+    @Test
+    void testLargeCycle() {
+        // client -> api0 -> ... -> api19999 -> cache -> api0; half of the lookups go round again
+        Architecture architecture = new Architecture("arch", "arch");
+        Component client = new ClientComponent("client", "client");
+        Component cache = new CacheComponent("cache", "cache", CacheComponent.CacheType.DISTRIBUTED);
+        cache.getProperties().put("hitRatio", 0.5);
+        architecture.addComponent(client);
+        Component previous = client;
+        Component first = null;
+        for (int i = 0; i < 20_000; i++) {
+            Component next = api("api" + i, 4, 0.1);
+            architecture.addComponent(next);
+            architecture.addLink(new Link("l" + i, previous, next, LinkType.API_CALL));
+            first = first != null ? first : next;
+            previous = next;
+        }
+        architecture.addComponent(cache);
+        architecture.addLink(new Link("to-cache", previous, cache, LinkType.CACHE_LOOKUP));
+        architecture.addLink(new Link("miss", cache, first, LinkType.API_CALL));
+
+        QueueingReport report = solve(architecture, 10);
+
+        assertEquals(20.0, station(report, "api0").getArrivalRatePerSecond(), 1e-9);
+        assertEquals(20.0, station(report, "api19999").getArrivalRatePerSecond(), 1e-9);
+        assertEquals(20.0, station(report, "cache").getArrivalRatePerSecond(), 1e-9);
+        // Twice round the ring on average, taking the miss link once
+        double perPass = 0.0;
+        for (StationMetrics metrics : report.getStations()) {
+            perPass += metrics.getMeanResponseMs();
+        }
+        double linkLatency = 0.0;
+        for (Link link : architecture.getLinks()) {
+            linkLatency += CapacityProperties.linkLatencyMs(link);
+        }
+        double miss = CapacityProperties.linkLatencyMs(architecture.getLinks().get(architecture.getLinks().size() - 1));
+        double entry = CapacityProperties.linkLatencyMs(architecture.getLinks().get(0));
+        double expected = entry + 2 * (perPass + linkLatency - entry - miss) + miss;
+        assertEquals(expected, report.getMeanLatencyMs(), 1e-9 * expected);
+    }
+
+    @Test
+    void testCycleThatIsAlmostNeverLeftIsRejected() {
+        Architecture architecture = new Architecture("arch", "arch");
+        Component client = new ClientComponent("client", "client");
+        Component service = api("api", 4, 1.0);
+        Component cache = new CacheComponent("cache", "cache", CacheComponent.CacheType.DISTRIBUTED);
+        cache.getProperties().put("hitRatio", 1e-12);
+        architecture.addComponent(client);
+        architecture.addComponent(service);
+        architecture.addComponent(cache);
+        architecture.addLink(new Link("l1", client, service, LinkType.API_CALL));
+        architecture.addLink(new Link("l2", service, cache, LinkType.CACHE_LOOKUP));
+        architecture.addLink(new Link("l3", cache, service, LinkType.API_CALL));
+
+        assertThrows(IllegalArgumentException.class, () -> solve(architecture, 10));
+    }
+
+    @Test
+    void testSaturationIsReported() {
+        Architecture architecture = new Architecture("arch", "arch");
+        Component client = new ClientComponent("client", "client");
+        Component service = api("api", 1, 10.0);
+        architecture.addComponent(client);
+        architecture.addComponent(service);
+        architecture.addLink(new Link("l1", client, service, LinkType.API_CALL));
+
+        QueueingReport report = solve(architecture, 200);
+
+        assertFalse(report.isStable());
+        assertTrue(station(report, "api").isSaturated());
+        assertEquals(1, report.getWarnings().size());
+        assertEquals(Double.POSITIVE_INFINITY, report.getMeanLatencyMs());
+    }
+
+    @Test
+    void testAgreesWithDiscreteEventSimulation() {
+        Architecture architecture = new Architecture("arch", "arch");
+        Component client = new ClientComponent("client", "client");
+        Component gateway = api("gateway", 1, 0.0);
+        Component api1 = api("api1", 1, 8.0);
+        Component api2 = api("api2", 2, 8.0);
+        for (Component component : new Component[]{client, gateway, api1, api2}) {
+            architecture.addComponent(component);
+        }
+        architecture.addLink(new Link("l1", client, gateway, LinkType.API_CALL));
+        architecture.addLink(new Link("l2", gateway, api1, LinkType.API_CALL));
+        architecture.addLink(new Link("l3", gateway, api2, LinkType.API_CALL));
+
+        double analytical = solve(architecture, 150).getMeanLatencyMs();
+
+        DiscreteEventSimulator.SimulationConfig config = new DiscreteEventSimulator.SimulationConfig();
+        config.setRequestCount(200_000);
+        config.setArrivalRatePerSecond(150);
+        double simulated = new DiscreteEventSimulator(architecture, config).run().getLatency().getMeanMs();
+
+        assertEquals(analytical, simulated, analytical * 0.05);
+    }
+
+    @Test
+    void testLargeChain() {
+        Architecture architecture = new Architecture("arch", "arch");
+        Component previous = new ClientComponent("client", "client");
+        architecture.addComponent(previous);
+        for (int i = 0; i < 10_000; i++) {
+            Component next = api("api" + i, 2, 1.0);
+            architecture.addComponent(next);
+            architecture.addLink(new Link("l" + i, previous, next, LinkType.API_CALL));
+            previous = next;
+        }
+
+        QueueingReport report = solve(architecture, 100);
+
+        assertEquals(10_000, report.getStations().size());
+        assertEquals(100.0, station(report, "api9999").getArrivalRatePerSecond(), 1e-9);
+        assertTrue(report.isStable());
+    }
+}
@@ -0,0 +1,262 @@
+package com.systemsimulator.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.systemsimulator.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaggedEntityCodecTest {
+
+    // Wire types, as in the codec
+    private static final int VARINT = 0;
+    private static final int FIXED64 = 1;
+    private static final int BYTES = 2;
+    private static final int MESSAGE = 3;
+
+    private static int key(int field, int wireType) {
+        return field << 2 | wireType;
+    }
+
+    @Test
+    void testDocumentRoundTrip() throws Exception {
+        Component api = new APIServiceComponent("api", "API", APIServiceComponent.APIType.GRAPHQL);
+        api.getHeuristics().setScore(Parameter.LATENCY, 7.5);
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("zone", "b");
+        nested.put("weight", 0.5);
+        api.setProperties(new LinkedHashMap<>(Map.of("replicas", 3, "big", 1L << 40, "tls", true,
+                "tags", Arrays.asList("a", null, 2), "placement", nested)));
+        Component db = new DatabaseComponent("db", "DB", DatabaseComponent.DatabaseType.NOSQL);
+        Component external = new ExternalServiceComponent("ext", "Payments");
+        Link query = new Link("l1", api, db, LinkType.DATABASE_QUERY);
+        query.getHeuristics().setScore(Parameter.COST, 2.0);
+        Link outbound = new Link("l2", api, external, LinkType.API_CALL);
+
+        Architecture shop = new Architecture("shop", "Shop");
+        shop.addComponent(api);
+        shop.addComponent(db);
+        shop.addLink(query);
+        shop.addLink(outbound);
+        Architecture slim = new Architecture("slim", "Slim");
+        slim.addComponent(api);
+        slim.addLink(outbound);
+
+        BinaryWriter out = new BinaryWriter();
+        TaggedEntityCodec.writeArchitectures(out, List.of(shop, slim));
+        TaggedEntityCodec.Document document =
+                TaggedEntityCodec.readDocument(new BinaryReader(out.toByteArray()), id -> null);
+
+        assertEquals(3, document.getComponents().size(), "Each component is written once");
+        assertEquals(2, document.getLinks().size());
+        Architecture readShop = document.getArchitectures().get(0);
+        Architecture readSlim = document.getArchitectures().get(1);
+        assertEquals("Shop", readShop.getName());
+        Component readApi = readShop.getComponents().get(0);
+        assertSame(readApi, readSlim.getComponents().get(0));
+        assertSame(readShop.getLinks().get(1), readSlim.getLinks().get(0));
+        assertSame(readApi, readShop.getLinks().get(0).getSource());
+
+        assertEquals(APIServiceComponent.APIType.GRAPHQL, ((APIServiceComponent) readApi).getApiType());
+        assertEquals(7.5, readApi.getHeuristics().getScore(Parameter.LATENCY));
+        assertFalse(readApi.getHeuristics().hasScore(Parameter.COST));
+        assertEquals(api.getProperties(), readApi.getProperties());
+        assertEquals(3, readApi.getProperties().get("replicas"));
+        assertEquals(2.0, readShop.getLinks().get(0).getHeuristics().getScore(Parameter.COST));
+        assertEquals(LinkType.API_CALL, readSlim.getLinks().get(0).getType());
+        assertEquals("ext", readSlim.getLinks().get(0).getTarget().getId());
+
+        byte[] json = new ObjectMapper().writeValueAsBytes(List.of(shop, slim));
+        assertTrue(out.size() * 3 < json.length, "Binary " + out.size() + " bytes, JSON " + json.length);
+    }
+
+    @Test
+    void testEmbeddedMembersAreListed() {
+        Component client = new ClientComponent("client", "Client");
+        Component db = new DatabaseComponent("db", "DB", DatabaseComponent.DatabaseType.SQL);
+        Component stored = new CacheComponent("cache", "Cache", CacheComponent.CacheType.DISTRIBUTED);
+        Architecture architecture = new Architecture("arch", "Direct");
+        architecture.addComponent(client);
+        architecture.addComponent(stored);
+        architecture.addLink(new Link("l1", client, db, LinkType.DATABASE_QUERY));
+
+        // Only the architecture, with every member embedded rather than written at the top level
+        BinaryWriter out = new BinaryWriter();
+        TaggedEntityCodec.writeDocument(out, List.of(), List.of(), List.of(architecture));
+        TaggedEntityCodec.Document document = TaggedEntityCodec.readDocument(
+                new BinaryReader(out.toByteArray()), id -> id.equals("cache") ? stored : null);
+
+        assertEquals(1, document.getLinks().size());
+        assertSame(document.getArchitectures().get(0).getLinks().get(0), document.getLinks().get(0));
+        assertEquals(List.of("client", "cache", "db"),
+                document.getComponents().stream().map(Component::getId).toList());
+        assertSame(document.getComponents().get(2), document.getLinks().get(0).getTarget());
+    }
+
+    @Test
+    void testStreamedDocumentMatchesBufferedOne() throws Exception {
+        Architecture architecture = new Architecture("big", "Big");
+        List<Component> components = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            Component component = new APIServiceComponent("c" + i, "Service " + i, APIServiceComponent.APIType.REST);
+            components.add(component);
+            architecture.addComponent(component);
+        }
+        for (int i = 1; i < components.size(); i++) {
+            architecture.addLink(new Link("l" + i, components.get(i - 1), components.get(i), LinkType.API_CALL));
+        }
+
+        BinaryWriter buffered = new BinaryWriter();
+        TaggedEntityCodec.writeArchitectures(buffered, List.of(architecture));
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        TaggedEntityCodec.writeArchitectures(streamed, List.of(architecture));
+
+        assertTrue(buffered.size() > 64 * 1024, "Spans several flushes");
+        assertArrayEquals(buffered.toByteArray(), streamed.toByteArray());
+        byte[] bytes = streamed.toByteArray();
+        assertEquals(bytes.length, BinaryReader.of(new ByteArrayInputStream(bytes), bytes.length).remaining());
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryReader.of(new ByteArrayInputStream(bytes), bytes.length - 1));
+    }
+
+    @Test
+    void testOlderReaderSkipsWhatItDoesNotKnow() {
+        BinaryWriter out = new BinaryWriter();
+        out.writeBytes(new byte[] {'S', 'I', 'M', 'A'}, 0, 4).writeVarInt(1);
+        // A document field from a newer build
+        out.writeVarInt(key(9, BYTES)).writeString("future");
+
+        out.writeVarInt(key(1, MESSAGE));
+        out.writeVarInt(key(1, VARINT)).writeVarInt(99);                 // component type not known here
+        out.writeVarInt(key(2, BYTES)).writeString("robot");
+        out.writeVarInt(key(20, VARINT)).writeVarLong(Long.MAX_VALUE);
+        out.writeVarInt(key(21, FIXED64)).writeDouble(1.0);
+        out.writeVarInt(key(22, MESSAGE))
+                .writeVarInt(key(1, BYTES)).writeString("x")
+                .writeVarInt(key(2, MESSAGE)).writeVarInt(0)
+                .writeVarInt(0);
+        out.writeVarInt(key(5, MESSAGE))
+                .writeVarInt(key(1, FIXED64)).writeDouble(6.0)                 // first parameter
+                .writeVarInt(key(60, FIXED64)).writeDouble(9.0)                // parameter not known here
+                .writeVarInt(0);
+        out.writeVarInt(key(6, MESSAGE))
+                .writeVarInt(key(1, MESSAGE))
+                .writeVarInt(key(1, BYTES)).writeString("tags")
+                .writeVarInt(key(7, MESSAGE))
+                .writeVarInt(key(3, BYTES)).writeString("a")
+                .writeVarInt(key(15, VARINT)).writeVarInt(7)                   // value kind not known here
+                .writeVarInt(0)
+                .writeVarInt(0)
+                .writeVarInt(0);
+        out.writeVarInt(0);
+
+        out.writeVarInt(key(2, MESSAGE));
+        out.writeVarInt(key(1, BYTES)).writeString("l1");
+        out.writeVarInt(key(2, VARINT)).writeVarInt(99);                 // link type not known here
+        out.writeVarInt(key(3, BYTES)).writeString("robot");
+        out.writeVarInt(key(5, BYTES)).writeString("stored");
+        out.writeVarInt(0);
+        out.writeVarInt(0);
+
+        Component stored = new ClientComponent("stored", "Stored");
+        TaggedEntityCodec.Document document = TaggedEntityCodec.readDocument(
+                new BinaryReader(out.toByteArray()), id -> id.equals("stored") ? stored : null);
+
+        Component robot = document.getComponents().get(0);
+        assertEquals(ComponentType.EXTERNAL_SERVICE, robot.getType());
+        assertEquals("robot", robot.getId());
+        assertEquals(6.0, robot.getHeuristics().getScore(Parameter.values()[0]));
+        assertEquals(List.of("a"), robot.getProperties().get("tags"));
+        Link link = document.getLinks().get(0);
+        assertNull(link.getType());
+        assertSame(robot, link.getSource());
+        assertSame(stored, link.getTarget());
+    }
+
+    @Test
+    void testMissingFieldsKeepDefaults() {
+        BinaryWriter out = new BinaryWriter();
+        out.writeBytes(new byte[] {'S', 'I', 'M', 'A'}, 0, 4).writeVarInt(1);
+        out.writeVarInt(key(1, MESSAGE))
+                .writeVarInt(key(1, VARINT)).writeVarInt(ComponentType.CACHE.ordinal())
+                .writeVarInt(key(2, BYTES)).writeString("cache")
+                .writeVarInt(0);
+        out.writeVarInt(0);
+
+        Component cache = TaggedEntityCodec.readDocument(new BinaryReader(out.toByteArray()), id -> null)
+                .getComponents().get(0);
+        assertEquals(CacheComponent.CacheType.IN_MEMORY, ((CacheComponent) cache).getCacheType());
+        assertNotNull(cache.getHeuristics());
+        assertTrue(cache.getProperties().isEmpty());
+    }
+
+    @Test
+    void testRejectsForeignOrIncompatibleInput() {
+        assertThrows(IllegalArgumentException.class, () ->
+                TaggedEntityCodec.readDocument(new BinaryReader("{\"id\":1}".getBytes()), id -> null));
+        BinaryWriter newer = new BinaryWriter();
+        newer.writeBytes(new byte[] {'S', 'I', 'M', 'A'}, 0, 4).writeVarInt(2).writeVarInt(0);
+        assertThrows(IllegalArgumentException.class, () ->
+                TaggedEntityCodec.readDocument(new BinaryReader(newer.toByteArray()), id -> null));
+
+        BinaryWriter dangling = new BinaryWriter();
+        dangling.writeBytes(new byte[] {'S', 'I', 'M', 'A'}, 0, 4).writeVarInt(1)
+                .writeVarInt(key(2, MESSAGE))
+                .writeVarInt(key(3, BYTES)).writeString("missing")
+                .writeVarInt(0)
+                .writeVarInt(0);
+        assertThrows(IllegalArgumentException.class, () ->
+                TaggedEntityCodec.readDocument(new BinaryReader(dangling.toByteArray()), id -> null));
+    }
+
+    @Test
+    void testRejectsMalformedInput() {
+        BinaryWriter negativeType = document()
+                .writeVarInt(key(1, MESSAGE))
+                .writeVarInt(key(1, VARINT)).writeVarInt(-1)
+                .writeVarInt(0)
+                .writeVarInt(0);
+        assertThrows(IllegalArgumentException.class, () ->
+                TaggedEntityCodec.readDocument(new BinaryReader(negativeType.toByteArray()), id -> null));
+
+        BinaryWriter fieldZero = document()
+                .writeVarInt(key(1, MESSAGE))
+                .writeVarInt(key(5, MESSAGE))
+                .writeVarInt(key(0, FIXED64)).writeDouble(1.0)
+                .writeVarInt(0)
+                .writeVarInt(0)
+                .writeVarInt(0);
+        assertThrows(IllegalArgumentException.class, () ->
+                TaggedEntityCodec.readDocument(new BinaryReader(fieldZero.toByteArray()), id -> null));
+
+        // Unknown messages and property lists nested far deeper than any real document
+        BinaryWriter deepMessage = document();
+        for (int i = 0; i < 100_000; i++) {
+            deepMessage.writeVarInt(key(9, MESSAGE));
+        }
+        assertThrows(IllegalArgumentException.class, () ->
+                TaggedEntityCodec.readDocument(new BinaryReader(deepMessage.toByteArray()), id -> null));
+
+        BinaryWriter deepList = document()
+                .writeVarInt(key(1, MESSAGE))
+                .writeVarInt(key(6, MESSAGE))
+                .writeVarInt(key(1, MESSAGE));
+        for (int i = 0; i < 100_000; i++) {
+            deepList.writeVarInt(key(7, MESSAGE));
+        }
+        assertThrows(IllegalArgumentException.class, () ->
+                TaggedEntityCodec.readDocument(new BinaryReader(deepList.toByteArray()), id -> null));
+    }
+
+    private static BinaryWriter document() {
+        return new BinaryWriter().writeBytes(new byte[] {'S', 'I', 'M', 'A'}, 0, 4).writeVarInt(1);
+    }
+}
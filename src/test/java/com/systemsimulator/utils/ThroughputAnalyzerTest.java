@@ -0,0 +1,105 @@
+package com.systemsimulator.utils;
+
+import com.systemsimulator.model.*;
+import com.systemsimulator.utils.ThroughputAnalyzer.ComponentFlow;
+import com.systemsimulator.utils.ThroughputAnalyzer.ThroughputReport;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThroughputAnalyzerTest {
+
+    private static Component api(String id, int instances) {
+        Component api = new APIServiceComponent(id, id, APIServiceComponent.APIType.REST);
+        api.getProperties().put("instances", instances);
+        return api;
+    }
+
+    @Test
+    void testDatabaseIsTheMinCut() {
+        Component client = new ClientComponent("client", "client");
+        Component lb = new LoadBalancerComponent("lb", "lb", LoadBalancerComponent.LoadBalancerType.ROUND_ROBIN);
+        Component api1 = api("api1", 1);
+        Component api2 = api("api2", 1);
+        Component db = new DatabaseComponent("db", "db", DatabaseComponent.DatabaseType.SQL);
+        db.getProperties().put("instances", 3);
+
+        ThroughputReport report = ThroughputAnalyzer.analyze(List.of(client, lb, api1, api2, db), List.of(
+                new Link("l1", client, lb, LinkType.API_CALL),
+                new Link("l2", lb, api1, LinkType.API_CALL),
+                new Link("l3", lb, api2, LinkType.API_CALL),
+                new Link("l4", api1, db, LinkType.DATABASE_QUERY),
+                new Link("l5", api2, db, LinkType.DATABASE_QUERY)));
+
+        // APIs serve 2 x 200 req/s, the database 3 x 100 req/s
+        assertTrue(report.isBounded());
+        assertEquals(300.0, report.getMaxThroughputPerSecond(), 1e-6);
+        assertEquals(List.of("db"), report.getMinCutComponents().stream().map(ComponentFlow::getComponentId).toList());
+        assertTrue(report.getMinCutLinks().isEmpty());
+    }
+
+    @Test
+    void testLinkBandwidthAndUnboundedPaths() {
+        Component client = new ClientComponent("client", "client");
+        Component service = api("api", 4);
+        Link link = new Link("l1", client, service, LinkType.API_CALL);
+        link.getProperties().put("bandwidth", 50.0);
+
+        ThroughputReport limited = ThroughputAnalyzer.analyze(List.of(client, service), List.of(link));
+        assertEquals(50.0, limited.getMaxThroughputPerSecond(), 1e-6);
+        assertTrue(limited.getMinCutComponents().isEmpty());
+        assertEquals("l1", limited.getMinCutLinks().get(0).getLinkId());
+
+        service.getProperties().put("serviceTimeMs", 0.0);
+        link.getProperties().remove("bandwidth");
+        ThroughputReport unbounded = ThroughputAnalyzer.analyze(List.of(client, service), List.of(link));
+        assertFalse(unbounded.isBounded());
+        assertEquals(Double.POSITIVE_INFINITY, unbounded.getMaxThroughputPerSecond());
+    }
+
+    @Test
+    void testLayeredGraphWithHundredThousandLinks() {
+        int layers = 11;
+        int width = 100;
+        SplittableRandom random = new SplittableRandom(5);
+        Component client = new ClientComponent("client", "client");
+        List<Component> components = new ArrayList<>();
+        List<Link> links = new ArrayList<>();
+        components.add(client);
+
+        // Links are unbounded and every layer connects to all of the next, so the
+        // maximum flow is the capacity of the weakest layer
+        double weakestLayer = Double.POSITIVE_INFINITY;
+        Component[] previous = null;
+        for (int layer = 0; layer < layers; layer++) {
+            Component[] current = new Component[width];
+            double layerCapacity = 0.0;
+            for (int i = 0; i < width; i++) {
+                current[i] = api("api-" + layer + "-" + i, 1 + random.nextInt(layer == 6 ? 2 : 10));
+                layerCapacity += CapacityProperties.capacityPerSecond(current[i]);
+                components.add(current[i]);
+                if (previous == null) {
+                    links.add(new Link("in-" + i, client, current[i], LinkType.API_CALL));
+                } else {
+                    for (Component upstream : previous) {
+                        links.add(new Link(upstream.getId() + ">" + current[i].getId(), upstream, current[i],
+                                LinkType.API_CALL));
+                    }
+                }
+            }
+            weakestLayer = Math.min(weakestLayer, layerCapacity);
+            previous = current;
+        }
+
+        ThroughputReport report = ThroughputAnalyzer.analyze(components, links);
+
+        assertEquals(100_100, links.size());
+        assertEquals(weakestLayer, report.getMaxThroughputPerSecond(), 1e-6);
+        assertEquals(width, report.getMinCutComponents().size());
+        assertTrue(report.getMinCutComponents().stream().allMatch(c -> c.getComponentId().startsWith("api-6-")));
+    }
+}
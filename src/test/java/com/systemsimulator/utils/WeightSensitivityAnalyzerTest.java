@@ -0,0 +1,122 @@
+package com.systemsimulator.utils;
+
+import com.systemsimulator.model.Parameter;
+import com.systemsimulator.utils.WeightSensitivityAnalyzer.BreakEven;
+import com.systemsimulator.utils.WeightSensitivityAnalyzer.SensitivityReport;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeightSensitivityAnalyzerTest {
+
+    private static final int P = Parameter.values().length;
+
+    private static double[] scores(double latency, double cost, double rest) {
+        double[] scores = new double[P];
+        java.util.Arrays.fill(scores, rest);
+        scores[Parameter.LATENCY.ordinal()] = latency;
+        scores[Parameter.COST.ordinal()] = cost;
+        return scores;
+    }
+
+    @Test
+    void testMatrixProductMatchesWeightedAverage() {
+        SplittableRandom random = new SplittableRandom(9);
+        double[][] architectures = new double[7][P];
+        for (double[] architecture : architectures) {
+            for (int p = 0; p < P; p++) {
+                architecture[p] = random.nextDouble(0, 10);
+            }
+        }
+        double[][] weights = new double[3000][P];
+        for (double[] vector : weights) {
+            for (int p = 0; p < P; p++) {
+                vector[p] = random.nextDouble(0, 3);
+            }
+        }
+        String[] ids = {"a", "b", "c", "d", "e", "f", "g"};
+
+        double[][] result = new WeightSensitivityAnalyzer(ids, ids, architectures).scores(weights);
+
+        HeuristicAggregator aggregator = new HeuristicAggregator();
+        for (int a = 0; a < architectures.length; a++) {
+            for (int m = 0; m < weights.length; m += 97) {
+                assertEquals(aggregator.calculateOverallScore(architectures[a], weights[m]), result[a][m], 1e-9);
+            }
+        }
+    }
+
+    @Test
+    void testBreakEvenWeightSwapsRanking() {
+        // "fast" wins on latency, "cheap" on cost, otherwise equal
+        double[][] architectures = {scores(9, 3, 5), scores(4, 9, 5)};
+        String[] ids = {"fast", "cheap"};
+        WeightSensitivityAnalyzer analyzer = new WeightSensitivityAnalyzer(ids, ids, architectures);
+        double[] baseline = ParameterWeights.toVector(null);
+        baseline[Parameter.LATENCY.ordinal()] = 2.0;
+
+        SensitivityReport report = analyzer.analyze(baseline, new double[][]{baseline});
+
+        assertEquals("fast", report.getArchitectures().get(0).getArchitectureId());
+        BreakEven latency = report.getBreakEvens().stream()
+                .filter(b -> b.getParameter() == Parameter.LATENCY)
+                .findFirst()
+                .orElseThrow();
+        // 5 * w - 6 = 0 at w = 1.2; below that "cheap" wins
+        assertEquals(1.2, latency.getBreakEvenWeight(), 1e-12);
+        assertTrue(latency.isDecreaseFlips());
+        BreakEven cost = report.getBreakEvens().stream()
+                .filter(b -> b.getParameter() == Parameter.COST)
+                .findFirst()
+                .orElseThrow();
+        // 4 - 6 * w = 0 at w = 1 + 4/6
+        assertEquals(1.0 + 4.0 / 6.0, cost.getBreakEvenWeight(), 1e-12);
+        assertFalse(cost.isDecreaseFlips());
+
+        // Sweep latency weight over [0.005, 3.005]: "fast" wins only above 1.2
+        double[][] sweep = new double[301][];
+        for (int i = 0; i < sweep.length; i++) {
+            sweep[i] = baseline.clone();
+            sweep[i][Parameter.LATENCY.ordinal()] = i / 100.0 + 0.005;
+        }
+        report = analyzer.analyze(baseline, sweep);
+        assertEquals(181.0 / 301, report.getWinnerStability(), 1e-12);
+        assertEquals(181.0 / 301, report.getArchitectures().get(0).getWinShare(), 1e-12);
+        assertEquals(1, report.getArchitectures().get(1).getBestRank());
+    }
+
+    @Test
+    void testRankingOrdersManyArchitecturesWithTies() {
+        int count = 500;
+        SplittableRandom random = new SplittableRandom(7);
+        String[] ids = new String[count];
+        double[][] architectures = new double[count][];
+        for (int a = 0; a < count; a++) {
+            ids[a] = "a" + a;
+            // Few distinct values, so many ties are broken by index
+            architectures[a] = scores(random.nextInt(20), random.nextInt(20), 1.0);
+        }
+        double[] baseline = new double[P];
+        java.util.Arrays.fill(baseline, 1.0);
+        double[][] sweep = new double[50][];
+        for (int i = 0; i < sweep.length; i++) {
+            sweep[i] = baseline.clone();
+            sweep[i][Parameter.COST.ordinal()] = random.nextDouble(0.0, 5.0);
+        }
+
+        SensitivityReport report = new WeightSensitivityAnalyzer(ids, ids, architectures).analyze(baseline, sweep);
+
+        for (int r = 1; r < count; r++) {
+            WeightSensitivityAnalyzer.ArchitectureStability previous = report.getArchitectures().get(r - 1);
+            WeightSensitivityAnalyzer.ArchitectureStability current = report.getArchitectures().get(r);
+            assertEquals(r + 1, current.getBaselineRank());
+            assertTrue(previous.getBaselineScore() > current.getBaselineScore()
+                    || (previous.getBaselineScore() == current.getBaselineScore()
+                        && Integer.parseInt(previous.getArchitectureId().substring(1))
+                            < Integer.parseInt(current.getArchitectureId().substring(1))));
+        }
+        assertEquals(50, report.getSamples());
+    }
+}